@@ -0,0 +1,330 @@
+package com.spring.jpastudy.bulk;
+
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import com.spring.jpastudy.chap04_relation.entity.Employee;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.event.PurchasesCanceledEvent;
+import com.spring.jpastudy.chap05.repository.UserPurchaseSummaryRepository;
+import com.spring.jpastudy.chap06_querydsl.entity.Album;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import com.spring.jpastudy.chap06_querydsl.service.IdolStatsService;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.config.shard.ShardCluster.Shard;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/*
+    애그리거트(회원, 그룹, 부서) 대량 삭제
+
+    - CascadeType.REMOVE / orphanRemoval로 지우면 하이버네이트가 자식을 전부 로딩한 뒤
+      한 건마다 DELETE를 보내므로 자식이 많으면 오래 걸리고 그동안 락을 계속 잡고 있다.
+    - 여기서는 자식 테이블부터 부모 순서로 DELETE ... WHERE id IN (...)을 chunk-size 단위로 보내고
+      청크마다 새 트랜잭션(REQUIRES_NEW)으로 커밋해서 락을 짧게 유지한다.
+    - 중간에 실패하면 이미 커밋된 청크는 지워진 채로 남는다. 같은 id로 다시 호출하면 이어서 지운다.
+    - 지운 엔터티는 호출한 쪽 영속성 컨텍스트에서 분리(detach)하고 2차 캐시에서 비운다.
+      이미 로딩된 반대편 컬렉션(goods.purchaseList 등)에는 반영되지 않는다.
+    - 바깥 트랜잭션에서 지울 행을 수정해 두었다면 청크 트랜잭션이 그 락을 기다리게 되므로 주의
+    - 엔터티 리스너를 거치지 않으므로 구매 취소 이벤트는 직접 발행하고,
+      아이돌 통계는 다 지운 뒤 재동기화한다.
+    - 샤딩을 켜면 회원의 구매 기록과 구매 요약은 회원의 샤드에서 같은 방식으로 청크마다 커밋하며 지우고
+      회원만 주 DB에서 지운다.
+ */
+@Slf4j
+@Service
+public class BulkDeleteService {
+
+    private static final String GROUP_IDOLS_ROLE = Group.class.getName() + ".idols";
+    private static final String GROUP_ALBUMS_ROLE = Group.class.getName() + ".albums";
+
+    private final JdbcTemplate template;
+    private final TransactionTemplate chunkTx;
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final ApplicationEventPublisher publisher;
+    private final UserPurchaseSummaryRepository summaryRepository;
+    private final ObjectProvider<IdolStatsService> idolStats;
+    private final ObjectProvider<ShardCluster> shardCluster;
+
+    // 한 청크(트랜잭션)에서 지울 자식 행 수
+    private final int chunkSize;
+
+    public BulkDeleteService(JdbcTemplate template,
+                             PlatformTransactionManager transactionManager,
+                             EntityManager em,
+                             EntityManagerFactory emf,
+                             ApplicationEventPublisher publisher,
+                             UserPurchaseSummaryRepository summaryRepository,
+                             ObjectProvider<IdolStatsService> idolStats,
+                             ObjectProvider<ShardCluster> shardCluster,
+                             @Value("${jpastudy.bulk-delete.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk-size는 1 이상이어야 합니다.");
+        }
+        this.template = template;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.em = em;
+        this.emf = emf;
+        this.publisher = publisher;
+        this.summaryRepository = summaryRepository;
+        this.idolStats = idolStats;
+        this.shardCluster = shardCluster;
+        this.chunkSize = chunkSize;
+    }
+
+    // 회원과 구매 기록, 구매 요약 삭제
+    public Result deleteUser(long userId) {
+        requireExists("tbl_mtm_user", "user_id", userId, "회원");
+        Progress progress = new Progress();
+
+        ChunkCallback cancel = rows -> {
+            List<PurchaseCommand> canceled = new ArrayList<>(rows.size());
+            for (long[] row : rows) {
+                canceled.add(new PurchaseCommand(userId, row[1]));
+            }
+            publisher.publishEvent(new PurchasesCanceledEvent(canceled));
+        };
+        Integer summaries;
+        ShardCluster cluster = shardCluster.getIfAvailable();
+        if (cluster == null) {
+            deleteChildren(progress, ChildTable.PURCHASE, userId, cancel);
+            summaries = chunkTx.execute(status -> summaryRepository.delete(userId));
+        } else {
+            Shard shard = cluster.shardFor(userId);
+            deleteChildren(progress, ChildTable.PURCHASE, userId, cancel, shard.getTemplate(), shard.getTx());
+            summaries = shard.getTx().execute(status ->
+                    new UserPurchaseSummaryRepository(shard.getTemplate()).delete(userId));
+        }
+        progress.add("tbl_user_purchase_summary", summaries == null ? 0 : summaries);
+        deleteParent(progress, "tbl_mtm_user", "user_id", userId, User.class);
+
+        return progress.finish();
+    }
+
+    // 그룹과 소속 아이돌, 앨범 삭제
+    public Result deleteGroup(long groupId) {
+        requireExists("tbl_group", "group_id", groupId, "그룹");
+        Progress progress = new Progress();
+
+        // 중간에 실패해도 지워진 앨범을 가리키지 않도록 최신 앨범 포인터부터 비움 (시작시 다시 채워짐)
+        chunkTx.executeWithoutResult(status -> template.update(
+                "UPDATE tbl_group SET latest_album_id = NULL WHERE group_id = ?", groupId));
+
+        try {
+            deleteChildren(progress, ChildTable.IDOL, groupId, null);
+            deleteChildren(progress, ChildTable.ALBUM, groupId, null);
+            deleteParent(progress, "tbl_group", "group_id", groupId, Group.class);
+        } finally {
+            Cache cache = secondLevelCache();
+            cache.evictCollectionData(GROUP_IDOLS_ROLE, groupId);
+            cache.evictCollectionData(GROUP_ALBUMS_ROLE, groupId);
+            idolStats.ifAvailable(IdolStatsService::reconcile);
+        }
+
+        return progress.finish();
+    }
+
+    // 부서와 소속 사원 삭제
+    public Result deleteDepartment(long departmentId) {
+        requireExists("tbl_dept", "dept_id", departmentId, "부서");
+        Progress progress = new Progress();
+
+        deleteChildren(progress, ChildTable.EMPLOYEE, departmentId, null);
+        deleteParent(progress, "tbl_dept", "dept_id", departmentId, Department.class);
+
+        return progress.finish();
+    }
+
+    // 부모에 딸린 자식 행을 id 순서로 chunk-size 만큼씩 지움
+    private void deleteChildren(Progress progress, ChildTable child, long parentId, ChunkCallback callback) {
+        deleteChildren(progress, child, parentId, callback, template, chunkTx);
+    }
+
+    // target에서 지움 (샤드에서 지운 행은 엔터티가 아니므로 영속성 컨텍스트, 2차 캐시는 건드리지 않음)
+    private void deleteChildren(Progress progress, ChildTable child, long parentId, ChunkCallback callback,
+                                JdbcTemplate target, TransactionTemplate targetTx) {
+        while (true) {
+            List<long[]> rows = targetTx.execute(status -> {
+                List<long[]> selected = target.query(child.selectSql(), (rs, n) -> new long[]{
+                        rs.getLong(1), child.extraColumn == null ? 0 : rs.getLong(2)
+                }, parentId, chunkSize);
+                if (selected.isEmpty()) {
+                    return selected;
+                }
+                int deleted = target.update(child.deleteSql(selected.size()), ps -> {
+                    int index = 1;
+                    ps.setLong(index++, parentId);
+                    for (long[] row : selected) {
+                        ps.setLong(index++, row[0]);
+                    }
+                });
+                progress.add(child.table, deleted);
+                if (callback != null) {
+                    callback.onChunk(selected);
+                }
+                return selected;
+            });
+
+            if (rows == null || rows.isEmpty()) {
+                return;
+            }
+            if (target == template) {
+                List<Long> ids = new ArrayList<>(rows.size());
+                for (long[] row : rows) {
+                    ids.add(row[0]);
+                }
+                forget(child.entityClass, ids);
+            }
+            log.debug("{} 청크 삭제: {}건 (부모 id: {})", child.table, rows.size(), parentId);
+
+            if (rows.size() < chunkSize) {
+                return;
+            }
+        }
+    }
+
+    private void deleteParent(Progress progress, String table, String idColumn, long id, Class<?> entityClass) {
+        Integer deleted = chunkTx.execute(status -> template.update(
+                "DELETE FROM " + table + " WHERE " + idColumn + " = ?", id));
+        progress.add(table, deleted == null ? 0 : deleted);
+        forget(entityClass, Collections.singletonList(id));
+    }
+
+    private void requireExists(String table, String idColumn, long id, String name) {
+        Integer count = template.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE " + idColumn + " = ?", Integer.class, id);
+        if (count == null || count == 0) {
+            throw new NoSuchElementException("존재하지 않는 " + name + "입니다. id=" + id);
+        }
+    }
+
+    // 지워진 엔터티를 호출한 쪽 영속성 컨텍스트와 2차 캐시에서 제거
+    private void forget(Class<?> entityClass, List<Long> ids) {
+        // 캐시 대상이 아닌 엔터티는 하이버네이트가 무시함
+        Cache cache = secondLevelCache();
+        for (Long id : ids) {
+            cache.evictEntityData(entityClass, id);
+        }
+
+        // 바깥 트랜잭션이 없으면 남아있는 영속성 컨텍스트도 없음
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        PersistenceContext context = session.getPersistenceContextInternal();
+        for (Long id : ids) {
+            Object entity = context.getEntity(session.generateEntityKey(id, persister));
+            if (entity != null) {
+                em.detach(entity);
+            }
+        }
+    }
+
+    private Cache secondLevelCache() {
+        return emf.unwrap(SessionFactory.class).getCache();
+    }
+
+    // 자식 테이블 (extraColumn은 삭제 후처리에 필요한 추가 컬럼)
+    private enum ChildTable {
+        PURCHASE("tbl_mtm_purchase", "purchase_id", "user_id", "goods_id", Purchase.class),
+        IDOL("tbl_idol", "idol_id", "group_id", null, Idol.class),
+        ALBUM("tbl_album", "album_id", "group_id", null, Album.class),
+        EMPLOYEE("tbl_emp", "emp_id", "dept_id", null, Employee.class);
+
+        private final String table;
+        private final String idColumn;
+        private final String parentColumn;
+        private final String extraColumn;
+        private final Class<?> entityClass;
+
+        ChildTable(String table, String idColumn, String parentColumn, String extraColumn, Class<?> entityClass) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.parentColumn = parentColumn;
+            this.extraColumn = extraColumn;
+            this.entityClass = entityClass;
+        }
+
+        // (parent_column, id) 인덱스를 타도록 부모 조건 + id 순서로 끊어 읽고, 지울 행은 미리 잠금
+        String selectSql() {
+            return "SELECT " + idColumn + (extraColumn == null ? "" : ", " + extraColumn) +
+                    " FROM " + table +
+                    " WHERE " + parentColumn + " = ?" +
+                    " ORDER BY " + idColumn +
+                    " LIMIT ? FOR UPDATE";
+        }
+
+        String deleteSql(int rows) {
+            StringBuilder sql = new StringBuilder("DELETE FROM ")
+                    .append(table).append(" WHERE ").append(parentColumn).append(" = ? AND ")
+                    .append(idColumn).append(" IN (");
+            for (int i = 0; i < rows; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            return sql.append(')').toString();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkCallback {
+        // 청크 트랜잭션 안에서 호출됨 (행: [id, extraColumn 값])
+        void onChunk(List<long[]> rows);
+    }
+
+    // 삭제 진행 상황 집계
+    private static class Progress {
+        private final long start = System.nanoTime();
+        private final Map<String, Long> deletedRows = new LinkedHashMap<>();
+        private int chunks;
+
+        void add(String table, long rows) {
+            deletedRows.merge(table, rows, Long::sum);
+            chunks++;
+        }
+
+        Result finish() {
+            return new Result(deletedRows, chunks,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    // 테이블별 삭제 행 수 (삭제 순서대로), 커밋한 청크 수, 걸린 시간
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Result {
+        private Map<String, Long> deletedRows;
+        private int chunks;
+        private long elapsedMillis;
+    }
+}
@@ -1,5 +1,6 @@
 package com.spring.jpastudy.chap02.entity;
 
+import com.spring.jpastudy.chap02.repository.StudentGramListener;
 import lombok.*;
 import org.hibernate.annotations.GenericGenerator;
 
@@ -15,6 +16,8 @@ import java.util.UUID;
 @Builder
 
 @Entity
+// 이름/전공 부분 문자열 검색용 n-gram 색인 갱신
+@EntityListeners(StudentGramListener.class)
 @Table(name = "tbl_student")
 public class Student {
 
@@ -0,0 +1,27 @@
+package com.spring.jpastudy.chap02.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/*
+    학생 이름/전공의 2-gram 역색인 (gram → 학생 id 목록)
+
+    - 테이블은 db/student-gram.sql로 만든다. (컬럼 순서, 콜레이션 때문)
+    - JPQL 검색 조건(서브쿼리)에만 사용하고, 쓰기는 StudentGramIndex가 JDBC로 한다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(of = "id")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Immutable
+@Table(name = "tbl_student_gram",
+        indexes = @Index(name = "idx_student_gram_student", columnList = "stu_id"))
+public class StudentGram {
+
+    @EmbeddedId
+    private StudentGramId id;
+}
@@ -0,0 +1,27 @@
+package com.spring.jpastudy.chap02.entity;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+// 학생 n-gram 색인의 키 (검색 대상 필드, 2-gram, 학생)
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+
+@Embeddable
+public class StudentGramId implements Serializable {
+
+    @Column(name = "field", length = 1)
+    private String field;
+
+    @Column(name = "gram", length = 2)
+    private String gram;
+
+    @Column(name = "stu_id")
+    private String studentId;
+}
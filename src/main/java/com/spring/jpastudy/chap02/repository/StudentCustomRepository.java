@@ -0,0 +1,14 @@
+package com.spring.jpastudy.chap02.repository;
+
+import com.spring.jpastudy.chap02.entity.Student;
+
+import java.util.List;
+
+public interface StudentCustomRepository {
+
+    // where major like '%major%'
+    List<Student> findByMajorContaining(String major);
+
+    // 특정 이름이 포함된 학생 리스트 조회하기 (where name like %name% - %, _는 와일드카드)
+    List<Student> searchByNameWithJPQL(String name);
+}
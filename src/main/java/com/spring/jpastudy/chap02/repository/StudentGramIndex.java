@@ -0,0 +1,314 @@
+package com.spring.jpastudy.chap02.repository;
+
+import com.spring.jpastudy.chap02.entity.Student;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+    학생 이름/전공 부분 문자열 검색 (LIKE '%키워드%')을 2-gram 역색인으로 처리
+
+    - 저장: 학생이 저장/수정/삭제될 때 (StudentGramListener) 같은 트랜잭션에서 tbl_student_gram을 갱신한다.
+      롤백되면 색인도 같이 롤백되고, 같은 트랜잭션 안의 검색에도 바로 보인다.
+    - 검색: 키워드의 gram들이 모두 있는 학생만 후보로 고르고 (gram별 학생 목록 교집합)
+      원래 LIKE 조건으로 한 번 더 확인하므로 결과는 LIKE만 쓸 때와 같다.
+    - 한글은 두 글자 검색이 흔해서 trigram 대신 2-gram을 사용한다. (영문도 같은 규칙)
+    - gram은 소문자 + 악센트 제거로 정규화해서 DB 콜레이션(대소문자/악센트 무시)보다 넓게 잡는다.
+    - gram이 많은 키워드는 학생 수가 가장 적은 gram MAX_QUERY_GRAMS개만 교집합에 사용한다.
+    - 색인을 쓰지 않는 경우 (원래 LIKE로 처리)
+      1. 정규화한 키워드가 한 글자 이하
+      2. 와일드카드(%, _)를 그대로 쓰는 검색(searchByNameWithJPQL)에 와일드카드가 들어 있을 때
+      3. 시작 시 색인을 채우는 중일 때 (backfillIfEmpty가 끝나기 전)
+    - JPQL 벌크 삭제나 JDBC 저장처럼 엔터티를 거치지 않는 변경은 rebuild / reindex로 맞춘다.
+      (삭제된 학생의 gram은 남아 있어도 학생 테이블과 조인하면서 걸러지므로 결과는 틀리지 않음)
+ */
+@Repository
+@Slf4j
+public class StudentGramIndex {
+
+    public enum Field {
+        NAME("N", "name"),
+        MAJOR("M", "major");
+
+        private final String code;     // tbl_student_gram.field
+        private final String property; // Student 필드명
+
+        Field(String code, String property) {
+            this.code = code;
+            this.property = property;
+        }
+    }
+
+    // 검색 한 번에 교집합을 구할 최대 gram 수 (나머지는 LIKE 확인에 맡김)
+    public static final int MAX_QUERY_GRAMS = 4;
+
+    private static final char ESCAPE = '!';
+    private static final Pattern MARKS = Pattern.compile("\\p{Mn}+");
+
+    private static final String INSERT_SQL = "INSERT INTO tbl_student_gram (field, gram, stu_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate template;
+    private final EntityManager em;
+    private final TransactionTemplate chunkTx;
+    private final int rebuildChunkSize;
+
+    // 색인이 채워져 있어 검색에 쓸 수 있는지 (비어 있으면 backfill이 끝날 때까지 LIKE로 처리)
+    private volatile boolean ready;
+
+    public StudentGramIndex(JdbcTemplate template,
+                            EntityManager em,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${jpastudy.student-search.rebuild-chunk-size:10000}") int rebuildChunkSize) {
+        this.template = template;
+        this.em = em;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    // 키워드가 포함된 학생 목록
+    // literal이 false면 키워드 안의 %, _를 와일드카드로 취급 (JPQL LIKE %?1% 과 동일)
+    public List<Student> search(Field field, String keyword, boolean literal) {
+        SearchCondition condition = new SearchCondition(field, keyword, literal);
+        TypedQuery<Student> query = em.createQuery("SELECT s FROM Student s" + condition.where, Student.class);
+        condition.bind(query);
+        return query.getResultList();
+    }
+
+    // 키워드가 포함된 학생 페이지 (키워드는 문자 그대로 비교)
+    public Page<Student> search(Field field, String keyword, Pageable pageable) {
+        SearchCondition condition = new SearchCondition(field, keyword, true);
+        TypedQuery<Student> content = em.createQuery(
+                QueryUtils.applySorting("SELECT s FROM Student s" + condition.where, pageable.getSort(), "s"),
+                Student.class);
+        condition.bind(content);
+        if (pageable.isPaged()) {
+            content.setFirstResult((int) pageable.getOffset());
+            content.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(content.getResultList(), pageable, () -> {
+            TypedQuery<Long> count = em.createQuery("SELECT COUNT(s) FROM Student s" + condition.where, Long.class);
+            condition.bind(count);
+            return count.getSingleResult();
+        });
+    }
+
+    // 학생 한 명의 gram을 다시 저장 (현재 트랜잭션)
+    public void index(String studentId, String name, String major) {
+        remove(studentId);
+        List<Object[]> rows = new ArrayList<>();
+        addRows(rows, studentId, Field.NAME, name);
+        addRows(rows, studentId, Field.MAJOR, major);
+        if (!rows.isEmpty()) {
+            template.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    public void remove(String studentId) {
+        template.update("DELETE FROM tbl_student_gram WHERE stu_id = ?", studentId);
+    }
+
+    /*
+        처음 배포할 때처럼 색인이 비어 있으면 전체 재구축
+        - 이미 요청을 받는 중이므로 끝날 때까지 검색은 LIKE로 처리한다. (ready = false)
+        - 재구축 중 저장/수정된 학생은 StudentGramListener가 색인하고,
+          재구축 묶음은 잠금 읽기로 읽으므로 서로 덮어쓰지 않는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        boolean indexed = !template.queryForList("SELECT 1 FROM tbl_student_gram LIMIT 1").isEmpty();
+        boolean students = !template.queryForList("SELECT 1 FROM tbl_student LIMIT 1").isEmpty();
+        if (!indexed && students) {
+            long start = System.currentTimeMillis();
+            long count = rebuild();
+            log.info("학생 n-gram 색인 생성 - 학생 {}명, {}ms", count, System.currentTimeMillis() - start);
+        }
+        ready = true;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    // 전체 재구축
+    public long rebuild() {
+        return reindex(null, null);
+    }
+
+    /*
+        stu_id가 (fromExclusive, toInclusive] 범위인 학생의 gram을 다시 만든다. (null이면 범위 제한 없음)
+        - stu_id 순서로 rebuild-chunk-size명씩 나눠서 각각 새 트랜잭션으로 처리
+        - 범위 안에서 학생이 없는 gram(삭제된 학생)도 함께 지워진다.
+        - 묶음은 LOCK IN SHARE MODE로 읽어서, 그 사이 다른 트랜잭션이 같은 범위의 학생을 바꾸고
+          색인한 결과를 오래된 값으로 덮어쓰지 않게 한다. (묶음이 커밋될 때까지 기다림)
+     */
+    public long reindex(String fromExclusive, String toInclusive) {
+        long indexed = 0;
+        String lower = fromExclusive;
+        while (true) {
+            String chunkLower = lower;
+            List<Object[]> rows = new ArrayList<>();
+            String[] chunkUpper = new String[1];
+            int students = chunkTx.execute(status -> {
+                List<Object> args = new ArrayList<>();
+                String range = range(chunkLower, toInclusive, args);
+                args.add(rebuildChunkSize);
+                int[] n = {0};
+                template.query("SELECT stu_id, stu_name, major FROM tbl_student WHERE " + range +
+                        " ORDER BY stu_id LIMIT ? LOCK IN SHARE MODE", rs -> {
+                    String id = rs.getString(1);
+                    addRows(rows, id, Field.NAME, rs.getString(2));
+                    addRows(rows, id, Field.MAJOR, rs.getString(3));
+                    chunkUpper[0] = id;
+                    n[0]++;
+                }, args.toArray());
+
+                // 마지막 묶음이면 범위 끝까지 지움
+                String upper = n[0] < rebuildChunkSize ? toInclusive : chunkUpper[0];
+                List<Object> deleteArgs = new ArrayList<>();
+                template.update("DELETE FROM tbl_student_gram WHERE " + range(chunkLower, upper, deleteArgs),
+                        deleteArgs.toArray());
+                if (!rows.isEmpty()) {
+                    template.batchUpdate(INSERT_SQL, rows);
+                }
+                return n[0];
+            });
+            indexed += students;
+            if (students < rebuildChunkSize) {
+                return indexed;
+            }
+            lower = chunkUpper[0];
+        }
+    }
+
+    /*
+        n-gram 목록 (중복 제거, 나온 순서대로)
+        - 소문자 + 악센트 제거 (NFD로 분해해서 결합 문자를 지운 뒤 다시 NFC로 합침 - 한글 음절은 그대로)
+        - 코드포인트 기준이므로 이모지 같은 보충 문자도 한 글자로 취급
+     */
+    public static List<String> grams(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        int[] codePoints = normalize(text).codePoints().toArray();
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 2));
+        }
+        return new ArrayList<>(grams);
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return Normalizer.normalize(MARKS.matcher(decomposed).replaceAll(""), Normalizer.Form.NFC);
+    }
+
+    private static void addRows(List<Object[]> rows, String studentId, Field field, String text) {
+        for (String gram : grams(text)) {
+            rows.add(new Object[]{field.code, gram, studentId});
+        }
+    }
+
+    // 학생 수가 적은 gram부터 최대 MAX_QUERY_GRAMS개 (색인에 없는 gram은 0명)
+    List<String> pick(Field field, List<String> grams) {
+        if (grams.size() <= MAX_QUERY_GRAMS) {
+            return grams;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(field.code);
+        args.addAll(grams);
+        Map<String, Long> counts = new HashMap<>();
+        template.query("SELECT gram, COUNT(*) FROM tbl_student_gram WHERE field = ? AND gram IN (" +
+                String.join(", ", Collections.nCopies(grams.size(), "?")) + ") GROUP BY gram", rs -> {
+            counts.put(rs.getString(1), rs.getLong(2));
+        }, args.toArray());
+
+        List<String> picked = new ArrayList<>(grams);
+        picked.sort(Comparator.comparingLong(gram -> counts.getOrDefault(gram, 0L)));
+        return picked.subList(0, MAX_QUERY_GRAMS);
+    }
+
+    private static String range(String lower, String upper, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (lower != null) {
+            conditions.add("stu_id > ?");
+            args.add(lower);
+        }
+        if (upper != null) {
+            conditions.add("stu_id <= ?");
+            args.add(upper);
+        }
+        return conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions);
+    }
+
+    // LIKE 조건 + (색인을 쓸 수 있으면) gram별 후보 조건
+    private class SearchCondition {
+        private final String where;
+        private final String pattern;
+        private final Field field;
+        private final List<String> grams;
+
+        SearchCondition(Field field, String keyword, boolean literal) {
+            this.field = field;
+            boolean wildcard = keyword != null && (keyword.indexOf('%') >= 0 || keyword.indexOf('_') >= 0);
+            this.grams = ready && (literal || !wildcard) ? pick(field, grams(keyword)) : List.of();
+            this.pattern = keyword == null ? null : "%" + (literal ? escape(keyword) : keyword) + "%";
+
+            StringBuilder where = new StringBuilder(" WHERE s.").append(field.property).append(" LIKE :pattern");
+            if (literal) {
+                where.append(" ESCAPE '").append(ESCAPE).append("'");
+            }
+            for (int i = 0; i < grams.size(); i++) {
+                where.append(" AND s.id IN (SELECT g.id.studentId FROM StudentGram g")
+                        .append(" WHERE g.id.field = :field AND g.id.gram = :gram").append(i).append(")");
+            }
+            this.where = where.toString();
+        }
+
+        void bind(Query query) {
+            query.setParameter("pattern", pattern);
+            if (!grams.isEmpty()) {
+                query.setParameter("field", field.code);
+            }
+            for (int i = 0; i < grams.size(); i++) {
+                query.setParameter("gram" + i, grams.get(i));
+            }
+        }
+
+        private String escape(String keyword) {
+            StringBuilder escaped = new StringBuilder(keyword.length());
+            for (char c : keyword.toCharArray()) {
+                if (c == '%' || c == '_' || c == ESCAPE) {
+                    escaped.append(ESCAPE);
+                }
+                escaped.append(c);
+            }
+            return escaped.toString();
+        }
+    }
+}
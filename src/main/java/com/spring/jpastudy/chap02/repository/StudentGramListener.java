@@ -0,0 +1,34 @@
+package com.spring.jpastudy.chap02.repository;
+
+import com.spring.jpastudy.chap02.entity.Student;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*
+    Student 엔터티의 INSERT / UPDATE / DELETE를 감지해서 n-gram 색인을 갱신하는 리스너
+
+    - flush 중에 같은 트랜잭션(커넥션)으로 실행되므로 롤백되면 색인도 함께 롤백된다.
+    - 엔터티매니저 생성 중 순환참조를 피하기 위해 색인은 지연 조회한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentGramListener {
+
+    private final ObjectProvider<StudentGramIndex> gramIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void postSave(Student student) {
+        gramIndex.getObject().index(student.getId(), student.getName(), student.getMajor());
+    }
+
+    @PostRemove
+    public void postRemove(Student student) {
+        gramIndex.getObject().remove(student.getId());
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
-public interface StudentRepository extends JpaRepository<Student, String> {
+public interface StudentRepository extends JpaRepository<Student, String>, StudentCustomRepository {
 
 
     //    쿼리메서드: 메서드에 이름에 특별한 규칙을 적용하면 SQL이 규칙에 맞게 생성됨.
@@ -17,8 +17,7 @@ public interface StudentRepository extends JpaRepository<Student, String> {
 
     List<Student> findByCityAndMajor(String city, String major);
 
-    // where major like '%major%'
-    List<Student> findByMajorContaining(String major);
+    // where major like '%major%' - n-gram 색인 사용 (StudentCustomRepository)
 
     // where major like 'major%'
     List<Student> findByMajorStartingWith(String major);
@@ -56,9 +55,7 @@ public interface StudentRepository extends JpaRepository<Student, String> {
     @Query(value = "SELECT st FROM Student st WHERE st.city = ?1")
     Optional<Student> getByCityWithJPQL(String city);
 
-    // 특정 이름이 포함된 학생 리스트 조회하기
-    @Query("SELECT stu FROM Student stu WHERE stu.name LIKE %?1%")
-    List<Student> searchByNameWithJPQL(String name);
+    // 특정 이름이 포함된 학생 리스트 조회하기 - n-gram 색인 사용 (StudentCustomRepository)
 
 
     // JPQL로 갱신 처리하기
@@ -0,0 +1,25 @@
+package com.spring.jpastudy.chap02.repository;
+
+import com.spring.jpastudy.chap02.entity.Student;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// 부분 문자열 검색은 LIKE 전체 스캔 대신 n-gram 색인으로 후보를 줄인 뒤 LIKE로 확인
+@Repository
+@RequiredArgsConstructor
+public class StudentRepositoryImpl implements StudentCustomRepository {
+
+    private final StudentGramIndex gramIndex;
+
+    @Override
+    public List<Student> findByMajorContaining(String major) {
+        return gramIndex.search(StudentGramIndex.Field.MAJOR, major, true);
+    }
+
+    @Override
+    public List<Student> searchByNameWithJPQL(String name) {
+        return gramIndex.search(StudentGramIndex.Field.NAME, name, false);
+    }
+}
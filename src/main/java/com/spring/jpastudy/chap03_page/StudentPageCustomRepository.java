@@ -0,0 +1,11 @@
+package com.spring.jpastudy.chap03_page;
+
+import com.spring.jpastudy.chap02.entity.Student;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface StudentPageCustomRepository {
+
+    // 검색 + 페이징 (where name like '%name%')
+    Page<Student> findByNameContaining(String name, Pageable pageable);
+}
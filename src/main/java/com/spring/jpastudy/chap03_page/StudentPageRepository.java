@@ -7,13 +7,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 
-public interface StudentPageRepository extends JpaRepository<Student, String> {
+public interface StudentPageRepository extends JpaRepository<Student, String>, StudentPageCustomRepository {
 
     // 전체조회 상황에서 페이징 처리하기
 //    Page<Student> findAll(Pageable pageable);
 
-    // 검색 + 페이징
-    Page<Student> findByNameContaining(String name, Pageable pageable);
+    // 검색 + 페이징 - n-gram 색인 사용 (StudentPageCustomRepository)
 
 //    @Query("")
 //    Page<Student> getList();
@@ -0,0 +1,21 @@
+package com.spring.jpastudy.chap03_page;
+
+import com.spring.jpastudy.chap02.entity.Student;
+import com.spring.jpastudy.chap02.repository.StudentGramIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+// 이름 검색 + 페이징을 n-gram 색인으로 처리 (정렬, 전체 개수는 쿼리 메서드와 동일)
+@Repository
+@RequiredArgsConstructor
+public class StudentPageRepositoryImpl implements StudentPageCustomRepository {
+
+    private final StudentGramIndex gramIndex;
+
+    @Override
+    public Page<Student> findByNameContaining(String name, Pageable pageable) {
+        return gramIndex.search(StudentGramIndex.Field.NAME, name, pageable);
+    }
+}
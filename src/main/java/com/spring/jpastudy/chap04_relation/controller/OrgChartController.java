@@ -0,0 +1,62 @@
+package com.spring.jpastudy.chap04_relation.controller;
+
+import com.spring.jpastudy.chap04_relation.service.OrgChartService;
+import com.spring.jpastudy.chap04_relation.service.OrgChartSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// 조직도 조회 (DB 대신 스냅샷에서 응답, 최대 재구축 주기만큼 늦게 반영됨)
+@RestController
+@RequestMapping("/org-chart")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin
+public class OrgChartController {
+
+    private final OrgChartService orgChartService;
+
+    // 사원의 소속 부서 조회 요청
+    // ex) /org-chart/employees/3/department
+    @GetMapping("/employees/{employeeId}/department")
+    public ResponseEntity<?> departmentOf(@PathVariable Long employeeId) {
+        try {
+            return ResponseEntity.ok().body(orgChartService.getDepartmentOf(employeeId));
+        } catch (NoSuchElementException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    // 부서의 소속 사원 목록 조회 요청
+    // ex) /org-chart/departments/1/members
+    @GetMapping("/departments/{departmentId}/members")
+    public ResponseEntity<?> members(@PathVariable Long departmentId) {
+        try {
+            return ResponseEntity.ok().body(orgChartService.getMembers(departmentId));
+        } catch (NoSuchElementException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    // 스냅샷 즉시 재구축 요청
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        OrgChartSnapshot snapshot = orgChartService.rebuild();
+        return ResponseEntity.ok().body(Map.of(
+                "builtAt", snapshot.getBuiltAt(),
+                "employees", snapshot.getEmployeeCount(),
+                "departments", snapshot.getDepartmentCount(),
+                "bytes", snapshot.getSizeInBytes()));
+    }
+}
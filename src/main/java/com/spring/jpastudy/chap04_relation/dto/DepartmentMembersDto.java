@@ -0,0 +1,17 @@
+package com.spring.jpastudy.chap04_relation.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// 부서의 소속 사원 id 목록 (사원 id 오름차순)
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class DepartmentMembersDto {
+
+    private final Long departmentId;
+    private final String departmentName;
+    private final List<Long> employeeIds;
+}
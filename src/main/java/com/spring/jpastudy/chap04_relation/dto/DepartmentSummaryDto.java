@@ -0,0 +1,18 @@
+package com.spring.jpastudy.chap04_relation.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// 목록 화면용 부서 요약 (전체 사원 수 + 사원 번호 순으로 앞의 몇 명만)
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class DepartmentSummaryDto {
+
+    private final Long id;
+    private final String name;
+    private final long employeeCount;
+    private final List<String> employeeNames;
+}
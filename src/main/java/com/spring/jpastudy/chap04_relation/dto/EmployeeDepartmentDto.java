@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap04_relation.dto;
+
+import lombok.*;
+
+// 사원의 소속 부서 (부서가 없으면 departmentId, departmentName은 null)
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class EmployeeDepartmentDto {
+
+    private final Long employeeId;
+    private final Long departmentId;
+    private final String departmentName;
+}
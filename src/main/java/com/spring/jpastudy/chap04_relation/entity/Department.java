@@ -1,9 +1,14 @@
 package com.spring.jpastudy.chap04_relation.entity;
 
 import lombok.*;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.collection.spi.PersistentCollection;
 
 import javax.persistence.*;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Setter
@@ -44,17 +49,46 @@ public class Department {
 
           * ALL : 위의 내용을 전부 포함
 
+        - EXTRA: size(), isEmpty() 등은 목록 전체를 읽지 않고 COUNT 쿼리로 처리
      */
     @OneToMany(mappedBy = "department", fetch = FetchType.LAZY, orphanRemoval = true,
             cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
+    @LazyCollection(LazyCollectionOption.EXTRA)
     @Builder.Default
     private List<Employee> employees = new ArrayList<>();
 
+    // 목록에서 빼서 고아 객체로 삭제 (목록이 로딩 전이면 읽어서 뺌)
+    // 큰 부서에서 목록을 읽지 않고 지우려면 EmployeeTransferService.remove
     public void removeEmployee(Employee employee) {
         this.employees.remove(employee);
         employee.setDepartment(null);
     }
 
+    /*
+        사원을 삭제하지 않고 부서에서만 뺌 (FK를 비움)
+
+        - 목록이 로딩되어 있거나 changeDepartment로 쌓인 add가 있으면 목록에서도 뺀다.
+          쌓인 add는 하나만 골라서 뺄 수 없으므로 이때는 목록을 읽는다.
+        - 목록에서 빠진 사원을 고아 객체로 지우지 않도록 하이버네이트가 비교하는 스냅샷에서도 뺀다.
+        - 로딩 전이고 쌓인 add도 없으면 목록을 읽지 않는다.
+     */
+    public void detachEmployee(Employee employee) {
+        employee.setDepartment(null);
+        if (!(this.employees instanceof PersistentCollection)) {
+            this.employees.remove(employee); // 저장 전 부서
+            return;
+        }
+        PersistentCollection collection = (PersistentCollection) this.employees;
+        if (!collection.wasInitialized() && !collection.hasQueuedOperations()) {
+            return;
+        }
+        this.employees.remove(employee);
+        Serializable snapshot = collection.getStoredSnapshot();
+        if (snapshot instanceof Collection) {
+            ((Collection<?>) snapshot).remove(employee);
+        }
+    }
+
     public void addEmployee(Employee employee) {
         this.employees.add(employee);
         employee.setDepartment(this);
@@ -1,6 +1,7 @@
 package com.spring.jpastudy.chap04_relation.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 
@@ -30,9 +31,24 @@ public class Employee {
     @JoinColumn(name = "dept_id")  // FK 컬럼명
     private Department department;
 
+    /*
+        부서 이동 - 주인인 FK(dept_id)만 바꾸는 것이 기본
+
+        - 새 부서의 사원 목록에도 추가한다. mappedBy 쪽 목록은 로딩 전이면 add가 큐에만 쌓이고
+          (PersistentBag) 목록을 읽을 때 반영되므로 사원 수만큼 SELECT하지 않는다.
+        - 예전 부서가 로딩되어 있으면 detachEmployee로 목록(또는 쌓인 add)에서 뺀다. (삭제되지 않음)
+          로딩 전 프록시면 목록도 없으므로 건드리지 않는다.
+        - 여러 명을 옮길 때는 EmployeeTransferService (UPDATE 한 번)
+     */
     public void changeDepartment(Department department) {
+        Department previous = this.department;
+        if (previous != null && previous != department && Hibernate.isInitialized(previous)) {
+            previous.detachEmployee(this);
+        }
         this.department = department;
-        department.getEmployees().add(this);
+        if (department != null) {
+            department.getEmployees().add(this);
+        }
     }
 
 //    @ManyToOne
@@ -0,0 +1,92 @@
+package com.spring.jpastudy.chap04_relation.repository;
+
+import com.spring.jpastudy.chap04_relation.dto.DepartmentSummaryDto;
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    부서 + 소속 사원 목록을 페이지 단위로 조회하는 로더 (부서 번호 순)
+
+    - 컬렉션 fetch join에 페이징을 걸면 하이버네이트가 전체를 읽어서 메모리에서 자르고 (HHH000104)
+      부서 컬럼이 사원 행 수만큼 반복해서 전송된다.
+    - 1단계: 부서 번호만 페이징 / 2단계: 그 부서들만 사원과 fetch join (DISTINCT)
+      페이지 크기와 관계없이 쿼리 수는 일정하다. (부서 번호 1 + 개수 1 + 부서와 사원 1)
+    - 목록 화면처럼 사원 일부만 필요하면 loadSummaryPage를 사용 (부서당 사원 수 제한)
+ */
+@Repository
+@RequiredArgsConstructor
+public class DepartmentPageLoader {
+
+    // 부서별 사원 번호 순 앞의 maxEmployees명 + 전체 사원 수 (윈도우 함수, MariaDB 10.2 이상)
+    private static final String EMPLOYEE_PREVIEW_SQL =
+            "SELECT dept_id, emp_name, employee_count " +
+            "FROM (SELECT dept_id, emp_id, emp_name, " +
+            "             ROW_NUMBER() OVER (PARTITION BY dept_id ORDER BY emp_id) AS rn, " +
+            "             COUNT(*) OVER (PARTITION BY dept_id) AS employee_count " +
+            "      FROM tbl_emp " +
+            "      WHERE dept_id IN (:ids)) E " +
+            "WHERE rn <= :maxEmployees " +
+            "ORDER BY dept_id, emp_id";
+
+    private final DepartmentRepository departmentRepository;
+    private final EntityManager em;
+
+    // 부서 + 전체 사원 (department.getEmployees()가 초기화된 상태로 반환)
+    public Page<Department> loadPage(Pageable pageable) {
+        Page<Long> ids = departmentRepository.findIdPage(unsorted(pageable));
+        if (ids.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, ids.getTotalElements());
+        }
+        List<Department> departments = departmentRepository.findWithEmployeesByIdIn(ids.getContent());
+        return new PageImpl<>(departments, pageable, ids.getTotalElements());
+    }
+
+    // 부서 + 전체 사원 수 + 앞의 maxEmployees명 이름 (사원 컬렉션은 건드리지 않음)
+    public Page<DepartmentSummaryDto> loadSummaryPage(Pageable pageable, int maxEmployees) {
+        Page<Department> departments = departmentRepository.findAll(
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id")));
+        if (departments.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, departments.getTotalElements());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Long> counts = new HashMap<>();
+        Map<Long, List<String>> names = new HashMap<>();
+        for (Department d : departments) {
+            ids.add(d.getId());
+            counts.put(d.getId(), 0L);
+            names.put(d.getId(), new ArrayList<>());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(EMPLOYEE_PREVIEW_SQL)
+                .setParameter("ids", ids)
+                .setParameter("maxEmployees", maxEmployees)
+                .getResultList();
+        for (Object[] row : rows) {
+            Long deptId = ((Number) row[0]).longValue();
+            names.get(deptId).add((String) row[1]);
+            counts.put(deptId, ((Number) row[2]).longValue());
+        }
+
+        return departments.map(d -> new DepartmentSummaryDto(
+                d.getId(), d.getName(), counts.get(d.getId()), names.get(d.getId())));
+    }
+
+    // 부서 번호 순으로 고정 (정렬을 받으면 두 단계의 순서가 달라질 수 있음)
+    private static Pageable unsorted(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+    }
+}
@@ -1,14 +1,32 @@
 package com.spring.jpastudy.chap04_relation.repository;
 
 import com.spring.jpastudy.chap04_relation.entity.Department;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
 
-    @Query("SELECT d FROM Department d JOIN FETCH d.employees")
+    // DISTINCT: 사원 행마다 같은 부서가 반복해서 담기지 않게 (SQL에는 DISTINCT를 넘기지 않음)
+    @Query("SELECT DISTINCT d FROM Department d JOIN FETCH d.employees")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
     List<Department> getFetchEmployees();
 
-}
\ No newline at end of file
+    // 부서 번호만 페이징 (fetch join과 페이징을 같이 쓰면 메모리에서 페이징하므로 먼저 id만 자름)
+    @Query(value = "SELECT d.id FROM Department d ORDER BY d.id",
+            countQuery = "SELECT COUNT(d) FROM Department d")
+    Page<Long> findIdPage(Pageable pageable);
+
+    // 해당 부서들만 사원과 함께 조회 (사원이 없는 부서도 포함)
+    @Query("SELECT DISTINCT d FROM Department d LEFT JOIN FETCH d.employees WHERE d.id IN :ids ORDER BY d.id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    List<Department> findWithEmployeesByIdIn(@Param("ids") Collection<Long> ids);
+
+}
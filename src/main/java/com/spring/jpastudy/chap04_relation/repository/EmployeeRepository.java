@@ -1,10 +1,24 @@
 package com.spring.jpastudy.chap04_relation.repository;
 
+import com.spring.jpastudy.chap04_relation.entity.Department;
 import com.spring.jpastudy.chap04_relation.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
+    // 부서 사원 전체 이동 (영속성 컨텍스트 동기화는 EmployeeTransferService)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Employee e SET e.department = :to WHERE e.department.id = :fromDeptId")
+    int moveAll(@Param("fromDeptId") Long fromDeptId, @Param("to") Department to);
 
+    // 지정한 사원들 이동
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Employee e SET e.department = :to WHERE e.id IN :ids")
+    int moveAllById(@Param("ids") Collection<Long> ids, @Param("to") Department to);
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.spring.jpastudy.chap04_relation.service;
+
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import com.spring.jpastudy.chap04_relation.entity.Employee;
+import com.spring.jpastudy.chap04_relation.repository.DepartmentRepository;
+import com.spring.jpastudy.chap04_relation.repository.EmployeeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/*
+    사원 부서 이동 / 삭제 (부서의 사원 목록을 읽지 않음)
+
+    - 한 명: 사원과 부서 행만 읽고 FK만 바꿈 (Employee.changeDepartment)
+    - 여러 명: UPDATE tbl_emp SET dept_id = ? 한 번
+      벌크 UPDATE는 영속성 컨텍스트를 거치지 않으므로 실행 후에
+      이미 올라와 있는 이동 대상 사원은 다시 읽고 (refresh)
+      관련 부서의 로딩된 사원 목록은 버려서 다음 접근시 새로 읽게 한다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional
+public class EmployeeTransferService {
+
+    private final EmployeeRepository employeeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final EntityManager em;
+
+    // 사원 한 명 이동
+    public void transfer(Long employeeId, Long toDeptId) {
+        Employee employee = findEmployee(employeeId);
+        employee.changeDepartment(findDepartment(toDeptId));
+    }
+
+    // 사원 삭제 (부서 사원 목록이 로딩되어 있으면 목록에서도 뺌)
+    public void remove(Long employeeId) {
+        Employee employee = findEmployee(employeeId);
+        Department department = employee.getDepartment();
+        if (department != null && Hibernate.isInitialized(department)) {
+            department.detachEmployee(employee);
+        }
+        employeeRepository.delete(employee);
+    }
+
+    // 부서 사원 전체를 다른 부서로 이동, 이동한 사원 수 반환
+    public int transferAll(Long fromDeptId, Long toDeptId) {
+        findDepartment(fromDeptId);
+        Department to = findDepartment(toDeptId);
+        if (fromDeptId.equals(toDeptId)) {
+            return 0;
+        }
+
+        int moved = employeeRepository.moveAll(fromDeptId, to);
+        synchronize(e -> e.getDepartment() != null && fromDeptId.equals(e.getDepartment().getId()),
+                Set.of(fromDeptId, toDeptId));
+        log.debug("부서 이동: {}명 ({} → {})", moved, fromDeptId, toDeptId);
+        return moved;
+    }
+
+    // 지정한 사원들을 한 부서로 이동, 이동한 사원 수 반환
+    public int transfer(Collection<Long> employeeIds, Long toDeptId) {
+        Department to = findDepartment(toDeptId);
+        if (employeeIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> ids = new HashSet<>(employeeIds);
+
+        // 예전 부서들의 로딩된 목록도 버려야 하므로 UPDATE 전에 기억
+        Set<Long> touched = new HashSet<>();
+        touched.add(toDeptId);
+        for (Employee e : managed(Employee.class)) {
+            if (ids.contains(e.getId()) && e.getDepartment() != null) {
+                touched.add(e.getDepartment().getId());
+            }
+        }
+        touched.addAll(loadedDepartmentsContaining(ids));
+
+        int moved = employeeRepository.moveAllById(ids, to);
+        synchronize(e -> ids.contains(e.getId()), touched);
+        return moved;
+    }
+
+    // 벌크 UPDATE 이후 영속성 컨텍스트를 DB 상태에 맞춤
+    private void synchronize(Predicate<Employee> moved, Set<Long> deptIds) {
+        for (Employee e : managed(Employee.class)) {
+            if (moved.test(e)) {
+                em.refresh(e);
+            }
+        }
+        for (Department d : managed(Department.class)) {
+            // 사원 목록이 로딩된 부서만 다시 읽음 (refresh하면 목록은 로딩 전 상태가 됨)
+            if (deptIds.contains(d.getId()) && Hibernate.isInitialized(d.getEmployees())) {
+                em.refresh(d);
+            }
+        }
+    }
+
+    // 로딩된 사원 목록에 이동 대상이 들어있는 부서 (사원이 아직 컨텍스트에 없을 수도 있으므로 목록으로 확인)
+    private Set<Long> loadedDepartmentsContaining(Set<Long> employeeIds) {
+        Set<Long> found = new HashSet<>();
+        for (Department d : managed(Department.class)) {
+            if (!Hibernate.isInitialized(d.getEmployees())) {
+                continue;
+            }
+            for (Employee e : d.getEmployees()) {
+                if (employeeIds.contains(e.getId())) {
+                    found.add(d.getId());
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    // 현재 영속성 컨텍스트에 올라와 있는 해당 타입 엔터티 (프록시 제외)
+    private <T> List<T> managed(Class<T> type) {
+        List<T> found = new ArrayList<>();
+        Map.Entry<Object, EntityEntry>[] entries = em.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries();
+        for (Map.Entry<Object, EntityEntry> entry : entries) {
+            if (type.isInstance(entry.getKey())) {
+                found.add(type.cast(entry.getKey()));
+            }
+        }
+        return found;
+    }
+
+    private Employee findEmployee(Long employeeId) {
+        return employeeRepository.findById(employeeId)
+                .orElseThrow(() -> new NoSuchElementException("존재하지 않는 사원입니다. id=" + employeeId));
+    }
+
+    private Department findDepartment(Long deptId) {
+        return departmentRepository.findById(deptId)
+                .orElseThrow(() -> new NoSuchElementException("존재하지 않는 부서입니다. id=" + deptId));
+    }
+}
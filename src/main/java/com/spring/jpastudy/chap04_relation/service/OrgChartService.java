@@ -0,0 +1,230 @@
+package com.spring.jpastudy.chap04_relation.service;
+
+import com.spring.jpastudy.chap04_relation.dto.DepartmentMembersDto;
+import com.spring.jpastudy.chap04_relation.dto.EmployeeDepartmentDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+    조직도 스냅샷 관리 (사원 → 부서, 부서 → 사원 조회를 DB 대신 스냅샷 파일에서 처리)
+
+    - 주기적으로 tbl_emp, tbl_dept를 한 번씩 읽어서 새 파일(org-chart-<생성시각>.snap)을 만들고
+      매핑한 뒤 참조만 바꾼다. 조회 중인 스레드는 예전 스냅샷을 끝까지 읽으므로 잠금이 없다.
+    - 서버 시작시 디렉터리에 남은 가장 최근 파일을 바로 매핑하므로 DB를 읽기 전에도 조회할 수 있다.
+    - 파일 이름을 매번 바꾸는 이유: 매핑 중인 파일은 (특히 Windows에서) 덮어쓰거나 지울 수 없음
+      예전 파일 삭제가 실패하면 다음 재구축 때 다시 시도한다.
+    - 재구축 사이의 변경(부서 이동 등)은 다음 재구축까지 반영되지 않는다.
+ */
+@Service
+@Slf4j
+public class OrgChartService {
+
+    private static final String PREFIX = "org-chart-";
+    private static final String SUFFIX = ".snap";
+
+    private static final String DEPARTMENTS_SQL = "SELECT dept_id, dept_name FROM tbl_dept ORDER BY dept_id";
+    private static final String EMPLOYEES_SQL = "SELECT emp_id, dept_id FROM tbl_emp ORDER BY emp_id";
+
+    private final JdbcTemplate template;
+    private final TransactionTemplate readTx;
+    private final Path directory;
+
+    // 현재 스냅샷 (재구축시 통째로 교체)
+    private volatile OrgChartSnapshot current;
+
+    public OrgChartService(JdbcTemplate template,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${jpastudy.org-chart.directory:./data/org-chart}") String directory) {
+        this.template = template;
+        // 두 테이블을 같은 시점으로 읽기 위해 한 트랜잭션에서 조회
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.directory = Paths.get(directory);
+        this.current = loadLatest();
+    }
+
+    // 사원의 부서
+    public EmployeeDepartmentDto getDepartmentOf(long employeeId) {
+        OrgChartSnapshot snapshot = snapshot();
+        long departmentId = snapshot.departmentOf(employeeId);
+        if (departmentId == OrgChartSnapshot.NOT_FOUND) {
+            throw new NoSuchElementException("존재하지 않는 사원입니다. id=" + employeeId);
+        }
+        if (departmentId == OrgChartSnapshot.NO_DEPARTMENT) {
+            return new EmployeeDepartmentDto(employeeId, null, null);
+        }
+        int index = snapshot.indexOfDepartment(departmentId);
+        return new EmployeeDepartmentDto(employeeId, departmentId, snapshot.departmentName(index));
+    }
+
+    // 부서의 사원 id 목록 (사원 id 오름차순)
+    public DepartmentMembersDto getMembers(long departmentId) {
+        OrgChartSnapshot snapshot = snapshot();
+        int index = snapshot.indexOfDepartment(departmentId);
+        if (index < 0) {
+            throw new NoSuchElementException("존재하지 않는 부서입니다. id=" + departmentId);
+        }
+        List<Long> members = new ArrayList<>(snapshot.memberCount(index));
+        for (int i = 0; i < snapshot.memberCount(index); i++) {
+            members.add(snapshot.memberAt(index, i));
+        }
+        return new DepartmentMembersDto(departmentId, snapshot.departmentName(index), members);
+    }
+
+    // 현재 스냅샷 (아직 한 번도 만들지 않았으면 예외)
+    public OrgChartSnapshot snapshot() {
+        OrgChartSnapshot snapshot = current;
+        if (snapshot == null) {
+            throw new IllegalStateException("조직도 스냅샷이 아직 만들어지지 않았습니다.");
+        }
+        return snapshot;
+    }
+
+    // DB를 읽어서 새 스냅샷을 만들고 교체
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jpastudy.org-chart.rebuild-interval-ms:300000}",
+            initialDelayString = "${jpastudy.org-chart.rebuild-interval-ms:300000}")
+    public synchronized OrgChartSnapshot rebuild() {
+        long builtAt = System.currentTimeMillis();
+        // 같은 밀리초에 두 번 만들면 파일 이름이 겹치므로 이전 스냅샷보다 항상 크게
+        OrgChartSnapshot previous = current;
+        if (previous != null && builtAt <= previous.getBuiltAt()) {
+            builtAt = previous.getBuiltAt() + 1;
+        }
+        Path file = directory.resolve(PREFIX + builtAt + SUFFIX);
+        Path temp = directory.resolve(PREFIX + builtAt + SUFFIX + ".tmp");
+
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(temp);
+            writeFromDatabase(temp, builtAt);
+            // 다 쓴 파일만 .snap 이름을 가지므로 중간에 죽어도 반쯤 쓴 파일을 읽지 않음
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            OrgChartSnapshot fresh = OrgChartSnapshot.open(file);
+            this.current = fresh;
+            log.debug("조직도 스냅샷 교체 - 사원 {}명, 부서 {}개, {}바이트",
+                    fresh.getEmployeeCount(), fresh.getDepartmentCount(), fresh.getSizeInBytes());
+            deleteOlderThan(fresh);
+            return fresh;
+        } catch (IOException e) {
+            throw new UncheckedIOException("조직도 스냅샷을 만들지 못했습니다: " + file, e);
+        }
+    }
+
+    private void writeFromDatabase(Path file, long builtAt) throws IOException {
+        IOException[] failure = new IOException[1];
+        readTx.executeWithoutResult(status -> {
+            int departments = count("tbl_dept");
+            long[] departmentIds = new long[departments];
+            String[] departmentNames = new String[departments];
+            int[] d = {0};
+            template.query(DEPARTMENTS_SQL, rs -> {
+                if (d[0] < departments) {
+                    departmentIds[d[0]] = rs.getLong(1);
+                    departmentNames[d[0]] = rs.getString(2);
+                    d[0]++;
+                }
+            });
+
+            int employees = count("tbl_emp");
+            long[] employeeIds = new long[employees];
+            long[] employeeDeptIds = new long[employees];
+            int[] e = {0};
+            template.query(EMPLOYEES_SQL, rs -> {
+                if (e[0] < employees) {
+                    employeeIds[e[0]] = rs.getLong(1);
+                    employeeDeptIds[e[0]] = rs.getLong(2); // NULL이면 0 (NO_DEPARTMENT)
+                    e[0]++;
+                }
+            });
+
+            try {
+                OrgChartSnapshot.write(file, builtAt, employeeIds, employeeDeptIds, departmentIds, departmentNames);
+            } catch (IOException ex) {
+                failure[0] = ex;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private int count(String table) {
+        Integer count = template.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    // 디렉터리에서 읽을 수 있는 가장 최근 스냅샷 (없으면 null)
+    private OrgChartSnapshot loadLatest() {
+        List<Path> files = snapshotFiles();
+        files.sort((a, b) -> Long.compare(builtAtOf(b), builtAtOf(a)));
+        for (Path file : files) {
+            try {
+                OrgChartSnapshot snapshot = OrgChartSnapshot.open(file);
+                log.info("조직도 스냅샷 로딩: {} (사원 {}명, 부서 {}개)",
+                        file.getFileName(), snapshot.getEmployeeCount(), snapshot.getDepartmentCount());
+                return snapshot;
+            } catch (IOException | IllegalStateException e) {
+                log.warn("조직도 스냅샷을 읽지 못해 건너뜀: {} ({})", file, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void deleteOlderThan(OrgChartSnapshot keep) {
+        for (Path file : snapshotFiles()) {
+            if (builtAtOf(file) < keep.getBuiltAt()) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.debug("예전 조직도 스냅샷 삭제 실패 (다음에 다시 시도): {}", file);
+                }
+            }
+        }
+    }
+
+    private List<Path> snapshotFiles() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                if (builtAtOf(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("조직도 스냅샷 디렉터리를 읽지 못했습니다: {}", directory, e);
+        }
+        return files;
+    }
+
+    // 파일 이름의 생성 시각 (형식이 다르면 -1)
+    private static long builtAtOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.spring.jpastudy.chap04_relation.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/*
+    사원 → 부서, 부서 → 사원 목록 조회용 조직도 스냅샷 (읽기 전용 파일을 메모리 매핑)
+
+    - 한 번 만들면 바뀌지 않으므로 여러 스레드가 잠금 없이 읽는다.
+    - 조회는 매핑된 파일에서 id 배열을 이진 탐색하고 절대 위치로 읽으므로 객체를 만들지 않는다.
+      (부서 이름, membersOf처럼 결과를 새로 만드는 메서드 제외)
+    - 힙 밖(페이지 캐시)에 있으므로 사원 수가 늘어도 GC 대상이 아니고, 재시작하면 파일만 다시 매핑하면 된다.
+
+    파일 구성 (빅엔디언)
+    [헤더 40바이트] MAGIC, VERSION, 생성 시각(long), 사원 수 E, 부서 수 D, 부서 소속 사원 수 M, 이름 바이트 수 N, 본문 CRC32, (빈칸)
+    [본문] long[E] 사원 id (오름차순)
+           long[D] 부서 id (오름차순)
+           long[M] 부서별 사원 id (부서 순서대로, 부서 안에서는 오름차순)
+           int[E]  사원의 부서 번호 (부서 id 배열의 위치, 없으면 -1)
+           int[D + 1] 부서별 사원 시작 위치
+           int[D + 1] 부서 이름 시작 위치
+           byte[N] 부서 이름 (UTF-8)
+ */
+public final class OrgChartSnapshot {
+
+    // 사원이 없을 때 departmentOf의 반환값
+    public static final long NOT_FOUND = -1L;
+
+    // 사원은 있지만 부서가 없을 때 departmentOf의 반환값 (부서 id는 1부터)
+    public static final long NO_DEPARTMENT = 0L;
+
+    private static final int MAGIC = 0x4F524743; // "ORGC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long builtAt;
+    private final int employeeCount;
+    private final int departmentCount;
+
+    // 구역별 시작 위치 (바이트)
+    private final int employeeIdsAt;
+    private final int departmentIdsAt;
+    private final int membersAt;
+    private final int employeeDeptAt;
+    private final int memberOffsetsAt;
+    private final int nameOffsetsAt;
+    private final int namesAt;
+
+    private OrgChartSnapshot(Path file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("조직도 스냅샷 파일이 아닙니다: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("지원하지 않는 조직도 스냅샷 버전입니다: " + buffer.getInt(4));
+        }
+        this.builtAt = buffer.getLong(8);
+        this.employeeCount = buffer.getInt(16);
+        this.departmentCount = buffer.getInt(20);
+        int memberCount = buffer.getInt(24);
+        int nameBytes = buffer.getInt(28);
+
+        long employeeDept = HEADER_SIZE + 8L * (employeeCount + departmentCount + memberCount);
+        long memberOffsets = employeeDept + 4L * employeeCount;
+        long nameOffsets = memberOffsets + 4L * (departmentCount + 1);
+        long names = nameOffsets + 4L * (departmentCount + 1);
+        if (names + nameBytes != buffer.capacity()) {
+            throw new IllegalStateException("조직도 스냅샷 파일 크기가 맞지 않습니다: " + file);
+        }
+        this.employeeIdsAt = HEADER_SIZE;
+        this.departmentIdsAt = employeeIdsAt + 8 * employeeCount;
+        this.membersAt = departmentIdsAt + 8 * departmentCount;
+        this.employeeDeptAt = (int) employeeDept;
+        this.memberOffsetsAt = (int) memberOffsets;
+        this.nameOffsetsAt = (int) nameOffsets;
+        this.namesAt = (int) names;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(32)) {
+            throw new IllegalStateException("조직도 스냅샷 파일이 손상되었습니다: " + file);
+        }
+    }
+
+    // 파일을 읽기 전용으로 매핑 (채널을 닫아도 매핑은 유지됨)
+    public static OrgChartSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("조직도 스냅샷 파일이 너무 큽니다: " + file);
+            }
+            return new OrgChartSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /*
+        스냅샷 파일 쓰기
+
+        - employeeIds, departmentIds는 오름차순, employeeDeptIds는 사원별 부서 id (없으면 NO_DEPARTMENT)
+        - 목록에 없는 부서를 가리키는 사원은 부서 없음으로 기록
+     */
+    public static void write(Path file, long builtAt,
+                             long[] employeeIds, long[] employeeDeptIds,
+                             long[] departmentIds, String[] departmentNames) throws IOException {
+        int employees = employeeIds.length;
+        int departments = departmentIds.length;
+
+        // 사원의 부서 번호 + 부서별 사원 수 → 시작 위치 (계수 정렬)
+        int[] employeeDept = new int[employees];
+        int[] memberOffsets = new int[departments + 1];
+        for (int i = 0; i < employees; i++) {
+            int index = employeeDeptIds[i] == NO_DEPARTMENT ? -1 : Arrays.binarySearch(departmentIds, employeeDeptIds[i]);
+            if (index >= 0) {
+                employeeDept[i] = index;
+                memberOffsets[index + 1]++;
+            } else {
+                employeeDept[i] = -1;
+            }
+        }
+        for (int d = 0; d < departments; d++) {
+            memberOffsets[d + 1] += memberOffsets[d];
+        }
+        // 사원 id 오름차순으로 채우므로 부서 안에서도 오름차순
+        long[] members = new long[memberOffsets[departments]];
+        int[] next = Arrays.copyOf(memberOffsets, departments);
+        for (int i = 0; i < employees; i++) {
+            if (employeeDept[i] >= 0) {
+                members[next[employeeDept[i]]++] = employeeIds[i];
+            }
+        }
+
+        byte[][] names = new byte[departments][];
+        int[] nameOffsets = new int[departments + 1];
+        for (int d = 0; d < departments; d++) {
+            names[d] = departmentNames[d] == null ? new byte[0] : departmentNames[d].getBytes(StandardCharsets.UTF_8);
+            nameOffsets[d + 1] = nameOffsets[d] + names[d].length;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            channel.position(HEADER_SIZE);
+            // 헤더를 마저 써야 하므로 스트림은 닫지 않고 flush만 함
+            OutputStream channelOut = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(channelOut, crc), 1 << 16));
+            writeLongs(out, employeeIds);
+            writeLongs(out, departmentIds);
+            writeLongs(out, members);
+            writeInts(out, employeeDept);
+            writeInts(out, memberOffsets);
+            writeInts(out, nameOffsets);
+            for (byte[] name : names) {
+                out.write(name);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(builtAt)
+                    .putInt(employees)
+                    .putInt(departments)
+                    .putInt(members.length)
+                    .putInt(nameOffsets[departments])
+                    .putInt((int) crc.getValue());
+            header.clear();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    // 사원의 부서 id (사원이 없으면 NOT_FOUND, 부서가 없으면 NO_DEPARTMENT)
+    public long departmentOf(long employeeId) {
+        int e = search(employeeIdsAt, employeeCount, employeeId);
+        if (e < 0) {
+            return NOT_FOUND;
+        }
+        int d = buffer.getInt(employeeDeptAt + 4 * e);
+        return d < 0 ? NO_DEPARTMENT : departmentIdAt(d);
+    }
+
+    // 부서 id → 부서 번호 (없으면 -1), 아래 번호 기반 메서드에 사용
+    public int indexOfDepartment(long departmentId) {
+        return search(departmentIdsAt, departmentCount, departmentId);
+    }
+
+    public long departmentIdAt(int departmentIndex) {
+        return buffer.getLong(departmentIdsAt + 8 * departmentIndex);
+    }
+
+    public int memberCount(int departmentIndex) {
+        return memberOffset(departmentIndex + 1) - memberOffset(departmentIndex);
+    }
+
+    // 부서의 i번째 사원 id (사원 id 오름차순)
+    public long memberAt(int departmentIndex, int i) {
+        return buffer.getLong(membersAt + 8 * (memberOffset(departmentIndex) + i));
+    }
+
+    public String departmentName(int departmentIndex) {
+        int from = buffer.getInt(nameOffsetsAt + 4 * departmentIndex);
+        int to = buffer.getInt(nameOffsetsAt + 4 * (departmentIndex + 1));
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(namesAt + from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 부서의 사원 id 목록 (부서가 없으면 null)
+    public long[] membersOf(long departmentId) {
+        int d = indexOfDepartment(departmentId);
+        if (d < 0) {
+            return null;
+        }
+        long[] members = new long[memberCount(d)];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = memberAt(d, i);
+        }
+        return members;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int getEmployeeCount() {
+        return employeeCount;
+    }
+
+    public int getDepartmentCount() {
+        return departmentCount;
+    }
+
+    public int getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private int memberOffset(int departmentIndex) {
+        return buffer.getInt(memberOffsetsAt + 4 * departmentIndex);
+    }
+
+    // 오름차순 long 배열 구역에서 key의 위치 (없으면 -1)
+    private int search(int at, int length, long key) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong(at + 8 * mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
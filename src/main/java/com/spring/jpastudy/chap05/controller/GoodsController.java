@@ -0,0 +1,113 @@
+package com.spring.jpastudy.chap05.controller;
+
+import com.spring.jpastudy.chap05.dto.BuyerSetDto;
+import com.spring.jpastudy.chap05.dto.CoPurchaseDto;
+import com.spring.jpastudy.chap05.dto.GoodsPurchaseCountDto;
+import com.spring.jpastudy.chap05.dto.TrendingGoodsDto;
+import com.spring.jpastudy.chap05.service.BuyerBitmapIndex;
+import com.spring.jpastudy.chap05.service.CoPurchaseService;
+import com.spring.jpastudy.chap05.service.GoodsPurchaseCountService;
+import com.spring.jpastudy.chap05.service.TrendingGoodsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/goods")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin
+public class GoodsController {
+
+    private final CoPurchaseService coPurchaseService;
+    private final GoodsPurchaseCountService goodsPurchaseCountService;
+    private final TrendingGoodsService trendingGoodsService;
+    private final BuyerBitmapIndex buyerBitmapIndex;
+
+    // 상품 구매자 집합 연산 요청
+    // ex) /goods/buyer-sets?op=and&goodsIds=1,2     → 1, 2번 상품을 모두 산 회원
+    //     /goods/buyer-sets?op=andnot&goodsIds=1,2  → 1번은 샀지만 2번은 안 산 회원
+    //     /goods/buyer-sets?op=or&goodsIds=1&limit=0 → 1번 상품을 산 회원 수만
+    @GetMapping("/buyer-sets")
+    public ResponseEntity<?> buyerSets(
+            @RequestParam String op,
+            @RequestParam List<Long> goodsIds,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        BuyerBitmapIndex.Operation operation;
+        try {
+            operation = BuyerBitmapIndex.Operation.valueOf(op.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("op는 and, or, andnot 중 하나여야 합니다.");
+        }
+        if (goodsIds.isEmpty() || goodsIds.size() > 20 || limit < 0 || limit > 10_000) {
+            return ResponseEntity.badRequest().body("goodsIds 또는 limit 파라미터가 올바르지 않습니다.");
+        }
+
+        BuyerSetDto buyers = buyerBitmapIndex.query(operation, goodsIds, limit);
+        return ResponseEntity.ok().body(buyers);
+    }
+
+    // 구매자 비트맵 인덱스 메모리 현황 조회
+    @GetMapping("/buyer-sets/stats")
+    public ResponseEntity<?> buyerSetStats() {
+        return ResponseEntity.ok().body(buyerBitmapIndex.getStats());
+    }
+
+    // 실시간 인기 상품 조회 요청
+    // ex) /goods/trending?window=1h&k=20  (window: 10m, 30m, 1h ...)
+    @GetMapping("/trending")
+    public ResponseEntity<?> trending(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "20") int k) {
+
+        Duration duration;
+        try {
+            duration = DurationStyle.SIMPLE.parse(window, ChronoUnit.MINUTES);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("window 파라미터가 올바르지 않습니다.");
+        }
+        if (duration.toMinutes() < 1 || duration.compareTo(trendingGoodsService.getMaxWindow()) > 0
+                || k < 1 || k > TrendingGoodsService.MAX_K) {
+            return ResponseEntity.badRequest().body("window 또는 k 파라미터가 올바르지 않습니다.");
+        }
+
+        List<TrendingGoodsDto> goods = trendingGoodsService.getTrending(duration, k);
+        return ResponseEntity.ok().body(goods);
+    }
+
+    // 이 상품을 산 회원이 함께 산 상품 조회 요청
+    // ex) /goods/1/also-bought?k=10
+    @GetMapping("/{goodsId}/also-bought")
+    public ResponseEntity<?> alsoBought(
+            @PathVariable Long goodsId,
+            @RequestParam(defaultValue = "10") int k) {
+
+        if (k < 1 || k > CoPurchaseService.TOP_K_CACHE_SIZE) {
+            return ResponseEntity.badRequest().body("k 파라미터가 올바르지 않습니다.");
+        }
+
+        List<CoPurchaseDto> goods = coPurchaseService.getAlsoBought(goodsId, k);
+        return ResponseEntity.ok().body(goods);
+    }
+
+    // 상품 누적 구매 수 조회 요청
+    // ex) /goods/1/purchase-count
+    @GetMapping("/{goodsId}/purchase-count")
+    public ResponseEntity<?> purchaseCount(@PathVariable Long goodsId) {
+        try {
+            GoodsPurchaseCountDto count = goodsPurchaseCountService.getPurchaseCount(goodsId);
+            return ResponseEntity.ok().body(count);
+        } catch (NoSuchElementException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
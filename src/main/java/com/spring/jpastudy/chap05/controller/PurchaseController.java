@@ -0,0 +1,170 @@
+package com.spring.jpastudy.chap05.controller;
+
+import com.spring.jpastudy.chap05.dto.CursorPage;
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import com.spring.jpastudy.chap05.dto.PurchaseRollupDto;
+import com.spring.jpastudy.chap05.service.PurchaseLayoutMigrator;
+import com.spring.jpastudy.chap05.service.PurchaseRollupService;
+import com.spring.jpastudy.chap05.service.PurchaseService;
+import com.spring.jpastudy.chap05.service.UserPurchaseSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin
+public class PurchaseController {
+
+    // 집계 조회 최대 구간
+    private static final Duration MAX_STATS_RANGE = Duration.ofDays(366);
+
+    private final PurchaseService purchaseService;
+    private final PurchaseRollupService purchaseRollupService;
+    private final UserPurchaseSummaryService userPurchaseSummaryService;
+    private final PurchaseLayoutMigrator purchaseLayoutMigrator;
+
+    // 회원의 구매 내역 조회 요청
+    // ex) /users/1/purchases?size=20  → 다음 페이지: /users/1/purchases?cursor={nextCursor}&size=20
+    @GetMapping("/users/{userId}/purchases")
+    public ResponseEntity<?> getPurchases(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("size 파라미터가 올바르지 않습니다.");
+        }
+
+        CursorPage<PurchaseHistoryDto> purchases = purchaseService.getPurchaseHistory(userId, cursor, size);
+        return ResponseEntity.ok().body(purchases);
+    }
+
+    // 상품을 구매한 회원 목록 조회 요청
+    // ex) /goods/1/buyers?cursor=120&size=20
+    @GetMapping("/goods/{goodsId}/buyers")
+    public ResponseEntity<?> getBuyers(
+            @PathVariable Long goodsId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("size 파라미터가 올바르지 않습니다.");
+        }
+
+        CursorPage<GoodsBuyerDto> buyers = purchaseService.getBuyers(goodsId, cursor, size);
+        return ResponseEntity.ok().body(buyers);
+    }
+
+    // 구매 요청
+    // ex) POST /users/1/purchases?goodsId=3
+    @PostMapping("/users/{userId}/purchases")
+    public ResponseEntity<?> purchase(
+            @PathVariable Long userId,
+            @RequestParam Long goodsId) {
+        try {
+            Long purchaseId = purchaseService.purchase(userId, goodsId);
+            return ResponseEntity.ok().body(purchaseId);
+        } catch (NoSuchElementException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 회원의 구매 요약 조회 요청 (총 구매 수, 상품 종류 수, 최근 구매 상품)
+    @GetMapping("/users/{userId}/purchase-summary")
+    public ResponseEntity<?> purchaseSummary(@PathVariable Long userId) {
+        try {
+            return ResponseEntity.ok().body(userPurchaseSummaryService.getSummary(userId));
+        } catch (NoSuchElementException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 회원 구매 요약 전체 재구축 요청
+    @PostMapping("/users/purchase-summaries/rebuild")
+    public ResponseEntity<?> rebuildPurchaseSummaries() {
+        return ResponseEntity.ok().body(userPurchaseSummaryService.rebuild());
+    }
+
+    // 구매 기록을 복합키 테이블로 복사 요청 (여러 번 실행해도 결과가 같음)
+    @PostMapping("/purchases/compact/backfill")
+    public ResponseEntity<?> backfillCompactPurchases() {
+        return ResponseEntity.ok().body(purchaseLayoutMigrator.backfill());
+    }
+
+    // 기존 테이블과 복합키 테이블 비교 요청
+    @GetMapping("/purchases/compact/verify")
+    public ResponseEntity<?> verifyCompactPurchases() {
+        return ResponseEntity.ok().body(purchaseLayoutMigrator.verify());
+    }
+
+    // 구매 취소 요청
+    @DeleteMapping("/purchases/{purchaseId}")
+    public ResponseEntity<?> cancel(@PathVariable Long purchaseId) {
+        try {
+            purchaseService.cancel(purchaseId);
+            return ResponseEntity.ok().body("구매가 취소되었습니다.");
+        } catch (NoSuchElementException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 상품의 시간/일별 구매 수 조회 요청 (집계 테이블만 읽음)
+    // ex) /goods/1/purchase-stats?unit=hour&from=2024-05-01T00:00:00&to=2024-05-02T00:00:00
+    @GetMapping("/goods/{goodsId}/purchase-stats")
+    public ResponseEntity<?> goodsPurchaseStats(
+            @PathVariable Long goodsId,
+            @RequestParam(defaultValue = "hour") String unit,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        PurchaseRollupService.Unit rollupUnit = parseUnit(unit);
+        if (rollupUnit == null || !isValidRange(from, to)) {
+            return ResponseEntity.badRequest().body("unit 또는 from, to 파라미터가 올바르지 않습니다.");
+        }
+
+        List<PurchaseRollupDto> stats = purchaseRollupService.getGoodsSeries(goodsId, rollupUnit, from, to);
+        return ResponseEntity.ok().body(stats);
+    }
+
+    // 전체 상품의 시간/일별 구매 수 조회 요청
+    // ex) /purchases/stats?unit=day&from=2024-05-01T00:00:00&to=2024-06-01T00:00:00
+    @GetMapping("/purchases/stats")
+    public ResponseEntity<?> purchaseStats(
+            @RequestParam(defaultValue = "day") String unit,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        PurchaseRollupService.Unit rollupUnit = parseUnit(unit);
+        if (rollupUnit == null || !isValidRange(from, to)) {
+            return ResponseEntity.badRequest().body("unit 또는 from, to 파라미터가 올바르지 않습니다.");
+        }
+
+        List<PurchaseRollupDto> stats = purchaseRollupService.getTotalSeries(rollupUnit, from, to);
+        return ResponseEntity.ok().body(stats);
+    }
+
+    private PurchaseRollupService.Unit parseUnit(String unit) {
+        try {
+            return PurchaseRollupService.Unit.valueOf(unit.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isValidRange(LocalDateTime from, LocalDateTime to) {
+        return from.isBefore(to) && Duration.between(from, to).compareTo(MAX_STATS_RANGE) <= 0;
+    }
+}
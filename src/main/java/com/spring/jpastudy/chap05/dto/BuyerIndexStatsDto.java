@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 구매자 비트맵 인덱스 메모리 현황
+@Getter
+@ToString
+@AllArgsConstructor
+public class BuyerIndexStatsDto {
+
+    private final int goodsCount;
+    private final long entryCount;      // (상품, 회원) 쌍의 수
+    private final long estimatedBytes;
+    private final double bytesPerEntry;
+}
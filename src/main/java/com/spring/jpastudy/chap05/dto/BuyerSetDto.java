@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// 구매자 집합 연산 결과
+@Getter
+@ToString
+@AllArgsConstructor
+public class BuyerSetDto {
+
+    private final long buyerCount;     // 결과 집합의 회원 수
+    private final List<Long> userIds;  // 회원번호 오름차순, 최대 limit개
+}
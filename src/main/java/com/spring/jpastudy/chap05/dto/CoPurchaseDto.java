@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 같이 구매된 상품 한 줄
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class CoPurchaseDto {
+
+    private final Long goodsId;
+    private final String goodsName;
+    private final int buyerCount; // 두 상품을 모두 산 회원 수
+}
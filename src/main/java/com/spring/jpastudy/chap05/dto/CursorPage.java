@@ -0,0 +1,30 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/*
+    커서(키셋) 방식 페이지
+
+    - nextCursor: 다음 페이지 요청시 cursor 파라미터로 넘길 값 (마지막 구매번호)
+    - 다음 페이지가 없으면 nextCursor는 null
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final Long nextCursor;
+    private final boolean hasNext;
+
+    // size + 1 개를 조회한 결과로 다음 페이지 여부를 판단
+    public static <T> CursorPage<T> of(List<T> fetched, int size, ToLongFunction<T> keyExtractor) {
+        boolean hasNext = fetched.size() > size;
+        List<T> content = hasNext ? fetched.subList(0, size) : fetched;
+        Long nextCursor = hasNext ? keyExtractor.applyAsLong(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 상품을 구매한 회원 한 줄
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class GoodsBuyerDto {
+
+    private final Long purchaseId;
+    private final Long userId;
+    private final String userName;
+}
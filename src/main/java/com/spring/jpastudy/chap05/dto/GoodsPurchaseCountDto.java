@@ -0,0 +1,14 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 상품 누적 구매 수
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class GoodsPurchaseCountDto {
+
+    private final Long goodsId;
+    private final long purchaseCount;
+}
@@ -0,0 +1,14 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 구매 기록 한 건 (엔터티를 조회하지 않고 id만 담음)
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class PurchaseCommand {
+
+    private final long userId;
+    private final long goodsId;
+}
@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 회원의 구매 내역 한 줄
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class PurchaseHistoryDto {
+
+    private final Long purchaseId;
+    private final Long goodsId;
+    private final String goodsName;
+}
@@ -0,0 +1,16 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 구간(시간/일)별 구매 수
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class PurchaseRollupDto {
+
+    private final LocalDateTime bucketStart;
+    private final long purchaseCount;
+}
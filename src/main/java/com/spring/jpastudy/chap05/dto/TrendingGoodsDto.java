@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 최근 많이 팔린 상품 한 줄
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class TrendingGoodsDto {
+
+    private final Long goodsId;
+    private final String goodsName;
+    private final long purchaseCount; // 구간 내 구매 수 (근사값, 실제보다 작지 않음)
+}
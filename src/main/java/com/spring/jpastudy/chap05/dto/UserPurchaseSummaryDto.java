@@ -0,0 +1,17 @@
+package com.spring.jpastudy.chap05.dto;
+
+import lombok.*;
+
+// 회원의 구매 요약 (구매 기록이 없으면 0, 최근 상품은 null)
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class UserPurchaseSummaryDto {
+
+    private final Long userId;
+    private final long purchaseCount;
+    private final long distinctGoodsCount;
+    private final Long lastGoodsId;
+    private final String lastGoodsName;
+}
@@ -0,0 +1,35 @@
+package com.spring.jpastudy.chap05.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+    구매 기록의 복합키 매핑 (tbl_mtm_purchase의 대안)
+
+    - 대리키(purchase_id) 없이 (user_id, goods_id, seq)를 클러스터드 키로 사용해서
+      회원별 조회는 PK 범위 스캔, 상품별 구매자 조회는 (goods_id, user_id) 인덱스만으로 끝난다.
+    - 테이블은 db/purchase-compact.sql로 만든다. (컬럼 순서 때문)
+    - 기존 데이터는 PurchaseLayoutMigrator로 옮긴다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(of = "id")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(name = "tbl_mtm_purchase_compact",
+        indexes = @Index(name = "idx_compact_goods_user", columnList = "goods_id, user_id"))
+public class CompactPurchase {
+
+    @EmbeddedId
+    private CompactPurchaseId id;
+
+    @Column(name = "purchased_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime purchasedAt; // DB 기본값
+
+    public CompactPurchase(CompactPurchaseId id) {
+        this.id = id;
+    }
+}
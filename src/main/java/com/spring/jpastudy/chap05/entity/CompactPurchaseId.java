@@ -0,0 +1,27 @@
+package com.spring.jpastudy.chap05.entity;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+// 복합키 구매 기록의 키 (회원, 상품, 같은 상품을 몇 번째 샀는지)
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+
+@Embeddable
+public class CompactPurchaseId implements Serializable {
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "goods_id")
+    private Long goodsId;
+
+    @Column(name = "seq")
+    private int seq;
+}
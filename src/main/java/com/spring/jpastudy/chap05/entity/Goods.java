@@ -1,6 +1,7 @@
 package com.spring.jpastudy.chap05.entity;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -26,6 +27,11 @@ public class Goods {
     @Column(name = "goods_name")
     private String name;
 
+    // 누적 구매 수 (비정규화) - GoodsPurchaseCountService가 모아서 UPDATE하므로 JPA로는 쓰지 않음
+    @Column(name = "purchase_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long purchaseCount;
+
     @OneToMany(mappedBy = "goods", orphanRemoval = true, cascade = CascadeType.ALL)
     @Builder.Default
     private List<Purchase> purchaseList = new ArrayList<>();
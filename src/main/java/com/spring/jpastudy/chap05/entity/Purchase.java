@@ -1,8 +1,13 @@
 package com.spring.jpastudy.chap05.entity;
 
+import com.spring.jpastudy.chap05.service.PurchaseListener;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Setter
 @Getter
@@ -13,7 +18,13 @@ import javax.persistence.*;
 @Builder
 
 @Entity
-@Table(name = "tbl_mtm_purchase")
+@EntityListeners(PurchaseListener.class)
+// 회원별 / 상품별 구매 내역을 최신순으로 끊어 읽기 위한 인덱스
+@Table(name = "tbl_mtm_purchase",
+        indexes = {
+                @Index(name = "idx_purchase_user", columnList = "user_id, purchase_id"),
+                @Index(name = "idx_purchase_goods", columnList = "goods_id, purchase_id")
+        })
 public class Purchase {
 
     @Id
@@ -28,4 +39,11 @@ public class Purchase {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "goods_id")
     private Goods goods;
+
+    // 구매 시각 - 저장 경로와 상관없이 DB 기본값 (INSERT 후 다시 읽어옴)
+    // 집계 기준 시각(PurchaseRollupService)도 DB 시계로 계산하므로 서버 시계와 섞이지 않음
+    @Generated(GenerationTime.INSERT)
+    @Column(name = "purchased_at", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("CURRENT_TIMESTAMP(6)")
+    private LocalDateTime purchasedAt;
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.spring.jpastudy.chap05.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/*
+    시간대별 상품 구매 수 (PurchaseRollupService가 구매 기록을 모아서 반영)
+
+    - 한 시간 단위 버킷만 저장하고 일 단위는 조회할 때 합산한다.
+    - 상품 삭제와 무관하게 남겨두는 통계라 상품에 대한 FK는 걸지 않는다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(of = "id")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+// 상품별 구간 조회 + 반영시 (goods_id, bucket_start) 기준 UPSERT
+@Table(name = "tbl_purchase_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_goods_bucket", columnNames = {"goods_id", "bucket_start"}),
+        indexes = @Index(name = "idx_rollup_bucket", columnList = "bucket_start"))
+public class PurchaseRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long id;
+
+    @Column(name = "goods_id", nullable = false)
+    private Long goodsId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart; // 버킷 시작 시각 (정각)
+
+    @Column(name = "purchase_count", nullable = false)
+    private long purchaseCount;
+}
@@ -0,0 +1,23 @@
+package com.spring.jpastudy.chap05.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+// 집계 작업별로 어디까지(purchase_id) 반영했는지 기록
+@Getter
+@ToString
+@EqualsAndHashCode(of = "jobName")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(name = "tbl_rollup_watermark")
+public class RollupWatermark {
+
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+}
@@ -0,0 +1,38 @@
+package com.spring.jpastudy.chap05.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/*
+    회원별 구매 요약 (조회 전용 모델)
+
+    - 프로필 화면이 user.purchaseList를 로딩해서 세지 않도록 미리 계산해 둔다.
+    - 구매/취소와 같은 트랜잭션에서 UserPurchaseSummaryRepository가 갱신한다.
+    - 회원 삭제와 별개로 정리하므로 FK는 걸지 않는다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(of = "userId")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Table(name = "tbl_user_purchase_summary")
+public class UserPurchaseSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "purchase_count", nullable = false)
+    private long purchaseCount; // 총 구매 수
+
+    @Column(name = "distinct_goods_count", nullable = false)
+    private long distinctGoodsCount; // 구매한 상품 종류 수
+
+    @Column(name = "last_purchase_id")
+    private Long lastPurchaseId; // 가장 최근 구매
+
+    @Column(name = "last_goods_id")
+    private Long lastGoodsId; // 가장 최근에 구매한 상품
+}
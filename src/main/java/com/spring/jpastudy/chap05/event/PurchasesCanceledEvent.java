@@ -0,0 +1,24 @@
+package com.spring.jpastudy.chap05.event;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/*
+    구매 기록이 삭제(취소)되었음을 알리는 이벤트
+
+    - JPA 삭제(PurchaseListener, user.purchaseList 등의 cascade 포함)시 발행
+    - 받는 쪽은 @TransactionalEventListener로 커밋된 후에만 반영할 것
+ */
+@Getter
+@ToString
+public class PurchasesCanceledEvent {
+
+    private final List<PurchaseCommand> purchases;
+
+    public PurchasesCanceledEvent(List<PurchaseCommand> purchases) {
+        this.purchases = List.copyOf(purchases);
+    }
+}
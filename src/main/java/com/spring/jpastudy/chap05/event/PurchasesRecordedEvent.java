@@ -0,0 +1,24 @@
+package com.spring.jpastudy.chap05.event;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/*
+    구매 기록이 저장되었음을 알리는 이벤트
+
+    - JPA 저장(PurchaseListener)과 대량 저장(PurchaseBatchWriter) 모두 발행
+    - 받는 쪽은 @TransactionalEventListener로 커밋된 후에만 반영할 것
+ */
+@Getter
+@ToString
+public class PurchasesRecordedEvent {
+
+    private final List<PurchaseCommand> purchases;
+
+    public PurchasesRecordedEvent(List<PurchaseCommand> purchases) {
+        this.purchases = List.copyOf(purchases);
+    }
+}
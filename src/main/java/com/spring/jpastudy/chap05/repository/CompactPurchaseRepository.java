@@ -0,0 +1,26 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.spring.jpastudy.chap05.entity.CompactPurchase;
+import com.spring.jpastudy.chap05.entity.CompactPurchaseId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CompactPurchaseRepository extends JpaRepository<CompactPurchase, CompactPurchaseId> {
+
+    // 회원이 산 상품 id (PK 범위 스캔)
+    @Query("SELECT p.id.goodsId FROM CompactPurchase p WHERE p.id.userId = :userId ORDER BY p.id.goodsId")
+    List<Long> findGoodsIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // 상품을 산 회원 id (보조 인덱스만 읽음)
+    @Query("SELECT p.id.userId FROM CompactPurchase p WHERE p.id.goodsId = :goodsId ORDER BY p.id.userId")
+    List<Long> findUserIdsByGoodsId(@Param("goodsId") Long goodsId, Pageable pageable);
+
+    // 같은 회원이 같은 상품을 산 마지막 순번
+    @Query("SELECT COALESCE(MAX(p.id.seq), 0) FROM CompactPurchase p " +
+            "WHERE p.id.userId = :userId AND p.id.goodsId = :goodsId")
+    int findLastSeq(@Param("userId") Long userId, @Param("goodsId") Long goodsId);
+}
@@ -0,0 +1,216 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.config.shard.ShardCluster.Shard;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    대량 구매 기록 저장
+
+    - PurchaseRepository.save는 IDENTITY 전략이라 한 건마다 INSERT 왕복이 한번씩 일어난다.
+    - 여기서는 User, Goods 엔터티를 조회하지 않고 id만으로
+      INSERT INTO ... VALUES (?, ?), (?, ?), ... 형태의 다중 행 INSERT를 만들어
+      batch-size 단위로 묶어서 JDBC 배치로 보낸다. (드라이버의 rewrite 옵션에 의존하지 않음)
+    - 영속성 컨텍스트를 거치지 않으므로 이미 로딩된 user.purchaseList 등에는 반영되지 않는다.
+    - 저장한 회원들의 구매 요약은 같은 트랜잭션에서 구매 테이블 기준으로 다시 계산한다.
+    - 저장이 끝나면 PurchasesRecordedEvent를 발행한다.
+    - 샤딩을 켜면 회원의 샤드별로 나눠서 샤드마다 한 트랜잭션으로 저장하고 구매 요약도 샤드에서 갱신한다.
+      샤드끼리는 따로 커밋되므로 중간 샤드에서 실패하면 앞 샤드에 저장된 건은 남는다. (이벤트도 그 샤드분만 전달)
+ */
+@Slf4j
+@Repository
+public class PurchaseBatchWriter {
+
+    // MariaDB 프리페어드 스테이트먼트의 파라미터 수 제한 (65535) / 행당 파라미터 2개
+    private static final int MAX_ROWS_PER_STATEMENT = 32_000;
+
+    private final JdbcTemplate template;
+    private final ApplicationEventPublisher publisher;
+    private final UserPurchaseSummaryRepository summaryRepository;
+    private final ObjectProvider<ShardCluster> shardCluster;
+    private final TransactionTemplate tx;
+
+    // 샤드 번호별 구매 요약 저장소
+    private final Map<Integer, UserPurchaseSummaryRepository> shardSummaries = new ConcurrentHashMap<>();
+
+    // 한번의 배치(왕복)로 보낼 행 수
+    private final int batchSize;
+
+    // INSERT문 하나에 담을 행 수
+    private final int rowsPerStatement;
+
+    // 행 수별 INSERT문 캐시 (꽉 찬 문장과 마지막 자투리 문장)
+    private final Map<Integer, String> insertSqls = new ConcurrentHashMap<>();
+
+    // 배치 지연시간 통계
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder rowCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    public PurchaseBatchWriter(JdbcTemplate template,
+                               ApplicationEventPublisher publisher,
+                               UserPurchaseSummaryRepository summaryRepository,
+                               ObjectProvider<ShardCluster> shardCluster,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${jpastudy.purchase.batch-size:1000}") int batchSize,
+                               @Value("${jpastudy.purchase.rows-per-statement:100}") int rowsPerStatement) {
+        if (batchSize < 1 || rowsPerStatement < 1) {
+            throw new IllegalArgumentException("batch-size와 rows-per-statement는 1 이상이어야 합니다.");
+        }
+        this.template = template;
+        this.publisher = publisher;
+        this.summaryRepository = summaryRepository;
+        this.shardCluster = shardCluster;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.rowsPerStatement = Math.min(rowsPerStatement, Math.min(batchSize, MAX_ROWS_PER_STATEMENT));
+    }
+
+    // 구매 기록을 저장하고 저장된 행 수를 반환 (샤딩을 켜지 않았으면 전부 성공하거나 전부 롤백)
+    public int write(List<PurchaseCommand> purchases) {
+        ShardCluster cluster = shardCluster.getIfAvailable();
+        if (cluster == null) {
+            Integer written = tx.execute(status -> write(template, summaryRepository, purchases));
+            return written == null ? 0 : written;
+        }
+
+        // 샤드 번호 순서로 저장
+        Map<Integer, List<PurchaseCommand>> byShard = new TreeMap<>();
+        for (PurchaseCommand purchase : purchases) {
+            byShard.computeIfAbsent(cluster.getRouter().shardOf(purchase.getUserId()), k -> new ArrayList<>())
+                    .add(purchase);
+        }
+        int written = 0;
+        for (Map.Entry<Integer, List<PurchaseCommand>> entry : byShard.entrySet()) {
+            Shard shard = cluster.shard(entry.getKey());
+            UserPurchaseSummaryRepository summary = shardSummaries.computeIfAbsent(
+                    shard.getIndex(), k -> new UserPurchaseSummaryRepository(shard.getTemplate()));
+            Integer count = shard.getTx().execute(status -> write(shard.getTemplate(), summary, entry.getValue()));
+            written += count == null ? 0 : count;
+        }
+        return written;
+    }
+
+    // target에 저장하고 같은 트랜잭션에서 구매 요약 갱신, 이벤트 발행 (커밋되면 전달)
+    private int write(JdbcTemplate target, UserPurchaseSummaryRepository summary, List<PurchaseCommand> purchases) {
+        int written = 0;
+        for (int from = 0; from < purchases.size(); from += batchSize) {
+            List<PurchaseCommand> batch = purchases.subList(from, Math.min(from + batchSize, purchases.size()));
+
+            long start = System.nanoTime();
+            written += writeBatch(target, batch);
+            record(batch.size(), System.nanoTime() - start);
+        }
+        if (!purchases.isEmpty()) {
+            // 회원 id 순서로 잠가서 동시 저장끼리 데드락이 나지 않게 함
+            Set<Long> userIds = new TreeSet<>();
+            for (PurchaseCommand purchase : purchases) {
+                userIds.add(purchase.getUserId());
+            }
+            summary.refresh(userIds);
+            publisher.publishEvent(new PurchasesRecordedEvent(purchases));
+        }
+        return written;
+    }
+
+    private int writeBatch(JdbcTemplate target, List<PurchaseCommand> batch) {
+        int fullStatements = batch.size() / rowsPerStatement;
+        int rest = batch.size() % rowsPerStatement;
+        int written = 0;
+
+        if (fullStatements > 0) {
+            int[] counts = target.batchUpdate(insertSql(rowsPerStatement), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    bind(ps, batch.subList(i * rowsPerStatement, (i + 1) * rowsPerStatement));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return fullStatements;
+                }
+            });
+            for (int count : counts) {
+                // 드라이버가 건수를 모르면 SUCCESS_NO_INFO(-2)를 돌려줌
+                written += count >= 0 ? count : rowsPerStatement;
+            }
+        }
+        if (rest > 0) {
+            written += target.update(insertSql(rest),
+                    ps -> bind(ps, batch.subList(batch.size() - rest, batch.size())));
+        }
+        return written;
+    }
+
+    private void bind(PreparedStatement ps, List<PurchaseCommand> rows) throws SQLException {
+        int index = 1;
+        for (PurchaseCommand row : rows) {
+            ps.setLong(index++, row.getUserId());
+            ps.setLong(index++, row.getGoodsId());
+        }
+    }
+
+    private String insertSql(int rows) {
+        return insertSqls.computeIfAbsent(rows, n -> {
+            StringBuilder sql = new StringBuilder("INSERT INTO tbl_mtm_purchase (user_id, goods_id) VALUES ");
+            for (int i = 0; i < n; i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+            return sql.toString();
+        });
+    }
+
+    private void record(int rows, long nanos) {
+        batchCount.increment();
+        rowCount.add(rows);
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        log.debug("구매 기록 배치 저장: {}건, {}ms", rows, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    public Stats getStats() {
+        long batches = batchCount.sum();
+        long nanos = totalNanos.sum();
+        return new Stats(batches, rowCount.sum(),
+                batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos / batches),
+                TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+    }
+
+    // 누적 배치 통계 (지연시간은 마이크로초)
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Stats {
+        private long batches;
+        private long rows;
+        private long averageMicros;
+        private long maxMicros;
+    }
+}
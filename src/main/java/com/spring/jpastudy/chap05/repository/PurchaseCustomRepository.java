@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+
+import java.util.List;
+
+public interface PurchaseCustomRepository {
+
+    // 회원의 구매 내역을 최신순으로 limit개 조회 (cursor보다 작은 구매번호만, null이면 처음부터)
+    List<PurchaseHistoryDto> findHistoryByUser(Long userId, Long cursor, int limit);
+
+    // 상품을 구매한 회원을 최신순으로 limit개 조회
+    List<GoodsBuyerDto> findBuyersByGoods(Long goodsId, Long cursor, int limit);
+}
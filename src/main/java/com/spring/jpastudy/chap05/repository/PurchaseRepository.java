@@ -3,7 +3,7 @@ package com.spring.jpastudy.chap05.repository;
 import com.spring.jpastudy.chap05.entity.Purchase;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
+public interface PurchaseRepository extends JpaRepository<Purchase, Long>, PurchaseCustomRepository {
 
 
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static com.spring.jpastudy.chap05.entity.QGoods.goods;
+import static com.spring.jpastudy.chap05.entity.QPurchase.purchase;
+import static com.spring.jpastudy.chap05.entity.QUser.user;
+
+/*
+    구매 내역 조회 - 구매 테이블과 상품(또는 회원) 테이블을 한번에 조인해서 DTO로 바로 조회
+
+    - OFFSET 대신 마지막으로 본 구매번호(cursor)보다 작은 행만 읽는 키셋 페이징
+    - (user_id, purchase_id), (goods_id, purchase_id) 인덱스로 정렬 없이 필요한 만큼만 읽음
+ */
+@Repository
+@RequiredArgsConstructor
+public class PurchaseRepositoryImpl implements PurchaseCustomRepository {
+
+    private final JPAQueryFactory factory;
+
+    @Override
+    public List<PurchaseHistoryDto> findHistoryByUser(Long userId, Long cursor, int limit) {
+        return factory
+                .select(Projections.constructor(PurchaseHistoryDto.class,
+                        purchase.id, goods.id, goods.name))
+                .from(purchase)
+                .join(purchase.goods, goods)
+                .where(purchase.user.id.eq(userId), purchaseIdLt(cursor))
+                .orderBy(purchase.id.desc())
+                .limit(limit)
+                .fetch()
+                ;
+    }
+
+    @Override
+    public List<GoodsBuyerDto> findBuyersByGoods(Long goodsId, Long cursor, int limit) {
+        return factory
+                .select(Projections.constructor(GoodsBuyerDto.class,
+                        purchase.id, user.id, user.name))
+                .from(purchase)
+                .join(purchase.user, user)
+                .where(purchase.goods.id.eq(goodsId), purchaseIdLt(cursor))
+                .orderBy(purchase.id.desc())
+                .limit(limit)
+                .fetch()
+                ;
+    }
+
+    private BooleanExpression purchaseIdLt(Long cursor) {
+        return cursor == null ? null : purchase.id.lt(cursor);
+    }
+}
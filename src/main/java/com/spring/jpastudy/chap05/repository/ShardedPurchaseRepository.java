@@ -0,0 +1,65 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.spring.jpastudy.config.shard.ShardCluster.Shard;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/*
+    샤드 하나의 구매 기록 테이블 접근
+
+    - id는 모두 샤드 안의 id (purchase_id AUTO_INCREMENT)이고, 전체 id 변환은 서비스에서 한다.
+    - 행은 long[]로 돌려준다. {purchase_id, 상대 id(goods_id 또는 user_id)}
+ */
+@Repository
+@ConditionalOnProperty(prefix = "jpastudy.sharding", name = "enabled", havingValue = "true")
+public class ShardedPurchaseRepository {
+
+    // 저장하고 샤드 안의 purchase_id 반환
+    public long insert(Shard shard, long userId, long goodsId) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        shard.getTemplate().update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO tbl_mtm_purchase (user_id, goods_id) VALUES (?, ?)",
+                    new String[]{"purchase_id"}); // 기본값이 있는 purchased_at은 키로 받지 않음
+            ps.setLong(1, userId);
+            ps.setLong(2, goodsId);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    // {user_id, goods_id} (없으면 null)
+    public long[] find(Shard shard, long purchaseId) {
+        List<long[]> found = shard.getTemplate().query(
+                "SELECT user_id, goods_id FROM tbl_mtm_purchase WHERE purchase_id = ?",
+                (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)}, purchaseId);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public int delete(Shard shard, long purchaseId) {
+        return shard.getTemplate().update("DELETE FROM tbl_mtm_purchase WHERE purchase_id = ?", purchaseId);
+    }
+
+    // 회원의 구매 기록 최신순 {purchase_id, goods_id} (purchase_id <= maxPurchaseId)
+    public List<long[]> findHistoryByUser(Shard shard, long userId, long maxPurchaseId, int limit) {
+        return shard.getTemplate().query(
+                "SELECT purchase_id, goods_id FROM tbl_mtm_purchase " +
+                "WHERE user_id = ? AND purchase_id <= ? " +
+                "ORDER BY purchase_id DESC LIMIT ?",
+                (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)}, userId, maxPurchaseId, limit);
+    }
+
+    // 상품 구매 기록 최신순 {purchase_id, user_id} (purchase_id <= maxPurchaseId)
+    public List<long[]> findBuyersByGoods(Shard shard, long goodsId, long maxPurchaseId, int limit) {
+        return shard.getTemplate().query(
+                "SELECT purchase_id, user_id FROM tbl_mtm_purchase " +
+                "WHERE goods_id = ? AND purchase_id <= ? " +
+                "ORDER BY purchase_id DESC LIMIT ?",
+                (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)}, goodsId, maxPurchaseId, limit);
+    }
+}
@@ -0,0 +1,171 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.spring.jpastudy.chap05.dto.UserPurchaseSummaryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/*
+    회원별 구매 요약 테이블 (tbl_user_purchase_summary) 읽기/쓰기
+
+    - 한 건씩 구매/취소할 때는 요약 행을 먼저 잠근(lock) 뒤 증감시켜서
+      같은 회원의 동시 구매가 서로의 "처음 산 상품" 판단을 덮어쓰지 않게 한다.
+    - 대량 저장이나 재구축은 구매 테이블에서 다시 계산(refresh)한다.
+    - 모든 메서드는 호출한 쪽 트랜잭션 안에서 실행되어야 한다.
+    - 샤드별로 JdbcTemplate을 넘겨서 만들어 쓸 수도 있다. (ShardedPurchaseService, findByUserId 제외)
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserPurchaseSummaryRepository {
+
+    // 구매 테이블에서 회원별 요약을 다시 계산해서 넣음 (조건은 user_id에 대한 것)
+    private static final String REFRESH_SQL =
+            "INSERT INTO tbl_user_purchase_summary " +
+            "(user_id, purchase_count, distinct_goods_count, last_purchase_id, last_goods_id) " +
+            "SELECT S.user_id, S.purchase_count, S.distinct_goods_count, S.last_purchase_id, P.goods_id " +
+            "FROM (SELECT user_id, COUNT(*) AS purchase_count, " +
+            "             COUNT(DISTINCT goods_id) AS distinct_goods_count, " +
+            "             MAX(purchase_id) AS last_purchase_id " +
+            "      FROM tbl_mtm_purchase " +
+            "      WHERE %s " +
+            "      GROUP BY user_id) S " +
+            "JOIN tbl_mtm_purchase P " +
+            "ON P.purchase_id = S.last_purchase_id";
+
+    // 구매가 0건으로 되어 있는 요약 행을 구매 테이블 기준으로 채움 (행은 지우지 않음)
+    private static final String RECOUNT_SQL =
+            "UPDATE tbl_user_purchase_summary S " +
+            "SET purchase_count = (SELECT COUNT(*) FROM tbl_mtm_purchase P WHERE P.user_id = S.user_id), " +
+            "    distinct_goods_count = (SELECT COUNT(DISTINCT P.goods_id) FROM tbl_mtm_purchase P WHERE P.user_id = S.user_id), " +
+            "    last_purchase_id = (SELECT MAX(P.purchase_id) FROM tbl_mtm_purchase P WHERE P.user_id = S.user_id), " +
+            "    last_goods_id = (SELECT P.goods_id FROM tbl_mtm_purchase P WHERE P.user_id = S.user_id " +
+            "                     ORDER BY P.purchase_id DESC LIMIT 1) " +
+            "WHERE S.user_id = ? AND S.purchase_count = 0";
+
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate template;
+
+    // 공유 잠금 읽기 구문 (DB 종류를 처음 쓸 때 확인)
+    private volatile String shareLock;
+
+    // 요약 + 최근 상품 이름 (PK 조회 한 번)
+    public Optional<UserPurchaseSummaryDto> findByUserId(long userId) {
+        List<UserPurchaseSummaryDto> found = template.query(
+                "SELECT S.user_id, S.purchase_count, S.distinct_goods_count, S.last_goods_id, G.goods_name " +
+                "FROM tbl_user_purchase_summary S " +
+                "LEFT JOIN tbl_mtm_goods G " +
+                "ON G.goods_id = S.last_goods_id " +
+                "WHERE S.user_id = ?",
+                (rs, n) -> new UserPurchaseSummaryDto(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rs.getObject(4, Long.class), rs.getString(5)),
+                userId);
+        return found.stream().findFirst();
+    }
+
+    /*
+        회원의 요약 행을 잠금
+        - 없는 행을 SELECT ... FOR UPDATE 하면 갭 락만 잡혀서 같은 회원의 첫 구매 두 개가 서로의 INSERT를 막아 데드락이 나므로
+          INSERT ... ON DUPLICATE KEY UPDATE로 행을 먼저 만든다. (이미 있으면 그 행에 바로 배타 락)
+          INSERT IGNORE는 중복 행에 공유 락을 잡아서 이후 배타 락으로 올릴 때 데드락이 날 수 있다.
+        - 구매가 0건인 행(방금 만든 행 포함)은 구매 테이블 기준으로 채운다. (요약이 없던 기존 회원 대비)
+     */
+    public void lock(long userId) {
+        template.update("INSERT INTO tbl_user_purchase_summary (user_id, purchase_count, distinct_goods_count) " +
+                "VALUES (?, 0, 0) ON DUPLICATE KEY UPDATE user_id = user_id", userId);
+        template.update(RECOUNT_SQL, userId);
+    }
+
+    // 요약 테이블이 비어 있는지 (처음 배포했을 때)
+    public boolean isEmpty() {
+        return template.queryForList("SELECT 1 FROM tbl_user_purchase_summary LIMIT 1").isEmpty();
+    }
+
+    // 이미 산 적 있는 상품인지 (잠금 읽기라 다른 트랜잭션이 커밋한 최신 상태를 봄)
+    public boolean hasPurchased(long userId, long goodsId) {
+        List<Long> found = template.queryForList(
+                "SELECT purchase_id FROM tbl_mtm_purchase WHERE user_id = ? AND goods_id = ? LIMIT 1 " + shareLock(),
+                Long.class, userId, goodsId);
+        return !found.isEmpty();
+    }
+
+    // 구매 1건 반영 (lock 이후, 구매 기록 INSERT 이후에 호출)
+    public void applyPurchase(long userId, long goodsId, long purchaseId, boolean newGoods) {
+        template.update("UPDATE tbl_user_purchase_summary " +
+                        "SET purchase_count = purchase_count + 1, " +
+                        "    distinct_goods_count = distinct_goods_count + ?, " +
+                        "    last_purchase_id = ?, last_goods_id = ? " +
+                        "WHERE user_id = ?",
+                newGoods ? 1 : 0, purchaseId, goodsId, userId);
+    }
+
+    // 구매 1건 취소 반영 (lock 이후, 구매 기록 DELETE 이후에 호출)
+    public void applyCancel(long userId, long goodsId, long purchaseId) {
+        int goodsLeft = hasPurchased(userId, goodsId) ? 0 : 1;
+        template.update("UPDATE tbl_user_purchase_summary " +
+                        "SET purchase_count = purchase_count - 1, " +
+                        "    distinct_goods_count = distinct_goods_count - ? " +
+                        "WHERE user_id = ?",
+                goodsLeft, userId);
+
+        // 최근 구매가 취소되면 남은 것 중 가장 최근 구매로 교체
+        List<Long[]> latest = template.query(
+                "SELECT purchase_id, goods_id FROM tbl_mtm_purchase WHERE user_id = ? ORDER BY purchase_id DESC LIMIT 1",
+                (rs, n) -> new Long[]{rs.getLong(1), rs.getObject(2, Long.class)}, userId);
+        Long[] last = latest.isEmpty() ? new Long[2] : latest.get(0);
+        template.update("UPDATE tbl_user_purchase_summary SET last_purchase_id = ?, last_goods_id = ? " +
+                        "WHERE user_id = ? AND last_purchase_id = ?",
+                last[0], last[1], userId, purchaseId);
+    }
+
+    // 회원들의 요약을 구매 테이블 기준으로 다시 계산 (IN 목록이 너무 길어지지 않게 나눠서)
+    public int refresh(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        int refreshed = 0;
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+            String in = batch.stream().map(id -> "?").collect(Collectors.joining(", "));
+            Object[] args = batch.toArray();
+            template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id IN (" + in + ")", args);
+            refreshed += template.update(String.format(REFRESH_SQL, "user_id IN (" + in + ")"), args);
+        }
+        return refreshed;
+    }
+
+    // user_id가 [fromUserId, toUserId) 인 회원들의 요약을 다시 계산
+    public int refreshRange(long fromUserId, long toUserId) {
+        template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id >= ? AND user_id < ?",
+                fromUserId, toUserId);
+        return template.update(String.format(REFRESH_SQL, "user_id >= ? AND user_id < ?"),
+                fromUserId, toUserId);
+    }
+
+    public int delete(long userId) {
+        return template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", userId);
+    }
+
+    // MariaDB/MySQL은 LOCK IN SHARE MODE, 이를 지원하지 않는 DB(샤드 테스트의 H2)는 FOR UPDATE
+    private String shareLock() {
+        if (shareLock == null) {
+            String product;
+            try {
+                product = JdbcUtils.extractDatabaseMetaData(template.getDataSource(),
+                        DatabaseMetaData::getDatabaseProductName);
+            } catch (MetaDataAccessException e) {
+                product = null;
+            }
+            shareLock = product == null || product.contains("MariaDB") || product.contains("MySQL")
+                    ? "LOCK IN SHARE MODE" : "FOR UPDATE";
+        }
+        return shareLock;
+    }
+}
@@ -0,0 +1,311 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.BuyerIndexStatsDto;
+import com.spring.jpastudy.chap05.dto.BuyerSetDto;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.event.PurchasesCanceledEvent;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.config.shard.ShardCluster.Shard;
+import com.spring.jpastudy.util.LongObjectHashMap;
+import com.spring.jpastudy.util.RoaringBitmap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/*
+    상품별 구매 회원 집합 비트맵 인덱스
+
+    - "A와 B를 모두 산 회원", "A는 샀지만 B는 안 산 회원", "X를 산 회원 수" 같은 질문을
+      구매 테이블 셀프 조인 대신 메모리의 압축 비트맵 연산으로 답한다.
+    - 서버가 뜰 때 한번 만들고, 이후 구매 저장/취소가 커밋될 때마다 갱신한다.
+    - 만드는 동안 커밋된 변경은 모아 두었다가 새 인덱스에 순서대로 다시 적용한다.
+      (추가는 여러 번 해도 같고, 빼기는 이벤트 시점에 남은 구매가 없을 때만 기록하므로
+       스캔에 이미 들어간 변경을 다시 적용해도 결과가 같다)
+    - 회원번호는 32비트(부호 없음) 범위여야 한다.
+    - 샤딩을 켜면 구매 기록을 샤드마다 차례로 스캔하고, 취소시 남은 구매도 회원의 샤드에서 확인한다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BuyerBitmapIndex {
+
+    public enum Operation {
+        AND, OR, ANDNOT
+    }
+
+    private static final String SCAN_SQL = "SELECT goods_id, user_id FROM tbl_mtm_purchase";
+
+    // 취소 반영시 남은 구매를 한번에 확인할 (회원, 상품) 수
+    private static final int CANCEL_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate template;
+    private final ObjectProvider<ShardCluster> shardCluster;
+
+    @Value("${jpastudy.buyer-index.fetch-size:1000}")
+    private int fetchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongObjectHashMap<RoaringBitmap> buyers = new LongObjectHashMap<>();
+
+    // 인덱스를 만드는 동안 커밋된 변경 (만드는 중이 아니면 null, 서버가 뜰 때는 처음 만들 때까지 모음)
+    private List<Change> pending = new ArrayList<>();
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        LongObjectHashMap<RoaringBitmap> built = new LongObjectHashMap<>();
+
+        // 스캔을 시작하기 전부터 커밋되는 변경을 모음
+        lock.writeLock().lock();
+        try {
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (JdbcTemplate source : purchaseSources()) {
+            source.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SCAN_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, (RowCallbackHandler) rs -> built.computeIfAbsent(rs.getLong(1), id -> new RoaringBitmap())
+                    .add(toInt(rs.getLong(2))));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pending) {
+                change.applyTo(built);
+            }
+            buyers = built;
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("구매자 비트맵 인덱스 생성: {}, {}ms", getStats(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchasesRecorded(PurchasesRecordedEvent event) {
+        List<Change> changes = new ArrayList<>(event.getPurchases().size());
+        for (PurchaseCommand purchase : event.getPurchases()) {
+            changes.add(new Change(purchase.getGoodsId(), toInt(purchase.getUserId()), true));
+        }
+        apply(changes);
+    }
+
+    // 같은 상품을 또 산 기록이 남아 있으면 집합에서 빼지 않음 (남은 구매는 묶음마다 쿼리 한 번으로 확인)
+    // 확인과 반영 사이에 다른 구매가 반영되면 그 구매자를 빼버리므로 쓰기 락을 잡은 채로 확인한다.
+    // (락을 잡기 전에 반영된 구매는 이미 커밋되어 확인 쿼리에 보이고, 그 뒤의 구매는 빼기가 끝난 뒤 반영됨)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchasesCanceled(PurchasesCanceledEvent event) {
+        List<PurchaseCommand> canceled = new ArrayList<>(new HashSet<>(event.getPurchases()));
+        if (canceled.isEmpty()) {
+            return;
+        }
+        // 구매 기록이 있는 곳별로 나눔 (샤딩을 켜지 않았으면 주 DB 하나)
+        Map<JdbcTemplate, List<PurchaseCommand>> bySource = new LinkedHashMap<>();
+        for (PurchaseCommand purchase : canceled) {
+            bySource.computeIfAbsent(purchaseSourceOf(purchase.getUserId()), source -> new ArrayList<>()).add(purchase);
+        }
+        lock.writeLock().lock();
+        try {
+            List<Change> changes = new ArrayList<>(canceled.size());
+            for (Map.Entry<JdbcTemplate, List<PurchaseCommand>> entry : bySource.entrySet()) {
+                List<PurchaseCommand> purchases = entry.getValue();
+                for (int from = 0; from < purchases.size(); from += CANCEL_CHUNK_SIZE) {
+                    List<PurchaseCommand> chunk = purchases.subList(from, Math.min(from + CANCEL_CHUNK_SIZE, purchases.size()));
+                    Set<PurchaseCommand> remaining = remainingOf(entry.getKey(), chunk);
+                    for (PurchaseCommand purchase : chunk) {
+                        if (!remaining.contains(purchase)) {
+                            changes.add(new Change(purchase.getGoodsId(), toInt(purchase.getUserId()), false));
+                        }
+                    }
+                }
+            }
+            applyLocked(changes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // chunk 중 아직 구매 기록이 남아 있는 (회원, 상품)
+    private Set<PurchaseCommand> remainingOf(JdbcTemplate source, List<PurchaseCommand> chunk) {
+        List<Object> args = new ArrayList<>(chunk.size() * 2);
+        for (PurchaseCommand purchase : chunk) {
+            args.add(purchase.getUserId());
+            args.add(purchase.getGoodsId());
+        }
+        return new HashSet<>(source.query(
+                "SELECT DISTINCT user_id, goods_id FROM tbl_mtm_purchase WHERE (user_id, goods_id) IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")",
+                (rs, n) -> new PurchaseCommand(rs.getLong(1), rs.getLong(2)), args.toArray()));
+    }
+
+    // 구매 기록을 읽을 곳 (샤딩을 켜면 모든 샤드)
+    private List<JdbcTemplate> purchaseSources() {
+        ShardCluster cluster = shardCluster.getIfAvailable();
+        if (cluster == null) {
+            return List.of(template);
+        }
+        return cluster.getShards().stream().map(Shard::getTemplate).collect(Collectors.toList());
+    }
+
+    // 회원의 구매 기록이 있는 곳
+    private JdbcTemplate purchaseSourceOf(long userId) {
+        ShardCluster cluster = shardCluster.getIfAvailable();
+        return cluster == null ? template : cluster.shardFor(userId).getTemplate();
+    }
+
+    // goodsIds 순서대로 연산 (ANDNOT은 첫 상품 구매자에서 나머지 상품 구매자를 뺌)
+    public BuyerSetDto query(Operation operation, List<Long> goodsIds, int limit) {
+        RoaringBitmap result;
+        lock.readLock().lock();
+        try {
+            result = evaluate(operation, goodsIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> userIds = new ArrayList<>(Math.min(limit, 1024));
+        result.forEach(userId -> {
+            if (userIds.size() >= limit) {
+                return false;
+            }
+            userIds.add(Integer.toUnsignedLong(userId));
+            return true;
+        });
+        return new BuyerSetDto(result.cardinality(), userIds);
+    }
+
+    public long countBuyers(long goodsId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = buyers.get(goodsId);
+            return bitmap == null ? 0 : bitmap.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BuyerIndexStatsDto getStats() {
+        lock.readLock().lock();
+        try {
+            long[] totals = {buyers.estimatedBytes(), 0};
+            buyers.forEach((goodsId, bitmap) -> {
+                totals[0] += bitmap.estimatedBytes();
+                totals[1] += bitmap.cardinality();
+            });
+            return new BuyerIndexStatsDto(buyers.size(), totals[1], totals[0],
+                    totals[1] == 0 ? 0 : (double) totals[0] / totals[1]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 커밋된 변경을 반영 (인덱스를 만드는 중이면 새 인덱스에도 적용하도록 모아 둠)
+    private void apply(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            applyLocked(changes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 쓰기 락을 잡은 상태에서 호출
+    private void applyLocked(List<Change> changes) {
+        for (Change change : changes) {
+            change.applyTo(buyers);
+        }
+        if (pending != null) {
+            pending.addAll(changes);
+        }
+    }
+
+    private RoaringBitmap evaluate(Operation operation, List<Long> goodsIds) {
+        RoaringBitmap result = buyersOf(goodsIds.get(0)).copy();
+        for (int i = 1; i < goodsIds.size(); i++) {
+            RoaringBitmap other = buyersOf(goodsIds.get(i));
+            switch (operation) {
+                case AND:
+                    result = RoaringBitmap.and(result, other);
+                    break;
+                case OR:
+                    result = RoaringBitmap.or(result, other);
+                    break;
+                case ANDNOT:
+                    result = RoaringBitmap.andNot(result, other);
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap buyersOf(long goodsId) {
+        RoaringBitmap bitmap = buyers.get(goodsId);
+        return bitmap == null ? new RoaringBitmap() : bitmap;
+    }
+
+    // 상품 구매자 집합에 회원 추가 / 제거
+    private static class Change {
+
+        private final long goodsId;
+        private final int userId;
+        private final boolean add;
+
+        Change(long goodsId, int userId, boolean add) {
+            this.goodsId = goodsId;
+            this.userId = userId;
+            this.add = add;
+        }
+
+        void applyTo(LongObjectHashMap<RoaringBitmap> target) {
+            if (add) {
+                target.computeIfAbsent(goodsId, id -> new RoaringBitmap()).add(userId);
+                return;
+            }
+            RoaringBitmap bitmap = target.get(goodsId);
+            if (bitmap != null) {
+                bitmap.remove(userId);
+            }
+        }
+    }
+
+    private static int toInt(long userId) {
+        if (userId < 0 || userId > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("회원번호가 비트맵 범위를 벗어났습니다. userId=" + userId);
+        }
+        return (int) userId;
+    }
+}
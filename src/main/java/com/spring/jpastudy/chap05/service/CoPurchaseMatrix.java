@@ -0,0 +1,121 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.util.LongIntHashMap;
+import com.spring.jpastudy.util.LongObjectHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+    상품 x 상품 공동구매 행렬
+
+    - matrix[a][b] = 상품 a와 b를 둘 다 산 회원 수
+    - 행마다 기본형 해시맵을 쓰므로 Long/Integer 박싱이 없음 (대칭이라 a, b 양쪽에 저장)
+    - 스레드 안전하지 않음 (CoPurchaseService가 락으로 보호)
+ */
+public class CoPurchaseMatrix {
+
+    // 공동구매 수 내림차, 같으면 상품번호 오름차
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt(Entry::getCount).reversed()
+            .thenComparingLong(Entry::getGoodsId);
+
+    // LongIntHashMap 객체 하나의 헤더 + 필드 (메모리 추정용)
+    private static final long OBJECT_OVERHEAD = 48;
+
+    private final LongObjectHashMap<LongIntHashMap> rows;
+    private long pairCount;
+
+    public CoPurchaseMatrix() {
+        this(16);
+    }
+
+    public CoPurchaseMatrix(int expectedGoods) {
+        this.rows = new LongObjectHashMap<>(expectedGoods);
+    }
+
+    // 한 회원이 산 서로 다른 상품들을 반영 (goodsIds 안에 중복이 없어야 함)
+    public void addBasket(long[] goodsIds, int length) {
+        for (int i = 0; i < length; i++) {
+            for (int j = i + 1; j < length; j++) {
+                increment(goodsIds[i], goodsIds[j]);
+            }
+        }
+    }
+
+    // 회원이 새로 산 상품을 이미 갖고 있던 상품들과 연결
+    public void addToBasket(long newGoodsId, long[] ownedGoodsIds, int length) {
+        for (int i = 0; i < length; i++) {
+            if (ownedGoodsIds[i] != newGoodsId) {
+                increment(newGoodsId, ownedGoodsIds[i]);
+            }
+        }
+    }
+
+    public int get(long a, long b) {
+        LongIntHashMap row = rows.get(a);
+        return row == null ? 0 : row.get(b);
+    }
+
+    // 상품과 같이 많이 팔린 상위 k개
+    public List<Entry> topK(long goodsId, int k) {
+        LongIntHashMap row = rows.get(goodsId);
+        if (row == null || k < 1) {
+            return List.of();
+        }
+
+        // 크기 k의 최소 힙 - 힙에 들어가는 항목만 객체로 만듦
+        PriorityQueue<Entry> heap = new PriorityQueue<>(k, ORDER.reversed());
+        row.forEach((other, count) -> {
+            if (heap.size() < k) {
+                heap.add(new Entry(other, count));
+                return;
+            }
+            Entry min = heap.peek();
+            if (count > min.getCount() || (count == min.getCount() && other < min.getGoodsId())) {
+                heap.poll();
+                heap.add(new Entry(other, count));
+            }
+        });
+
+        List<Entry> result = new ArrayList<>(heap);
+        result.sort(ORDER);
+        return result;
+    }
+
+    public int goodsCount() {
+        return rows.size();
+    }
+
+    // 0이 아닌 (a, b) 칸 수 (대칭이므로 실제 저장된 칸은 2배)
+    public long pairCount() {
+        return pairCount;
+    }
+
+    // 행렬 전체가 차지하는 대략적인 바이트 수
+    public long estimatedBytes() {
+        long[] bytes = {rows.estimatedBytes()};
+        rows.forEach((goodsId, row) -> bytes[0] += OBJECT_OVERHEAD + row.estimatedBytes());
+        return bytes[0];
+    }
+
+    private void increment(long a, long b) {
+        if (rows.computeIfAbsent(a, key -> new LongIntHashMap()).addTo(b, 1) == 1) {
+            pairCount++;
+        }
+        rows.computeIfAbsent(b, key -> new LongIntHashMap()).addTo(a, 1);
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Entry {
+        private final long goodsId;
+        private final int count;
+    }
+}
@@ -0,0 +1,425 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.CoPurchaseDto;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.util.LongIntHashMap;
+import com.spring.jpastudy.util.LongObjectHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+    "이 상품을 산 회원이 함께 산 상품" 추천
+
+    - 서버가 뜰 때 tbl_mtm_purchase를 회원 순으로 한번 훑어서 공동구매 행렬을 만든다.
+    - 이후에는 구매가 커밋될 때마다 해당 회원이 이미 갖고 있던 상품과 새 상품을 연결한다.
+      1. 트랜잭션 안에서 기록된 구매를 회원별로 모아 두었다가
+      2. 커밋 직전에 잠금 읽기(LOCK IN SHARE MODE)로 회원의 구매 기록을 읽어서
+         이번 트랜잭션에서 처음 산 상품과 그 전부터 갖고 있던 상품을 나누고 (회원당 변화 1건)
+      3. 커밋되면 새 상품을 기존 상품, 다른 새 상품과 한 번씩 연결한다.
+      같은 트랜잭션에서 여러 건을 사거나 다른 트랜잭션이 같은 회원의 구매를 동시에 저장해도
+      조합이 두 번 세어지지 않는다. (같은 회원을 동시에 저장하는 쪽은 잠금 읽기에서 기다림)
+    - 행렬을 만드는 동안 커밋된 변화는 모아 두었다가 스캔 스냅샷에 없는 상품만 새 행렬에 반영한다.
+    - 상품별 상위 TOP_K_CACHE_SIZE개는 캐시해두고 행이 바뀔 때만 다시 계산한다.
+    - 상품을 너무 많이 산 회원(max-basket-size 초과)은 추천 품질에 도움이 안되고
+      조합 수만 늘리므로 제외한다.
+    - 주 DB의 구매 테이블만 읽으므로 샤딩을 켜면 jpastudy.co-purchase.enabled=false로 꺼야 한다.
+      (끄면 행렬을 만들지 않고 추천은 빈 목록)
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CoPurchaseService {
+
+    // 상품별로 미리 계산해 두는 추천 수 (요청 k의 최대값)
+    public static final int TOP_K_CACHE_SIZE = 50;
+
+    private static final String SCAN_SQL
+            = "SELECT user_id, goods_id FROM tbl_mtm_purchase ORDER BY user_id, goods_id";
+
+    // 증분 반영시 한번에 조회할 회원 수
+    private static final int USER_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate template;
+    private final GoodsRepository goodsRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${jpastudy.co-purchase.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jpastudy.co-purchase.max-basket-size:500}")
+    private int maxBasketSize;
+
+    @Value("${jpastudy.co-purchase.fetch-size:1000}")
+    private int fetchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+
+    // 행렬을 만드는 동안 커밋된 변화 (만드는 중이 아니면 null, 서버가 뜰 때는 처음 만들 때까지 모음)
+    private List<BasketChange> pending = new ArrayList<>();
+
+    // 상품별 추천 캐시 (값이 null이면 다시 계산)
+    private final LongObjectHashMap<List<CoPurchaseMatrix.Entry>> topKCache = new LongObjectHashMap<>();
+
+
+    // 서버 시작시 전체 구매 기록으로 행렬 생성
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        CoPurchaseMatrix built = new CoPurchaseMatrix();
+
+        // 스캔을 시작하기 전부터 커밋되는 변화를 모음
+        lock.writeLock().lock();
+        try {
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // 스캔과 스냅샷 확인을 같은 스냅샷에서
+        TransactionTemplate snapshotTx = new TransactionTemplate(transactionManager);
+        snapshotTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTx.executeWithoutResult(status -> {
+            BasketCollector collector = new BasketCollector(built);
+            template.query(scanStatement(),
+                    (RowCallbackHandler) rs -> collector.add(rs.getLong(1), rs.getLong(2)));
+            collector.flush();
+
+            // 모아 둔 변화를 새 행렬에 반영하고, 더 들어온 게 없으면 교체
+            while (true) {
+                List<BasketChange> changes;
+                lock.writeLock().lock();
+                try {
+                    if (pending.isEmpty()) {
+                        matrix = built;
+                        pending = null;
+                        synchronized (topKCache) {
+                            topKCache.clear();
+                        }
+                        break;
+                    }
+                    changes = pending;
+                    pending = new ArrayList<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                for (BasketChange change : changes) {
+                    unseen(change).applyTo(built);
+                }
+            }
+        });
+        log.info("공동구매 행렬 생성: 상품 {}개, 조합 {}개, 약 {}MB, {}ms",
+                built.goodsCount(), built.pairCount(), built.estimatedBytes() / (1024 * 1024),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // 구매가 기록되면 트랜잭션이 끝날 때까지 회원별로 모음 (트랜잭션 밖이면 이미 커밋된 것이므로 바로 반영)
+    @EventListener
+    public void onPurchasesRecorded(PurchasesRecordedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            RecordedPurchases recorded = new RecordedPurchases();
+            recorded.add(event.getPurchases());
+            apply(changes(recorded, false));
+            return;
+        }
+        RecordedPurchases recorded = (RecordedPurchases) TransactionSynchronizationManager.getResource(this);
+        if (recorded == null) {
+            recorded = new RecordedPurchases();
+            TransactionSynchronizationManager.bindResource(this, recorded);
+            TransactionSynchronizationManager.registerSynchronization(recorded);
+        }
+        recorded.add(event.getPurchases());
+    }
+
+    // 같이 많이 팔린 상품 상위 k개
+    @Transactional(readOnly = true)
+    public List<CoPurchaseDto> getAlsoBought(long goodsId, int k) {
+        List<CoPurchaseMatrix.Entry> top = topK(goodsId);
+        if (top.size() > k) {
+            top = top.subList(0, k);
+        }
+        if (top.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(top.size());
+        for (CoPurchaseMatrix.Entry entry : top) {
+            ids.add(entry.getGoodsId());
+        }
+        Map<Long, String> names = new HashMap<>();
+        for (Goods goods : goodsRepository.findAllById(ids)) {
+            names.put(goods.getId(), goods.getName());
+        }
+
+        List<CoPurchaseDto> result = new ArrayList<>(top.size());
+        for (CoPurchaseMatrix.Entry entry : top) {
+            String name = names.get(entry.getGoodsId());
+            if (name != null) { // 그 사이 삭제된 상품 제외
+                result.add(new CoPurchaseDto(entry.getGoodsId(), name, entry.getCount()));
+            }
+        }
+        return result;
+    }
+
+    private List<CoPurchaseMatrix.Entry> topK(long goodsId) {
+        synchronized (topKCache) {
+            List<CoPurchaseMatrix.Entry> cached = topKCache.get(goodsId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        List<CoPurchaseMatrix.Entry> computed;
+        lock.readLock().lock();
+        try {
+            computed = Collections.unmodifiableList(matrix.topK(goodsId, TOP_K_CACHE_SIZE));
+            // 락을 잡은 상태에서 넣어야 그 사이의 무효화를 덮어쓰지 않음
+            synchronized (topKCache) {
+                topKCache.put(goodsId, computed);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return computed;
+    }
+
+    /*
+        회원들이 지금까지 산 상품별 건수를 조회해서 이번에 처음 산 상품과 원래 갖고 있던 상품으로 나눔
+        - locking이면 잠금 읽기라서 다른 트랜잭션이 커밋한 최신 구매까지 보고,
+          아직 커밋되지 않은 같은 회원의 구매가 있으면 그 트랜잭션이 끝날 때까지 기다린다.
+     */
+    private List<BasketChange> changes(RecordedPurchases recorded, boolean locking) {
+        List<BasketChange> changes = new ArrayList<>();
+        List<Long> userIds = recorded.userIds;
+        for (int from = 0; from < userIds.size(); from += USER_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + USER_CHUNK_SIZE, userIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            LongObjectHashMap<LongIntHashMap> totals = new LongObjectHashMap<>(chunk.size());
+            template.query(
+                    "SELECT user_id, goods_id, COUNT(*) FROM tbl_mtm_purchase" +
+                            " WHERE user_id IN (" + placeholders + ") GROUP BY user_id, goods_id" +
+                            (locking ? " LOCK IN SHARE MODE" : ""),
+                    (RowCallbackHandler) rs -> totals.computeIfAbsent(rs.getLong(1), key -> new LongIntHashMap())
+                            .put(rs.getLong(2), rs.getInt(3)),
+                    chunk.toArray());
+
+            for (Long userId : chunk) {
+                LongIntHashMap total = totals.get(userId);
+                if (total == null || total.size() > maxBasketSize) {
+                    continue;
+                }
+                LongIntHashMap fresh = recorded.goods.get(userId);
+
+                // 이번 구매 전부터 갖고 있던 상품 / 이번에 처음 산 상품
+                long[] owned = new long[total.size()];
+                long[] added = new long[total.size()];
+                int[] counts = new int[2];
+                total.forEach((goodsId, count) -> {
+                    if (count > fresh.get(goodsId)) {
+                        owned[counts[0]++] = goodsId;
+                    } else {
+                        added[counts[1]++] = goodsId;
+                    }
+                });
+                if (counts[1] > 0) {
+                    changes.add(new BasketChange(userId,
+                            Arrays.copyOf(owned, counts[0]), Arrays.copyOf(added, counts[1])));
+                }
+            }
+        }
+        return changes;
+    }
+
+    // 커밋된 변화를 행렬에 반영 (행렬을 만드는 중이면 새 행렬에도 반영하도록 모아 둠)
+    private void apply(List<BasketChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (BasketChange change : changes) {
+                change.applyTo(matrix);
+                invalidate(change.owned, change.owned.length);
+                invalidate(change.added, change.added.length);
+                if (pending != null) {
+                    pending.add(change);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 행렬을 만든 스냅샷에서 이미 갖고 있던 상품은 새 상품에서 빼서 기존 상품으로 (rebuild의 스냅샷 트랜잭션 안에서 호출)
+    private BasketChange unseen(BasketChange change) {
+        String placeholders = String.join(",", Collections.nCopies(change.added.length, "?"));
+        List<Object> args = new ArrayList<>(change.added.length + 1);
+        args.add(change.userId);
+        for (long goodsId : change.added) {
+            args.add(goodsId);
+        }
+        List<Long> seen = template.queryForList(
+                "SELECT DISTINCT goods_id FROM tbl_mtm_purchase WHERE user_id = ? AND goods_id IN (" + placeholders + ")",
+                Long.class, args.toArray());
+        if (seen.isEmpty()) {
+            return change;
+        }
+        long[] owned = Arrays.copyOf(change.owned, change.owned.length + seen.size());
+        long[] added = new long[change.added.length - seen.size()];
+        int o = change.owned.length, a = 0;
+        for (long goodsId : change.added) {
+            if (seen.contains(goodsId)) {
+                owned[o++] = goodsId;
+            } else {
+                added[a++] = goodsId;
+            }
+        }
+        return new BasketChange(change.userId, owned, added);
+    }
+
+    private void invalidate(long[] goodsIds, int length) {
+        synchronized (topKCache) {
+            for (int i = 0; i < length; i++) {
+                if (topKCache.containsKey(goodsIds[i])) {
+                    topKCache.put(goodsIds[i], null);
+                }
+            }
+        }
+    }
+
+    // 대용량 결과를 한번에 메모리에 올리지 않도록 나눠서 읽음
+    private PreparedStatementCreator scanStatement() {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(SCAN_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        };
+    }
+
+    // 한 트랜잭션에서 기록된 회원별 상품별 건수 (커밋 직전에 변화를 계산하고 커밋되면 반영)
+    private class RecordedPurchases implements TransactionSynchronization {
+
+        private final LongObjectHashMap<LongIntHashMap> goods = new LongObjectHashMap<>();
+        private final List<Long> userIds = new ArrayList<>();
+        private List<BasketChange> changes = List.of();
+
+        void add(List<PurchaseCommand> purchases) {
+            for (PurchaseCommand purchase : purchases) {
+                LongIntHashMap counts = goods.get(purchase.getUserId());
+                if (counts == null) {
+                    counts = new LongIntHashMap();
+                    goods.put(purchase.getUserId(), counts);
+                    userIds.add(purchase.getUserId());
+                }
+                counts.addTo(purchase.getGoodsId(), 1);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            changes = changes(this, true);
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CoPurchaseService.this);
+        }
+    }
+
+    // 회원 한 명의 바구니 변화 - 새 상품끼리, 새 상품과 원래 갖고 있던 상품을 한 번씩 연결
+    private static class BasketChange {
+
+        private final long userId;
+        private final long[] owned;
+        private final long[] added;
+
+        BasketChange(long userId, long[] owned, long[] added) {
+            this.userId = userId;
+            this.owned = owned;
+            this.added = added;
+        }
+
+        void applyTo(CoPurchaseMatrix target) {
+            for (long goodsId : added) {
+                target.addToBasket(goodsId, owned, owned.length);
+            }
+            target.addBasket(added, added.length);
+        }
+    }
+
+    // 회원 순으로 정렬된 (회원, 상품) 행을 회원별 바구니로 모아서 행렬에 반영
+    private class BasketCollector {
+
+        private final CoPurchaseMatrix target;
+        private long currentUser = Long.MIN_VALUE;
+        private long[] basket = new long[16];
+        private int size;
+
+        BasketCollector(CoPurchaseMatrix target) {
+            this.target = target;
+        }
+
+        void add(long userId, long goodsId) {
+            if (userId != currentUser) {
+                flush();
+                currentUser = userId;
+            }
+            if (size > 0 && basket[size - 1] == goodsId) {
+                return; // 같은 상품을 여러 번 산 경우 (상품번호 순으로 정렬되어 있음)
+            }
+            if (size == basket.length) {
+                basket = Arrays.copyOf(basket, size * 2);
+            }
+            basket[size++] = goodsId;
+        }
+
+        void flush() {
+            if (size > 1 && size <= maxBasketSize) {
+                target.addBasket(basket, size);
+            }
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.GoodsPurchaseCountDto;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.event.PurchasesCanceledEvent;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    상품별 누적 구매 수 (tbl_mtm_goods.purchase_count)
+
+    - 구매할 때마다 UPDATE ... SET purchase_count = purchase_count + 1 을 하면
+      인기 상품의 행에 락 경합이 몰리므로, 커밋된 구매 수를 메모리의 상품별 LongAdder에 모아둔다.
+      (LongAdder는 스레드별 셀에 나눠서 더하므로 인기 상품도 메모리에서 한 곳에 몰리지 않음)
+    - 주기적으로 변경된 상품만 상품당 UPDATE 1개씩 배치로 반영하고, 서버 종료시에도 반영한다.
+      sumThenReset으로 꺼낸 만큼만 반영하므로 그 사이 더해진 값은 다음 번에 반영된다.
+    - 꺼낸 뒤 0인 상품은 맵에서 빼서 한번 팔린 상품이 계속 남아 있지 않게 한다.
+      빠진 LongAdder에 늦게 더해진 값은 flush가 한번 더 꺼내고, 더한 스레드도 빠진 것을 보면 꺼내서
+      맵에 다시 더한다. (sumThenReset은 셀마다 getAndSet이므로 같은 값을 두 번 꺼내지 않음)
+    - 그 사이 삭제된 상품(UPDATE된 행이 0개)의 값은 버린다.
+    - 조회시에는 DB 값 + 아직 반영되지 않은 값을 더해서 돌려준다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GoodsPurchaseCountService {
+
+    private static final String FLUSH_SQL
+            = "UPDATE tbl_mtm_goods SET purchase_count = purchase_count + ? WHERE goods_id = ?";
+
+    private final JdbcTemplate template;
+    private final TransactionTemplate tx;
+    private final ObjectProvider<ShardCluster> shardCluster;
+
+    @Value("${jpastudy.purchase-count.recount-on-startup:false}")
+    private boolean recountOnStartup;
+
+    // 상품별 아직 DB에 반영되지 않은 구매 수
+    private final ConcurrentMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchasesRecorded(PurchasesRecordedEvent event) {
+        for (PurchaseCommand purchase : event.getPurchases()) {
+            add(purchase.getGoodsId(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchasesCanceled(PurchasesCanceledEvent event) {
+        for (PurchaseCommand purchase : event.getPurchases()) {
+            add(purchase.getGoodsId(), -1);
+        }
+    }
+
+    // 구매 취소 등으로 줄어드는 경우 음수
+    public void add(long goodsId, long delta) {
+        while (delta != 0) {
+            LongAdder counter = pending.get(goodsId);
+            if (counter == null) {
+                counter = pending.computeIfAbsent(goodsId, id -> new LongAdder());
+            }
+            counter.add(delta);
+            if (pending.get(goodsId) == counter) {
+                return;
+            }
+            // flush가 그 사이 맵에서 뺐으면 아직 꺼내지 않은 값을 새 항목으로 옮김
+            delta = counter.sumThenReset();
+        }
+    }
+
+    // DB 값 + 반영 대기중인 값
+    public GoodsPurchaseCountDto getPurchaseCount(long goodsId) {
+        long persisted;
+        try {
+            persisted = template.queryForObject(
+                    "SELECT purchase_count FROM tbl_mtm_goods WHERE goods_id = ?", Long.class, goodsId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new NoSuchElementException("존재하지 않는 상품입니다. goodsId=" + goodsId);
+        }
+        return new GoodsPurchaseCountDto(goodsId, persisted + pendingOf(goodsId));
+    }
+
+    public long pendingOf(long goodsId) {
+        LongAdder counter = pending.get(goodsId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    boolean hasPending(long goodsId) {
+        return pending.containsKey(goodsId);
+    }
+
+    // 모인 구매 수를 꺼내서 DB에 반영 (실패하면 꺼낸 값을 되돌림)
+    @Scheduled(fixedDelayString = "${jpastudy.purchase-count.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // 상품번호 순으로 UPDATE해서 여러 서버가 동시에 반영해도 데드락이 나지 않게 함
+        Map<Long, Long> deltas = new TreeMap<>();
+        pending.forEach((goodsId, counter) -> {
+            long delta = counter.sumThenReset();
+            if (delta != 0) {
+                deltas.put(goodsId, delta);
+            }
+            prune(goodsId, counter);
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((goodsId, delta) -> args.add(new Object[]{delta, goodsId}));
+        int[] counts;
+        try {
+            counts = tx.execute(status -> template.batchUpdate(FLUSH_SQL, args));
+        } catch (RuntimeException e) {
+            deltas.forEach(this::add);
+            throw e;
+        }
+
+        // 삭제된 상품(0건 UPDATE)의 값은 이미 꺼냈으므로 그대로 버려짐
+        int dropped = 0;
+        for (int count : counts == null ? new int[0] : counts) {
+            if (count == 0) {
+                dropped++;
+            }
+        }
+        log.debug("상품 구매 수 반영: {}개 상품, 없는 상품 {}개는 버림", deltas.size() - dropped, dropped);
+    }
+
+    // 꺼낸 뒤 0인 상품은 맵에서 빼고, 빼는 사이 더해진 값은 다시 꺼내서 옮김 (더한 스레드가 먼저 옮겼으면 0)
+    private void prune(long goodsId, LongAdder counter) {
+        LongAdder kept = pending.computeIfPresent(goodsId,
+                (id, current) -> current == counter && current.sum() == 0 ? null : current);
+        if (kept == null) {
+            add(goodsId, counter.sumThenReset());
+        }
+    }
+
+    // 정상 종료시 남은 값 반영
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("종료 중 상품 구매 수 반영 실패 - 반영되지 않은 값: {}", pending, e);
+        }
+    }
+
+    // 컬럼을 처음 추가한 뒤 한번 켜서 기존 구매 기록을 반영
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountOnStartup() {
+        if (recountOnStartup) {
+            recount();
+        }
+    }
+
+    // 구매 기록 기준으로 전체 다시 계산
+    // 실행 중에 커밋된 구매는 두 번 셀 수 있으므로 구매가 없는 시간에 실행할 것
+    // 샤딩을 켜면 샤드별 상품 구매 수를 더해서 반영
+    public synchronized void recount() {
+        flush();
+        ShardCluster cluster = shardCluster.getIfAvailable();
+        if (cluster == null) {
+            template.update("UPDATE tbl_mtm_goods g SET purchase_count =" +
+                    " (SELECT COUNT(*) FROM tbl_mtm_purchase p WHERE p.goods_id = g.goods_id)");
+            return;
+        }
+
+        Map<Long, Long> counts = new TreeMap<>();
+        for (List<long[]> rows : cluster.scatter(shard -> shard.getTemplate().query(
+                "SELECT goods_id, COUNT(*) FROM tbl_mtm_purchase WHERE goods_id IS NOT NULL GROUP BY goods_id",
+                (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)}))) {
+            for (long[] row : rows) {
+                counts.merge(row[0], row[1], Long::sum);
+            }
+        }
+        List<Object[]> args = new ArrayList<>(counts.size());
+        counts.forEach((goodsId, count) -> args.add(new Object[]{count, goodsId}));
+        tx.executeWithoutResult(status -> {
+            template.update("UPDATE tbl_mtm_goods SET purchase_count = 0");
+            template.batchUpdate("UPDATE tbl_mtm_goods SET purchase_count = ? WHERE goods_id = ?", args);
+        });
+    }
+}
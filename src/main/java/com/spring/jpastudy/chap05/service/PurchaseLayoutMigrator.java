@@ -0,0 +1,174 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.config.shard.ShardCluster;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    구매 기록을 복합키 테이블(tbl_mtm_purchase_compact)로 옮기는 작업
+
+    1. 테이블 생성 - db/purchase-compact.sql (서버 시작시 자동)
+    2. backfill   - user_id 구간마다 복합키 테이블의 해당 구간을 지우고 다시 채운다.
+                    구간마다 한 트랜잭션이므로 같은 구간을 여러 번 실행해도 결과가 같다.
+                    seq는 (회원, 상품)별 purchase_id 순서
+    3. verify     - 구간마다 두 테이블의 건수와 (회원, 상품) 체크섬을 비교
+    4. 전환       - 쓰기를 잠시 멈추고 backfill, verify를 한 번 더 실행한 뒤 읽기/쓰기 경로를 바꾼다.
+                    purchase_id를 기준으로 하는 기능(커서 페이징, 집계 워터마크, 구매 요약)은
+                    전환 전에 seq 기준으로 다시 맞춰야 한다.
+    주 DB의 구매 테이블 기준이라 샤딩을 켜면 backfill, verify를 실행할 수 없다.
+ */
+@Service
+@Slf4j
+public class PurchaseLayoutMigrator {
+
+    private static final String BACKFILL_SQL =
+            "INSERT INTO tbl_mtm_purchase_compact (user_id, goods_id, seq, purchased_at) " +
+            "SELECT user_id, goods_id, " +
+            "       ROW_NUMBER() OVER (PARTITION BY user_id, goods_id ORDER BY purchase_id), " +
+            "       purchased_at " +
+            "FROM tbl_mtm_purchase " +
+            "WHERE user_id >= ? AND user_id < ? AND goods_id IS NOT NULL";
+
+    // 구간별 건수와 (회원, 상품) 체크섬
+    private static final String CHECKSUM_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT(user_id, ':', goods_id))), 0) " +
+            "FROM %s " +
+            "WHERE user_id >= ? AND user_id < ? AND goods_id IS NOT NULL";
+
+    private final JdbcTemplate template;
+    private final TransactionTemplate tx;
+    private final ObjectProvider<ShardCluster> shardCluster;
+
+    // 한 트랜잭션에서 옮길 user_id 구간 크기
+    private final int chunkSize;
+
+    public PurchaseLayoutMigrator(JdbcTemplate template,
+                                  TransactionTemplate tx,
+                                  ObjectProvider<ShardCluster> shardCluster,
+                                  @Value("${jpastudy.purchase-compact.backfill-chunk-size:10000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("backfill-chunk-size는 1 이상이어야 합니다.");
+        }
+        this.template = template;
+        this.tx = tx;
+        this.shardCluster = shardCluster;
+        this.chunkSize = chunkSize;
+    }
+
+    // 전체 구매 기록을 복합키 테이블로 복사
+    public synchronized BackfillResult backfill() {
+        long[] range = userIdRange();
+        return range == null ? new BackfillResult(0, 0, 0) : backfill(range[0], range[1] + 1);
+    }
+
+    // user_id가 [fromUserId, toUserId) 인 구매 기록을 복합키 테이블로 복사
+    public synchronized BackfillResult backfill(long fromUserId, long toUserId) {
+        requireNotSharded();
+        long start = System.nanoTime();
+        int chunks = 0;
+        long rows = 0;
+        for (long from = fromUserId; from < toUserId; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + chunkSize, toUserId);
+            Integer copied = tx.execute(status -> {
+                template.update("DELETE FROM tbl_mtm_purchase_compact WHERE user_id >= ? AND user_id < ?",
+                        chunkFrom, chunkTo);
+                return template.update(BACKFILL_SQL, chunkFrom, chunkTo);
+            });
+            rows += copied == null ? 0 : copied;
+            chunks++;
+        }
+        BackfillResult result = new BackfillResult(chunks, rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("복합키 구매 테이블 backfill: {}", result);
+        return result;
+    }
+
+    // 두 테이블이 같은 구매 기록을 담고 있는지 구간별로 비교
+    public VerifyResult verify() {
+        requireNotSharded();
+        long[] range = userIdRange();
+        if (range == null) {
+            return new VerifyResult(0, 0, 0, List.of());
+        }
+        long legacyRows = 0;
+        long compactRows = 0;
+        int chunks = 0;
+        List<Long> mismatches = new ArrayList<>();
+        for (long from = range[0]; from <= range[1]; from += chunkSize) {
+            long[] legacy = checksum("tbl_mtm_purchase", from, from + chunkSize);
+            long[] compact = checksum("tbl_mtm_purchase_compact", from, from + chunkSize);
+            legacyRows += legacy[0];
+            compactRows += compact[0];
+            chunks++;
+            if (legacy[0] != compact[0] || legacy[1] != compact[1]) {
+                mismatches.add(from);
+            }
+        }
+        return new VerifyResult(chunks, legacyRows, compactRows, mismatches);
+    }
+
+    private long[] checksum(String table, long fromUserId, long toUserId) {
+        return template.queryForObject(String.format(CHECKSUM_SQL, table),
+                (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)}, fromUserId, toUserId);
+    }
+
+    private void requireNotSharded() {
+        if (shardCluster.getIfAvailable() != null) {
+            throw new IllegalStateException("샤딩을 켜면 복합키 구매 테이블로 옮길 수 없습니다.");
+        }
+    }
+
+    // 두 테이블에 걸친 {최소 user_id, 최대 user_id} (둘 다 비었으면 null)
+    private long[] userIdRange() {
+        long[] legacy = minMaxUserId("tbl_mtm_purchase");
+        long[] compact = minMaxUserId("tbl_mtm_purchase_compact");
+        if (legacy == null || compact == null) {
+            return legacy == null ? compact : legacy;
+        }
+        return new long[]{Math.min(legacy[0], compact[0]), Math.max(legacy[1], compact[1])};
+    }
+
+    private long[] minMaxUserId(String table) {
+        return template.queryForObject("SELECT MIN(user_id), MAX(user_id) FROM " + table, (rs, n) -> {
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        });
+    }
+
+    // 처리한 구간 수, 복사한 행 수, 걸린 시간
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class BackfillResult {
+        private int chunks;
+        private long rows;
+        private long elapsedMillis;
+    }
+
+    // 비교한 구간 수, 테이블별 행 수, 내용이 다른 구간의 시작 user_id
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class VerifyResult {
+        private int chunks;
+        private long legacyRows;
+        private long compactRows;
+        private List<Long> mismatchedRanges;
+
+        public boolean isConsistent() {
+            return mismatchedRanges.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.event.PurchasesCanceledEvent;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import java.util.List;
+
+// JPA로 저장, 삭제된 구매 기록을 이벤트로 알림 (user.purchaseList 등의 cascade 포함)
+// 행마다 한 건씩 발행되므로 트랜잭션 단위로 봐야 하는 쪽은 트랜잭션 안에서 모아서 처리 (CoPurchaseService)
+@Component
+@RequiredArgsConstructor
+public class PurchaseListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    public void postPersist(Purchase purchase) {
+        PurchaseCommand command = commandOf(purchase);
+        if (command != null) {
+            publisher.publishEvent(new PurchasesRecordedEvent(List.of(command)));
+        }
+    }
+
+    @PostRemove
+    public void postRemove(Purchase purchase) {
+        PurchaseCommand command = commandOf(purchase);
+        if (command != null) {
+            publisher.publishEvent(new PurchasesCanceledEvent(List.of(command)));
+        }
+    }
+
+    private PurchaseCommand commandOf(Purchase purchase) {
+        if (purchase.getUser() == null || purchase.getGoods() == null) {
+            return null;
+        }
+        return new PurchaseCommand(purchase.getUser().getId(), purchase.getGoods().getId());
+    }
+}
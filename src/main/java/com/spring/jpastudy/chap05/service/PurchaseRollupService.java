@@ -0,0 +1,198 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.PurchaseRollupDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+    시간대별 상품 구매 수 집계 (tbl_purchase_rollup)
+
+    - 대시보드가 구매 테이블을 GROUP BY 하지 않도록 한 시간 단위로 미리 모아둔다.
+    - 워터마크(tbl_rollup_watermark.last_id) 이후의 구매 기록만 purchase_id 순서로 chunk-size 만큼씩 읽어서
+      (상품, 시간) 별로 더한 뒤 UPSERT하고, 같은 트랜잭션에서 워터마크를 옮긴다.
+      → 중간에 죽거나 여러 서버가 동시에 돌아도 (워터마크 행 잠금) 두 번 더해지지 않는다.
+    - IDENTITY 값은 커밋 순서와 다르게 발급될 수 있으므로 grace 만큼 지난 구매 기록까지만 반영한다.
+      (grace보다 오래 열려있던 트랜잭션의 구매 기록은 빠질 수 있음)
+      구매 시각이 DB 기본값이므로 기준 시각도 DB에서 NOW(6) - grace로 계산한다.
+    - 워터마크는 처음 만들 때 그 시점의 MAX(purchase_id)에서 시작한다.
+      purchased_at 컬럼이 나중에 추가된 테이블에서는 기존 행이 모두 추가한 시각으로 채워지므로
+      그 이전 구매 기록은 집계하지 않는다.
+    - 구매 취소(삭제)는 반영하지 않는다. 이미 집계된 구매 수는 그대로 남는다.
+    - 주 DB의 구매 테이블만 읽으므로 샤딩을 켜면 jpastudy.purchase-rollup.enabled=false로 꺼야 한다.
+      (끄면 집계만 멈추고 이미 집계된 구간은 조회된다)
+ */
+@Service
+@Slf4j
+public class PurchaseRollupService {
+
+    public static final String JOB_NAME = "purchase-hourly";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO tbl_purchase_rollup (goods_id, bucket_start, purchase_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE purchase_count = purchase_count + VALUES(purchase_count)";
+
+    // 조회 단위 (일 단위는 시간 버킷을 합산)
+    public enum Unit {
+        HOUR("bucket_start", ChronoUnit.HOURS),
+        DAY("TIMESTAMP(DATE(bucket_start))", ChronoUnit.DAYS);
+
+        private final String bucketExpression;
+        private final ChronoUnit chronoUnit;
+
+        Unit(String bucketExpression, ChronoUnit chronoUnit) {
+            this.bucketExpression = bucketExpression;
+            this.chronoUnit = chronoUnit;
+        }
+    }
+
+    private final JdbcTemplate template;
+    private final TransactionTemplate tx;
+
+    // 한 트랜잭션에서 읽을 구매 기록 수
+    private final int chunkSize;
+
+    // 이만큼 지난 구매 기록까지만 집계 (마이크로초)
+    private final long graceMicros;
+
+    private final boolean enabled;
+
+    public PurchaseRollupService(JdbcTemplate template,
+                                 TransactionTemplate tx,
+                                 @Value("${jpastudy.purchase-rollup.chunk-size:5000}") int chunkSize,
+                                 @Value("${jpastudy.purchase-rollup.grace:PT1M}") Duration grace,
+                                 @Value("${jpastudy.purchase-rollup.enabled:true}") boolean enabled) {
+        if (chunkSize < 1 || grace.isNegative()) {
+            throw new IllegalArgumentException("chunk-size는 1 이상, grace는 0 이상이어야 합니다.");
+        }
+        this.template = template;
+        this.tx = tx;
+        this.chunkSize = chunkSize;
+        this.graceMicros = grace.toNanos() / 1000;
+        this.enabled = enabled;
+    }
+
+    // 워터마크가 없으면 지금까지의 구매 기록은 건너뛰고 시작
+    @EventListener(ApplicationReadyEvent.class)
+    public void initWatermark() {
+        if (!enabled) {
+            return;
+        }
+        template.update("INSERT IGNORE INTO tbl_rollup_watermark (job_name, last_id) " +
+                "SELECT ?, COALESCE(MAX(purchase_id), 0) FROM tbl_mtm_purchase", JOB_NAME);
+    }
+
+    // 워터마크 이후의 구매 기록을 집계하고 반영한 건수를 반환
+    @Scheduled(fixedDelayString = "${jpastudy.purchase-rollup.interval-ms:60000}",
+            initialDelayString = "${jpastudy.purchase-rollup.interval-ms:60000}")
+    public synchronized long rollup() {
+        if (!enabled) {
+            return 0;
+        }
+        initWatermark();
+
+        long total = 0;
+        while (true) {
+            Integer processed = tx.execute(status -> rollupChunk());
+            total += processed == null ? 0 : processed;
+            if (processed == null || processed < chunkSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.debug("구매 수 집계 반영: {}건", total);
+        }
+        return total;
+    }
+
+    private int rollupChunk() {
+        // 다른 서버가 같은 구간을 집계하지 못하도록 워터마크 행을 잠금
+        Long lastId = template.queryForObject(
+                "SELECT last_id FROM tbl_rollup_watermark WHERE job_name = ? FOR UPDATE", Long.class, JOB_NAME);
+
+        // 상품 → 시간 버킷 → 구매 수 (UPSERT 순서를 고정해서 데드락 방지)
+        Map<Long, Map<LocalDateTime, Long>> counts = new TreeMap<>();
+        long[] watermark = {lastId == null ? 0 : lastId};
+        int[] processed = {0};
+        boolean[] reachedCutoff = {false};
+
+        // 기준 시각은 구매 시각과 같은 DB 시계로 계산
+        template.query("SELECT purchase_id, goods_id, purchased_at, " +
+                        "       purchased_at < NOW(6) - INTERVAL ? MICROSECOND AS settled " +
+                        "FROM tbl_mtm_purchase " +
+                        "WHERE purchase_id > ? ORDER BY purchase_id LIMIT ?",
+                rs -> {
+                    if (reachedCutoff[0]) {
+                        return;
+                    }
+                    if (!rs.getBoolean(4)) {
+                        reachedCutoff[0] = true; // 이후 기록은 다음 실행에서
+                        return;
+                    }
+                    LocalDateTime purchasedAt = rs.getTimestamp(3).toLocalDateTime();
+                    long goodsId = rs.getLong(2);
+                    if (!rs.wasNull()) {
+                        counts.computeIfAbsent(goodsId, id -> new TreeMap<>())
+                                .merge(purchasedAt.truncatedTo(ChronoUnit.HOURS), 1L, Long::sum);
+                    }
+                    watermark[0] = rs.getLong(1);
+                    processed[0]++;
+                }, graceMicros, watermark[0], chunkSize);
+
+        if (processed[0] == 0) {
+            return 0;
+        }
+
+        List<Object[]> args = new ArrayList<>();
+        counts.forEach((goodsId, buckets) -> buckets.forEach((bucketStart, count) ->
+                args.add(new Object[]{goodsId, Timestamp.valueOf(bucketStart), count})));
+        template.batchUpdate(UPSERT_SQL, args);
+        template.update("UPDATE tbl_rollup_watermark SET last_id = ? WHERE job_name = ?", watermark[0], JOB_NAME);
+
+        // grace에 걸려 잘린 청크는 chunk-size보다 작으므로 반복이 멈춤
+        return processed[0];
+    }
+
+    // 상품의 구간별 구매 수 [from, to)
+    public List<PurchaseRollupDto> getGoodsSeries(long goodsId, Unit unit, LocalDateTime from, LocalDateTime to) {
+        return template.query(seriesSql(unit, "goods_id = ? AND "),
+                (rs, n) -> new PurchaseRollupDto(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                goodsId, Timestamp.valueOf(from.truncatedTo(unit.chronoUnit)), Timestamp.valueOf(to));
+    }
+
+    // 전체 상품의 구간별 구매 수 [from, to)
+    public List<PurchaseRollupDto> getTotalSeries(Unit unit, LocalDateTime from, LocalDateTime to) {
+        return template.query(seriesSql(unit, ""),
+                (rs, n) -> new PurchaseRollupDto(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                Timestamp.valueOf(from.truncatedTo(unit.chronoUnit)), Timestamp.valueOf(to));
+    }
+
+    // 집계가 반영된 마지막 purchase_id
+    public long getWatermark() {
+        List<Long> lastIds = template.queryForList(
+                "SELECT last_id FROM tbl_rollup_watermark WHERE job_name = ?", Long.class, JOB_NAME);
+        return lastIds.isEmpty() ? 0 : lastIds.get(0);
+    }
+
+    private String seriesSql(Unit unit, String goodsCondition) {
+        return "SELECT " + unit.bucketExpression + " AS bucket, SUM(purchase_count) " +
+                "FROM tbl_purchase_rollup " +
+                "WHERE " + goodsCondition + "bucket_start >= ? AND bucket_start < ? " +
+                "GROUP BY bucket " +
+                "ORDER BY bucket";
+    }
+}
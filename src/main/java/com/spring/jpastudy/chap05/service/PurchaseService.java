@@ -0,0 +1,123 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.CursorPage;
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseRepository;
+import com.spring.jpastudy.chap05.repository.UserPurchaseSummaryRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.NoSuchElementException;
+
+// jpastudy.sharding.enabled=true면 구매 기록 읽기/쓰기를 모두 ShardedPurchaseService로 보냄 (구매 번호도 전체 id)
+// 샤드로 보낼 때는 주 DB 트랜잭션(커넥션)을 열지 않도록 주 DB 경로만 TransactionTemplate으로 묶음
+@Service
+@Slf4j
+public class PurchaseService {
+
+    private final PurchaseRepository purchaseRepository;
+    private final UserRepository userRepository;
+    private final GoodsRepository goodsRepository;
+    private final UserPurchaseSummaryRepository summaryRepository;
+    private final ObjectProvider<ShardedPurchaseService> shardedPurchaseService;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+
+    public PurchaseService(PurchaseRepository purchaseRepository,
+                           UserRepository userRepository,
+                           GoodsRepository goodsRepository,
+                           UserPurchaseSummaryRepository summaryRepository,
+                           ObjectProvider<ShardedPurchaseService> shardedPurchaseService,
+                           PlatformTransactionManager transactionManager) {
+        this.purchaseRepository = purchaseRepository;
+        this.userRepository = userRepository;
+        this.goodsRepository = goodsRepository;
+        this.summaryRepository = summaryRepository;
+        this.shardedPurchaseService = shardedPurchaseService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    // 회원의 구매 내역 조회 (최신순, cursor 이후부터 size개)
+    public CursorPage<PurchaseHistoryDto> getPurchaseHistory(Long userId, Long cursor, int size) {
+        ShardedPurchaseService sharded = shardedPurchaseService.getIfAvailable();
+        if (sharded != null) {
+            return sharded.getPurchaseHistory(userId, cursor, size);
+        }
+        return readOnlyTx.execute(status -> CursorPage.of(
+                purchaseRepository.findHistoryByUser(userId, cursor, size + 1),
+                size, PurchaseHistoryDto::getPurchaseId));
+    }
+
+    // 상품을 구매한 회원 조회 (최신순, cursor 이후부터 size개)
+    public CursorPage<GoodsBuyerDto> getBuyers(Long goodsId, Long cursor, int size) {
+        ShardedPurchaseService sharded = shardedPurchaseService.getIfAvailable();
+        if (sharded != null) {
+            return sharded.getBuyers(goodsId, cursor, size);
+        }
+        return readOnlyTx.execute(status -> CursorPage.of(
+                purchaseRepository.findBuyersByGoods(goodsId, cursor, size + 1),
+                size, GoodsBuyerDto::getPurchaseId));
+    }
+
+    // 구매 (구매 기록 저장과 회원 구매 요약 갱신을 한 트랜잭션으로)
+    public Long purchase(Long userId, Long goodsId) {
+        ShardedPurchaseService sharded = shardedPurchaseService.getIfAvailable();
+        if (sharded != null) {
+            return sharded.purchase(userId, goodsId);
+        }
+        return tx.execute(status -> purchaseOnPrimary(userId, goodsId));
+    }
+
+    private Long purchaseOnPrimary(Long userId, Long goodsId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NoSuchElementException("존재하지 않는 회원입니다. userId=" + userId));
+        Goods goods = goodsRepository.findById(goodsId)
+                .orElseThrow(() -> new NoSuchElementException("존재하지 않는 상품입니다. goodsId=" + goodsId));
+
+        // 같은 회원의 구매를 순서대로 처리해야 처음 산 상품인지 정확히 판단할 수 있음
+        summaryRepository.lock(userId);
+        boolean newGoods = !summaryRepository.hasPurchased(userId, goodsId);
+
+        Purchase purchase = purchaseRepository.save(Purchase.builder().user(user).goods(goods).build());
+        summaryRepository.applyPurchase(userId, goodsId, purchase.getId(), newGoods);
+        return purchase.getId();
+    }
+
+    // 구매 취소 (삭제되면 PurchaseListener가 취소 이벤트를 발행)
+    public void cancel(Long purchaseId) {
+        ShardedPurchaseService sharded = shardedPurchaseService.getIfAvailable();
+        if (sharded != null) {
+            sharded.cancel(purchaseId);
+            return;
+        }
+        tx.executeWithoutResult(status -> cancelOnPrimary(purchaseId));
+    }
+
+    private void cancelOnPrimary(Long purchaseId) {
+        Purchase purchase = purchaseRepository.findById(purchaseId)
+                .orElseThrow(() -> new NoSuchElementException("존재하지 않는 구매 기록입니다. purchaseId=" + purchaseId));
+        Long userId = purchase.getUser() == null ? null : purchase.getUser().getId();
+        Long goodsId = purchase.getGoods() == null ? null : purchase.getGoods().getId();
+
+        if (userId != null) {
+            summaryRepository.lock(userId);
+        }
+        purchaseRepository.delete(purchase);
+        purchaseRepository.flush(); // 요약을 다시 계산하기 전에 DELETE 반영
+
+        if (userId != null && goodsId != null) {
+            summaryRepository.applyCancel(userId, goodsId, purchaseId);
+        }
+    }
+}
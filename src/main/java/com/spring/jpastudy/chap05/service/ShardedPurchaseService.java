@@ -0,0 +1,217 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.CursorPage;
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import com.spring.jpastudy.chap05.dto.UserPurchaseSummaryDto;
+import com.spring.jpastudy.chap05.event.PurchasesCanceledEvent;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.chap05.repository.ShardedPurchaseRepository;
+import com.spring.jpastudy.chap05.repository.UserPurchaseSummaryRepository;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.config.shard.ShardCluster.Shard;
+import com.spring.jpastudy.config.shard.ShardRouter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/*
+    user_id 기준으로 샤딩된 구매 기록 / 회원 구매 요약 (jpastudy.sharding.enabled=true 일 때만)
+
+    - PurchaseService, UserPurchaseSummaryService가 샤딩을 켜면 이 서비스로 보낸다.
+    - 구매, 취소, 회원 구매 내역, 회원 구매 요약은 회원의 샤드 하나에서 로컬 트랜잭션으로 처리
+    - 상품 구매자 조회처럼 회원과 무관한 조회는 모든 샤드에 병렬로 보내고(scatter)
+      샤드별 결과를 전체 구매 번호 내림차순으로 k-way 병합(gather)해서 한 페이지를 만든다.
+      샤드 안에서는 최신순이지만 샤드끼리는 시각이 아니라 전체 id 순서이므로 (샤드마다 로컬 id가 따로 늘어남)
+      여러 샤드에 걸친 결과는 정확한 시간순이 아니다. 대신 커서 하나로 빠짐, 중복 없이 이어 읽을 수 있다.
+    - 밖으로 내보내는 구매 번호는 샤드 번호가 들어간 전체 id (ShardRouter)
+    - 회원, 상품 이름은 주 DB에서 한 번에 조회한다.
+    - 구매, 취소는 주 DB 경로와 같은 이벤트를 샤드 트랜잭션 안에서 발행하므로 (샤드가 커밋되면 전달)
+      상품 구매 수, 인기 상품, 구매자 비트맵도 그대로 갱신된다.
+    - 공동구매, 시간대별 집계는 아직 주 DB의 구매 테이블 기준이라 샤딩을 켜면 끄고 시작해야 한다. (ShardingConfig)
+ */
+@Service
+@ConditionalOnProperty(prefix = "jpastudy.sharding", name = "enabled", havingValue = "true")
+public class ShardedPurchaseService {
+
+    private final ShardCluster cluster;
+    private final ShardRouter router;
+    private final ShardedPurchaseRepository purchaseRepository;
+    private final JdbcTemplate primary;
+    private final ApplicationEventPublisher publisher;
+
+    // 샤드 번호별 구매 요약 저장소
+    private final List<UserPurchaseSummaryRepository> summaries = new ArrayList<>();
+
+    public ShardedPurchaseService(ShardCluster cluster,
+                                  ShardedPurchaseRepository purchaseRepository,
+                                  JdbcTemplate primary,
+                                  ApplicationEventPublisher publisher) {
+        this.cluster = cluster;
+        this.router = cluster.getRouter();
+        this.purchaseRepository = purchaseRepository;
+        this.primary = primary;
+        this.publisher = publisher;
+        for (Shard shard : cluster.getShards()) {
+            summaries.add(new UserPurchaseSummaryRepository(shard.getTemplate()));
+        }
+    }
+
+    // 구매 (회원 샤드의 한 트랜잭션에서 구매 기록 저장 + 구매 요약 갱신), 전체 구매 번호 반환
+    public Long purchase(Long userId, Long goodsId) {
+        requireExists("tbl_mtm_user", "user_id", userId, "회원");
+        requireExists("tbl_mtm_goods", "goods_id", goodsId, "상품");
+
+        Shard shard = cluster.shardFor(userId);
+        UserPurchaseSummaryRepository summary = summaries.get(shard.getIndex());
+        Long purchaseId = shard.getTx().execute(status -> {
+            summary.lock(userId);
+            boolean newGoods = !summary.hasPurchased(userId, goodsId);
+            long inserted = purchaseRepository.insert(shard, userId, goodsId);
+            summary.applyPurchase(userId, goodsId, inserted, newGoods);
+            publisher.publishEvent(new PurchasesRecordedEvent(List.of(new PurchaseCommand(userId, goodsId))));
+            return inserted;
+        });
+        return router.globalId(shard.getIndex(), purchaseId);
+    }
+
+    // 구매 취소 (전체 구매 번호로 샤드를 찾음)
+    public void cancel(Long purchaseId) {
+        int index = router.shardOfId(purchaseId);
+        if (purchaseId <= 0 || index >= router.getShardCount()) {
+            throw new NoSuchElementException("존재하지 않는 구매 기록입니다. purchaseId=" + purchaseId);
+        }
+        Shard shard = cluster.shard(index);
+        UserPurchaseSummaryRepository summary = summaries.get(index);
+        long localId = router.localId(purchaseId);
+
+        shard.getTx().executeWithoutResult(status -> {
+            long[] purchase = purchaseRepository.find(shard, localId);
+            if (purchase == null) {
+                throw new NoSuchElementException("존재하지 않는 구매 기록입니다. purchaseId=" + purchaseId);
+            }
+            summary.lock(purchase[0]);
+            purchaseRepository.delete(shard, localId);
+            summary.applyCancel(purchase[0], purchase[1], localId);
+            publisher.publishEvent(new PurchasesCanceledEvent(List.of(new PurchaseCommand(purchase[0], purchase[1]))));
+        });
+    }
+
+    // 회원의 구매 내역 (회원 샤드 하나만 조회, 최신순)
+    public CursorPage<PurchaseHistoryDto> getPurchaseHistory(Long userId, Long cursor, int size) {
+        Shard shard = cluster.shardFor(userId);
+        List<long[]> rows = purchaseRepository.findHistoryByUser(
+                shard, userId, router.localCursor(shard.getIndex(), cursor), size + 1);
+
+        Map<Long, String> goodsNames = names("tbl_mtm_goods", "goods_id", "goods_name",
+                rows.stream().map(row -> row[1]).collect(Collectors.toList()));
+        List<PurchaseHistoryDto> fetched = new ArrayList<>(rows.size());
+        for (long[] row : rows) {
+            fetched.add(new PurchaseHistoryDto(router.globalId(shard.getIndex(), row[0]),
+                    row[1], goodsNames.get(row[1])));
+        }
+        return CursorPage.of(fetched, size, PurchaseHistoryDto::getPurchaseId);
+    }
+
+    // 상품을 구매한 회원 (모든 샤드 조회 후 전체 구매 번호 내림차순으로 병합)
+    public CursorPage<GoodsBuyerDto> getBuyers(Long goodsId, Long cursor, int size) {
+        // 샤드마다 size + 1 개씩 가져오면 병합 결과의 앞 size + 1 개는 반드시 그 안에 있음
+        List<List<long[]>> perShard = cluster.scatter(shard -> {
+            List<long[]> rows = purchaseRepository.findBuyersByGoods(
+                    shard, goodsId, router.localCursor(shard.getIndex(), cursor), size + 1);
+            for (long[] row : rows) {
+                row[0] = router.globalId(shard.getIndex(), row[0]);
+            }
+            return rows;
+        });
+        List<long[]> merged = mergeLatestFirst(perShard, size + 1);
+
+        Map<Long, String> userNames = names("tbl_mtm_user", "user_id", "user_name",
+                merged.stream().map(row -> row[1]).collect(Collectors.toList()));
+        List<GoodsBuyerDto> fetched = new ArrayList<>(merged.size());
+        for (long[] row : merged) {
+            fetched.add(new GoodsBuyerDto(row[0], row[1], userNames.get(row[1])));
+        }
+        return CursorPage.of(fetched, size, GoodsBuyerDto::getPurchaseId);
+    }
+
+    // 회원의 구매 요약 (회원 샤드의 PK 조회 + 주 DB의 상품 이름)
+    public UserPurchaseSummaryDto getSummary(Long userId) {
+        Shard shard = cluster.shardFor(userId);
+        List<long[]> found = shard.getTemplate().query(
+                "SELECT purchase_count, distinct_goods_count, last_goods_id " +
+                "FROM tbl_user_purchase_summary WHERE user_id = ?",
+                (rs, n) -> {
+                    long lastGoodsId = rs.getLong(3);
+                    return new long[]{rs.getLong(1), rs.getLong(2), rs.wasNull() ? 0 : lastGoodsId};
+                }, userId);
+
+        if (found.isEmpty()) {
+            requireExists("tbl_mtm_user", "user_id", userId, "회원");
+            return new UserPurchaseSummaryDto(userId, 0, 0, null, null);
+        }
+        long[] summary = found.get(0);
+        Long lastGoodsId = summary[2] == 0 ? null : summary[2];
+        String lastGoodsName = lastGoodsId == null ? null
+                : names("tbl_mtm_goods", "goods_id", "goods_name", List.of(lastGoodsId)).get(lastGoodsId);
+        return new UserPurchaseSummaryDto(userId, summary[0], summary[1], lastGoodsId, lastGoodsName);
+    }
+
+    // id 내림차순으로 정렬된 목록들을 합쳐서 앞에서부터 limit개 (row[0]이 id)
+    static List<long[]> mergeLatestFirst(List<List<long[]>> sortedLists, int limit) {
+        // {목록 번호, 목록 안의 위치}, 각 목록의 현재 맨 앞 id가 큰 순서
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> Long.compare(
+                sortedLists.get(b[0]).get(b[1])[0], sortedLists.get(a[0]).get(a[1])[0]));
+        for (int i = 0; i < sortedLists.size(); i++) {
+            if (!sortedLists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+
+        List<long[]> merged = new ArrayList<>(limit);
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<long[]> list = sortedLists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (head[1] + 1 < list.size()) {
+                heads.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+
+    private Map<Long, String> names(String table, String idColumn, String nameColumn, Collection<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        if (ids.isEmpty()) {
+            return names;
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        String in = distinct.stream().map(id -> "?").collect(Collectors.joining(", "));
+        primary.query("SELECT " + idColumn + ", " + nameColumn + " FROM " + table +
+                        " WHERE " + idColumn + " IN (" + in + ")",
+                rs -> {
+                    names.put(rs.getLong(1), rs.getString(2));
+                }, distinct.toArray());
+        return names;
+    }
+
+    private void requireExists(String table, String idColumn, long id, String name) {
+        Integer count = primary.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE " + idColumn + " = ?", Integer.class, id);
+        if (count == null || count == 0) {
+            throw new NoSuchElementException("존재하지 않는 " + name + "입니다. id=" + id);
+        }
+    }
+}
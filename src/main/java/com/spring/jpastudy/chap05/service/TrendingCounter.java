@@ -0,0 +1,165 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.util.CountMinSketch;
+import com.spring.jpastudy.util.LongIntHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+
+/*
+    최근 N분 동안 많이 팔린 상품 (heavy hitters)
+
+    - 1분 단위 버킷을 maxMinutes개 돌려 쓰며, 버킷마다
+      Count-Min Sketch(상품별 근사 건수)와 건수가 큰 후보 상품 candidateSize개를 둔다.
+    - 조회시 구간에 들어오는 버킷들의 후보를 모아 스케치 추정값을 합산하고 상위 k개를 고른다.
+    - 메모리는 버킷 수 x (스케치 크기 + 후보 수)로 고정되며 상품 수와 무관하다.
+    - 추정값은 실제보다 작지 않다. (스케치 특성)
+ */
+public class TrendingCounter {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingLong(Entry::getCount).reversed()
+            .thenComparingLong(Entry::getGoodsId);
+
+    private static final long MINUTE = 60_000L;
+
+    private final Bucket[] buckets;
+    private final LongSupplier clock;
+
+    public TrendingCounter(int maxMinutes, int sketchWidth, int sketchDepth, int candidateSize,
+                           LongSupplier clock) {
+        this.buckets = new Bucket[maxMinutes];
+        for (int i = 0; i < maxMinutes; i++) {
+            buckets[i] = new Bucket(new CountMinSketch(sketchWidth, sketchDepth), candidateSize);
+        }
+        this.clock = clock;
+    }
+
+    public synchronized void add(long goodsId, int count) {
+        long minute = clock.getAsLong() / MINUTE;
+        bucketOf(minute).add(goodsId, count);
+    }
+
+    // 최근 minutes분 동안 가장 많이 팔린 상품 k개 (현재 진행중인 1분 포함)
+    public synchronized List<Entry> top(int minutes, int k) {
+        long now = clock.getAsLong() / MINUTE;
+        int span = Math.min(Math.max(minutes, 1), buckets.length);
+
+        List<Bucket> window = new ArrayList<>(span);
+        for (long minute = now - span + 1; minute <= now; minute++) {
+            Bucket bucket = buckets[(int) Math.floorMod(minute, (long) buckets.length)];
+            if (bucket.minute == minute) {
+                window.add(bucket);
+            }
+        }
+
+        // 구간 내 후보 상품별 추정 건수 합
+        LongIntHashMap seen = new LongIntHashMap();
+        PriorityQueue<Entry> heap = new PriorityQueue<>(Math.max(k, 1), ORDER.reversed());
+        for (Bucket candidates : window) {
+            for (int i = 0; i < candidates.size; i++) {
+                long goodsId = candidates.ids[i];
+                if (seen.addTo(goodsId, 1) > 1) {
+                    continue;
+                }
+                long total = 0;
+                for (Bucket bucket : window) {
+                    total += bucket.sketch.estimate(goodsId);
+                }
+                offer(heap, new Entry(goodsId, total), k);
+            }
+        }
+
+        List<Entry> result = new ArrayList<>(heap);
+        result.sort(ORDER);
+        return result;
+    }
+
+    public int getMaxMinutes() {
+        return buckets.length;
+    }
+
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Bucket bucket : buckets) {
+            bytes += bucket.sketch.estimatedBytes() + bucket.ids.length * (long) (Long.BYTES + Integer.BYTES);
+        }
+        return bytes;
+    }
+
+    private void offer(PriorityQueue<Entry> heap, Entry entry, int k) {
+        if (heap.size() < k) {
+            heap.add(entry);
+        } else if (k > 0 && ORDER.compare(entry, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    // 지난 버킷이면 비우고 재사용
+    private Bucket bucketOf(long minute) {
+        Bucket bucket = buckets[(int) Math.floorMod(minute, (long) buckets.length)];
+        if (bucket.minute != minute) {
+            bucket.reset(minute);
+        }
+        return bucket;
+    }
+
+    private static class Bucket {
+
+        private final CountMinSketch sketch;
+        private final long[] ids;
+        private final int[] estimates;
+        private int size;
+        private long minute = Long.MIN_VALUE;
+
+        Bucket(CountMinSketch sketch, int candidateSize) {
+            this.sketch = sketch;
+            this.ids = new long[candidateSize];
+            this.estimates = new int[candidateSize];
+        }
+
+        void add(long goodsId, int count) {
+            int estimate = sketch.add(goodsId, count);
+
+            // 후보 목록 갱신 - 이미 있으면 추정값만 올리고, 없으면 가장 작은 후보와 교체
+            int minSlot = -1;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == goodsId) {
+                    estimates[i] = estimate;
+                    return;
+                }
+                if (minSlot < 0 || estimates[i] < estimates[minSlot]) {
+                    minSlot = i;
+                }
+            }
+            if (size < ids.length) {
+                ids[size] = goodsId;
+                estimates[size++] = estimate;
+            } else if (estimate > estimates[minSlot]) {
+                ids[minSlot] = goodsId;
+                estimates[minSlot] = estimate;
+            }
+        }
+
+        void reset(long minute) {
+            sketch.clear();
+            size = 0;
+            this.minute = minute;
+        }
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Entry {
+        private final long goodsId;
+        private final long count;
+    }
+}
@@ -0,0 +1,77 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.dto.TrendingGoodsDto;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 실시간 인기 상품 (최근 구간 동안 가장 많이 팔린 상품)
+@Service
+@Slf4j
+public class TrendingGoodsService {
+
+    // 한번에 조회할 수 있는 최대 상품 수 (버킷별 후보 수는 이보다 넉넉하게)
+    public static final int MAX_K = 100;
+
+    private final GoodsRepository goodsRepository;
+    private final TrendingCounter counter;
+
+    public TrendingGoodsService(GoodsRepository goodsRepository,
+                                @Value("${jpastudy.trending.max-window-minutes:60}") int maxWindowMinutes,
+                                @Value("${jpastudy.trending.sketch-width:4096}") int sketchWidth,
+                                @Value("${jpastudy.trending.sketch-depth:4}") int sketchDepth) {
+        this.goodsRepository = goodsRepository;
+        this.counter = new TrendingCounter(maxWindowMinutes, sketchWidth, sketchDepth,
+                MAX_K * 2, System::currentTimeMillis);
+        log.debug("인기 상품 집계 메모리: 약 {}KB", counter.estimatedBytes() / 1024);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchasesRecorded(PurchasesRecordedEvent event) {
+        for (PurchaseCommand purchase : event.getPurchases()) {
+            counter.add(purchase.getGoodsId(), 1);
+        }
+    }
+
+    public Duration getMaxWindow() {
+        return Duration.ofMinutes(counter.getMaxMinutes());
+    }
+
+    @Transactional(readOnly = true)
+    public List<TrendingGoodsDto> getTrending(Duration window, int k) {
+        List<TrendingCounter.Entry> top = counter.top((int) window.toMinutes(), k);
+        if (top.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(top.size());
+        for (TrendingCounter.Entry entry : top) {
+            ids.add(entry.getGoodsId());
+        }
+        Map<Long, String> names = new HashMap<>();
+        for (Goods goods : goodsRepository.findAllById(ids)) {
+            names.put(goods.getId(), goods.getName());
+        }
+
+        List<TrendingGoodsDto> result = new ArrayList<>(top.size());
+        for (TrendingCounter.Entry entry : top) {
+            String name = names.get(entry.getGoodsId());
+            if (name != null) { // 그 사이 삭제된 상품 제외
+                result.add(new TrendingGoodsDto(entry.getGoodsId(), name, entry.getCount()));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,166 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.UserPurchaseSummaryDto;
+import com.spring.jpastudy.chap05.repository.UserPurchaseSummaryRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+    회원별 구매 요약 조회와 재구축
+
+    - 평소에는 PurchaseService(구매/취소)와 PurchaseBatchWriter(대량 저장)가
+      같은 트랜잭션에서 요약을 갱신한다.
+    - 엔터티 cascade나 PurchaseRepository를 직접 쓰는 경우처럼 그 경로를 거치지 않은 변경은
+      rebuild로 바로잡는다. user_id 구간을 나눠서 여러 스레드가 각자의 트랜잭션으로 다시 계산한다.
+    - 요약 테이블을 처음 배포했을 때(비어 있고 구매 기록은 있을 때)는 서버 시작시 자동으로 재구축한다.
+      그 전까지 조회되는 요약은 0건일 수 있지만, 구매/취소하는 회원의 요약은 잠글 때 먼저 채워진다.
+    - 재구축은 주 DB의 구매 테이블 기준이라 샤딩을 켜면 쓸 수 없다. (샤드에서는 구매/취소/대량 저장이 요약을 갱신)
+ */
+@Service
+@Slf4j
+public class UserPurchaseSummaryService {
+
+    private final UserPurchaseSummaryRepository summaryRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate template;
+    private final TransactionTemplate tx;
+    private final ObjectProvider<ShardedPurchaseService> shardedPurchaseService;
+
+    // 재구축시 동시에 처리할 구간 수
+    private final int rebuildThreads;
+
+    // 재구축시 한 트랜잭션에서 처리할 user_id 구간 크기
+    private final int rebuildChunkSize;
+
+    @Value("${jpastudy.purchase-summary.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public UserPurchaseSummaryService(UserPurchaseSummaryRepository summaryRepository,
+                                      UserRepository userRepository,
+                                      JdbcTemplate template,
+                                      TransactionTemplate tx,
+                                      ObjectProvider<ShardedPurchaseService> shardedPurchaseService,
+                                      @Value("${jpastudy.purchase-summary.rebuild-threads:4}") int rebuildThreads,
+                                      @Value("${jpastudy.purchase-summary.rebuild-chunk-size:10000}") int rebuildChunkSize) {
+        if (rebuildThreads < 1 || rebuildChunkSize < 1) {
+            throw new IllegalArgumentException("rebuild-threads와 rebuild-chunk-size는 1 이상이어야 합니다.");
+        }
+        this.summaryRepository = summaryRepository;
+        this.userRepository = userRepository;
+        this.template = template;
+        this.tx = tx;
+        this.shardedPurchaseService = shardedPurchaseService;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    // 회원의 구매 요약 (요약 테이블 PK 조회, 샤딩을 켜면 회원 샤드에서)
+    public UserPurchaseSummaryDto getSummary(long userId) {
+        ShardedPurchaseService sharded = shardedPurchaseService.getIfAvailable();
+        if (sharded != null) {
+            return sharded.getSummary(userId);
+        }
+        return summaryRepository.findByUserId(userId).orElseGet(() -> {
+            // 요약 행이 없으면 구매 기록이 없는 회원인지 없는 회원인지 구분
+            if (!userRepository.existsById(userId)) {
+                throw new NoSuchElementException("존재하지 않는 회원입니다. userId=" + userId);
+            }
+            return new UserPurchaseSummaryDto(userId, 0, 0, null, null);
+        });
+    }
+
+    // 전체 요약을 구매 테이블 기준으로 다시 계산
+    public synchronized RebuildResult rebuild() {
+        if (shardedPurchaseService.getIfAvailable() != null) {
+            throw new IllegalStateException("샤딩을 켜면 회원 구매 요약을 재구축할 수 없습니다.");
+        }
+        long start = System.nanoTime();
+
+        // 탈퇴한 회원의 남은 요약 행도 지워지도록 요약 테이블의 id 범위까지 포함
+        long[] users = idRange("tbl_mtm_user");
+        long[] summaries = idRange("tbl_user_purchase_summary");
+        long[] range = {Math.min(users[0], summaries[0]), Math.max(users[1], summaries[1])};
+        if (range[0] > range[1]) {
+            return new RebuildResult(0, 0, 0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = range[0]; from <= range[1]; from += rebuildChunkSize) {
+                long chunkFrom = from;
+                long chunkTo = from + rebuildChunkSize;
+                chunks.add(executor.submit(() ->
+                        tx.execute(status -> summaryRepository.refreshRange(chunkFrom, chunkTo))));
+            }
+
+            long refreshedUsers = 0;
+            for (Future<Integer> chunk : chunks) {
+                Integer refreshed = chunk.get();
+                refreshedUsers += refreshed == null ? 0 : refreshed;
+            }
+            RebuildResult result = new RebuildResult(chunks.size(), refreshedUsers,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            log.info("회원 구매 요약 재구축 완료: {}", result);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 구매 요약 재구축이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("회원 구매 요약 재구축에 실패했습니다.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // {최소 user_id, 최대 user_id} (비어 있으면 최소 > 최대)
+    private long[] idRange(String table) {
+        return template.queryForObject("SELECT MIN(user_id), MAX(user_id) FROM " + table, (rs, n) -> {
+            long min = rs.getLong(1);
+            return rs.wasNull() ? new long[]{Long.MAX_VALUE, Long.MIN_VALUE} : new long[]{min, rs.getLong(2)};
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (shardedPurchaseService.getIfAvailable() != null) {
+            return;
+        }
+        if (rebuildOnStartup || (summaryRepository.isEmpty() && hasPurchases())) {
+            rebuild();
+        }
+    }
+
+    private boolean hasPurchases() {
+        return !template.queryForList("SELECT 1 FROM tbl_mtm_purchase LIMIT 1").isEmpty();
+    }
+
+    // 재구축 결과 (처리한 구간 수, 요약이 만들어진 회원 수, 걸린 시간)
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class RebuildResult {
+        private int chunks;
+        private long users;
+        private long elapsedMillis;
+    }
+}
@@ -0,0 +1,30 @@
+package com.spring.jpastudy.chap06_querydsl.controller;
+
+import com.spring.jpastudy.chap06_querydsl.dto.LatestAlbumView;
+import com.spring.jpastudy.chap06_querydsl.service.GroupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/groups")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin
+public class GroupController {
+
+    private final GroupService groupService;
+
+    // 그룹별 최신 앨범 조회 요청
+    // ex) /groups/latest-albums?strategy=pointer
+    @GetMapping("/latest-albums")
+    public ResponseEntity<?> latestAlbums(
+            @RequestParam(defaultValue = "window") String strategy) {
+
+        List<LatestAlbumView> albums = groupService.getLatestAlbums(strategy);
+        return ResponseEntity.ok().body(albums);
+    }
+}
@@ -0,0 +1,86 @@
+package com.spring.jpastudy.chap06_querydsl.controller;
+
+import com.spring.jpastudy.chap06_querydsl.dto.AgeGroupCountDto;
+import com.spring.jpastudy.chap06_querydsl.dto.GroupAverageAgeDto;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
+import com.spring.jpastudy.chap06_querydsl.service.IdolService;
+import com.spring.jpastudy.chap06_querydsl.service.IdolStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/idols")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin
+public class IdolController {
+
+    private final IdolService idolService;
+    private final IdolStatsService idolStatsService;
+
+    // 아이돌 목록 조회 요청
+    // ex) /idols?page=1&size=20
+    @GetMapping
+    public ResponseEntity<?> getList(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (page < 1 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("page 또는 size 파라미터가 올바르지 않습니다.");
+        }
+
+        Page<IdolSummaryDto> idols = idolService.getIdolSummaries(page, size);
+        return ResponseEntity.ok().body(idols);
+    }
+
+    // 아이돌 검색 요청
+    // ex) /idols/search?gender=여&minAge=20&groupName=아이브&sort=age,desc&page=1
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            IdolSearchCondition condition,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        if (page < 1 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("page 또는 size 파라미터가 올바르지 않습니다.");
+        }
+
+        Page<IdolSummaryDto> idols = idolService.searchIdols(condition, page, size);
+        return ResponseEntity.ok().body(idols);
+    }
+
+    // 전체 아이돌 이름 스트리밍 요청 (NDJSON)
+    @GetMapping("/names/stream")
+    public ResponseEntity<StreamingResponseBody> streamNames() {
+        StreamingResponseBody body = idolService::writeIdolNames;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // 그룹별 평균 나이 통계 요청
+    // ex) /idols/stats/average-age?minAge=20&maxAge=25
+    @GetMapping("/stats/average-age")
+    public ResponseEntity<?> averageAge(
+            @RequestParam(required = false) Double minAge,
+            @RequestParam(required = false) Double maxAge) {
+
+        List<GroupAverageAgeDto> stats = idolStatsService.getGroupAverageAges(minAge, maxAge);
+        return ResponseEntity.ok().body(stats);
+    }
+
+    // 연령대별 아이돌 수 통계 요청
+    @GetMapping("/stats/age-groups")
+    public ResponseEntity<?> ageGroups() {
+        List<AgeGroupCountDto> stats = idolStatsService.getAgeGroupCounts();
+        return ResponseEntity.ok().body(stats);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.spring.jpastudy.chap06_querydsl.dto;
+
+import lombok.*;
+
+// 연령대별 아이돌 수 (10대, 20대, 30대, 그 외는 0)
+@Setter @Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgeGroupCountDto {
+
+    private int ageGroup;
+    private long count;
+
+}
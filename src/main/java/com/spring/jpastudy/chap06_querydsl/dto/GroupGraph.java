@@ -0,0 +1,24 @@
+package com.spring.jpastudy.chap06_querydsl.dto;
+
+import com.spring.jpastudy.chap06_querydsl.entity.Album;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import lombok.*;
+
+import java.util.List;
+
+/*
+    그룹과 소속 아이돌, 앨범을 함께 담는 조회 결과
+
+    - group.getIdols(), group.getAlbums()는 지연로딩 컬렉션이므로 건드리지 말고
+      이 객체의 idols, albums를 사용할 것
+ */
+@Getter
+@ToString(of = "group")
+@AllArgsConstructor
+public class GroupGraph {
+
+    private final Group group;
+    private final List<Idol> idols;
+    private final List<Album> albums;
+}
@@ -0,0 +1,14 @@
+package com.spring.jpastudy.chap06_querydsl.dto;
+
+import lombok.*;
+
+// 대용량 스트리밍 조회용 읽기전용 행 (필요한 컬럼만 담음)
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class IdolRow {
+
+    private final String idolName;
+    private final int age;
+}
@@ -0,0 +1,57 @@
+package com.spring.jpastudy.chap06_querydsl.dto;
+
+import lombok.*;
+
+// 아이돌 검색 조건 (null인 조건은 검색에서 제외)
+@Getter @Setter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdolSearchCondition {
+
+    private String name;
+    private String gender;
+    private Integer minAge;
+    private Integer maxAge;
+    private String groupName;
+
+    // 정렬 조건 - "age", "idolName,desc" 처럼 필드명[,방향]
+    private String sort;
+
+    // 정렬 필드
+    public SortField getSortField() {
+        if (sort == null || sort.isBlank()) {
+            return SortField.ID;
+        }
+        String field = sort.split(",")[0].trim();
+        for (SortField sortField : SortField.values()) {
+            if (sortField.getParamName().equals(field)) {
+                return sortField;
+            }
+        }
+        return SortField.ID;
+    }
+
+    // 오름차 여부 (기본은 오름차)
+    public boolean isAscending() {
+        if (sort == null) {
+            return true;
+        }
+        String[] parts = sort.split(",");
+        return parts.length < 2 || !"desc".equalsIgnoreCase(parts[1].trim());
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum SortField {
+        ID("id", "i.id"),
+        AGE("age", "i.age"),
+        IDOL_NAME("idolName", "i.idolName"),
+        GROUP_NAME("groupName", "g.groupName");
+
+        private final String paramName;
+        private final String jpqlPath;
+    }
+}
@@ -0,0 +1,19 @@
+package com.spring.jpastudy.chap06_querydsl.dto;
+
+import lombok.*;
+
+// 아이돌 목록 화면용 평면 DTO (엔터티 그래프를 로딩하지 않음)
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdolSummaryDto {
+
+    private Long id;
+    private String idolName;
+    private int age;
+    private String gender;
+    private String groupName; // 솔로가수는 null
+}
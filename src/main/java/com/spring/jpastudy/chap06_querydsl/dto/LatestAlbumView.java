@@ -0,0 +1,15 @@
+package com.spring.jpastudy.chap06_querydsl.dto;
+
+// 그룹별 최신 앨범 조회 결과 (인터페이스 기반 프로젝션)
+public interface LatestAlbumView {
+
+    Long getGroupId();
+
+    String getGroupName();
+
+    Long getAlbumId();
+
+    String getAlbumName();
+
+    Integer getReleaseYear();
+}
@@ -1,17 +1,26 @@
 package com.spring.jpastudy.chap06_querydsl.entity;
 
+import com.spring.jpastudy.config.cache.CacheRegions;
+import com.spring.jpastudy.config.cache.GroupCollectionEvictionListener;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Setter
 @Getter
-@ToString(exclude = "group")
+@ToString(exclude = {"group", "syncedGroupId", "syncedReleaseYear"})
 @EqualsAndHashCode(of = "id")
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 
 @Entity
-@Table(name = "tbl_album")
+@EntityListeners({LatestAlbumListener.class, GroupCollectionEvictionListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ALBUM)
+// 그룹별 최신 앨범 조회용 커버링 인덱스 (InnoDB 보조인덱스에는 PK(album_id)가 포함됨)
+@Table(name = "tbl_album",
+        indexes = @Index(name = "idx_album_group_year", columnList = "group_id, release_year"))
 public class Album {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,16 +28,34 @@ public class Album {
     private Long id;
 
     private String albumName;
+
+    // 인덱스 columnList에서 쓰는 이름과 같도록 컬럼명 지정
+    @Column(name = "release_year")
     private int releaseYear;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "group_id")
     private Group group;
 
+    // 마지막으로 DB와 동기화된 그룹과 발매년도 (최신 앨범 포인터 재계산 여부 판단용)
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Long syncedGroupId;
+
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Integer syncedReleaseYear;
+
 
     public Album(String albumName, int releaseYear, Group group) {
         this.albumName = albumName;
         this.releaseYear = releaseYear;
         this.group = group;
     }
+
+    // 조회, 저장, 수정 직후 현재 상태를 기억
+    public void markSynced() {
+        this.syncedGroupId = group == null ? null : group.getId();
+        this.syncedReleaseYear = releaseYear;
+    }
 }
\ No newline at end of file
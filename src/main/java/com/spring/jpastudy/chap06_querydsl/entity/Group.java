@@ -1,6 +1,10 @@
 package com.spring.jpastudy.chap06_querydsl.entity;
 
+import com.spring.jpastudy.chap06_querydsl.service.GroupStatsListener;
+import com.spring.jpastudy.config.cache.CacheRegions;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -9,9 +13,13 @@ import java.util.List;
 @Entity
 @Setter @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@ToString(exclude = {"idols", "albums"})
+@ToString(exclude = {"idols", "albums", "latestAlbum"})
 @EqualsAndHashCode(of = "id")
 @Table(name = "tbl_group")
+@EntityListeners(GroupStatsListener.class)
+// 자주 바뀌지 않는 기준 데이터라 2차 캐시에 보관
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.GROUP)
 public class Group {
 
     @Id
@@ -22,12 +30,20 @@ public class Group {
     private String groupName;
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.GROUP_IDOLS)
     private List<Idol> idols = new ArrayList<>();
 
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.GROUP_ALBUMS)
     private List<Album> albums = new ArrayList<>();
 
+    // 가장 최근에 발매된 앨범 (비정규화 - LatestAlbumListener가 JDBC로만 갱신하므로 JPA로는 쓰지 않음)
+    // 그룹과 앨범이 서로를 참조하므로 삭제 순서 문제를 피하기 위해 FK 제약조건은 만들지 않음
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "latest_album_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Album latestAlbum;
 
 
 
@@ -44,4 +60,4 @@ public class Group {
         idols.remove(idol);
         idol.setGroup(null);
     }
-}
\ No newline at end of file
+}
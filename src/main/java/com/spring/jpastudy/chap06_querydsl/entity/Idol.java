@@ -1,13 +1,23 @@
 package com.spring.jpastudy.chap06_querydsl.entity;
 
+import com.spring.jpastudy.chap06_querydsl.service.IdolStatsListener;
+import com.spring.jpastudy.config.cache.CacheRegions;
+import com.spring.jpastudy.config.cache.GroupCollectionEvictionListener;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+// 캐시 무효화 리스너는 동기화 상태가 갱신되기 전에 실행되어야 하므로 먼저 등록
+@EntityListeners({GroupCollectionEvictionListener.class, IdolStatsListener.class})
+// group.idols 컬렉션 캐시에서 아이돌을 하나씩 다시 조회하지 않도록 아이돌도 캐시
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.IDOL)
 @Table(name = "tbl_idol")
 @Setter @Getter
-@ToString(exclude = "group")
+@ToString(exclude = {"group", "syncedGroupId", "syncedAge"})
 @EqualsAndHashCode(of = "id")
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Idol {
@@ -27,6 +37,15 @@ public class Idol {
     @JoinColumn(name = "group_id")
     private Group group;
 
+    // 마지막으로 DB와 동기화된 그룹과 나이 (통계 증감 계산용)
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Long syncedGroupId;
+
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Integer syncedAge;
+
 
     public Idol(String idolName, int age, Group group) {
         this.idolName = idolName;
@@ -46,8 +65,19 @@ public class Idol {
     }
 
 
+    // 그룹 이동 - FK를 바꾸고 새 그룹의 아이돌 목록에도 추가
+    // (mappedBy 목록은 로딩 전이면 add가 큐에만 쌓이므로 목록을 읽지 않음)
+    // (컬렉션 캐시는 GroupCollectionEvictionListener가 비움)
     public void changeGroup(Group group) {
         this.group = group;
-        group.getIdols().add(this);
+        if (group != null) {
+            group.getIdols().add(this);
+        }
+    }
+
+    // 조회, 저장, 수정 직후 현재 상태를 기억
+    public void markSynced() {
+        this.syncedGroupId = group == null ? null : group.getId();
+        this.syncedAge = age;
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.spring.jpastudy.chap06_querydsl.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+import javax.persistence.PreRemove;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+    앨범이 저장, 수정, 삭제될 때 그룹의 최신 앨범(latest_album_id)을 갱신
+
+    - 새 앨범이거나 발매년도가 늘어난 경우: 현재 최신 앨범보다 최근일 때만 바꾸는 조건부 UPDATE 한 번. (albums 로딩 없음)
+    - 발매년도가 줄었거나 다른 그룹으로 옮긴 경우: 현재 포인터가 틀릴 수 있으므로
+      예전 그룹과 새 그룹의 포인터를 (group_id, release_year) 인덱스로 다시 계산한다.
+    - 최신 앨범이 삭제되는 경우: 그 앨범을 빼고 다시 계산한다. (DELETE 전에 실행되므로 조건으로 제외)
+    - flush 중에는 dirty checking이 끝난 뒤라 그룹 엔터티를 고쳐도 반영되지 않으므로
+      모두 같은 트랜잭션의 JDBC로 실행하고 (Group.latestAlbum은 JPA로는 쓰지 않음)
+      2차 캐시는 비우고, 영속성 컨텍스트에 올라와 있는 그룹은 메모리 값만 맞춘다.
+ */
+@Component
+@RequiredArgsConstructor
+public class LatestAlbumListener {
+
+    private static final String REFRESH_SQL =
+            "UPDATE tbl_group G " +
+            "SET G.latest_album_id = ( " +
+            "       SELECT A.album_id " +
+            "       FROM tbl_album A " +
+            "       WHERE A.group_id = G.group_id " +
+            "       ORDER BY A.release_year DESC, A.album_id DESC " +
+            "       LIMIT 1 " +
+            ") " +
+            "WHERE G.group_id = ?";
+
+    // 현재 최신 앨범이 없거나 (같은 해면 앨범번호 기준으로) 더 오래됐을 때만 교체
+    private static final String OFFER_SQL =
+            "UPDATE tbl_group G " +
+            "SET G.latest_album_id = ? " +
+            "WHERE G.group_id = ? " +
+            "AND NOT EXISTS ( " +
+            "       SELECT 1 " +
+            "       FROM tbl_album L " +
+            "       WHERE L.album_id = G.latest_album_id " +
+            "       AND (L.release_year > ? OR (L.release_year = ? AND L.album_id >= ?)) " +
+            ")";
+
+    // 삭제되는 앨범이 최신 앨범일 때만 그 앨범을 빼고 다시 계산
+    private static final String EXCLUDE_SQL =
+            "UPDATE tbl_group G " +
+            "SET G.latest_album_id = ( " +
+            "       SELECT A.album_id " +
+            "       FROM tbl_album A " +
+            "       WHERE A.group_id = G.group_id " +
+            "       AND A.album_id <> ? " +
+            "       ORDER BY A.release_year DESC, A.album_id DESC " +
+            "       LIMIT 1 " +
+            ") " +
+            "WHERE G.group_id = ? " +
+            "AND G.latest_album_id = ?";
+
+    private final ObjectProvider<JdbcTemplate> template;
+    private final ObjectProvider<EntityManager> em;
+
+    @PostLoad
+    public void postLoad(Album album) {
+        album.markSynced();
+    }
+
+    @PostPersist
+    public void postPersist(Album album) {
+        Group group = album.getGroup();
+        if (group != null) {
+            offer(group.getId(), album);
+        }
+        album.markSynced();
+    }
+
+    @PostUpdate
+    public void postUpdate(Album album) {
+        Group group = album.getGroup();
+        Long oldGroupId = album.getSyncedGroupId();
+        Long newGroupId = group == null ? null : group.getId();
+        Integer oldYear = album.getSyncedReleaseYear();
+
+        boolean moved = oldYear != null && !Objects.equals(oldGroupId, newGroupId);
+        boolean older = oldYear != null && album.getReleaseYear() < oldYear;
+        if (moved || older) {
+            Set<Long> groupIds = new LinkedHashSet<>();
+            if (oldGroupId != null) {
+                groupIds.add(oldGroupId);
+            }
+            if (newGroupId != null) {
+                groupIds.add(newGroupId);
+            }
+            groupIds.forEach(this::refresh);
+        } else if (group != null && (oldYear == null || album.getReleaseYear() > oldYear)) {
+            offer(newGroupId, album);
+        }
+        album.markSynced();
+    }
+
+    @PreRemove
+    public void remove(Album album) {
+        // DB에 들어 있는 그룹 기준 (메모리에서만 옮긴 경우 대비)
+        Long groupId = album.getSyncedReleaseYear() != null ? album.getSyncedGroupId()
+                : album.getGroup() == null ? null : album.getGroup().getId();
+        if (groupId == null || album.getId() == null) {
+            return;
+        }
+        if (template.getObject().update(EXCLUDE_SQL, album.getId(), groupId, album.getId()) > 0) {
+            sync(groupId);
+        }
+    }
+
+    // 앨범이 현재 최신 앨범보다 최근이면 교체
+    private void offer(Long groupId, Album album) {
+        int year = album.getReleaseYear();
+        if (template.getObject().update(OFFER_SQL, album.getId(), groupId, year, year, album.getId()) > 0) {
+            sync(groupId);
+        }
+    }
+
+    // 앨범 테이블 기준으로 그룹의 최신 앨범 포인터를 다시 계산
+    private void refresh(Long groupId) {
+        template.getObject().update(REFRESH_SQL, groupId);
+        sync(groupId);
+    }
+
+    // 2차 캐시를 비우고, 이미 로딩된 그룹이면 메모리 값도 DB와 맞춤 (삭제 중인 그룹은 제외)
+    private void sync(Long groupId) {
+        EntityManager entityManager = em.getObject();
+        entityManager.getEntityManagerFactory().getCache().evict(Group.class, groupId);
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Group.class);
+        PersistenceContext context = session.getPersistenceContextInternal();
+        Object managed = context.getEntity(session.generateEntityKey(groupId, persister));
+        if (managed == null || context.getEntry(managed).getStatus() != Status.MANAGED) {
+            return;
+        }
+        Long latestId = template.getObject().queryForObject(
+                "SELECT latest_album_id FROM tbl_group WHERE group_id = ?", Long.class, groupId);
+        ((Group) managed).setLatestAlbum(latestId == null ? null : entityManager.getReference(Album.class, latestId));
+    }
+}
@@ -1,7 +1,45 @@
 package com.spring.jpastudy.chap06_querydsl.repository;
 
+import com.spring.jpastudy.chap06_querydsl.dto.LatestAlbumView;
 import com.spring.jpastudy.chap06_querydsl.entity.Album;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface AlbumRepository extends JpaRepository<Album, Long> {
-}
\ No newline at end of file
+
+    // 그룹별 최신 앨범 1개 - 윈도우 함수로 테이블을 한 번만 읽음
+    // 발매년도가 같으면 나중에 등록된 앨범
+    @Query(value = "SELECT A.group_id AS groupId, G.group_name AS groupName, " +
+            "       A.album_id AS albumId, A.album_name AS albumName, A.release_year AS releaseYear " +
+            "FROM ( " +
+            "       SELECT album_id, group_id, album_name, release_year, " +
+            "              ROW_NUMBER() OVER (PARTITION BY group_id " +
+            "                                 ORDER BY release_year DESC, album_id DESC) AS rn " +
+            "       FROM tbl_album " +
+            "       WHERE group_id IS NOT NULL " +
+            ") A " +
+            "JOIN tbl_group G " +
+            "ON G.group_id = A.group_id " +
+            "WHERE A.rn = 1 " +
+            "ORDER BY A.group_id", nativeQuery = true)
+    List<LatestAlbumView> findLatestAlbumPerGroup();
+
+    // 그룹별 최신 발매년도의 앨범 전부 - 그룹별 MAX를 먼저 구하고 조인
+    // (group_id, release_year) 인덱스만으로 MAX를 구할 수 있음
+    @Query(value = "SELECT A.group_id AS groupId, G.group_name AS groupName, " +
+            "       A.album_id AS albumId, A.album_name AS albumName, A.release_year AS releaseYear " +
+            "FROM ( " +
+            "       SELECT group_id, MAX(release_year) AS max_year " +
+            "       FROM tbl_album " +
+            "       WHERE group_id IS NOT NULL " +
+            "       GROUP BY group_id " +
+            ") M " +
+            "JOIN tbl_album A " +
+            "ON A.group_id = M.group_id AND A.release_year = M.max_year " +
+            "JOIN tbl_group G " +
+            "ON G.group_id = A.group_id " +
+            "ORDER BY A.group_id, A.album_id", nativeQuery = true)
+    List<LatestAlbumView> findLatestAlbumsWithTies();
+}
@@ -0,0 +1,107 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpastudy.chap06_querydsl.dto.GroupGraph;
+import com.spring.jpastudy.chap06_querydsl.entity.Album;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.spring.jpastudy.chap06_querydsl.entity.QAlbum.album;
+import static com.spring.jpastudy.chap06_querydsl.entity.QGroup.group;
+import static com.spring.jpastudy.chap06_querydsl.entity.QIdol.idol;
+
+/*
+    그룹 + 아이돌 목록 + 앨범 목록을 한번에 조회하는 로더
+
+    - 두 개의 List(bag) 컬렉션은 동시에 fetch join 할 수 없고 (MultipleBagFetchException)
+      지연로딩하면 그룹 N개에 1 + 2N번의 쿼리가 나간다.
+    - 그룹을 먼저 조회한 뒤 컬렉션마다 IN 쿼리 1번으로 가져와서 메모리에서 묶는다.
+      그룹 수와 관계없이 쿼리 수는 일정하다. (그룹 1 + 아이돌 1 + 앨범 1)
+ */
+@Repository
+@RequiredArgsConstructor
+public class GroupGraphLoader {
+
+    // IN 절 파라미터 수 제한 (MariaDB 최대 65535개)을 넘지 않도록 나누는 기준
+    private static final int MAX_IN_SIZE = 30_000;
+
+    private final JPAQueryFactory factory;
+
+    // 그룹을 id 순으로 페이징 조회
+    public Page<GroupGraph> loadPage(Pageable pageable) {
+        List<Group> groups = factory
+                .selectFrom(group)
+                .orderBy(group.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return PageableExecutionUtils.getPage(load(groups), pageable,
+                () -> Optional.ofNullable(
+                        factory.select(group.count()).from(group).fetchOne()
+                ).orElse(0L));
+    }
+
+    // 이미 조회한 그룹들의 아이돌, 앨범을 채움
+    public List<GroupGraph> load(List<Group> groups) {
+        if (groups.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, List<Idol>> idolsByGroup = new HashMap<>();
+        Map<Long, List<Album>> albumsByGroup = new HashMap<>();
+        for (Group g : groups) {
+            idolsByGroup.put(g.getId(), new ArrayList<>());
+            albumsByGroup.put(g.getId(), new ArrayList<>());
+        }
+
+        List<Long> groupIds = new ArrayList<>(idolsByGroup.keySet());
+        for (List<Long> ids : partition(groupIds)) {
+            List<Idol> idols = factory
+                    .selectFrom(idol)
+                    .where(idol.group.id.in(ids))
+                    .orderBy(idol.id.asc())
+                    .fetch();
+            // 아이돌의 group은 이미 영속성 컨텍스트에 있는 그룹이므로 추가 조회가 없음
+            for (Idol i : idols) {
+                idolsByGroup.get(i.getGroup().getId()).add(i);
+            }
+        }
+
+        for (List<Long> ids : partition(groupIds)) {
+            List<Album> albums = factory
+                    .selectFrom(album)
+                    .where(album.group.id.in(ids))
+                    .orderBy(album.id.asc())
+                    .fetch();
+            for (Album a : albums) {
+                albumsByGroup.get(a.getGroup().getId()).add(a);
+            }
+        }
+
+        List<GroupGraph> graphs = new ArrayList<>(groups.size());
+        for (Group g : groups) {
+            graphs.add(new GroupGraph(g, idolsByGroup.get(g.getId()), albumsByGroup.get(g.getId())));
+        }
+        return graphs;
+    }
+
+    private static List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + MAX_IN_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+}
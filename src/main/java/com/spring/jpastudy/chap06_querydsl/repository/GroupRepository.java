@@ -1,10 +1,34 @@
 package com.spring.jpastudy.chap06_querydsl.repository;
 
+import com.spring.jpastudy.chap06_querydsl.dto.LatestAlbumView;
 import com.spring.jpastudy.chap06_querydsl.entity.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface GroupRepository extends JpaRepository<Group, Long> {
 
+    // 비정규화된 최신 앨범 포인터로 조회 (앨범 테이블 크기와 무관)
+    @Query("SELECT g.id AS groupId, g.groupName AS groupName, " +
+            "       a.id AS albumId, a.albumName AS albumName, a.releaseYear AS releaseYear " +
+            "FROM Group g " +
+            "JOIN g.latestAlbum a " +
+            "ORDER BY g.id")
+    List<LatestAlbumView> findLatestAlbumsByPointer();
 
+    // 최신 앨범 포인터가 비어있는 그룹을 채움 (컬럼 추가 이전 데이터 보정)
+    @Modifying
+    @Query(value = "UPDATE tbl_group G " +
+            "SET G.latest_album_id = ( " +
+            "       SELECT A.album_id " +
+            "       FROM tbl_album A " +
+            "       WHERE A.group_id = G.group_id " +
+            "       ORDER BY A.release_year DESC, A.album_id DESC " +
+            "       LIMIT 1 " +
+            ") " +
+            "WHERE G.latest_album_id IS NULL", nativeQuery = true)
+    int fillLatestAlbumPointers();
 
-}
\ No newline at end of file
+}
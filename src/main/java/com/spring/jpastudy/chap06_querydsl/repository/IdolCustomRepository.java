@@ -1,10 +1,15 @@
 package com.spring.jpastudy.chap06_querydsl.repository;
 
+import com.spring.jpastudy.chap06_querydsl.dto.IdolRow;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
 import com.spring.jpastudy.chap06_querydsl.entity.Idol;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface IdolCustomRepository {
 
@@ -14,6 +19,18 @@ public interface IdolCustomRepository {
     // 이름으로 오름차해서 전체조회
     List<Idol> foundAllName2();
 
+    // 이름 오름차 전체조회를 한 행씩 consumer에 전달 (메모리 사용량 일정)
+    void streamAllName(Consumer<IdolRow> consumer);
+
+    // 이름 오름차 전체조회 스트림 - 사용 후 반드시 close 할 것! (try-with-resources)
+    Stream<IdolRow> streamAllNameAsStream();
+
     // 그룹명으로 아이돌을 조회
     List<Idol> foundByGroupName();
+
+    // 목록 화면용 DTO 페이징 조회 (그룹명 오름차, 솔로가수는 맨 뒤)
+    Page<IdolSummaryDto> findIdolSummaries(Pageable pageable);
+
+    // 동적 조건 검색 + 페이징
+    Page<IdolSummaryDto> searchIdols(IdolSearchCondition condition, Pageable pageable);
 }
\ No newline at end of file
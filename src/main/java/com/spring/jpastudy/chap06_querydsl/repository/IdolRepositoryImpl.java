@@ -1,18 +1,35 @@
 package com.spring.jpastudy.chap06_querydsl.repository;
 
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolRow;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
 import com.spring.jpastudy.chap06_querydsl.entity.Idol;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static com.spring.jpastudy.chap06_querydsl.entity.QGroup.group;
 import static com.spring.jpastudy.chap06_querydsl.entity.QIdol.*;
 
 @Repository
@@ -27,6 +44,21 @@ public class IdolRepositoryImpl implements IdolCustomRepository {
 
     private final JPAQueryFactory factory;
 
+    // 스트리밍 조회시 한번에 가져올 행 수
+    // MariaDB 드라이버는 fetchSize가 0보다 크면 결과를 전부 버퍼링하지 않고 나눠서 읽는다
+    @Value("${jpastudy.idol.stream-fetch-size:500}")
+    private int streamFetchSize;
+
+    // 필요한 컬럼만 조회하고 컬럼 순서로 매핑
+    private static final String STREAM_ALL_NAME_SQL
+            = "SELECT idol_name, age FROM tbl_idol ORDER BY idol_name ASC";
+
+    private static final RowMapper<IdolRow> IDOL_ROW_MAPPER
+            = (rs, n) -> new IdolRow(rs.getString(1), rs.getInt(2));
+
+    // 검색조건 모양별 JPQL 캐시
+    private final Map<Integer, IdolSearchQuery> searchQueries = new ConcurrentHashMap<>();
+
 
     // native query 사용
     public void nativeQuery123() {
@@ -80,6 +112,27 @@ public class IdolRepositoryImpl implements IdolCustomRepository {
         });
     }
 
+    @Override
+    public void streamAllName(Consumer<IdolRow> consumer) {
+        template.query(streamingStatement(), (RowCallbackHandler) rs ->
+                consumer.accept(IDOL_ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public Stream<IdolRow> streamAllNameAsStream() {
+        return template.queryForStream(streamingStatement(), IDOL_ROW_MAPPER);
+    }
+
+    // 앞으로만 읽는 읽기전용 커서 + fetchSize로 드라이버 스트리밍 활성화
+    private PreparedStatementCreator streamingStatement() {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_ALL_NAME_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamFetchSize);
+            return ps;
+        };
+    }
+
     @Override
     public List<Idol> foundByGroupName() {
         return factory
@@ -89,4 +142,49 @@ public class IdolRepositoryImpl implements IdolCustomRepository {
                 .fetch()
                 ;
     }
+
+    @Override
+    public Page<IdolSummaryDto> findIdolSummaries(Pageable pageable) {
+
+        // 엔터티 대신 필요한 컬럼만 DTO로 조회 - group 프록시를 건드리지 않음
+        List<IdolSummaryDto> content = factory
+                .select(Projections.constructor(IdolSummaryDto.class,
+                        idol.id, idol.idolName, idol.age, idol.gender, group.groupName))
+                .from(idol)
+                .leftJoin(idol.group, group)
+                .orderBy(
+                        // 솔로가수(그룹 없음)는 맨 뒤, 같은 값이면 id순으로 항상 같은 순서 보장
+                        new CaseBuilder().when(group.id.isNull()).then(1).otherwise(0).asc(),
+                        group.groupName.asc(),
+                        idol.id.asc()
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // left join이므로 카운트에는 조인이 필요 없음
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> Optional.ofNullable(
+                        factory.select(idol.count()).from(idol).fetchOne()
+                ).orElse(0L));
+    }
+
+    @Override
+    public Page<IdolSummaryDto> searchIdols(IdolSearchCondition condition, Pageable pageable) {
+
+        IdolSearchQuery searchQuery = searchQueries.computeIfAbsent(
+                IdolSearchQuery.shapeOf(condition), IdolSearchQuery::render);
+
+        List<IdolSummaryDto> content = searchQuery.bind(
+                        em.createQuery(searchQuery.getContentJpql(), IdolSummaryDto.class), condition)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // 마지막 페이지처럼 총 건수를 알 수 있으면 카운트 쿼리 생략
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> searchQuery.bind(
+                        em.createQuery(searchQuery.getCountJpql(), Long.class), condition)
+                        .getSingleResult());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition.SortField;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
+import lombok.Getter;
+
+import javax.persistence.TypedQuery;
+
+/*
+    아이돌 검색 JPQL 템플릿
+
+    - 검색조건의 모양(어떤 필터가 있는지 + 정렬)이 같으면 JPQL도 같으므로
+      모양마다 한 번만 문자열을 만들어 두고 호출마다 파라미터만 바인딩한다.
+    - JPQL 문자열이 항상 같기 때문에 하이버네이트의 쿼리 플랜 캐시도 그대로 재사용된다.
+ */
+@Getter
+class IdolSearchQuery {
+
+    private static final int NAME = 1;
+    private static final int GENDER = 1 << 1;
+    private static final int MIN_AGE = 1 << 2;
+    private static final int MAX_AGE = 1 << 3;
+    private static final int GROUP_NAME = 1 << 4;
+    private static final int FILTER_BITS = 5;
+
+    private final int shape;
+    private final String contentJpql;
+    private final String countJpql;
+
+    private IdolSearchQuery(int shape, String contentJpql, String countJpql) {
+        this.shape = shape;
+        this.contentJpql = contentJpql;
+        this.countJpql = countJpql;
+    }
+
+    // 검색조건을 모양 키로 변환: 하위 5비트는 필터, 그 위는 정렬필드와 방향
+    static int shapeOf(IdolSearchCondition condition) {
+        int filters = 0;
+        if (condition.getName() != null) filters |= NAME;
+        if (condition.getGender() != null) filters |= GENDER;
+        if (condition.getMinAge() != null) filters |= MIN_AGE;
+        if (condition.getMaxAge() != null) filters |= MAX_AGE;
+        if (condition.getGroupName() != null) filters |= GROUP_NAME;
+
+        int sort = condition.getSortField().ordinal() << 1 | (condition.isAscending() ? 1 : 0);
+        return sort << FILTER_BITS | filters;
+    }
+
+    static IdolSearchQuery render(int shape) {
+        int filters = shape & ((1 << FILTER_BITS) - 1);
+        int sort = shape >>> FILTER_BITS;
+        SortField sortField = SortField.values()[sort >>> 1];
+        boolean ascending = (sort & 1) == 1;
+
+        StringBuilder where = new StringBuilder();
+        appendCondition(where, filters, NAME, "i.idolName = :name");
+        appendCondition(where, filters, GENDER, "i.gender = :gender");
+        appendCondition(where, filters, MIN_AGE, "i.age >= :minAge");
+        appendCondition(where, filters, MAX_AGE, "i.age <= :maxAge");
+        appendCondition(where, filters, GROUP_NAME, "g.groupName = :groupName");
+
+        String content = "SELECT new " + IdolSummaryDto.class.getName()
+                + "(i.id, i.idolName, i.age, i.gender, g.groupName)"
+                + " FROM Idol i LEFT JOIN i.group g"
+                + where
+                + " ORDER BY " + sortField.getJpqlPath() + (ascending ? " ASC" : " DESC")
+                + (sortField == SortField.ID ? "" : ", i.id ASC");
+
+        // 그룹명 조건이 없으면 카운트에는 조인이 필요 없음
+        String count = "SELECT COUNT(i) FROM Idol i"
+                + ((filters & GROUP_NAME) != 0 ? " JOIN i.group g" : "")
+                + where;
+
+        return new IdolSearchQuery(shape, content, count);
+    }
+
+    private static void appendCondition(StringBuilder where, int filters, int flag, String condition) {
+        if ((filters & flag) == 0) {
+            return;
+        }
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+    }
+
+    // 모양에 포함된 파라미터만 바인딩
+    <T> TypedQuery<T> bind(TypedQuery<T> query, IdolSearchCondition condition) {
+        if ((shape & NAME) != 0) query.setParameter("name", condition.getName());
+        if ((shape & GENDER) != 0) query.setParameter("gender", condition.getGender());
+        if ((shape & MIN_AGE) != 0) query.setParameter("minAge", condition.getMinAge());
+        if ((shape & MAX_AGE) != 0) query.setParameter("maxAge", condition.getMaxAge());
+        if ((shape & GROUP_NAME) != 0) query.setParameter("groupName", condition.getGroupName());
+        return query;
+    }
+}
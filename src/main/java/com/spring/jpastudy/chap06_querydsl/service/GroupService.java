@@ -0,0 +1,45 @@
+package com.spring.jpastudy.chap06_querydsl.service;
+
+import com.spring.jpastudy.chap06_querydsl.dto.LatestAlbumView;
+import com.spring.jpastudy.chap06_querydsl.repository.AlbumRepository;
+import com.spring.jpastudy.chap06_querydsl.repository.GroupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class GroupService {
+
+    private final GroupRepository groupRepository;
+    private final AlbumRepository albumRepository;
+
+    // 그룹별 최신 앨범 조회
+    // pointer: 비정규화 포인터, ties: 같은 해 발매 앨범 모두, 그 외: 윈도우 함수
+    @Transactional(readOnly = true)
+    public List<LatestAlbumView> getLatestAlbums(String strategy) {
+        if ("pointer".equals(strategy)) {
+            return groupRepository.findLatestAlbumsByPointer();
+        }
+        if ("ties".equals(strategy)) {
+            return albumRepository.findLatestAlbumsWithTies();
+        }
+        return albumRepository.findLatestAlbumPerGroup();
+    }
+
+    // 서버 시작시 비어있는 최신 앨범 포인터 보정
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillLatestAlbumPointers() {
+        int updated = groupRepository.fillLatestAlbumPointers();
+        if (updated > 0) {
+            log.info("최신 앨범 포인터 보정: {}개 그룹", updated);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.spring.jpastudy.chap06_querydsl.service;
+
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostUpdate;
+
+// 그룹 이름이 바뀌면 아이돌 통계에 들고 있는 그룹명도 바꾸는 리스너 (커밋된 후에만)
+@Component
+@RequiredArgsConstructor
+public class GroupStatsListener {
+
+    private final ObjectProvider<IdolStatsService> statsService;
+
+    @PostUpdate
+    public void postUpdate(Group group) {
+        Long groupId = group.getId();
+        String groupName = group.getGroupName();
+        IdolStatsListener.afterCommit(statsService, stats -> stats.rename(groupId, groupName));
+    }
+}
@@ -1,12 +1,23 @@
 package com.spring.jpastudy.chap06_querydsl.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolRow;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
 import com.spring.jpastudy.chap06_querydsl.entity.Idol;
 import com.spring.jpastudy.chap06_querydsl.repository.IdolRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,8 +29,10 @@ import java.util.stream.Collectors;
 public class IdolService {
 
     private final IdolRepository idolRepository;
+    private final ObjectMapper objectMapper;
 
     // 아이돌을 나이 순으로 내림차 정렬해서 조회
+    @Transactional(readOnly = true)
     public List<Idol> getIdols() {
 //        List<Idol> idolList = idolRepository.findAll();
 
@@ -34,4 +47,33 @@ public class IdolService {
 
         return idolList;
     }
+
+    // 아이돌 목록 페이징 조회 (page는 1부터 시작)
+    @Transactional(readOnly = true)
+    public Page<IdolSummaryDto> getIdolSummaries(int page, int size) {
+        return idolRepository.findIdolSummaries(PageRequest.of(Math.max(page, 1) - 1, size));
+    }
+
+    // 아이돌 동적 검색 (page는 1부터 시작)
+    @Transactional(readOnly = true)
+    public Page<IdolSummaryDto> searchIdols(IdolSearchCondition condition, int page, int size) {
+        return idolRepository.searchIdols(condition, PageRequest.of(Math.max(page, 1) - 1, size));
+    }
+
+    // 전체 아이돌을 한 줄에 하나씩 JSON으로 출력 (NDJSON)
+    // 전체 목록을 메모리에 올리지 않고 읽는 즉시 응답으로 내보낸다.
+    @Transactional(readOnly = true)
+    public void writeIdolNames(OutputStream out) {
+        ObjectWriter writer = objectMapper.writerFor(IdolRow.class);
+        idolRepository.streamAllName(row -> {
+            try {
+                out.write(writer.writeValueAsBytes(row));
+                out.write('\n');
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
 }
\ No newline at end of file
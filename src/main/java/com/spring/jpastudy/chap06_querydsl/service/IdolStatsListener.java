@@ -0,0 +1,108 @@
+package com.spring.jpastudy.chap06_querydsl.service;
+
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.Objects;
+
+/*
+    Idol 엔터티의 INSERT / UPDATE / DELETE를 감지해서 통계를 증감시키는 리스너
+
+    - 변경 전 상태는 엔터티가 기억하고 있는 동기화 상태(synced~)를 사용한다.
+    - 트랜잭션 안이라면 커밋된 후에만 통계에 반영한다. (롤백시 무시)
+    - 엔터티매니저 생성 중 순환참조를 피하기 위해 서비스는 지연 조회한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdolStatsListener {
+
+    private final ObjectProvider<IdolStatsService> statsService;
+
+    @PostLoad
+    public void postLoad(Idol idol) {
+        idol.markSynced();
+    }
+
+    @PostPersist
+    public void postPersist(Idol idol) {
+        Long groupId = groupIdOf(idol);
+        String groupName = groupNameOf(idol);
+        int age = idol.getAge();
+        afterCommit(stats -> stats.add(groupId, groupName, age));
+        idol.markSynced();
+    }
+
+    @PostUpdate
+    public void postUpdate(Idol idol) {
+        Long oldGroupId = idol.getSyncedGroupId();
+        Integer oldAge = idol.getSyncedAge();
+        Long newGroupId = groupIdOf(idol);
+        int newAge = idol.getAge();
+
+        if (oldAge != null && oldAge == newAge && Objects.equals(oldGroupId, newGroupId)) {
+            return; // 통계와 관계없는 변경
+        }
+
+        String newGroupName = groupNameOf(idol);
+        afterCommit(stats -> {
+            if (oldAge != null) {
+                stats.remove(oldGroupId, oldAge);
+            }
+            stats.add(newGroupId, newGroupName, newAge);
+        });
+        idol.markSynced();
+    }
+
+    @PostRemove
+    public void postRemove(Idol idol) {
+        Long groupId = idol.getSyncedAge() != null ? idol.getSyncedGroupId() : groupIdOf(idol);
+        int age = idol.getSyncedAge() != null ? idol.getSyncedAge() : idol.getAge();
+        afterCommit(stats -> stats.remove(groupId, age));
+    }
+
+    private Long groupIdOf(Idol idol) {
+        Group group = idol.getGroup();
+        return group == null ? null : group.getId();
+    }
+
+    private String groupNameOf(Idol idol) {
+        Group group = idol.getGroup();
+        return group == null ? null : group.getGroupName();
+    }
+
+    private void afterCommit(StatsChange change) {
+        afterCommit(statsService, change);
+    }
+
+    // 트랜잭션 안이면 커밋된 후에, 아니면 바로 통계에 반영 (GroupStatsListener도 사용)
+    static void afterCommit(ObjectProvider<IdolStatsService> statsService, StatsChange change) {
+        IdolStatsService stats = statsService.getIfAvailable();
+        if (stats == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.apply(stats);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.apply(stats);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface StatsChange {
+        void apply(IdolStatsService stats);
+    }
+}
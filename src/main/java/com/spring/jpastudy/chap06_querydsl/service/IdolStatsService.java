@@ -0,0 +1,246 @@
+package com.spring.jpastudy.chap06_querydsl.service;
+
+import com.spring.jpastudy.chap06_querydsl.dto.AgeGroupCountDto;
+import com.spring.jpastudy.chap06_querydsl.dto.GroupAverageAgeDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    아이돌 통계를 메모리에 유지하는 서비스
+
+    - 그룹별 나이 합계/인원수, 연령대별 인원수를 들고 있다가
+      Idol 엔터티 변경시 IdolStatsListener를 통해 증감시킨다. (그룹 이름 변경은 GroupStatsListener)
+    - 대시보드 조회는 GROUP BY 쿼리 없이 그룹 수에 비례하는 시간으로 처리된다.
+    - 리스너를 거치지 않는 변경(벌크 쿼리, 다른 서버)으로 생기는 오차는
+      시작시와 주기적인 재동기화(reconcile)로 바로잡는다.
+ */
+@Service
+@Slf4j
+public class IdolStatsService {
+
+    // 연령대 구간: 0(그 외), 10, 20, 30
+    private static final int[] AGE_GROUPS = {0, 10, 20, 30};
+
+    private static final String GROUP_STATS_SQL =
+            "SELECT G.group_id, G.group_name, COALESCE(SUM(I.age), 0), COUNT(I.idol_id) " +
+            "FROM tbl_group G " +
+            "LEFT JOIN tbl_idol I " +
+            "ON I.group_id = G.group_id " +
+            "GROUP BY G.group_id, G.group_name";
+
+    private static final String AGE_GROUP_SQL =
+            "SELECT CASE " +
+            "           WHEN age BETWEEN 10 AND 19 THEN 10 " +
+            "           WHEN age BETWEEN 20 AND 29 THEN 20 " +
+            "           WHEN age BETWEEN 30 AND 39 THEN 30 " +
+            "           ELSE 0 END AS age_group, " +
+            "       COUNT(idol_id) " +
+            "FROM tbl_idol " +
+            "GROUP BY age_group";
+
+    // 스냅샷을 만들기 위한 첫 읽기 (InnoDB 테이블을 읽어야 만들어짐)
+    private static final String SNAPSHOT_SQL = "SELECT idol_id FROM tbl_idol LIMIT 1";
+
+    private final JdbcTemplate template;
+
+    // 두 집계 쿼리를 같은 시점(스냅샷)으로 읽기 위한 트랜잭션
+    private final TransactionTemplate snapshotTx;
+
+    // 재동기화시 통째로 교체
+    private volatile Stats current = new Stats();
+
+    // 재동기화 중에 들어온 변경 - 새 통계로 교체한 뒤 다시 적용 (null이면 재동기화 중 아님)
+    private final Object lock = new Object();
+    private List<StatsChange> replay;
+
+    public IdolStatsService(JdbcTemplate template, PlatformTransactionManager transactionManager) {
+        this.template = template;
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx.setReadOnly(true);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    // 그룹별 평균 나이 (평균이 minAge ~ maxAge인 그룹만, null이면 제한 없음)
+    public List<GroupAverageAgeDto> getGroupAverageAges(Double minAge, Double maxAge) {
+        List<GroupAverageAgeDto> result = new ArrayList<>();
+        for (GroupAgeStat stat : current.groups.values()) {
+            GroupAverageAgeDto dto = stat.toDto();
+            if (dto == null) continue; // 소속 아이돌이 없는 그룹
+            if (minAge != null && dto.getAverageAge() < minAge) continue;
+            if (maxAge != null && dto.getAverageAge() > maxAge) continue;
+            result.add(dto);
+        }
+        result.sort(Comparator.comparing(GroupAverageAgeDto::getGroupName,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    // 연령대별 아이돌 수
+    public List<AgeGroupCountDto> getAgeGroupCounts() {
+        AtomicLongArray counts = current.ageGroups;
+        List<AgeGroupCountDto> result = new ArrayList<>();
+        for (int i = 0; i < AGE_GROUPS.length; i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                result.add(new AgeGroupCountDto(AGE_GROUPS[i], count));
+            }
+        }
+        return result;
+    }
+
+    // 아이돌 1명 추가 (groupId가 null이면 솔로가수)
+    void add(Long groupId, String groupName, int age) {
+        apply(stats -> {
+            stats.ageGroups.incrementAndGet(ageGroupIndex(age));
+            if (groupId != null) {
+                stats.groups.computeIfAbsent(groupId, id -> new GroupAgeStat(groupName))
+                        .change(age, 1);
+            }
+        });
+    }
+
+    // 아이돌 1명 제거
+    void remove(Long groupId, int age) {
+        apply(stats -> {
+            stats.ageGroups.decrementAndGet(ageGroupIndex(age));
+            if (groupId != null) {
+                GroupAgeStat stat = stats.groups.get(groupId);
+                if (stat != null) {
+                    stat.change(-age, -1);
+                }
+            }
+        });
+    }
+
+    // 그룹 이름 변경
+    void rename(Long groupId, String groupName) {
+        apply(stats -> {
+            GroupAgeStat stat = stats.groups.get(groupId);
+            if (stat != null) {
+                stat.rename(groupName);
+            }
+        });
+    }
+
+    /*
+        DB를 기준으로 통계를 다시 계산
+
+        - 두 집계 쿼리는 REPEATABLE READ 읽기 전용 트랜잭션 하나에서 같은 스냅샷을 읽는다.
+        - InnoDB는 트랜잭션 시작이 아니라 첫 SELECT에서 스냅샷을 만들기 때문에
+          먼저 한 번 읽어서 스냅샷을 만든 뒤에 변경을 모으기 시작한다.
+          (반대 순서면 그 사이 커밋된 변경이 스냅샷과 replay 양쪽에 들어가 두 번 세어짐)
+        - 모아 둔 변경은 새 통계로 교체할 때 다시 적용한다.
+        - 변경은 커밋 직후(afterCommit)에 반영되므로 스냅샷 직전/직후 커밋이 반영되는 시점에 따라
+          한 건을 두 번 세거나 빠뜨릴 수 있지만, 그 틈은 커밋 ~ 반영 사이뿐이고 다음 재동기화에서 바로잡힌다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jpastudy.idol-stats.reconcile-interval-ms:300000}",
+            initialDelayString = "${jpastudy.idol-stats.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        Stats fresh;
+        try {
+            fresh = snapshotTx.execute(status -> {
+                template.queryForList(SNAPSHOT_SQL, Long.class);
+                synchronized (lock) {
+                    replay = new ArrayList<>();
+                }
+                return load();
+            });
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                replay = null;
+            }
+            throw e;
+        }
+        synchronized (lock) {
+            for (StatsChange change : replay) {
+                change.applyTo(fresh);
+            }
+            log.debug("아이돌 통계 재동기화 완료 - 그룹 수: {}, 재적용한 변경: {}", fresh.groups.size(), replay.size());
+            replay = null;
+            this.current = fresh;
+        }
+    }
+
+    private Stats load() {
+        Stats fresh = new Stats();
+        template.query(GROUP_STATS_SQL, rs -> {
+            GroupAgeStat stat = new GroupAgeStat(rs.getString(2));
+            stat.change(rs.getLong(3), rs.getLong(4));
+            fresh.groups.put(rs.getLong(1), stat);
+        });
+        template.query(AGE_GROUP_SQL, rs -> {
+            fresh.ageGroups.addAndGet(ageGroupIndex(rs.getInt(1)), rs.getLong(2));
+        });
+        return fresh;
+    }
+
+    // 현재 통계에 반영하고, 재동기화 중이면 새 통계에 다시 적용하도록 기록
+    private void apply(StatsChange change) {
+        synchronized (lock) {
+            change.applyTo(current);
+            if (replay != null) {
+                replay.add(change);
+            }
+        }
+    }
+
+    private static int ageGroupIndex(int age) {
+        if (age >= 10 && age <= 39) {
+            return age / 10;
+        }
+        return 0;
+    }
+
+    // 그룹별 통계 + 연령대별 인원수 (재동기화시 함께 교체)
+    private static class Stats {
+        private final Map<Long, GroupAgeStat> groups = new ConcurrentHashMap<>();
+        private final AtomicLongArray ageGroups = new AtomicLongArray(AGE_GROUPS.length);
+    }
+
+    @FunctionalInterface
+    private interface StatsChange {
+        void applyTo(Stats stats);
+    }
+
+    // 그룹 하나의 나이 합계와 인원수
+    private static class GroupAgeStat {
+        private String groupName;
+        private long ageSum;
+        private long count;
+
+        GroupAgeStat(String groupName) {
+            this.groupName = groupName;
+        }
+
+        synchronized void change(long ageDelta, long countDelta) {
+            this.ageSum += ageDelta;
+            this.count += countDelta;
+        }
+
+        synchronized void rename(String groupName) {
+            this.groupName = groupName;
+        }
+
+        synchronized GroupAverageAgeDto toDto() {
+            if (count <= 0) {
+                return null;
+            }
+            return new GroupAverageAgeDto(groupName, (double) ageSum / count);
+        }
+    }
+}
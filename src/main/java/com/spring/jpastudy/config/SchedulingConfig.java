@@ -0,0 +1,10 @@
+package com.spring.jpastudy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @Scheduled 작업 활성화 (통계 재동기화 등)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,16 @@
+package com.spring.jpastudy.config.cache;
+
+// 2차 캐시 영역 이름
+public final class CacheRegions {
+
+    public static final String GROUP = "group";
+    public static final String GROUP_IDOLS = "group.idols";
+    public static final String GROUP_ALBUMS = "group.albums";
+    public static final String ALBUM = "album";
+    public static final String IDOL = "idol";
+
+    public static final String[] ALL = {GROUP, GROUP_IDOLS, GROUP_ALBUMS, ALBUM, IDOL};
+
+    private CacheRegions() {
+    }
+}
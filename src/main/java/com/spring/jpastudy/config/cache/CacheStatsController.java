@@ -0,0 +1,22 @@
+package com.spring.jpastudy.config.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/cache")
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final SecondLevelCacheReporter reporter;
+
+    // 2차 캐시 영역별 적중률 조회
+    // ex) /cache/stats
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok().body(reporter.report());
+    }
+}
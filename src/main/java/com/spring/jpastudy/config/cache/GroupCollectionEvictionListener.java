@@ -0,0 +1,99 @@
+package com.spring.jpastudy.config.cache;
+
+import com.spring.jpastudy.chap06_querydsl.entity.Album;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.Objects;
+
+/*
+    아이돌, 앨범의 소속 그룹이 바뀌면 그룹의 컬렉션 캐시(group.idols, group.albums)를 비운다.
+
+    - group.addIdol/removeIdol 처럼 컬렉션을 같이 고치면 하이버네이트가 알아서 비우지만
+      idol.setGroup만 호출하는 경우에는 예전 그룹의 컬렉션 캐시가 그대로 남기 때문
+    - 다른 트랜잭션이 커밋 전 상태를 다시 캐시할 수 있으므로 커밋 후에 한번 더 비운다.
+    - 예전 그룹은 Idol의 동기화 상태(syncedGroupId)를 사용하므로
+      IdolStatsListener보다 먼저 등록되어야 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupCollectionEvictionListener {
+
+    private static final String IDOLS_ROLE = Group.class.getName() + ".idols";
+    private static final String ALBUMS_ROLE = Group.class.getName() + ".albums";
+
+    private final ObjectProvider<EntityManagerFactory> emf;
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        if (entity instanceof Idol) {
+            evict(IDOLS_ROLE, groupIdOf(((Idol) entity).getGroup()));
+        } else if (entity instanceof Album) {
+            evict(ALBUMS_ROLE, groupIdOf(((Album) entity).getGroup()));
+        }
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        if (entity instanceof Idol) {
+            Idol idol = (Idol) entity;
+            Long oldGroupId = idol.getSyncedGroupId();
+            Long newGroupId = groupIdOf(idol.getGroup());
+            if (!Objects.equals(oldGroupId, newGroupId)) {
+                evict(IDOLS_ROLE, oldGroupId);
+                evict(IDOLS_ROLE, newGroupId);
+            }
+        } else if (entity instanceof Album) {
+            // 앨범은 예전 그룹을 기억하지 않으므로 수정이 드문 점을 이용해 영역 전체를 비움
+            evict(ALBUMS_ROLE, null);
+        }
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        if (entity instanceof Idol) {
+            Idol idol = (Idol) entity;
+            Long groupId = idol.getSyncedAge() != null ? idol.getSyncedGroupId() : groupIdOf(idol.getGroup());
+            evict(IDOLS_ROLE, groupId);
+        } else if (entity instanceof Album) {
+            evict(ALBUMS_ROLE, groupIdOf(((Album) entity).getGroup()));
+        }
+    }
+
+    private Long groupIdOf(Group group) {
+        return group == null ? null : group.getId();
+    }
+
+    // ownerId가 null이면 해당 컬렉션 영역 전체를 비움
+    private void evict(String role, Long ownerId) {
+        EntityManagerFactory factory = emf.getIfAvailable();
+        if (factory == null) {
+            return;
+        }
+        Cache cache = factory.unwrap(SessionFactory.class).getCache();
+        Runnable eviction = ownerId == null
+                ? () -> cache.evictCollectionData(role)
+                : () -> cache.evictCollectionData(role, ownerId);
+
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
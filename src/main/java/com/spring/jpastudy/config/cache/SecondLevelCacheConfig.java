@@ -0,0 +1,77 @@
+package com.spring.jpastudy.config.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/*
+    하이버네이트 2차 캐시 세팅
+
+    - 자주 바뀌지 않고 계속 다시 읽히는 Group, Album(과 그 컬렉션)을 서버 메모리에 캐시
+    - 캐시 영역마다 최대 개수와 TTL을 걸어서 메모리가 무한히 늘지 않게 함
+    - 캐시 구현체는 Caffeine의 JCache 구현을 사용 (별도 서버 불필요)
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${jpastudy.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jpastudy.cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${jpastudy.cache.ttl:PT10M}")
+    private Duration ttl;
+
+    // 영역별 적중률 집계 (약간의 오버헤드가 있음)
+    @Value("${jpastudy.cache.statistics:true}")
+    private boolean statistics;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // 스프링 컨텍스트마다 별도의 캐시매니저를 사용 (테스트에서 컨텍스트가 여러 개일 수 있음)
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("jpastudy-2lc-" + System.identityHashCode(this)),
+                getClass().getClassLoader());
+
+        for (String region : CacheRegions.ALL) {
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, regionConfiguration());
+            }
+        }
+        return cacheManager;
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(statistics);
+        return configuration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // 쿼리 캐시 영역 등 미리 만들지 않은 영역은 기본 설정으로 생성
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.spring.jpastudy.config.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// 2차 캐시 영역별 적중률 집계
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SecondLevelCacheReporter {
+
+    private final EntityManagerFactory emf;
+
+    public List<RegionStats> report() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<RegionStats> result = new ArrayList<>();
+        if (!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+
+        for (String region : CacheRegions.ALL) {
+            CacheRegionStatistics stats;
+            try {
+                stats = statistics.getDomainDataRegionStatistics(region);
+            } catch (IllegalArgumentException e) {
+                continue; // 2차 캐시가 꺼져 있으면 영역이 없음
+            }
+            if (stats == null) continue;
+            result.add(new RegionStats(region,
+                    stats.getHitCount(), stats.getMissCount(), stats.getPutCount()));
+        }
+        return result;
+    }
+
+    // 주기적으로 영역별 적중률을 로그로 남김 (통계가 꺼져 있으면 아무것도 남기지 않음)
+    @Scheduled(fixedDelayString = "${jpastudy.cache.report-interval-ms:600000}",
+            initialDelayString = "${jpastudy.cache.report-interval-ms:600000}")
+    public void logReport() {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        for (RegionStats stats : report()) {
+            log.debug("[2차 캐시] {}", stats);
+        }
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class RegionStats {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+
+        // 적중률 (조회가 없으면 0)
+        public double getHitRatio() {
+            long lookups = hitCount + missCount;
+            return lookups == 0 ? 0 : (double) hitCount / lookups;
+        }
+    }
+}
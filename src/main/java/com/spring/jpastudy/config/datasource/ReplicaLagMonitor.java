@@ -0,0 +1,45 @@
+package com.spring.jpastudy.config.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+// 복제본마다 주 DB보다 얼마나 뒤처졌는지 주기적으로 확인 (MariaDB: SHOW SLAVE STATUS)
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaLagMonitor {
+
+    private final Map<String, DataSource> replicas;
+    private final ReplicaSelector selector;
+
+    @Scheduled(fixedDelayString = "${jpastudy.replication.lag-check-interval-ms:5000}")
+    public void check() {
+        replicas.forEach((name, dataSource) -> selector.updateLag(name, lagOf(name, dataSource)));
+    }
+
+    // 복제가 멈췄거나 확인할 수 없으면 null
+    private Long lagOf(String name, DataSource dataSource) {
+        try (Connection con = dataSource.getConnection();
+             Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("SHOW SLAVE STATUS")) {
+
+            if (!rs.next()) {
+                log.warn("복제본 {}: 복제 설정이 없음", name);
+                return null;
+            }
+            long lag = rs.getLong("Seconds_Behind_Master");
+            return rs.wasNull() ? null : lag;
+
+        } catch (SQLException e) {
+            log.warn("복제본 {}: 지연 확인 실패 - {}", name, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.spring.jpastudy.config.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    읽기 요청을 보낼 복제본 선택
+
+    - 사용 가능한 복제본끼리 돌아가면서(round-robin) 선택
+    - 지연(lag)이 기준보다 크거나 복제가 멈춘 복제본은 건너뜀
+    - 지연을 아직 모르는 복제본은 사용 가능한 것으로 봄
+ */
+public class ReplicaSelector {
+
+    // 복제가 멈췄거나 접속이 안 되는 상태
+    private static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private final List<String> replicas;
+    private final long maxLagSeconds;
+    private final Map<String, Long> lagSeconds = new ConcurrentHashMap<>();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReplicaSelector(List<String> replicas, long maxLagSeconds) {
+        this.replicas = new ArrayList<>(replicas);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    // 사용할 복제본 이름, 쓸 수 있는 복제본이 없으면 null
+    public String select() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(counter.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            String replica = replicas.get((start + i) % size);
+            if (isAvailable(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // seconds가 null이면 복제가 멈췄거나 접속이 안 되는 상태
+    public void updateLag(String replica, Long seconds) {
+        lagSeconds.put(replica, seconds == null ? UNAVAILABLE : seconds);
+    }
+
+    public boolean isAvailable(String replica) {
+        Long lag = lagSeconds.get(replica);
+        return lag == null || lag <= maxLagSeconds;
+    }
+
+    public List<String> getReplicas() {
+        return replicas;
+    }
+}
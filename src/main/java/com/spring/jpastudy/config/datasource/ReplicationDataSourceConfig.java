@@ -0,0 +1,90 @@
+package com.spring.jpastudy.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    주 DB / 복제본 읽기-쓰기 분리 세팅 (jpastudy.replication.enabled=true 일 때만)
+
+    - 쓰기 트랜잭션 → spring.datasource (주 DB)
+    - 읽기 전용 트랜잭션 → jpastudy.replication.replicas 중 하나
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+@ConditionalOnProperty(prefix = "jpastudy.replication", name = "enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    public ReplicaSelector replicaSelector(ReplicationProperties properties) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            names.add(replicaName(properties.getReplicas().get(i), i));
+        }
+        return new ReplicaSelector(names, properties.getMaxLagSeconds());
+    }
+
+    @Bean
+    public ReplicationRoutingDataSource routingDataSource(DataSourceProperties primaryProperties,
+                                                          ReplicationProperties properties,
+                                                          ReplicaSelector replicaSelector) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+
+        return new ReplicationRoutingDataSource(primary,
+                replicaDataSources(properties, primaryProperties), replicaSelector);
+    }
+
+    // 커넥션 획득을 첫 쿼리 시점까지 미뤄서 readOnly 여부가 정해진 뒤에 라우팅되게 함
+    // p6spy가 이 프록시를 감싸면 커넥션을 바로 꺼내므로 decorator.datasource.exclude-beans에서 제외
+    @Bean
+    @Primary
+    public DataSource replicationDataSource(ReplicationRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicationRoutingDataSource routingDataSource,
+                                               ReplicaSelector replicaSelector) {
+        return new ReplicaLagMonitor(routingDataSource.getReplicas(), replicaSelector);
+    }
+
+    private Map<String, DataSource> replicaDataSources(ReplicationProperties properties,
+                                                       DataSourceProperties primaryProperties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicationProperties.Replica replica = properties.getReplicas().get(i);
+            String name = replicaName(replica, i);
+
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null
+                    ? replica.getUsername() : primaryProperties.determineUsername());
+            dataSource.setPassword(replica.getPassword() != null
+                    ? replica.getPassword() : primaryProperties.determinePassword());
+            dataSource.setDriverClassName(replica.getDriverClassName() != null
+                    ? replica.getDriverClassName() : primaryProperties.determineDriverClassName());
+            dataSource.setReadOnly(true);
+            replicas.put(name, dataSource);
+        }
+        return replicas;
+    }
+
+    private static String replicaName(ReplicationProperties.Replica replica, int index) {
+        return replica.getName() != null ? replica.getName() : "replica-" + index;
+    }
+}
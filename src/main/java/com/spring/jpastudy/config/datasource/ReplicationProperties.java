@@ -0,0 +1,32 @@
+package com.spring.jpastudy.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 읽기 전용 복제본(replica) 세팅 - 주 DB는 spring.datasource를 그대로 사용
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpastudy.replication")
+public class ReplicationProperties {
+
+    private boolean enabled;
+
+    // 이 시간(초) 이상 뒤처진 복제본은 읽기 대상에서 제외
+    private long maxLagSeconds = 5;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName; // 생략하면 주 DB 드라이버
+    }
+}
@@ -0,0 +1,72 @@
+package com.spring.jpastudy.config.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    읽기 전용 트랜잭션(@Transactional(readOnly = true))은 복제본으로,
+    나머지(쓰기 트랜잭션, 트랜잭션 밖)는 주 DB로 보내는 데이터소스
+
+    - 트랜잭션의 readOnly 여부는 트랜잭션이 시작된 "후에" 알 수 있으므로
+      반드시 LazyConnectionDataSourceProxy로 감싸서 실제 커넥션 획득을 첫 쿼리 시점까지 미뤄야 한다.
+ */
+@Slf4j
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaSelector selector;
+    private final Map<String, DataSource> replicas;
+    private final List<DataSource> targets = new ArrayList<>();
+
+    public ReplicationRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                        ReplicaSelector selector) {
+        this.selector = selector;
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+
+        Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+        targetDataSources.put(PRIMARY, primary);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+
+        targets.add(primary);
+        targets.addAll(replicas.values());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        String replica = selector.select();
+        if (replica == null) {
+            log.debug("사용 가능한 복제본이 없어 주 DB에서 읽음");
+            return PRIMARY;
+        }
+        return replica;
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    // 커넥션 풀 정리
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource target : targets) {
+            if (target instanceof AutoCloseable) {
+                ((AutoCloseable) target).close();
+            }
+        }
+    }
+}
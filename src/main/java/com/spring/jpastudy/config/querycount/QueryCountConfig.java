@@ -0,0 +1,45 @@
+package com.spring.jpastudy.config.querycount;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// N+1 탐지를 위한 쿼리 카운터 세팅
+@Configuration
+public class QueryCountConfig {
+
+    // 같은 모양의 쿼리가 몇 번 반복되면 N+1로 의심할지
+    @Value("${jpastudy.query-count.repeat-threshold:3}")
+    private int repeatThreshold;
+
+    // 요청 또는 트랜잭션 하나에서 허용할 쿼리 수
+    @Value("${jpastudy.query-count.warn-threshold:20}")
+    private int warnThreshold;
+
+    @Bean
+    public QueryCountReporter queryCountReporter() {
+        return new QueryCountReporter(warnThreshold);
+    }
+
+    @Bean
+    public QueryCountInspector queryCountInspector(QueryCountReporter reporter) {
+        return new QueryCountInspector(reporter, repeatThreshold);
+    }
+
+    // 하이버네이트에 StatementInspector 등록
+    @Bean
+    public HibernatePropertiesCustomizer queryCountHibernateCustomizer(QueryCountInspector inspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(QueryCountReporter reporter) {
+        FilterRegistrationBean<QueryCountFilter> registration
+                = new FilterRegistrationBean<>(new QueryCountFilter(reporter, repeatThreshold));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
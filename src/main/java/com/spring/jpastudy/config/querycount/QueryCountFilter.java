@@ -0,0 +1,33 @@
+package com.spring.jpastudy.config.querycount;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// HTTP 요청 하나당 실행된 쿼리 수를 집계
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final QueryCountReporter reporter;
+    private final int repeatThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String name = request.getMethod() + " " + request.getRequestURI();
+        QueryCountScope scope = QueryCountHolder.open(name, repeatThreshold);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCountHolder.close(scope);
+            reporter.report(scope);
+        }
+    }
+}
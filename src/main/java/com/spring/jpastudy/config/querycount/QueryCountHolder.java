@@ -0,0 +1,57 @@
+package com.spring.jpastudy.config.querycount;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/*
+    현재 스레드에 열려있는 측정 구간들을 관리
+
+    - 구간은 중첩될 수 있다. (HTTP 요청 > 트랜잭션)
+    - 실행된 SQL은 열려있는 모든 구간에 함께 집계된다.
+ */
+public final class QueryCountHolder {
+
+    public static final int DEFAULT_REPEAT_THRESHOLD = 3;
+
+    private static final ThreadLocal<Deque<QueryCountScope>> SCOPES = new ThreadLocal<>();
+
+    private QueryCountHolder() {
+    }
+
+    public static QueryCountScope open(String name) {
+        return open(name, DEFAULT_REPEAT_THRESHOLD);
+    }
+
+    public static QueryCountScope open(String name, int repeatThreshold) {
+        Deque<QueryCountScope> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        QueryCountScope scope = new QueryCountScope(name, repeatThreshold);
+        scopes.push(scope);
+        return scope;
+    }
+
+    public static void close(QueryCountScope scope) {
+        Deque<QueryCountScope> scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        scopes.remove(scope);
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+    }
+
+    static void record(String sql) {
+        Deque<QueryCountScope> scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        String shape = SqlShape.normalize(sql);
+        for (QueryCountScope scope : scopes) {
+            scope.record(shape);
+        }
+    }
+}
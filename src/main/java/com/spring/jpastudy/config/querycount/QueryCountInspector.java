@@ -0,0 +1,45 @@
+package com.spring.jpastudy.config.querycount;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+    하이버네이트가 실행하는 모든 SQL을 가로채서 집계
+
+    - 트랜잭션 안에서 첫 SQL이 실행되면 트랜잭션 구간을 열고
+      트랜잭션이 끝날 때 결과를 보고한다.
+    - SQL 자체는 변경하지 않는다.
+ */
+@RequiredArgsConstructor
+public class QueryCountInspector implements StatementInspector {
+
+    private final QueryCountReporter reporter;
+    private final int repeatThreshold;
+
+    @Override
+    public String inspect(String sql) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            openTransactionScope();
+        }
+        QueryCountHolder.record(sql);
+        return sql;
+    }
+
+    private void openTransactionScope() {
+        String txName = TransactionSynchronizationManager.getCurrentTransactionName();
+        QueryCountScope scope = QueryCountHolder.open("tx:" + txName, repeatThreshold);
+        TransactionSynchronizationManager.bindResource(this, scope);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(QueryCountInspector.this);
+                QueryCountHolder.close(scope);
+                reporter.report(scope);
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.spring.jpastudy.config.querycount;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// 측정 구간이 끝나면 쿼리 수와 N+1 의심 쿼리를 로그로 남김
+@Slf4j
+@RequiredArgsConstructor
+public class QueryCountReporter {
+
+    // 한 구간에서 이 개수를 넘으면 경고
+    private final int warnThreshold;
+
+    public void report(QueryCountScope scope) {
+        for (QueryCountScope.ShapeCount shape : scope.getRepeatedShapes()) {
+            log.warn("[N+1 의심] {} - 같은 쿼리 {}회 실행, 호출위치: {}\n{}",
+                    scope.getName(), shape.getCount(), shape.getCallSite(), shape.getShape());
+        }
+
+        if (scope.getTotal() > warnThreshold) {
+            log.warn("[쿼리 과다] {} - 총 {}개의 쿼리 실행 (기준: {})",
+                    scope.getName(), scope.getTotal(), warnThreshold);
+        } else if (scope.getTotal() > 0) {
+            log.debug("{} - 총 {}개의 쿼리 실행", scope.getName(), scope.getTotal());
+        }
+    }
+}
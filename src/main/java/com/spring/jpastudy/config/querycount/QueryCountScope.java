@@ -0,0 +1,102 @@
+package com.spring.jpastudy.config.querycount;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    하나의 측정 구간(HTTP 요청, 트랜잭션, 테스트 메서드)에서 실행된 SQL 통계
+
+    - 스레드에 묶여서 사용되므로 동기화하지 않는다.
+    - 같은 모양의 SQL이 repeatThreshold번 이상 실행되면 N+1 의심 쿼리로 본다.
+ */
+@Getter
+public class QueryCountScope {
+
+    private final String name;
+    private final int repeatThreshold;
+    private int total;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<String, ShapeCount> shapes = new LinkedHashMap<>();
+
+    QueryCountScope(String name, int repeatThreshold) {
+        this.name = name;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    void record(String shape) {
+        total++;
+        ShapeCount shapeCount = shapes.computeIfAbsent(shape, ShapeCount::new);
+        shapeCount.count++;
+        // 스택 추적은 비싸므로 반복이 확인된 시점에 한 번만 수집
+        if (shapeCount.count == repeatThreshold) {
+            shapeCount.callSite = CallSite.find();
+        }
+    }
+
+    public Collection<ShapeCount> getShapes() {
+        return shapes.values();
+    }
+
+    // N+1 의심 쿼리 목록
+    public List<ShapeCount> getRepeatedShapes() {
+        List<ShapeCount> repeated = new ArrayList<>();
+        for (ShapeCount shapeCount : shapes.values()) {
+            if (shapeCount.count >= repeatThreshold) {
+                repeated.add(shapeCount);
+            }
+        }
+        return repeated;
+    }
+
+    @Getter
+    public static class ShapeCount {
+        private final String shape;
+        private int count;
+        private String callSite;
+
+        ShapeCount(String shape) {
+            this.shape = shape;
+        }
+    }
+
+    // 쿼리를 유발한 애플리케이션 코드 위치 찾기
+    static final class CallSite {
+
+        private static final String APP_PACKAGE = "com.spring.jpastudy.";
+        private static final List<String> SELF_CLASSES = List.of(
+                QueryCountScope.class.getName(),
+                QueryCountHolder.class.getName(),
+                QueryCountInspector.class.getName()
+        );
+
+        private CallSite() {
+        }
+
+        static String find() {
+            for (StackTraceElement frame : new Throwable().getStackTrace()) {
+                String className = frame.getClassName();
+                if (className.startsWith(APP_PACKAGE)
+                        && !isSelf(className)
+                        && !className.contains("$$")) {
+                    return frame.toString();
+                }
+            }
+            return "unknown";
+        }
+
+        private static boolean isSelf(String className) {
+            for (String self : SELF_CLASSES) {
+                if (className.startsWith(self)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.spring.jpastudy.config.querycount;
+
+import java.util.regex.Pattern;
+
+// 파라미터 값만 다른 SQL을 같은 모양(shape)으로 묶기 위한 정규화 유틸
+public final class SqlShape {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // 반복을 소유 수량자(*+, ++)로 써서 긴 문자열/목록에서도 되추적 스택이 쌓이지 않게 함
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']++|'')*+'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    // IN (?, ?, ?) 처럼 개수만 다른 목록은 하나로 취급
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*+\\(\\s*+\\?(?:\\s*+,\\s*+\\?)*+\\s*+\\)");
+
+    private SqlShape() {
+    }
+
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return shape.toLowerCase();
+    }
+}
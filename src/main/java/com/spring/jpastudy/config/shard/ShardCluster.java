@@ -0,0 +1,130 @@
+package com.spring.jpastudy.config.shard;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/*
+    샤드 데이터소스 묶음
+
+    - 샤드마다 자기 데이터소스의 트랜잭션 매니저를 따로 가진다.
+      한 회원의 데이터는 한 샤드에만 있으므로 쓰기는 항상 샤드 하나의 로컬 트랜잭션으로 끝난다.
+    - 데이터소스와 트랜잭션 매니저를 빈으로 등록하면 스프링 부트의 기본 데이터소스/JPA 트랜잭션 매니저
+      자동 설정이 꺼지므로 이 안에서만 들고 있는다.
+    - scatter는 모든 샤드에 같은 작업을 병렬로 보내고 결과를 샤드 순서대로 모은다.
+ */
+@Slf4j
+public class ShardCluster implements DisposableBean {
+
+    private final List<Shard> shards;
+
+    @Getter
+    private final ShardRouter router;
+
+    private final ExecutorService executor;
+
+    // 맵의 순서가 샤드 번호
+    public ShardCluster(Map<String, DataSource> dataSources) {
+        List<Shard> list = new ArrayList<>();
+        for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+            list.add(new Shard(list.size(), entry.getKey(), entry.getValue()));
+        }
+        this.shards = Collections.unmodifiableList(list);
+        this.router = new ShardRouter(list.size());
+        this.executor = Executors.newFixedThreadPool(list.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public Shard shard(int index) {
+        return shards.get(index);
+    }
+
+    // 회원 데이터가 있는 샤드
+    public Shard shardFor(long userId) {
+        return shards.get(router.shardOf(userId));
+    }
+
+    // 모든 샤드에 task를 병렬로 실행하고 결과를 샤드 순서대로 반환
+    public <T> List<T> scatter(Function<Shard, T> task) {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(executor.submit(() -> task.apply(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("샤드 조회가 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("샤드 조회에 실패했습니다.", e.getCause());
+        }
+        return results;
+    }
+
+    // 샤드마다 스키마 스크립트 실행 (CREATE ... IF NOT EXISTS 로 작성할 것)
+    public void initializeSchema(Resource script) {
+        for (Shard shard : shards) {
+            new ResourceDatabasePopulator(script).execute(shard.getDataSource());
+            log.debug("샤드 스키마 초기화: {}", shard.getName());
+        }
+    }
+
+    // 스레드와 커넥션 풀 정리
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdownNow();
+        for (Shard shard : shards) {
+            if (shard.getDataSource() instanceof AutoCloseable) {
+                ((AutoCloseable) shard.getDataSource()).close();
+            }
+        }
+    }
+
+    @Getter
+    public static class Shard {
+        private final int index;
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate template;
+        private final TransactionTemplate tx;
+
+        Shard(int index, String name, DataSource dataSource) {
+            this.index = index;
+            this.name = name;
+            this.dataSource = dataSource;
+            this.template = new JdbcTemplate(dataSource);
+            this.tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+    }
+}
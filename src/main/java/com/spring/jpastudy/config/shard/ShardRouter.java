@@ -0,0 +1,68 @@
+package com.spring.jpastudy.config.shard;
+
+/*
+    user_id → 샤드 번호 결정, 샤드 안의 id ↔ 전체에서 유일한 id 변환
+
+    - Jump Consistent Hash (Lamping, Veach)를 사용해서 같은 user_id는 항상 같은 샤드로 가고,
+      샤드를 N → N+1개로 늘리면 약 1/(N+1)의 회원만 새 샤드로 옮겨진다. (옮기는 작업은 별도)
+    - 샤드마다 AUTO_INCREMENT가 따로 증가하므로 밖으로 내보내는 id는
+      (샤드 안의 id << SHARD_BITS) | 샤드 번호 로 만들어서 id만 보고 샤드를 찾을 수 있게 한다.
+ */
+public class ShardRouter {
+
+    public static final int SHARD_BITS = 10;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+    private static final long SHARD_MASK = MAX_SHARDS - 1;
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("샤드 수는 1 ~ " + MAX_SHARDS + " 사이여야 합니다.");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    // 회원이 속한 샤드 번호
+    public int shardOf(long userId) {
+        return jumpHash(userId, shardCount);
+    }
+
+    // 샤드 안의 id → 전체에서 유일한 id
+    public long globalId(int shard, long localId) {
+        return (localId << SHARD_BITS) | shard;
+    }
+
+    // 전체 id → 샤드 번호
+    public int shardOfId(long globalId) {
+        return (int) (globalId & SHARD_MASK);
+    }
+
+    // 전체 id → 샤드 안의 id
+    public long localId(long globalId) {
+        return globalId >>> SHARD_BITS;
+    }
+
+    // 전체 id 기준 커서(이보다 작은 id부터)를 샤드 안의 id 상한(이하)으로 변환
+    public long localCursor(int shard, Long globalCursor) {
+        if (globalCursor == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.floorDiv(globalCursor - 1 - shard, (long) MAX_SHARDS);
+    }
+
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
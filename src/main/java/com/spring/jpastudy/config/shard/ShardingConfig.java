@@ -0,0 +1,86 @@
+package com.spring.jpastudy.config.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    구매 기록 샤드 세팅 (jpastudy.sharding.enabled=true 일 때만)
+
+    - 회원, 상품 등 나머지 테이블은 spring.datasource (주 DB)에 그대로 둔다.
+    - 구매 기록과 회원 구매 요약은 user_id 기준으로 jpastudy.sharding.shards 중 하나에 저장
+      (ShardedPurchaseService)
+    - 아직 주 DB의 구매 테이블만 읽는 기능(시간대별 집계, 공동구매, 요약 재구축, 테스트 데이터 생성)이
+      켜져 있으면 샤드의 구매가 빠진 결과를 만들게 되므로 서버를 띄우지 않는다.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "jpastudy.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    public static final String SCHEMA_SCRIPT = "db/purchase-shard.sql";
+
+    @Bean
+    public ShardCluster shardCluster(ShardingProperties properties,
+                                     DataSourceProperties primaryProperties,
+                                     Environment environment) {
+        requirePrimaryOnlyFeaturesOff(environment);
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("jpastudy.sharding.shards가 비어 있습니다.");
+        }
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            String name = shard.getName() != null ? shard.getName() : "shard-" + i;
+
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername() != null
+                    ? shard.getUsername() : primaryProperties.determineUsername());
+            dataSource.setPassword(shard.getPassword() != null
+                    ? shard.getPassword() : primaryProperties.determinePassword());
+            dataSource.setDriverClassName(shard.getDriverClassName() != null
+                    ? shard.getDriverClassName() : primaryProperties.determineDriverClassName());
+            dataSources.put(name, dataSource);
+        }
+
+        ShardCluster cluster = new ShardCluster(dataSources);
+        if (properties.isInitializeSchema()) {
+            cluster.initializeSchema(new ClassPathResource(SCHEMA_SCRIPT));
+        }
+        return cluster;
+    }
+
+    private static void requirePrimaryOnlyFeaturesOff(Environment environment) {
+        List<String> enabled = new ArrayList<>();
+        if (environment.getProperty("jpastudy.purchase-rollup.enabled", Boolean.class, true)) {
+            enabled.add("jpastudy.purchase-rollup.enabled");
+        }
+        if (environment.getProperty("jpastudy.co-purchase.enabled", Boolean.class, true)) {
+            enabled.add("jpastudy.co-purchase.enabled");
+        }
+        if (environment.getProperty("jpastudy.purchase-summary.rebuild-on-startup", Boolean.class, false)) {
+            enabled.add("jpastudy.purchase-summary.rebuild-on-startup");
+        }
+        if (environment.acceptsProfiles(Profiles.of("datagen"))) {
+            enabled.add("datagen 프로필");
+        }
+        if (!enabled.isEmpty()) {
+            throw new IllegalStateException(
+                    "샤딩을 켜면 주 DB의 구매 테이블만 쓰는 기능을 끄고 시작해야 합니다: " + enabled);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.spring.jpastudy.config.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 구매 기록 샤드 세팅 - 목록 순서가 샤드 번호이므로 순서를 바꾸면 안 됨
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpastudy.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    // 서버 시작시 샤드마다 db/purchase-shard.sql 실행
+    private boolean initializeSchema = true;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName; // 생략하면 주 DB 드라이버
+    }
+}
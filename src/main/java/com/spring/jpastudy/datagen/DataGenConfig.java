@@ -0,0 +1,10 @@
+package com.spring.jpastudy.datagen;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// 대량 테스트 데이터 생성 세팅 등록 (실행은 datagen 프로필 - DataGenRunner)
+@Configuration
+@EnableConfigurationProperties(DataGenProperties.class)
+public class DataGenConfig {
+}
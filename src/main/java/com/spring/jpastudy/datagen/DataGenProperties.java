@@ -0,0 +1,51 @@
+package com.spring.jpastudy.datagen;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// 대량 테스트 데이터 생성 세팅 (같은 seed와 수량이면 항상 같은 데이터)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jpastudy.datagen")
+public class DataGenProperties {
+
+    private long seed = 42L;
+
+    // 동시에 INSERT하는 스레드 수
+    private int threads = 4;
+
+    // INSERT문 하나에 담을 행 수
+    private int rowsPerStatement = 1000;
+
+    // 한 트랜잭션(작업 단위)에서 만들 행 수
+    private int chunkRows = 50_000;
+
+    // datagen 프로필로 실행했을 때 생성 후 서버 종료
+    private boolean exitAfter = true;
+
+    // 테이블별 행 수
+    private int students = 100_000;
+    private int products = 100_000;
+    private int departments = 1_000;
+    private int employees = 1_000_000;
+    private int users = 1_000_000;
+    private int goods = 100_000;
+    private int purchases = 7_000_000;
+    private int groups = 10_000;
+    private int idols = 300_000;
+    private int albums = 100_000;
+    private int events = 100_000;
+
+    // 쏠림 정도 (Zipf 지수, 클수록 상위 몇 개에 몰림)
+    private double goodsSkew = 1.0;    // 상품 인기도
+    private double groupSkew = 1.1;    // 그룹별 아이돌/앨범 수, 부서별 사원 수
+
+    // 구매 시각, 이벤트 날짜를 이 날짜 이전 days일 동안에 흩뿌림 (재현성을 위해 현재 시각 대신 고정)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate referenceDate = LocalDate.of(2025, 1, 1);
+    private int days = 365;
+}
@@ -0,0 +1,40 @@
+package com.spring.jpastudy.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/*
+    datagen 프로필로 실행하면 서버 시작 직후 대량 테스트 데이터를 생성
+
+    ex) ./gradlew bootRun --args='--spring.profiles.active=datagen --jpastudy.datagen.seed=7'
+
+    - 러너는 ApplicationReadyEvent 전에 실행되므로 exit-after=false로 서버를 계속 띄우면
+      메모리 인덱스들이 생성된 데이터까지 포함해서 만들어진다.
+ */
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+@Slf4j
+public class DataGenRunner implements ApplicationRunner {
+
+    private final DataGenerator dataGenerator;
+    private final DataGenProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("테스트 데이터 생성 시작 - seed: {}, threads: {}", properties.getSeed(), properties.getThreads());
+        DataGenerator.Result result = dataGenerator.generate(properties);
+        log.info("테스트 데이터 생성 결과: {}", result);
+
+        if (properties.isExitAfter()) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+}
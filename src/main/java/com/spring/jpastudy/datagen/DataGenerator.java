@@ -0,0 +1,485 @@
+package com.spring.jpastudy.datagen;
+
+import com.spring.jpastudy.chap01.entity.Product;
+import com.spring.jpastudy.chap02.repository.StudentGramIndex;
+import com.spring.jpastudy.chap05.repository.UserPurchaseSummaryRepository;
+import com.spring.jpastudy.chap06_querydsl.repository.GroupRepository;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.util.ZipfDistribution;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    재현 가능한 대량 테스트 데이터 생성 (모든 엔터티 테이블)
+
+    - 각 테이블의 현재 최대 id 뒤에 id를 직접 지정해서 추가하므로 기존 데이터와 섞이지 않는다.
+    - 행마다 (seed, 테이블, 순번)으로 난수를 만들기 때문에 스레드 수, 청크 크기와 관계없이
+      같은 seed와 수량이면 항상 같은 데이터가 만들어진다. (id는 시작 위치만 다름)
+    - 쏠림: 상품 인기도(구매), 그룹별 아이돌/앨범 수, 부서별 사원 수는 Zipf 분포
+      (순위 1이 가장 많음 - 생성된 id 중 가장 작은 것)
+    - chunk-rows 행씩 작업을 나눠 threads개 스레드가 각자 트랜잭션으로 다중 행 INSERT를 JDBC 배치로 보낸다.
+      부모 테이블을 모두 넣은 뒤 자식 테이블을 넣는다. (FK)
+    - 다 넣은 뒤 비정규화 데이터(상품 구매 수, 회원 구매 요약, 그룹 최신 앨범, 학생 n-gram 색인)를
+      생성 범위만 다시 계산한다.
+      메모리 인덱스(공동구매, 구매자 비트맵, 아이돌 통계)는 서버가 준비된 뒤 DB에서 다시 만들어지므로
+      서버 실행 중에 호출하지 말고 datagen 프로필(DataGenRunner)로 실행할 것
+    - 구매 기록을 주 DB에 넣으므로 샤딩을 켜면 실행할 수 없다.
+ */
+@Service
+@Slf4j
+public class DataGenerator {
+
+    // MariaDB 프리페어드 스테이트먼트의 파라미터 수 제한
+    private static final int MAX_PARAMETERS = 65_535;
+
+    // 한 번의 배치(왕복)로 보낼 INSERT문 수
+    private static final int STATEMENTS_PER_BATCH = 10;
+
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "제주"};
+    private static final String[] MAJORS = {"컴퓨터공학", "경영학", "수학", "물리학", "영문학", "디자인", "경제학"};
+
+    private final JdbcTemplate template;
+    private final UserPurchaseSummaryRepository summaryRepository;
+    private final GroupRepository groupRepository;
+    private final StudentGramIndex studentGramIndex;
+    private final DataGenProperties defaults;
+    private final ObjectProvider<ShardCluster> shardCluster;
+
+    // 작업 단위마다 새 트랜잭션
+    private final TransactionTemplate chunkTx;
+
+    public DataGenerator(JdbcTemplate template,
+                         PlatformTransactionManager transactionManager,
+                         UserPurchaseSummaryRepository summaryRepository,
+                         GroupRepository groupRepository,
+                         StudentGramIndex studentGramIndex,
+                         DataGenProperties defaults,
+                         ObjectProvider<ShardCluster> shardCluster) {
+        this.template = template;
+        this.summaryRepository = summaryRepository;
+        this.groupRepository = groupRepository;
+        this.studentGramIndex = studentGramIndex;
+        this.defaults = defaults;
+        this.shardCluster = shardCluster;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // 설정 파일(jpastudy.datagen) 기준으로 생성
+    public Result generate() {
+        return generate(defaults);
+    }
+
+    public Result generate(DataGenProperties spec) {
+        if (shardCluster.getIfAvailable() != null) {
+            throw new IllegalStateException("샤딩을 켜면 테스트 데이터를 생성할 수 없습니다.");
+        }
+        validate(spec);
+        long start = System.nanoTime();
+        Plan plan = new Plan(spec);
+
+        ExecutorService executor = Executors.newFixedThreadPool(spec.getThreads());
+        try {
+            runPhase(executor, spec, plan.students, plan.products, plan.departments,
+                    plan.users, plan.goods, plan.groups, plan.events);
+            runPhase(executor, spec, plan.employees, plan.purchases, plan.idols, plan.albums);
+            refreshDerived(executor, spec, plan);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Long> rows = new LinkedHashMap<>();
+        Map<String, Long> firstIds = new LinkedHashMap<>();
+        long total = 0;
+        for (Table table : plan.all()) {
+            rows.put(table.name, table.written.sum());
+            firstIds.put(table.name, table.base + 1);
+            total += table.written.sum();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long rowsPerSecond = elapsedMillis == 0 ? total : total * 1000 / elapsedMillis;
+        log.info("테스트 데이터 생성 완료 - {}행, {}ms ({}행/초) {}", total, elapsedMillis, rowsPerSecond, rows);
+        return new Result(rows, firstIds, studentIdPrefix(spec.getSeed()), total, elapsedMillis, rowsPerSecond);
+    }
+
+    // 학생 id (stu_id, 32자리 16진수) 앞 16자리 - seed별로 같으므로 생성한 학생만 골라낼 때 사용
+    public static String studentIdPrefix(long seed) {
+        return String.format("%016x", mix(seed, -1, 0));
+    }
+
+    private void runPhase(ExecutorService executor, DataGenProperties spec, Table... tables) {
+        List<Future<?>> tasks = new ArrayList<>();
+        for (Table table : tables) {
+            for (long from = 1; from <= table.count; from += spec.getChunkRows()) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + spec.getChunkRows() - 1, table.count);
+                tasks.add(executor.submit(() -> writeChunk(spec, table, chunkFrom, chunkTo)));
+            }
+        }
+        await(tasks);
+        for (Table table : tables) {
+            if (table.count > 0) {
+                log.info("{}: {}행", table.name, table.written.sum());
+            }
+        }
+    }
+
+    // 순번 [from, to] 행을 한 트랜잭션으로 저장
+    private void writeChunk(DataGenProperties spec, Table table, long from, long to) {
+        int perStatement = Math.min(spec.getRowsPerStatement(), MAX_PARAMETERS / table.columns.length);
+        chunkTx.executeWithoutResult(status -> template.execute((ConnectionCallback<Void>) con -> {
+            long k = from;
+            try (PreparedStatement full = con.prepareStatement(table.insertSql(perStatement))) {
+                int pending = 0;
+                while (to - k + 1 >= perStatement) {
+                    int index = 1;
+                    for (int r = 0; r < perStatement; r++, k++) {
+                        index = table.rows.bind(full, index, k, random(spec.getSeed(), table.ordinal, k));
+                    }
+                    full.addBatch();
+                    if (++pending == STATEMENTS_PER_BATCH) {
+                        full.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    full.executeBatch();
+                }
+            }
+            if (k <= to) {
+                int rest = (int) (to - k + 1);
+                try (PreparedStatement tail = con.prepareStatement(table.insertSql(rest))) {
+                    int index = 1;
+                    for (; k <= to; k++) {
+                        index = table.rows.bind(tail, index, k, random(spec.getSeed(), table.ordinal, k));
+                    }
+                    tail.executeUpdate();
+                }
+            }
+            return null;
+        }));
+        table.written.add(to - from + 1);
+    }
+
+    // 생성한 범위의 비정규화 데이터 다시 계산
+    private void refreshDerived(ExecutorService executor, DataGenProperties spec, Plan plan) {
+        List<Future<?>> tasks = new ArrayList<>();
+        if (plan.purchases.count > 0) {
+            for (long from = 0; from < plan.goods.count; from += spec.getChunkRows()) {
+                long lower = plan.goods.base + from;
+                long upper = Math.min(lower + spec.getChunkRows(), plan.goods.base + plan.goods.count);
+                tasks.add(executor.submit(() -> chunkTx.executeWithoutResult(status -> template.update(
+                        "UPDATE tbl_mtm_goods g SET purchase_count = " +
+                        "(SELECT COUNT(*) FROM tbl_mtm_purchase p WHERE p.goods_id = g.goods_id) " +
+                        "WHERE g.goods_id > ? AND g.goods_id <= ?", lower, upper))));
+            }
+            for (long from = 0; from < plan.users.count; from += spec.getChunkRows()) {
+                long lower = plan.users.base + from + 1;
+                long upper = Math.min(lower + spec.getChunkRows(), plan.users.base + plan.users.count + 1);
+                tasks.add(executor.submit(() -> chunkTx.executeWithoutResult(
+                        status -> summaryRepository.refreshRange(lower, upper))));
+            }
+        }
+        if (plan.students.count > 0) {
+            String prefix = studentIdPrefix(spec.getSeed());
+            String lower = prefix + String.format("%016x", plan.students.base);
+            String upper = prefix + String.format("%016x", plan.students.base + plan.students.count);
+            tasks.add(executor.submit(() -> studentGramIndex.reindex(lower, upper)));
+        }
+        if (plan.albums.count > 0) {
+            tasks.add(executor.submit(() -> chunkTx.executeWithoutResult(
+                    status -> groupRepository.fillLatestAlbumPointers())));
+        }
+        await(tasks);
+    }
+
+    private void await(List<Future<?>> tasks) {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tasks.forEach(task -> task.cancel(true));
+            throw new IllegalStateException("테스트 데이터 생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("테스트 데이터 생성에 실패했습니다.", e.getCause());
+        }
+    }
+
+    private void validate(DataGenProperties spec) {
+        if (spec.getThreads() < 1 || spec.getRowsPerStatement() < 1 || spec.getChunkRows() < 1 || spec.getDays() < 1) {
+            throw new IllegalArgumentException("threads, rows-per-statement, chunk-rows, days는 1 이상이어야 합니다.");
+        }
+        requireParent(spec.getEmployees(), spec.getDepartments(), "employees", "departments");
+        requireParent(spec.getPurchases(), spec.getUsers(), "purchases", "users");
+        requireParent(spec.getPurchases(), spec.getGoods(), "purchases", "goods");
+        requireParent(spec.getIdols(), spec.getGroups(), "idols", "groups");
+        requireParent(spec.getAlbums(), spec.getGroups(), "albums", "groups");
+    }
+
+    private static void requireParent(int children, int parents, String childName, String parentName) {
+        if (children > 0 && parents < 1) {
+            throw new IllegalArgumentException(childName + "를 만들려면 " + parentName + "가 1 이상이어야 합니다.");
+        }
+    }
+
+    // 행 하나의 난수 생성기 (seed, 테이블, 순번에만 의존)
+    private static SplittableRandom random(long seed, int table, long k) {
+        return new SplittableRandom(mix(seed, table, k));
+    }
+
+    private static long mix(long seed, int table, long k) {
+        long h = seed * 0x9E3779B97F4A7C15L + table * 0xC2B2AE3D27D4EB4FL + k;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private long maxId(String table, String idColumn) {
+        Long max = template.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private long maxStudentNumber(String prefix) {
+        String max = template.queryForObject(
+                "SELECT MAX(stu_id) FROM tbl_student WHERE stu_id LIKE ?", String.class, prefix + "%");
+        // 고정 길이 16진수이므로 문자열 최대값 = 번호 최대값
+        return max == null ? 0 : Long.parseUnsignedLong(max.substring(prefix.length()), 16);
+    }
+
+    // 테이블별 생성 계획 (id 시작 위치, 행 만드는 방법)
+    private class Plan {
+        final Table students;
+        final Table products;
+        final Table departments;
+        final Table employees;
+        final Table users;
+        final Table goods;
+        final Table purchases;
+        final Table groups;
+        final Table idols;
+        final Table albums;
+        final Table events;
+
+        Plan(DataGenProperties spec) {
+            LocalDateTime end = spec.getReferenceDate().atStartOfDay();
+            LocalDateTime begin = end.minusDays(spec.getDays());
+            long spanSeconds = spec.getDays() * 86_400L;
+            String studentPrefix = studentIdPrefix(spec.getSeed());
+
+            // 학생 id는 문자열이므로 seed별 접두사 + 16진수 번호 (번호의 시작 위치는 같은 접두사의 최대 번호)
+            long studentBase = maxStudentNumber(studentPrefix);
+            students = new Table(0, "tbl_student", spec.getStudents(), studentBase,
+                    new String[]{"stu_id", "stu_name", "city", "major"},
+                    (ps, i, k, r) -> {
+                        ps.setString(i++, studentPrefix + String.format("%016x", studentBase + k));
+                        ps.setString(i++, "학생" + k);
+                        ps.setString(i++, CITIES[r.nextInt(CITIES.length)]);
+                        ps.setString(i++, MAJORS[r.nextInt(MAJORS.length)]);
+                        return i;
+                    });
+
+            Product.Category[] categories = Product.Category.values();
+            long productBase = maxId("tbl_product", "prod_id");
+            products = new Table(1, "tbl_product", spec.getProducts(), productBase,
+                    new String[]{"prod_id", "prod_nm", "price", "category", "created_at", "updated_at"},
+                    (ps, i, k, r) -> {
+                        Timestamp createdAt = Timestamp.valueOf(begin.plusSeconds(r.nextLong(spanSeconds)));
+                        ps.setLong(i++, productBase + k);
+                        ps.setString(i++, "상품" + k);
+                        ps.setInt(i++, 100 * (10 + r.nextInt(5_000)));
+                        ps.setString(i++, categories[r.nextInt(categories.length)].name());
+                        ps.setTimestamp(i++, createdAt);
+                        ps.setTimestamp(i++, createdAt);
+                        return i;
+                    });
+
+            long deptBase = maxId("tbl_dept", "dept_id");
+            departments = new Table(2, "tbl_dept", spec.getDepartments(), deptBase,
+                    new String[]{"dept_id", "dept_name"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, deptBase + k);
+                        ps.setString(i++, "부서" + k);
+                        return i;
+                    });
+
+            ZipfDistribution deptSize = spec.getDepartments() > 0
+                    ? new ZipfDistribution(spec.getDepartments(), spec.getGroupSkew()) : null;
+            long empBase = maxId("tbl_emp", "emp_id");
+            employees = new Table(3, "tbl_emp", spec.getEmployees(), empBase,
+                    new String[]{"emp_id", "emp_name", "dept_id"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, empBase + k);
+                        ps.setString(i++, "사원" + k);
+                        ps.setLong(i++, deptBase + deptSize.sample(r));
+                        return i;
+                    });
+
+            long userBase = maxId("tbl_mtm_user", "user_id");
+            users = new Table(4, "tbl_mtm_user", spec.getUsers(), userBase,
+                    new String[]{"user_id", "user_name"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, userBase + k);
+                        ps.setString(i++, "회원" + k);
+                        return i;
+                    });
+
+            long goodsBase = maxId("tbl_mtm_goods", "goods_id");
+            goods = new Table(5, "tbl_mtm_goods", spec.getGoods(), goodsBase,
+                    new String[]{"goods_id", "goods_name"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, goodsBase + k);
+                        ps.setString(i++, "굿즈" + k);
+                        return i;
+                    });
+
+            // 구매 시각은 순번(= id 순서)을 따라 기간 전체에 고르게 증가
+            ZipfDistribution popularity = spec.getGoods() > 0
+                    ? new ZipfDistribution(spec.getGoods(), spec.getGoodsSkew()) : null;
+            long purchaseBase = maxId("tbl_mtm_purchase", "purchase_id");
+            int purchaseCount = spec.getPurchases();
+            purchases = new Table(6, "tbl_mtm_purchase", purchaseCount, purchaseBase,
+                    new String[]{"purchase_id", "user_id", "goods_id", "purchased_at"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, purchaseBase + k);
+                        ps.setLong(i++, userBase + 1 + r.nextInt(spec.getUsers()));
+                        ps.setLong(i++, goodsBase + popularity.sample(r));
+                        ps.setTimestamp(i++, Timestamp.valueOf(begin.plusSeconds((k - 1) * spanSeconds / purchaseCount)));
+                        return i;
+                    });
+
+            long groupBase = maxId("tbl_group", "group_id");
+            groups = new Table(7, "tbl_group", spec.getGroups(), groupBase,
+                    new String[]{"group_id", "group_name"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, groupBase + k);
+                        ps.setString(i++, "그룹" + k);
+                        return i;
+                    });
+
+            ZipfDistribution groupSize = spec.getGroups() > 0
+                    ? new ZipfDistribution(spec.getGroups(), spec.getGroupSkew()) : null;
+            long idolBase = maxId("tbl_idol", "idol_id");
+            idols = new Table(8, "tbl_idol", spec.getIdols(), idolBase,
+                    new String[]{"idol_id", "idol_name", "age", "gender", "group_id"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, idolBase + k);
+                        ps.setString(i++, "아이돌" + k);
+                        ps.setInt(i++, 15 + r.nextInt(25));
+                        ps.setString(i++, r.nextBoolean() ? "여" : "남");
+                        ps.setLong(i++, groupBase + groupSize.sample(r));
+                        return i;
+                    });
+
+            int lastYear = spec.getReferenceDate().getYear();
+            long albumBase = maxId("tbl_album", "album_id");
+            albums = new Table(9, "tbl_album", spec.getAlbums(), albumBase,
+                    new String[]{"album_id", "album_name", "release_year", "group_id"},
+                    (ps, i, k, r) -> {
+                        ps.setLong(i++, albumBase + k);
+                        ps.setString(i++, "앨범" + k);
+                        ps.setInt(i++, lastYear - r.nextInt(25));
+                        ps.setLong(i++, groupBase + groupSize.sample(r));
+                        return i;
+                    });
+
+            long eventBase = maxId("tbl_event", "ev_id");
+            events = new Table(10, "tbl_event", spec.getEvents(), eventBase,
+                    new String[]{"ev_id", "ev_title", "ev_desc", "ev_image_path", "ev_start_date", "created_at"},
+                    (ps, i, k, r) -> {
+                        LocalDateTime createdAt = begin.plusSeconds(r.nextLong(spanSeconds));
+                        ps.setLong(i++, eventBase + k);
+                        ps.setString(i++, "이벤트" + k);
+                        ps.setString(i++, "이벤트" + k + " 상세 설명");
+                        ps.setString(i++, "/upload/event-" + k + ".jpg");
+                        ps.setObject(i++, createdAt.toLocalDate().plusDays(r.nextInt(60)));
+                        ps.setTimestamp(i++, Timestamp.valueOf(createdAt));
+                        return i;
+                    });
+        }
+
+        List<Table> all() {
+            return List.of(students, products, departments, employees, users, goods,
+                    purchases, groups, idols, albums, events);
+        }
+    }
+
+    // 순번 k(1부터)의 행 값을 i번째 파라미터부터 바인딩하고 다음 파라미터 위치를 반환
+    @FunctionalInterface
+    private interface RowBinder {
+        int bind(PreparedStatement ps, int i, long k, SplittableRandom random) throws SQLException;
+    }
+
+    private static class Table {
+        final int ordinal;
+        final String name;
+        final long count;
+        final long base;
+        final String[] columns;
+        final RowBinder rows;
+        final LongAdder written = new LongAdder();
+
+        Table(int ordinal, String name, long count, long base, String[] columns, RowBinder rows) {
+            this.ordinal = ordinal;
+            this.name = name;
+            this.count = count;
+            this.base = base;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        String insertSql(int rowCount) {
+            String placeholders = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+            StringBuilder sql = new StringBuilder("INSERT INTO ")
+                    .append(name).append(" (").append(String.join(", ", columns)).append(") VALUES ");
+            for (int i = 0; i < rowCount; i++) {
+                sql.append(i == 0 ? "" : ", ").append(placeholders);
+            }
+            return sql.toString();
+        }
+    }
+
+    // 테이블별 생성 행 수와 첫 id (생성 순서대로, 학생은 studentIdPrefix 뒤의 번호), 초당 행 수
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Result {
+        private Map<String, Long> rows;
+        private Map<String, Long> firstIds;
+        private String studentIdPrefix;
+        private long totalRows;
+        private long elapsedMillis;
+        private long rowsPerSecond;
+    }
+}
@@ -22,6 +22,7 @@ public class EventService {
     private final EventRepository eventRepository;
 
     // 전체 조회 서비스
+    @Transactional(readOnly = true)
     public List<EventDetailDto> getEvents(String sort) {
         return eventRepository.findEvents(sort)
                 .stream().map(EventDetailDto::new)
@@ -0,0 +1,85 @@
+package com.spring.jpastudy.util;
+
+import java.util.Arrays;
+
+/*
+    Count-Min Sketch - 고정된 메모리로 키별 등장 횟수를 근사
+
+    - 추정값은 실제값보다 작아지지 않으며, 오차는 대략 (전체 건수 * e / width) 이하
+    - 더할 때 최솟값인 칸만 올리는 conservative update로 과대추정을 줄임
+    - 스레드 안전하지 않음
+ */
+public class CountMinSketch {
+
+    // 행마다 다른 해시를 만들기 위한 홀수 상수
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final int[][] table;
+    private final int[] slots;
+
+    // width는 2의 제곱으로 올림, depth는 최대 8
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("width는 1 이상, depth는 1~" + SEEDS.length + " 이어야 합니다.");
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.table = new int[depth][this.width];
+        this.slots = new int[depth];
+    }
+
+    // count만큼 더하고 더한 뒤의 추정값을 반환
+    public int add(long key, int count) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            slots[i] = slot(key, i);
+            min = Math.min(min, table[i][slots[i]]);
+        }
+        int target = min + count;
+        for (int i = 0; i < depth; i++) {
+            if (table[i][slots[i]] < target) {
+                table[i][slots[i]] = target;
+            }
+        }
+        return target;
+    }
+
+    public int estimate(long key) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, table[i][slot(key, i)]);
+        }
+        return min;
+    }
+
+    public void clear() {
+        for (int[] row : table) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long estimatedBytes() {
+        return (long) depth * (16 + (long) width * Integer.BYTES);
+    }
+
+    private int slot(long key, int row) {
+        long h = (key + row) * SEEDS[row];
+        h ^= h >>> 29;
+        return (int) h & mask;
+    }
+}
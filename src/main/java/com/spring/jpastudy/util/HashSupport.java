@@ -0,0 +1,29 @@
+package com.spring.jpastudy.util;
+
+// 기본형 해시맵 공통 계산
+final class HashSupport {
+
+    // 메모리 추정용 (64비트 JVM, compressed oops 기준)
+    static final long ARRAY_HEADER = 16;
+    static final long REFERENCE = 4;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private HashSupport() {
+    }
+
+    // 연속된 id가 같은 칸에 몰리지 않도록 비트를 섞음
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // expectedSize개를 넣어도 resize가 일어나지 않는 2의 제곱 크기
+    static int capacityFor(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / loadFactor) + 1;
+        if (needed > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
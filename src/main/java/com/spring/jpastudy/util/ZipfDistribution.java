@@ -0,0 +1,87 @@
+package com.spring.jpastudy.util;
+
+import java.util.SplittableRandom;
+
+/*
+    Zipf 분포 난수 - 1 ~ n 중 순위 k가 나올 확률이 1 / k^exponent 에 비례
+
+    - 거부-역변환 샘플링 (Hörmann, Derflinger 1996)
+      누적분포 표를 만들지 않으므로 n이 수백만이어도 메모리를 쓰지 않고, 평균 1~2번 시도로 뽑는다.
+    - 난수 생성기를 호출하는 쪽에서 넘기므로 같은 시드면 항상 같은 순서로 나온다.
+    - 상태가 없으므로 여러 스레드가 같이 써도 된다. (난수 생성기는 스레드마다 따로)
+ */
+public class ZipfDistribution {
+
+    private final int n;
+    private final double exponent;
+
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n < 1 || exponent <= 0) {
+            throw new IllegalArgumentException("n은 1 이상, exponent는 0보다 커야 합니다.");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1d;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    // 1 ~ n 중 하나 (1이 가장 자주 나옴)
+    public int sample(SplittableRandom random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    // H(x) = ∫ h(x) dx 의 변형, h(x) = 1 / x^exponent
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1d - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1d - exponent);
+        if (t < -1d) {
+            t = -1d;
+        }
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    // log(1 + x) / x (x가 0 근처면 테일러 전개)
+    private static double log1pOverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1d - x * (0.5 - x * (1d / 3 - 0.25 * x));
+    }
+
+    // (e^x - 1) / x (x가 0 근처면 테일러 전개)
+    private static double expm1OverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1d + x * 0.5 * (1d + x / 3 * (1d + 0.25 * x));
+    }
+}
@@ -0,0 +1,13 @@
+-- 복합키 구매 기록 테이블 (CompactPurchase)
+-- 하이버네이트는 @EmbeddedId 컬럼 순서를 보장하지 않으므로 클러스터드 키 순서를 직접 지정한다.
+-- (user_id, goods_id, seq) : 회원별 조회는 PK 범위 스캔
+-- (goods_id, user_id)      : 보조 인덱스에 PK 컬럼이 붙으므로 상품별 구매자 조회도 인덱스만으로 처리
+-- 하이버네이트가 테이블을 만들기 전에 실행되므로 FK는 걸지 않는다.
+CREATE TABLE IF NOT EXISTS tbl_mtm_purchase_compact (
+    user_id      BIGINT      NOT NULL,
+    goods_id     BIGINT      NOT NULL,
+    seq          INT         NOT NULL,
+    purchased_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (user_id, goods_id, seq),
+    KEY idx_compact_goods_user (goods_id, user_id)
+) ENGINE = InnoDB;
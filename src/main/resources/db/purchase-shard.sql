@@ -0,0 +1,22 @@
+-- 샤드마다 만드는 구매 기록 / 회원 구매 요약 테이블 (ShardingConfig가 서버 시작시 실행)
+-- 회원, 상품은 주 DB에 있으므로 FK는 걸지 않는다.
+CREATE TABLE IF NOT EXISTS tbl_mtm_purchase (
+    purchase_id  BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id      BIGINT      NOT NULL,
+    goods_id     BIGINT      NOT NULL,
+    purchased_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    PRIMARY KEY (purchase_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_purchase_user ON tbl_mtm_purchase (user_id, purchase_id);
+
+CREATE INDEX IF NOT EXISTS idx_purchase_goods ON tbl_mtm_purchase (goods_id, purchase_id);
+
+CREATE TABLE IF NOT EXISTS tbl_user_purchase_summary (
+    user_id              BIGINT NOT NULL,
+    purchase_count       BIGINT NOT NULL,
+    distinct_goods_count BIGINT NOT NULL,
+    last_purchase_id     BIGINT,
+    last_goods_id        BIGINT,
+    PRIMARY KEY (user_id)
+);
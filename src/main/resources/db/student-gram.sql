@@ -0,0 +1,11 @@
+-- 학생 이름/전공 부분 문자열 검색용 2-gram 역색인 (StudentGram, StudentGramIndex)
+-- (field, gram, stu_id) : gram 하나의 학생 목록이 PK 범위 스캔으로 정렬되어 나오므로 여러 gram 교집합이 싸다
+-- gram은 정확히 비교해야 하므로 바이너리 콜레이션 (대소문자, 악센트는 저장 전에 정규화)
+-- 학생 삭제 순서와 무관하게 쓰기 위해 FK는 걸지 않는다. (남은 gram은 검색시 학생 테이블과 조인하며 걸러짐)
+CREATE TABLE IF NOT EXISTS tbl_student_gram (
+    field  CHAR(1)      NOT NULL,
+    gram   VARCHAR(2)   CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+    stu_id VARCHAR(255) NOT NULL,
+    PRIMARY KEY (field, gram, stu_id),
+    KEY idx_student_gram_student (stu_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,222 @@
+package com.spring.jpastudy.bulk;
+
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import com.spring.jpastudy.chap04_relation.entity.Employee;
+import com.spring.jpastudy.chap04_relation.repository.DepartmentRepository;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseBatchWriter;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import com.spring.jpastudy.chap05.service.GoodsPurchaseCountService;
+import com.spring.jpastudy.chap06_querydsl.entity.Album;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import com.spring.jpastudy.chap06_querydsl.repository.AlbumRepository;
+import com.spring.jpastudy.chap06_querydsl.repository.GroupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 청크마다 커밋하므로 테스트 트랜잭션(롤백)을 쓰지 않고 직접 정리한다.
+@SpringBootTest(properties = "jpastudy.bulk-delete.chunk-size=2")
+class BulkDeleteServiceTest {
+
+    @Autowired
+    BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    PurchaseBatchWriter purchaseBatchWriter;
+
+    @Autowired
+    GoodsPurchaseCountService goodsPurchaseCountService;
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    AlbumRepository albumRepository;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    EntityManager em;
+
+    private final List<Runnable> cleanUps = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        cleanUps.forEach(Runnable::run);
+    }
+
+
+    @Test
+    @DisplayName("회원을 지우면 구매 기록이 청크 단위로 먼저 지워지고 상품 구매 수도 줄어든다")
+    void deleteUserTest() {
+        //given
+        User user = userRepository.save(User.builder().name("삭제회원").build());
+        User other = userRepository.save(User.builder().name("남는회원").build());
+        Goods goods = goodsRepository.save(Goods.builder().name("삭제상품").build());
+        cleanUps.add(() -> {
+            template.update("DELETE FROM tbl_mtm_purchase WHERE goods_id = ?", goods.getId());
+            template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", other.getId());
+            userRepository.deleteById(other.getId());
+            goodsRepository.deleteById(goods.getId());
+        });
+
+        PurchaseCommand mine = new PurchaseCommand(user.getId(), goods.getId());
+        purchaseBatchWriter.write(List.of(mine, mine, mine, mine, mine,
+                new PurchaseCommand(other.getId(), goods.getId())));
+
+        //when
+        BulkDeleteService.Result result = bulkDeleteService.deleteUser(user.getId());
+
+        //then - 구매 5건은 2건씩 3개 청크, 구매 요약과 회원 각 1개 청크
+        assertEquals(5L, result.getDeletedRows().get("tbl_mtm_purchase"));
+        assertEquals(1L, result.getDeletedRows().get("tbl_user_purchase_summary"));
+        assertEquals(1L, result.getDeletedRows().get("tbl_mtm_user"));
+        assertEquals(5, result.getChunks());
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+        assertEquals(1, countRows("tbl_mtm_purchase", "goods_id", goods.getId()));
+        assertEquals(1, goodsPurchaseCountService.getPurchaseCount(goods.getId()).getPurchaseCount());
+    }
+
+    @Test
+    @DisplayName("그룹을 지우면 아이돌, 앨범, 그룹 순서로 지워지고 2차 캐시에서도 사라진다")
+    void deleteGroupTest() {
+        //given
+        Group group = new Group("삭제그룹");
+        new Idol("삭제아이돌1", 20, group);
+        new Idol("삭제아이돌2", 21, group);
+        new Idol("삭제아이돌3", 22, group);
+        groupRepository.save(group);
+        Album album = albumRepository.save(new Album("삭제앨범", 2024, group));
+        cleanUps.add(() -> {
+            template.update("DELETE FROM tbl_idol WHERE group_id = ?", group.getId());
+            template.update("DELETE FROM tbl_album WHERE group_id = ?", group.getId());
+            template.update("DELETE FROM tbl_group WHERE group_id = ?", group.getId());
+        });
+
+        // 그룹과 아이돌 컬렉션을 2차 캐시에 적재
+        tx.executeWithoutResult(status ->
+                groupRepository.findById(group.getId()).orElseThrow().getIdols().size());
+
+        //when
+        BulkDeleteService.Result result = bulkDeleteService.deleteGroup(group.getId());
+
+        //then
+        assertEquals(List.of("tbl_idol", "tbl_album", "tbl_group"), new ArrayList<>(result.getDeletedRows().keySet()));
+        assertEquals(3L, result.getDeletedRows().get("tbl_idol"));
+        assertTrue(groupRepository.findById(group.getId()).isEmpty());
+        assertTrue(albumRepository.findById(album.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("바깥 트랜잭션에서 로딩해 둔 부서와 사원은 삭제 후 영속성 컨텍스트에서 분리된다")
+    void deleteDepartmentTest() {
+        //given
+        Department department = Department.builder().name("삭제부서").build();
+        for (int i = 0; i < 5; i++) {
+            department.addEmployee(Employee.builder().name("삭제사원" + i).build());
+        }
+        departmentRepository.save(department);
+        cleanUps.add(() -> {
+            template.update("DELETE FROM tbl_emp WHERE dept_id = ?", department.getId());
+            template.update("DELETE FROM tbl_dept WHERE dept_id = ?", department.getId());
+        });
+
+        tx.executeWithoutResult(status -> {
+            Department loaded = departmentRepository.findById(department.getId()).orElseThrow();
+            Employee employee = loaded.getEmployees().get(0);
+
+            //when
+            BulkDeleteService.Result result = bulkDeleteService.deleteDepartment(department.getId());
+
+            //then
+            assertEquals(5L, result.getDeletedRows().get("tbl_emp"));
+            assertFalse(em.contains(loaded));
+            assertFalse(em.contains(employee));
+        });
+        assertTrue(departmentRepository.findById(department.getId()).isEmpty());
+        assertEquals(0, countRows("tbl_emp", "dept_id", department.getId()));
+    }
+
+    @Test
+    @DisplayName("존재하지 않는 부모는 삭제할 수 없다")
+    void deleteMissingTest() {
+        assertThrows(NoSuchElementException.class, () -> bulkDeleteService.deleteDepartment(-1L));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("사원 2만명 부서 삭제 - cascade 삭제와 청크 단위 삭제 비교")
+    void deleteDepartmentBenchmark() {
+        //given
+        int employees = 20_000;
+        long cascadeId = saveDepartment("cascade부서", employees);
+        long bulkId = saveDepartment("bulk부서", employees);
+        cleanUps.add(() -> {
+            template.update("DELETE FROM tbl_emp WHERE dept_id IN (?, ?)", cascadeId, bulkId);
+            template.update("DELETE FROM tbl_dept WHERE dept_id IN (?, ?)", cascadeId, bulkId);
+        });
+
+        //when
+        long start = System.nanoTime();
+        tx.executeWithoutResult(status ->
+                departmentRepository.delete(departmentRepository.findById(cascadeId).orElseThrow()));
+        long cascadeMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 테스트 설정(chunk-size=2) 대신 운영 기본값으로 비교
+        BulkDeleteService service = new BulkDeleteService(template,
+                tx.getTransactionManager(), em, em.getEntityManagerFactory(), event -> { },
+                null, null, null, 1000);
+        BulkDeleteService.Result result = service.deleteDepartment(bulkId);
+
+        //then
+        System.out.printf("cascade : %,d ms (한 트랜잭션, 사원 %,d명 로딩 후 건별 DELETE)%n", cascadeMillis, employees);
+        System.out.printf("bulk    : %,d ms (%d개 청크) %s%n", result.getElapsedMillis(), result.getChunks(), result.getDeletedRows());
+        assertEquals(0, countRows("tbl_emp", "dept_id", cascadeId));
+        assertEquals(0, countRows("tbl_emp", "dept_id", bulkId));
+    }
+
+    private long saveDepartment(String name, int employees) {
+        Department department = departmentRepository.save(Department.builder().name(name).build());
+        List<Object[]> args = new ArrayList<>(employees);
+        for (int i = 0; i < employees; i++) {
+            args.add(new Object[]{name + "-사원" + i, department.getId()});
+        }
+        template.batchUpdate("INSERT INTO tbl_emp (emp_name, dept_id) VALUES (?, ?)", args);
+        return department.getId();
+    }
+
+    private int countRows(String table, String column, long id) {
+        return template.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?", Integer.class, id);
+    }
+}
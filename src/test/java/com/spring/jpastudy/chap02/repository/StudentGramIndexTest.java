@@ -0,0 +1,275 @@
+package com.spring.jpastudy.chap02.repository;
+
+import com.spring.jpastudy.chap02.entity.Student;
+import com.spring.jpastudy.chap03_page.StudentPageRepository;
+import com.spring.jpastudy.datagen.DataGenProperties;
+import com.spring.jpastudy.datagen.DataGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 색인은 학생 저장과 같은 트랜잭션에서 갱신되므로 테스트 트랜잭션(롤백)으로 정리된다.
+@SpringBootTest
+@Transactional
+class StudentGramIndexTest {
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    @Autowired
+    StudentPageRepository studentPageRepository;
+
+    @Autowired
+    StudentGramIndex gramIndex;
+
+    @Autowired
+    DataGenerator dataGenerator;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    EntityManager em;
+
+
+    @Test
+    @DisplayName("2-gram은 소문자, 악센트 제거 후 코드포인트 단위로 중복 없이 만든다")
+    void gramsTest() {
+        assertEquals(List.of("컴퓨", "퓨터", "터공", "공학"), StudentGramIndex.grams("컴퓨터공학"));
+        assertEquals(List.of("ca", "af", "fe"), StudentGramIndex.grams("CAFÉ"));
+        assertEquals(List.of("aa"), StudentGramIndex.grams("aaaa"));
+        assertTrue(StudentGramIndex.grams("춘").isEmpty());
+        assertTrue(StudentGramIndex.grams(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("색인 검색 결과는 LIKE 전체 스캔 결과와 같다")
+    void sameAsLikeTest() {
+        //given
+        List<Student> saved = new ArrayList<>();
+        saved.add(save("엔그램쿠로미", "컴퓨터공학"));
+        saved.add(save("엔그램춘식이", "화학공학"));
+        saved.add(save("엔그램어피치", "경제학"));
+        saved.add(save("엔그램Café", "100%_기계공학"));
+        Set<String> ids = new TreeSet<>();
+        saved.forEach(s -> ids.add(s.getId()));
+
+        //when - 같은 트랜잭션에서 저장한 학생도 바로 검색됨
+        //then
+        for (String keyword : List.of("공학", "컴퓨터공학", "학", "100%", "%_기", "없는전공")) {
+            assertEquals(likeMajor(keyword, ids), ids(studentRepository.findByMajorContaining(keyword), ids), keyword);
+        }
+        for (String keyword : List.of("엔그램", "쿠로", "춘", "cafe", "엔그램%이", "그_")) {
+            assertEquals(likeName(keyword, ids), ids(studentRepository.searchByNameWithJPQL(keyword), ids), keyword);
+        }
+        assertEquals(4, ids(studentRepository.searchByNameWithJPQL("엔그램"), ids).size());
+        assertEquals(1, ids(studentRepository.searchByNameWithJPQL("엔그램%이"), ids).size());
+        assertEquals(1, ids(studentRepository.findByMajorContaining("100%"), ids).size());
+    }
+
+    @Test
+    @DisplayName("이름을 바꾸거나 학생을 지우면 색인도 함께 바뀐다")
+    void updateAndDeleteTest() {
+        //given
+        Student student = save("엔그램무지", "물리학");
+
+        //when
+        student.setName("엔그램단무지");
+        em.flush();
+
+        //then
+        assertEquals(1, studentRepository.searchByNameWithJPQL("단무").size());
+        assertEquals(1L, gramCount(student.getId(), "단무"));
+
+        //when
+        studentRepository.delete(student);
+        em.flush();
+
+        //then
+        assertTrue(studentRepository.searchByNameWithJPQL("엔그램단무지").isEmpty());
+        assertEquals(0L, gramCount(student.getId(), null));
+    }
+
+    @Test
+    @DisplayName("검색 + 페이징은 정렬과 전체 개수를 그대로 유지한다")
+    void pageTest() {
+        //given
+        for (int i = 1; i <= 15; i++) {
+            save(String.format("엔그램페이지%02d", i), "수학");
+        }
+
+        //when
+        Page<Student> page = studentPageRepository.findByNameContaining(
+                "그램페이지", PageRequest.of(1, 10, Sort.by(Sort.Order.desc("name"))));
+
+        //then
+        assertEquals(15, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+        assertEquals(5, page.getContent().size());
+        assertEquals("엔그램페이지05", page.getContent().get(0).getName());
+        assertEquals("엔그램페이지01", page.getContent().get(4).getName());
+    }
+
+    @Test
+    @DisplayName("gram이 많은 키워드는 학생 수가 적은 gram을 골라 검색한다")
+    void pickRareGramsTest() {
+        //given - "엔그", "그램"은 여러 학생에게 있음
+        for (int i = 0; i < 5; i++) {
+            save("엔그램흔한" + i, "수학");
+        }
+        Student rare = save("엔그램희귀키워드", "수학");
+        em.flush();
+        List<String> grams = StudentGramIndex.grams("엔그램희귀키워드");
+
+        //when
+        List<String> picked = target().pick(StudentGramIndex.Field.NAME, grams);
+
+        //then
+        assertEquals(StudentGramIndex.MAX_QUERY_GRAMS, picked.size());
+        assertFalse(picked.contains("엔그"));
+        assertFalse(picked.contains("그램"));
+        assertEquals(List.of(rare.getId()), ids(studentRepository.searchByNameWithJPQL("엔그램희귀키워드")));
+    }
+
+    @Test
+    @DisplayName("색인을 채우는 중에는 색인 없이 LIKE로 검색한다")
+    void notReadyTest() {
+        //given - 색인에 아직 없는 학생
+        Student student = save("엔그램백필중", "천문학");
+        em.flush();
+        template.update("DELETE FROM tbl_student_gram WHERE stu_id = ?", student.getId());
+        StudentGramIndex target = target();
+        assertTrue(target.isReady());
+
+        //when
+        ReflectionTestUtils.setField(target, "ready", false);
+        List<Student> found;
+        try {
+            found = studentRepository.searchByNameWithJPQL("백필중");
+        } finally {
+            ReflectionTestUtils.setField(target, "ready", true);
+        }
+
+        //then
+        assertEquals(List.of(student.getId()), ids(found));
+        assertTrue(studentRepository.searchByNameWithJPQL("백필중").isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("학생 500만 명에서 부분 문자열 검색 - LIKE 전체 스캔 vs n-gram 색인")
+    void substringSearchBenchmark() {
+        //given
+        DataGenProperties spec = new DataGenProperties();
+        spec.setSeed(5_000_000L);
+        spec.setThreads(Runtime.getRuntime().availableProcessors());
+        spec.setStudents(Integer.getInteger("benchmark.students", 5_000_000));
+        spec.setProducts(0);
+        spec.setDepartments(0);
+        spec.setEmployees(0);
+        spec.setUsers(0);
+        spec.setGoods(0);
+        spec.setPurchases(0);
+        spec.setGroups(0);
+        spec.setIdols(0);
+        spec.setAlbums(0);
+        spec.setEvents(0);
+        DataGenerator.Result result = dataGenerator.generate(spec);
+        String prefix = result.getStudentIdPrefix();
+
+        try {
+            for (String keyword : List.of("학생4242", "학생123456", "컴퓨터공학")) {
+                String pattern = "%" + keyword + "%";
+                StudentGramIndex.Field field = keyword.startsWith("학생")
+                        ? StudentGramIndex.Field.NAME : StudentGramIndex.Field.MAJOR;
+                String column = field == StudentGramIndex.Field.NAME ? "stu_name" : "major";
+
+                //when
+                long start = System.nanoTime();
+                Long scanned = template.queryForObject(
+                        "SELECT COUNT(*) FROM tbl_student WHERE " + column + " LIKE ?", Long.class, pattern);
+                long scanMicros = (System.nanoTime() - start) / 1000;
+
+                start = System.nanoTime();
+                long indexed = gramIndex.search(field, keyword, PageRequest.of(0, 20)).getTotalElements();
+                long indexMicros = (System.nanoTime() - start) / 1000;
+
+                //then
+                System.out.printf("students=%,d keyword=%s matches=%,d like=%,dus index(page+count)=%,dus%n",
+                        result.getTotalRows(), keyword, indexed, scanMicros, indexMicros);
+                assertEquals(scanned.longValue(), indexed);
+            }
+        } finally {
+            template.update("DELETE FROM tbl_student_gram WHERE stu_id LIKE ?", prefix + "%");
+            template.update("DELETE FROM tbl_student WHERE stu_id LIKE ?", prefix + "%");
+        }
+    }
+
+    private Student save(String name, String major) {
+        return studentRepository.save(Student.builder().name(name).city("도시").major(major).build());
+    }
+
+    private Set<String> likeName(String keyword, Set<String> ids) {
+        // searchByNameWithJPQL의 원래 쿼리
+        return ids(em.createQuery("SELECT s FROM Student s WHERE s.name LIKE :pattern", Student.class)
+                .setParameter("pattern", "%" + keyword + "%")
+                .getResultList(), ids);
+    }
+
+    private Set<String> likeMajor(String keyword, Set<String> ids) {
+        // findByMajorContaining이 만들던 쿼리 (와일드카드 문자는 그대로 비교)
+        String escaped = keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return ids(em.createQuery("SELECT s FROM Student s WHERE s.major LIKE :pattern ESCAPE '!'", Student.class)
+                .setParameter("pattern", "%" + escaped + "%")
+                .getResultList(), ids);
+    }
+
+    // @Repository는 예외 변환 프록시로 감싸져 있으므로 실제 객체
+    private StudentGramIndex target() {
+        return AopTestUtils.getTargetObject(gramIndex);
+    }
+
+    private List<String> ids(List<Student> students) {
+        List<String> ids = new ArrayList<>();
+        students.forEach(student -> ids.add(student.getId()));
+        return ids;
+    }
+
+    // 이 테스트에서 저장한 학생만
+    private Set<String> ids(List<Student> students, Set<String> saved) {
+        Set<String> ids = new TreeSet<>();
+        for (Student student : students) {
+            if (saved.contains(student.getId())) {
+                ids.add(student.getId());
+            }
+        }
+        return ids;
+    }
+
+    private long gramCount(String studentId, String gram) {
+        Long count = gram == null
+                ? template.queryForObject("SELECT COUNT(*) FROM tbl_student_gram WHERE stu_id = ?", Long.class, studentId)
+                : template.queryForObject("SELECT COUNT(*) FROM tbl_student_gram WHERE stu_id = ? AND gram = ?",
+                Long.class, studentId, gram);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,160 @@
+package com.spring.jpastudy.chap04_relation.repository;
+
+import com.spring.jpastudy.chap04_relation.dto.DepartmentSummaryDto;
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import com.spring.jpastudy.config.querycount.QueryCountHolder;
+import com.spring.jpastudy.config.querycount.QueryCountScope;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class DepartmentPageLoaderTest {
+
+    // 부서별 사원 수 (0명인 부서 포함)
+    private static final int[] EMPLOYEE_COUNTS = {0, 1, 5, 30};
+
+    @Autowired
+    DepartmentPageLoader loader;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    EntityManager em;
+
+    private final List<Long> deptIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < EMPLOYEE_COUNTS.length; i++) {
+            template.update("INSERT INTO tbl_dept (dept_name) VALUES (?)", "페이징부서" + i);
+            Long deptId = template.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+            deptIds.add(deptId);
+
+            List<Object[]> rows = new ArrayList<>();
+            for (int e = 1; e <= EMPLOYEE_COUNTS[i]; e++) {
+                rows.add(new Object[]{"페이징사원" + i + "-" + e, deptId});
+            }
+            template.batchUpdate("INSERT INTO tbl_emp (emp_name, dept_id) VALUES (?, ?)", rows);
+        }
+    }
+
+
+    @Test
+    @DisplayName("fetch join 조회는 사원 수만큼 부서를 반복하지 않는다")
+    void distinctFetchJoinTest() {
+        //when
+        List<Department> departments = departmentRepository.getFetchEmployees();
+
+        //then - 사원이 있는 부서만, 한 번씩
+        Long withEmployees = template.queryForObject(
+                "SELECT COUNT(DISTINCT dept_id) FROM tbl_emp", Long.class);
+        assertEquals(withEmployees.longValue(), departments.size());
+        assertEquals(departments.size(), new HashSet<>(departments).size());
+    }
+
+    @Test
+    @DisplayName("부서 번호를 먼저 페이징하고 그 부서들만 사원과 함께 쿼리 3번으로 가져온다")
+    void loadPageTest() {
+        //given - 시드한 부서들이 들어있는 페이지
+        int size = EMPLOYEE_COUNTS.length;
+        int position = positionOf(deptIds.get(0));
+        em.clear();
+
+        //when
+        QueryCountScope scope = QueryCountHolder.open("departmentPage");
+        List<Department> loaded = new ArrayList<>();
+        long total;
+        try {
+            Page<Department> first = loader.loadPage(PageRequest.of(position / size, size));
+            Page<Department> second = loader.loadPage(PageRequest.of(position / size + 1, size));
+            loaded.addAll(first.getContent());
+            loaded.addAll(second.getContent());
+            total = first.getTotalElements();
+            for (Department d : loaded) {
+                assertTrue(Hibernate.isInitialized(d.getEmployees()));
+                d.getEmployees().forEach(e -> e.getDepartment().getName());
+            }
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then - 페이지마다 번호 1 + 개수 0~1 + 부서와 사원 1, 사원 접근시 추가 쿼리 없음
+        assertTrue(scope.getTotal() <= 6, "실행된 쿼리 수: " + scope.getTotal());
+        assertEquals(departmentRepository.count(), total);
+        Set<Long> ids = new HashSet<>();
+        Long previous = 0L;
+        for (Department d : loaded) {
+            assertTrue(d.getId() > previous);
+            previous = d.getId();
+            ids.add(d.getId());
+            Long employees = template.queryForObject(
+                    "SELECT COUNT(*) FROM tbl_emp WHERE dept_id = ?", Long.class, d.getId());
+            assertEquals(employees.longValue(), d.getEmployees().size());
+        }
+        assertTrue(ids.containsAll(deptIds));
+        assertTrue(loaded.size() <= size * 2);
+    }
+
+    @Test
+    @DisplayName("요약 조회는 전체 사원 수와 부서당 정해진 수의 사원만 가져오고 사원 컬렉션은 건드리지 않는다")
+    void loadSummaryPageTest() {
+        //given - 한 페이지에 시드한 부서 4개
+        int position = positionOf(deptIds.get(0));
+        em.clear();
+
+        //when
+        QueryCountScope scope = QueryCountHolder.open("departmentSummary");
+        List<DepartmentSummaryDto> summaries = new ArrayList<>();
+        try {
+            for (int i = 0; i < EMPLOYEE_COUNTS.length; i++) {
+                summaries.addAll(loader.loadSummaryPage(PageRequest.of(position + i, 1), 3).getContent());
+            }
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then - 페이지마다 부서 1 + 개수 1 + 사원 1
+        assertEquals(EMPLOYEE_COUNTS.length * 3, scope.getTotal());
+        for (int i = 0; i < EMPLOYEE_COUNTS.length; i++) {
+            DepartmentSummaryDto summary = summaries.get(i);
+            assertEquals(deptIds.get(i), summary.getId());
+            assertEquals(EMPLOYEE_COUNTS[i], summary.getEmployeeCount());
+
+            List<String> expected = new ArrayList<>();
+            for (int e = 1; e <= Math.min(3, EMPLOYEE_COUNTS[i]); e++) {
+                expected.add("페이징사원" + i + "-" + e);
+            }
+            assertEquals(expected, summary.getEmployeeNames());
+            assertFalse(Hibernate.isInitialized(
+                    em.getReference(Department.class, summary.getId()).getEmployees()));
+        }
+    }
+
+    // 부서 번호 순으로 몇 번째 부서인지 (0부터)
+    private int positionOf(Long deptId) {
+        Long before = template.queryForObject(
+                "SELECT COUNT(*) FROM tbl_dept WHERE dept_id < ?", Long.class, deptId);
+        return before.intValue();
+    }
+}
@@ -0,0 +1,278 @@
+package com.spring.jpastudy.chap04_relation.service;
+
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import com.spring.jpastudy.chap04_relation.entity.Employee;
+import com.spring.jpastudy.chap04_relation.repository.DepartmentRepository;
+import com.spring.jpastudy.chap04_relation.repository.EmployeeRepository;
+import com.spring.jpastudy.config.querycount.QueryCountHolder;
+import com.spring.jpastudy.config.querycount.QueryCountScope;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class EmployeeTransferServiceTest {
+
+    // 큰 부서의 사원 수
+    private static final int LARGE = 20_000;
+
+    @Autowired
+    EmployeeTransferService transferService;
+
+    @Autowired
+    EmployeeRepository employeeRepository;
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    EntityManager em;
+
+    private Long largeDeptId;
+    private Long smallDeptId;
+    private List<Long> smallEmployeeIds;
+
+    @BeforeEach
+    void setUp() {
+        largeDeptId = insertDepartment("이동테스트큰부서", LARGE);
+        smallDeptId = insertDepartment("이동테스트작은부서", 3);
+        smallEmployeeIds = template.queryForList(
+                "SELECT emp_id FROM tbl_emp WHERE dept_id = ? ORDER BY emp_id", Long.class, smallDeptId);
+        em.clear();
+    }
+
+
+    @Test
+    @DisplayName("큰 부서로 사원 한 명을 옮겨도 부서의 사원 목록을 읽지 않는다")
+    void changeDepartmentTest() {
+        //given
+        QueryCountScope scope = QueryCountHolder.open("changeDepartment");
+
+        //when
+        Department large;
+        try {
+            Employee employee = employeeRepository.findById(smallEmployeeIds.get(0)).orElseThrow();
+            large = departmentRepository.findById(largeDeptId).orElseThrow();
+            employee.changeDepartment(large);
+            em.flush();
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then - 사원 1 + 부서 1 + UPDATE 1
+        assertEquals(3, scope.getTotal());
+        assertFalse(Hibernate.isInitialized(large.getEmployees()));
+        assertEquals(LARGE + 1L, countOf(largeDeptId));
+        assertEquals(2L, countOf(smallDeptId));
+    }
+
+    @Test
+    @DisplayName("사원 목록이 로딩된 부서로 옮기면 메모리 목록에도 추가된다")
+    void changeDepartmentLoadedTest() {
+        //given
+        Department small = departmentRepository.findById(smallDeptId).orElseThrow();
+        small.getEmployees().forEach(Employee::getName);
+        Employee moving = employeeRepository.save(Employee.builder().name("이동사원").build());
+
+        //when
+        moving.changeDepartment(small);
+
+        //then
+        assertTrue(small.getEmployees().contains(moving));
+        assertEquals(4, small.getEmployees().size());
+    }
+
+    @Test
+    @DisplayName("사원 목록이 로딩되지 않은 부서로 옮긴 뒤 목록을 읽어도 옮긴 사원이 들어 있다")
+    void changeDepartmentQueuedTest() {
+        //given
+        Department small = departmentRepository.findById(smallDeptId).orElseThrow();
+        Employee moving = employeeRepository.save(Employee.builder().name("이동사원").build());
+
+        //when - 목록을 읽지 않고 add만 큐에 쌓임
+        moving.changeDepartment(small);
+
+        //then
+        assertFalse(Hibernate.isInitialized(small.getEmployees()));
+        List<Employee> employees = new ArrayList<>(small.getEmployees());
+        assertTrue(employees.contains(moving));
+        assertEquals(4, employees.size());
+    }
+
+    @Test
+    @DisplayName("사원 목록이 로딩되지 않은 부서에서 사원을 떼어내면 목록을 읽지 않고 FK만 비운다")
+    void detachEmployeeTest() {
+        //given
+        Department large = departmentRepository.findById(largeDeptId).orElseThrow();
+        Long employeeId = template.queryForObject(
+                "SELECT MIN(emp_id) FROM tbl_emp WHERE dept_id = ?", Long.class, largeDeptId);
+        Employee employee = employeeRepository.findById(employeeId).orElseThrow();
+
+        //when
+        large.detachEmployee(employee);
+        em.flush();
+
+        //then
+        assertFalse(Hibernate.isInitialized(large.getEmployees()));
+        assertNull(template.queryForObject(
+                "SELECT dept_id FROM tbl_emp WHERE emp_id = ?", Long.class, employee.getId()));
+    }
+
+    @Test
+    @DisplayName("옮겨 온 사원이나 로딩된 목록의 사원을 떼어내도 삭제되지 않고 목록에서도 빠진다")
+    void detachEmployeeQueuedTest() {
+        //given - 목록을 읽지 않고 옮겨 와서 add가 큐에 쌓인 사원, 로딩된 목록에 있는 사원
+        Long otherDeptId = insertDepartment("이동테스트다른부서", 2);
+        Department small = departmentRepository.findById(smallDeptId).orElseThrow();
+        Department other = departmentRepository.findById(otherDeptId).orElseThrow();
+        Employee moved = employeeRepository.findById(smallEmployeeIds.get(0)).orElseThrow();
+        moved.changeDepartment(other);
+        Employee loaded = employeeRepository.findById(smallEmployeeIds.get(1)).orElseThrow();
+        small.getEmployees().forEach(Employee::getName);
+
+        //when
+        other.detachEmployee(moved);
+        small.detachEmployee(loaded);
+        em.flush();
+
+        //then
+        assertFalse(other.getEmployees().contains(moved));
+        assertEquals(2, other.getEmployees().size());
+        assertFalse(small.getEmployees().contains(loaded));
+        for (Employee employee : List.of(moved, loaded)) {
+            assertEquals(1L, template.queryForObject(
+                    "SELECT COUNT(*) FROM tbl_emp WHERE emp_id = ? AND dept_id IS NULL", Long.class, employee.getId()));
+        }
+        em.clear();
+        assertEquals(2, departmentRepository.findById(otherDeptId).orElseThrow().getEmployees().size());
+        assertEquals(1, departmentRepository.findById(smallDeptId).orElseThrow().getEmployees().size());
+    }
+
+    @Test
+    @DisplayName("부서에서 사원을 빼면 목록이 로딩되었는지와 관계없이 사원이 삭제된다")
+    void removeEmployeeTest() {
+        //given - 로딩 전 목록, 로딩된 목록, 옮겨 와서 add가 큐에 쌓인 목록
+        Long otherDeptId = insertDepartment("이동테스트다른부서", 2);
+        Department small = departmentRepository.findById(smallDeptId).orElseThrow();
+        Department other = departmentRepository.findById(otherDeptId).orElseThrow();
+        Employee notLoaded = employeeRepository.findById(smallEmployeeIds.get(0)).orElseThrow();
+        Employee moved = employeeRepository.findById(template.queryForObject(
+                "SELECT MIN(emp_id) FROM tbl_emp WHERE dept_id = ?", Long.class, largeDeptId)).orElseThrow();
+        moved.changeDepartment(other);
+
+        //when
+        small.removeEmployee(notLoaded);
+        other.removeEmployee(moved);
+        Employee loaded = employeeRepository.findById(smallEmployeeIds.get(1)).orElseThrow();
+        small.removeEmployee(loaded);
+        em.flush();
+
+        //then
+        for (Employee employee : List.of(notLoaded, moved, loaded)) {
+            assertEquals(0L, template.queryForObject(
+                    "SELECT COUNT(*) FROM tbl_emp WHERE emp_id = ?", Long.class, employee.getId()));
+        }
+        assertEquals(1, small.getEmployees().size());
+        assertEquals(2, other.getEmployees().size());
+        assertEquals(1L, countOf(smallDeptId));
+        assertEquals(LARGE - 1L, countOf(largeDeptId));
+    }
+
+    @Test
+    @DisplayName("사원 삭제는 부서의 사원 목록을 읽지 않고 바로 지운다")
+    void removeTest() {
+        //given
+        Long employeeId = template.queryForObject(
+                "SELECT MIN(emp_id) FROM tbl_emp WHERE dept_id = ?", Long.class, largeDeptId);
+        QueryCountScope scope = QueryCountHolder.open("removeEmployee");
+
+        //when
+        try {
+            transferService.remove(employeeId);
+            em.flush();
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then - 사원 1 + DELETE 1
+        assertEquals(2, scope.getTotal());
+        assertEquals(LARGE - 1L, countOf(largeDeptId));
+    }
+
+    @Test
+    @DisplayName("부서 사원 전체 이동은 UPDATE 한 번으로 처리하고 영속성 컨텍스트도 맞춘다")
+    void transferAllTest() {
+        //given - 옮겨질 사원과 두 부서의 사원 목록이 이미 로딩된 상태
+        Employee loaded = employeeRepository.findById(smallEmployeeIds.get(1)).orElseThrow();
+        Department small = departmentRepository.findById(smallDeptId).orElseThrow();
+        small.getEmployees().forEach(Employee::getName);
+        Long targetId = insertDepartment("이동테스트새부서", 1);
+        Department target = departmentRepository.findById(targetId).orElseThrow();
+        target.getEmployees().forEach(Employee::getName);
+
+        //when
+        int moved = transferService.transferAll(smallDeptId, targetId);
+
+        //then
+        assertEquals(3, moved);
+        assertEquals(targetId, loaded.getDepartment().getId());
+        assertTrue(small.getEmployees().isEmpty());
+        assertEquals(4, target.getEmployees().size());
+        assertTrue(target.getEmployees().contains(loaded));
+        assertEquals(0L, countOf(smallDeptId));
+    }
+
+    @Test
+    @DisplayName("지정한 사원들만 UPDATE 한 번으로 이동한다")
+    void transferByIdsTest() {
+        //given
+        List<Long> ids = new ArrayList<>(smallEmployeeIds.subList(0, 2));
+        Employee loaded = employeeRepository.findById(ids.get(0)).orElseThrow();
+        QueryCountScope scope = QueryCountHolder.open("transferByIds");
+
+        //when
+        int moved;
+        try {
+            moved = transferService.transfer(ids, largeDeptId);
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then - 부서 1 + UPDATE 1 + 로딩된 사원 refresh 1
+        assertEquals(2, moved);
+        assertEquals(3, scope.getTotal());
+        assertEquals(largeDeptId, loaded.getDepartment().getId());
+        assertEquals(LARGE + 2L, countOf(largeDeptId));
+        assertEquals(1L, countOf(smallDeptId));
+    }
+
+    private Long insertDepartment(String name, int employees) {
+        template.update("INSERT INTO tbl_dept (dept_name) VALUES (?)", name);
+        Long deptId = template.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        List<Object[]> rows = new ArrayList<>(employees);
+        for (int i = 1; i <= employees; i++) {
+            rows.add(new Object[]{name + "사원" + i, deptId});
+        }
+        template.batchUpdate("INSERT INTO tbl_emp (emp_name, dept_id) VALUES (?, ?)", rows);
+        return deptId;
+    }
+
+    private Long countOf(Long deptId) {
+        return template.queryForObject("SELECT COUNT(*) FROM tbl_emp WHERE dept_id = ?", Long.class, deptId);
+    }
+}
@@ -0,0 +1,146 @@
+package com.spring.jpastudy.chap04_relation.service;
+
+import com.spring.jpastudy.chap04_relation.dto.DepartmentMembersDto;
+import com.spring.jpastudy.chap04_relation.dto.EmployeeDepartmentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class OrgChartServiceTest {
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private Long devId;
+    private Long emptyId;
+    private List<Long> devMembers;
+    private Long loneEmployeeId;
+
+    @BeforeEach
+    void setUp() {
+        devId = insertDepartment("조직도개발팀");
+        emptyId = insertDepartment("조직도빈부서");
+        for (int i = 1; i <= 3; i++) {
+            template.update("INSERT INTO tbl_emp (emp_name, dept_id) VALUES (?, ?)", "조직도사원" + i, devId);
+        }
+        template.update("INSERT INTO tbl_emp (emp_name, dept_id) VALUES (?, NULL)", "무소속사원");
+        loneEmployeeId = template.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        devMembers = template.queryForList(
+                "SELECT emp_id FROM tbl_emp WHERE dept_id = ? ORDER BY emp_id", Long.class, devId);
+    }
+
+
+    @Test
+    @DisplayName("스냅샷으로 사원의 부서와 부서의 사원 목록을 DB와 똑같이 조회한다")
+    void lookupTest() {
+        //given
+        OrgChartService service = newService();
+        assertThrows(IllegalStateException.class, () -> service.getMembers(devId));
+
+        //when
+        OrgChartSnapshot snapshot = service.rebuild();
+
+        //then
+        assertEquals(new EmployeeDepartmentDto(devMembers.get(0), devId, "조직도개발팀"),
+                service.getDepartmentOf(devMembers.get(0)));
+        assertEquals(new EmployeeDepartmentDto(loneEmployeeId, null, null),
+                service.getDepartmentOf(loneEmployeeId));
+        assertEquals(new DepartmentMembersDto(devId, "조직도개발팀", devMembers), service.getMembers(devId));
+        assertEquals(new DepartmentMembersDto(emptyId, "조직도빈부서", List.of()), service.getMembers(emptyId));
+        assertThrows(NoSuchElementException.class, () -> service.getDepartmentOf(loneEmployeeId + 1_000_000));
+
+        // 전체 사원 수, 부서 수도 DB와 같음
+        assertEquals(count("tbl_emp"), snapshot.getEmployeeCount());
+        assertEquals(count("tbl_dept"), snapshot.getDepartmentCount());
+        List<Long> all = template.queryForList("SELECT emp_id FROM tbl_emp WHERE dept_id IS NOT NULL", Long.class);
+        for (Long employeeId : all) {
+            assertTrue(snapshot.departmentOf(employeeId) > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("재구축하면 새 파일로 교체되고, 이미 가져간 예전 스냅샷은 계속 읽을 수 있다")
+    void swapTest() throws Exception {
+        //given
+        OrgChartService service = newService();
+        OrgChartSnapshot before = service.rebuild();
+
+        //when - 사원 한 명이 빈 부서로 이동한 뒤 재구축
+        template.update("UPDATE tbl_emp SET dept_id = ? WHERE emp_id = ?", emptyId, devMembers.get(0));
+        OrgChartSnapshot after = service.rebuild();
+
+        //then
+        assertNotSame(before, after);
+        assertSame(after, service.snapshot());
+        assertEquals(devId.longValue(), before.departmentOf(devMembers.get(0)));
+        assertEquals(emptyId.longValue(), after.departmentOf(devMembers.get(0)));
+        // 예전 파일은 지움 (매핑 중인 파일을 지울 수 없는 OS에서는 다음 재구축 때 지움)
+        assertTrue(snapshotFiles().contains(after.getFile()));
+        assertTrue(snapshotFiles().stream().noneMatch(file -> file.toString().endsWith(".tmp")));
+    }
+
+    @Test
+    @DisplayName("서버를 다시 띄우면 DB를 읽기 전에 가장 최근 스냅샷 파일을 바로 사용하고, 손상된 파일은 건너뛴다")
+    void restartTest() throws Exception {
+        //given
+        OrgChartSnapshot built = newService().rebuild();
+
+        //when - 재시작
+        OrgChartService restarted = newService();
+
+        //then
+        assertEquals(built.getBuiltAt(), restarted.snapshot().getBuiltAt());
+        assertEquals(devId, restarted.getDepartmentOf(devMembers.get(1)).getDepartmentId());
+
+        //when - 더 최근 파일이 손상된 경우
+        Path broken = directory.resolve("org-chart-" + (built.getBuiltAt() + 1) + ".snap");
+        byte[] bytes = Files.readAllBytes(built.getFile());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(broken, bytes);
+
+        //then - 그 이전의 정상 파일 사용
+        assertEquals(built.getBuiltAt(), newService().snapshot().getBuiltAt());
+    }
+
+    private OrgChartService newService() {
+        return new OrgChartService(template, transactionManager, directory.toString());
+    }
+
+    private Long insertDepartment(String name) {
+        template.update("INSERT INTO tbl_dept (dept_name) VALUES (?)", name);
+        return template.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+    }
+
+    private int count(String table) {
+        return template.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private List<Path> snapshotFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
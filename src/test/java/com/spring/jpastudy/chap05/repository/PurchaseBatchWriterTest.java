@@ -0,0 +1,86 @@
+package com.spring.jpastudy.chap05.repository;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class PurchaseBatchWriterTest {
+
+    @Autowired
+    PurchaseBatchWriter purchaseBatchWriter;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private User user1;
+    private User user2;
+    private Goods goods1;
+
+    @BeforeEach
+    void setUp() {
+        user1 = userRepository.save(User.builder().name("망곰이").build());
+        user2 = userRepository.save(User.builder().name("하츄핑").build());
+        goods1 = goodsRepository.save(Goods.builder().name("뚜비모자").build());
+        userRepository.flush();
+    }
+
+
+    @Test
+    @DisplayName("배치 크기로 나누어떨어지지 않는 개수의 구매 기록도 모두 저장된다")
+    void writeTest() {
+        //given
+        List<PurchaseCommand> purchases = new ArrayList<>();
+        for (int i = 0; i < 2_345; i++) {
+            User user = i % 2 == 0 ? user1 : user2;
+            purchases.add(new PurchaseCommand(user.getId(), goods1.getId()));
+        }
+        long batchesBefore = purchaseBatchWriter.getStats().getBatches();
+
+        //when
+        int written = purchaseBatchWriter.write(purchases);
+
+        //then
+        assertEquals(2_345, written);
+        assertEquals(1_173, countPurchases(user1.getId()));
+        assertEquals(1_172, countPurchases(user2.getId()));
+
+        PurchaseBatchWriter.Stats stats = purchaseBatchWriter.getStats();
+        System.out.println("stats = " + stats);
+        assertEquals(3, stats.getBatches() - batchesBefore); // 1000 + 1000 + 345
+    }
+
+    @Test
+    @DisplayName("빈 목록은 아무것도 저장하지 않는다")
+    void writeEmptyTest() {
+        //when
+        int written = purchaseBatchWriter.write(List.of());
+
+        //then
+        assertEquals(0, written);
+    }
+
+    private int countPurchases(Long userId) {
+        return template.queryForObject(
+                "SELECT COUNT(*) FROM tbl_mtm_purchase WHERE user_id = ?", Integer.class, userId);
+    }
+}
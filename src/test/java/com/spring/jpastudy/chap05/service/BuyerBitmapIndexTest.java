@@ -0,0 +1,123 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 커밋 후에 인덱스에 반영되므로 테스트 트랜잭션(롤백)을 쓰지 않고 직접 정리한다.
+@SpringBootTest
+@AutoConfigureMockMvc
+class BuyerBitmapIndexTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Goods> goods = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 2; i++) {
+            users.add(userRepository.save(User.builder().name("비트맵회원" + i).build()));
+            goods.add(goodsRepository.save(Goods.builder().name("비트맵상품" + i).build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (User user : users) {
+            template.update("DELETE FROM tbl_mtm_purchase WHERE user_id = ?", user.getId());
+            template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", user.getId());
+            userRepository.deleteById(user.getId());
+        }
+        for (Goods g : goods) {
+            goodsRepository.deleteById(g.getId());
+        }
+    }
+
+
+    @Test
+    @DisplayName("구매와 취소가 커밋되면 구매자 집합 연산 결과에 바로 반영된다")
+    void purchaseAndCancelTest() throws Exception {
+        //given
+        long u1 = users.get(0).getId(), u2 = users.get(1).getId();
+        long g1 = goods.get(0).getId(), g2 = goods.get(1).getId();
+
+        //when - u1: g1 두 번, g2 / u2: g1
+        long first = purchase(u1, g1);
+        long second = purchase(u1, g1);
+        purchase(u1, g2);
+        purchase(u2, g1);
+
+        //then
+        buyerSets("and", g1, g2)
+                .andExpect(jsonPath("$.buyerCount").value(1))
+                .andExpect(jsonPath("$.userIds[0]").value(u1));
+        buyerSets("or", g1, g2)
+                .andExpect(jsonPath("$.buyerCount").value(2));
+
+        //when - g1 구매가 하나 남아 있으면 집합에서 빠지지 않음
+        mockMvc.perform(delete("/purchases/{purchaseId}", first))
+                .andExpect(status().isOk());
+
+        //then
+        buyerSets("and", g1, g2)
+                .andExpect(jsonPath("$.buyerCount").value(1));
+
+        //when - 마지막 g1 구매 취소
+        mockMvc.perform(delete("/purchases/{purchaseId}", second))
+                .andExpect(status().isOk());
+
+        //then
+        buyerSets("and", g1, g2)
+                .andExpect(jsonPath("$.buyerCount").value(0));
+        buyerSets("andnot", g1, g2)
+                .andExpect(jsonPath("$.buyerCount").value(1))
+                .andExpect(jsonPath("$.userIds[0]").value(u2));
+    }
+
+    private long purchase(long userId, long goodsId) throws Exception {
+        String body = mockMvc.perform(post("/users/{userId}/purchases", userId)
+                        .param("goodsId", String.valueOf(goodsId)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(body);
+    }
+
+    private ResultActions buyerSets(String op, long... goodsIds) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (long goodsId : goodsIds) {
+            ids.add(String.valueOf(goodsId));
+        }
+        return mockMvc.perform(get("/goods/buyer-sets")
+                        .param("op", op)
+                        .param("goodsIds", String.join(",", ids)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,88 @@
+package com.spring.jpastudy.chap05.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoPurchaseMatrixTest {
+
+    @Test
+    @DisplayName("함께 산 회원 수가 많은 순, 같으면 상품번호 순으로 상위 k개를 돌려준다")
+    void topKTest() {
+        //given
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+        matrix.addBasket(new long[]{1, 2, 3}, 3);
+        matrix.addBasket(new long[]{1, 3}, 2);
+        matrix.addBasket(new long[]{1, 4}, 2);
+        matrix.addToBasket(5, new long[]{1, 3}, 2);
+
+        //when
+        List<CoPurchaseMatrix.Entry> top = matrix.topK(1, 3);
+
+        //then
+        assertEquals(3, top.size());
+        assertEquals(3, top.get(0).getGoodsId());
+        assertEquals(2, top.get(0).getCount());
+        assertEquals(2, top.get(1).getGoodsId());
+        assertEquals(4, top.get(2).getGoodsId());
+        assertEquals(matrix.get(1, 3), matrix.get(3, 1));
+        assertTrue(matrix.topK(999, 10).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("구매 기록 1000만 건으로 행렬을 만들 때의 시간과 메모리")
+    void buildBenchmark() {
+        //given - 회원 100만명이 평균 10개씩, 상품 5만개 중 앞쪽 상품이 더 많이 팔림
+        int users = 1_000_000;
+        int catalog = 50_000;
+        long rows = 10_000_000L;
+        SplittableRandom random = new SplittableRandom(42);
+
+        System.gc();
+        long usedBefore = usedMemory();
+        long start = System.nanoTime();
+
+        //when
+        CoPurchaseMatrix matrix = new CoPurchaseMatrix(catalog);
+        long[] basket = new long[20];
+        long written = 0;
+        for (int u = 0; u < users && written < rows; u++) {
+            int size = 1 + random.nextInt(19);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                long goodsId = 1 + (long) (catalog * Math.pow(random.nextDouble(), 3));
+                boolean duplicate = false;
+                for (int j = 0; j < distinct; j++) {
+                    duplicate |= basket[j] == goodsId;
+                }
+                if (!duplicate) {
+                    basket[distinct++] = goodsId;
+                }
+            }
+            matrix.addBasket(basket, distinct);
+            written += size;
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.gc();
+        long usedAfter = usedMemory();
+
+        //then
+        System.out.printf("rows=%,d goods=%,d pairs=%,d build=%,dms estimated=%,dMB heap delta=%,dMB%n",
+                written, matrix.goodsCount(), matrix.pairCount(), elapsed,
+                matrix.estimatedBytes() / (1024 * 1024), (usedAfter - usedBefore) / (1024 * 1024));
+        assertTrue(matrix.pairCount() > 0);
+    }
+
+    private long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,159 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.CoPurchaseDto;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseBatchWriter;
+import com.spring.jpastudy.chap05.repository.PurchaseRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 커밋 후에 행렬에 반영되므로 테스트 트랜잭션(롤백)을 쓰지 않고 직접 정리한다.
+@SpringBootTest
+class CoPurchaseServiceTest {
+
+    @Autowired
+    CoPurchaseService coPurchaseService;
+
+    @Autowired
+    PurchaseBatchWriter purchaseBatchWriter;
+
+    @Autowired
+    PurchaseRepository purchaseRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Goods> goods = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 3; i++) {
+            users.add(userRepository.save(User.builder().name("공동구매회원" + i).build()));
+        }
+        for (int i = 1; i <= 4; i++) {
+            goods.add(goodsRepository.save(Goods.builder().name("공동구매상품" + i).build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (User user : users) {
+            template.update("DELETE FROM tbl_mtm_purchase WHERE user_id = ?", user.getId());
+            template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", user.getId());
+            userRepository.deleteById(user.getId());
+        }
+        for (Goods g : goods) {
+            goodsRepository.deleteById(g.getId());
+        }
+    }
+
+
+    @Test
+    @DisplayName("대량 저장과 JPA 저장으로 기록된 구매가 함께 산 상품 순위에 바로 반영된다")
+    void alsoBoughtTest() {
+        //given
+        User u1 = users.get(0), u2 = users.get(1), u3 = users.get(2);
+        Goods g1 = goods.get(0), g2 = goods.get(1), g3 = goods.get(2);
+
+        //when - 대량 저장: (g1,g2) 2명, (g1,g3) 1명, (g2,g3) 1명
+        purchaseBatchWriter.write(List.of(
+                command(u1, g1), command(u1, g2),
+                command(u2, g1), command(u2, g2), command(u2, g3)));
+
+        //then
+        assertEquals(List.of("공동구매상품2", "공동구매상품3"), names(coPurchaseService.getAlsoBought(g1.getId(), 10)));
+
+        //when - JPA 저장: u3가 g1, g3를 따로 구매 → (g1,g3) 2명, 이미 산 상품을 또 사면 변화 없음
+        purchaseRepository.save(Purchase.builder().user(u3).goods(g1).build());
+        purchaseRepository.save(Purchase.builder().user(u3).goods(g3).build());
+        purchaseRepository.save(Purchase.builder().user(u1).goods(g1).build());
+
+        //then
+        List<CoPurchaseDto> alsoBought = coPurchaseService.getAlsoBought(g1.getId(), 10);
+        assertEquals(2, alsoBought.size());
+        assertEquals(2, alsoBought.get(0).getBuyerCount());
+        assertEquals(2, alsoBought.get(1).getBuyerCount());
+
+        List<CoPurchaseDto> top1 = coPurchaseService.getAlsoBought(g3.getId(), 1);
+        assertEquals(List.of("공동구매상품1"), names(top1));
+        assertTrue(coPurchaseService.getAlsoBought(goods.get(3).getId(), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("한 트랜잭션에서 같은 회원이 여러 상품을 사도 조합은 한 번씩만 센다")
+    void sameTransactionTest() {
+        //given - u1은 g3를 이미 갖고 있음
+        User u1 = users.get(0);
+        Goods g1 = goods.get(0), g2 = goods.get(1), g3 = goods.get(2);
+        purchaseRepository.save(Purchase.builder().user(u1).goods(g3).build());
+
+        //when - 한 트랜잭션에서 g1, g2, g1을 구매
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            purchaseRepository.save(Purchase.builder().user(u1).goods(g1).build());
+            purchaseRepository.save(Purchase.builder().user(u1).goods(g2).build());
+            purchaseRepository.save(Purchase.builder().user(u1).goods(g1).build());
+        });
+
+        //then - (g1,g2), (g1,g3), (g2,g3) 모두 1명
+        List<CoPurchaseDto> alsoBought = coPurchaseService.getAlsoBought(g1.getId(), 10);
+        assertEquals(List.of("공동구매상품2", "공동구매상품3"), names(alsoBought));
+        assertEquals(1, alsoBought.get(0).getBuyerCount());
+        assertEquals(1, alsoBought.get(1).getBuyerCount());
+        assertEquals(1, coPurchaseService.getAlsoBought(g2.getId(), 10).get(1).getBuyerCount());
+    }
+
+    @Test
+    @DisplayName("행렬을 다시 만드는 중에 커밋된 구매도 한 번씩만 반영된다")
+    void rebuildTest() {
+        //given
+        User u1 = users.get(0), u2 = users.get(1);
+        Goods g1 = goods.get(0), g2 = goods.get(1);
+        purchaseBatchWriter.write(List.of(command(u1, g1), command(u1, g2)));
+
+        //when - 다시 만든 뒤 구매
+        coPurchaseService.rebuild();
+        purchaseBatchWriter.write(List.of(command(u2, g1), command(u2, g2)));
+
+        //then
+        assertEquals(2, coPurchaseService.getAlsoBought(g1.getId(), 10).get(0).getBuyerCount());
+    }
+
+    private PurchaseCommand command(User user, Goods goods) {
+        return new PurchaseCommand(user.getId(), goods.getId());
+    }
+
+    private List<String> names(List<CoPurchaseDto> list) {
+        List<String> names = new ArrayList<>();
+        for (CoPurchaseDto dto : list) {
+            names.add(dto.getGoodsName());
+        }
+        return names;
+    }
+}
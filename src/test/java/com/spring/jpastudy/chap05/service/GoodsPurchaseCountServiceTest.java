@@ -0,0 +1,161 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseBatchWriter;
+import com.spring.jpastudy.chap05.repository.PurchaseRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 커밋 후에 집계되므로 테스트 트랜잭션(롤백)을 쓰지 않고 직접 정리한다.
+@SpringBootTest
+class GoodsPurchaseCountServiceTest {
+
+    @Autowired
+    GoodsPurchaseCountService goodsPurchaseCountService;
+
+    @Autowired
+    PurchaseBatchWriter purchaseBatchWriter;
+
+    @Autowired
+    PurchaseRepository purchaseRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private User user;
+    private Goods goods;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().name("카운터회원").build());
+        goods = goodsRepository.save(Goods.builder().name("카운터상품").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        template.update("DELETE FROM tbl_mtm_purchase WHERE user_id = ?", user.getId());
+        template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+        goodsRepository.deleteById(goods.getId());
+    }
+
+
+    @Test
+    @DisplayName("구매 수는 DB에 반영되기 전에도 조회되고, 반영 후에는 DB 값과 같다")
+    void purchaseCountTest() {
+        //given
+        PurchaseCommand command = new PurchaseCommand(user.getId(), goods.getId());
+
+        //when
+        purchaseBatchWriter.write(List.of(command, command, command));
+        purchaseRepository.save(Purchase.builder().user(user).goods(goods).build());
+
+        //then - 아직 반영되지 않았어도 합산해서 조회
+        assertEquals(4, goodsPurchaseCountService.getPurchaseCount(goods.getId()).getPurchaseCount());
+
+        //when
+        goodsPurchaseCountService.flush();
+
+        //then
+        assertEquals(0, goodsPurchaseCountService.pendingOf(goods.getId()));
+        assertFalse(goodsPurchaseCountService.hasPending(goods.getId()));
+        assertEquals(4L, persistedCount());
+        assertEquals(4, goodsPurchaseCountService.getPurchaseCount(goods.getId()).getPurchaseCount());
+    }
+
+    @Test
+    @DisplayName("삭제된 상품에 모인 구매 수는 반영할 때 버린다")
+    void deletedGoodsTest() {
+        //given
+        Goods deleted = goodsRepository.save(Goods.builder().name("삭제될상품").build());
+        goodsRepository.deleteById(deleted.getId());
+        goodsPurchaseCountService.add(deleted.getId(), 3);
+
+        //when
+        goodsPurchaseCountService.flush();
+
+        //then
+        assertEquals(0, goodsPurchaseCountService.pendingOf(deleted.getId()));
+        assertFalse(goodsPurchaseCountService.hasPending(deleted.getId()));
+    }
+
+    @Test
+    @DisplayName("구매 기록으로 다시 계산하면 실제 구매 건수와 같아진다")
+    void recountTest() {
+        //given - 이벤트를 거치지 않고 직접 INSERT
+        template.update("INSERT INTO tbl_mtm_purchase (user_id, goods_id) VALUES (?, ?), (?, ?)",
+                user.getId(), goods.getId(), user.getId(), goods.getId());
+
+        //when
+        goodsPurchaseCountService.recount();
+
+        //then
+        assertEquals(2L, persistedCount());
+    }
+
+    @Test
+    @DisplayName("반영하면서 비운 상품에 동시에 더해진 구매 수도 빠지지 않는다")
+    void concurrentFlushTest() throws Exception {
+        //given
+        int threads = 4;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+
+        //when - 더하는 동안 계속 반영해서 0이 된 항목을 맵에서 빼고 다시 만들게 함
+        try {
+            List<Future<?>> adders = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                adders.add(executor.submit(() -> {
+                    for (int n = 0; n < perThread; n++) {
+                        goodsPurchaseCountService.add(goods.getId(), 1);
+                    }
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                while (adders.stream().anyMatch(f -> !f.isDone())) {
+                    goodsPurchaseCountService.flush();
+                }
+            });
+            for (Future<?> adder : adders) {
+                adder.get();
+            }
+            flusher.get();
+        } finally {
+            executor.shutdown();
+        }
+        goodsPurchaseCountService.flush();
+
+        //then
+        assertEquals((long) threads * perThread, persistedCount());
+        assertFalse(goodsPurchaseCountService.hasPending(goods.getId()));
+    }
+
+    private Long persistedCount() {
+        return template.queryForObject(
+                "SELECT purchase_count FROM tbl_mtm_goods WHERE goods_id = ?", Long.class, goods.getId());
+    }
+}
@@ -0,0 +1,184 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.entity.CompactPurchaseId;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.CompactPurchaseRepository;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class PurchaseLayoutMigratorTest {
+
+    @Autowired
+    PurchaseLayoutMigrator purchaseLayoutMigrator;
+
+    @Autowired
+    CompactPurchaseRepository compactPurchaseRepository;
+
+    @Autowired
+    PurchaseRepository purchaseRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+
+    @Test
+    @DisplayName("복합키 테이블로 옮기면 같은 상품을 여러 번 산 기록은 seq로 구분되고, 다시 옮겨도 결과가 같다")
+    void backfillTest() {
+        //given
+        User user1 = userRepository.save(User.builder().name("복합키회원1").build());
+        User user2 = userRepository.save(User.builder().name("복합키회원2").build());
+        Goods goods1 = goodsRepository.save(Goods.builder().name("복합키상품1").build());
+        Goods goods2 = goodsRepository.save(Goods.builder().name("복합키상품2").build());
+        purchaseRepository.save(Purchase.builder().user(user1).goods(goods1).build());
+        purchaseRepository.save(Purchase.builder().user(user1).goods(goods1).build());
+        purchaseRepository.save(Purchase.builder().user(user1).goods(goods2).build());
+        purchaseRepository.save(Purchase.builder().user(user2).goods(goods1).build());
+
+        //when
+        purchaseLayoutMigrator.backfill(user1.getId(), user2.getId() + 1);
+        PurchaseLayoutMigrator.BackfillResult again = purchaseLayoutMigrator.backfill(user1.getId(), user2.getId() + 1);
+
+        //then
+        assertEquals(4, again.getRows());
+        assertEquals(List.of(goods1.getId(), goods1.getId(), goods2.getId()),
+                compactPurchaseRepository.findGoodsIdsByUserId(user1.getId(), PageRequest.of(0, 10)));
+        assertEquals(List.of(user1.getId(), user1.getId(), user2.getId()),
+                compactPurchaseRepository.findUserIdsByGoodsId(goods1.getId(), PageRequest.of(0, 10)));
+        assertEquals(2, compactPurchaseRepository.findLastSeq(user1.getId(), goods1.getId()));
+        assertTrue(compactPurchaseRepository.findById(new CompactPurchaseId(user1.getId(), goods1.getId(), 2)).isPresent());
+    }
+
+    @Test
+    @DisplayName("전체를 옮긴 뒤 비교하면 모든 구간이 일치하고, 한쪽에만 쓰면 그 구간이 불일치로 나온다")
+    void verifyTest() {
+        //given
+        User user = userRepository.save(User.builder().name("비교회원").build());
+        Goods goods = goodsRepository.save(Goods.builder().name("비교상품").build());
+        purchaseRepository.save(Purchase.builder().user(user).goods(goods).build());
+        purchaseLayoutMigrator.backfill();
+
+        //when
+        PurchaseLayoutMigrator.VerifyResult consistent = purchaseLayoutMigrator.verify();
+        purchaseRepository.save(Purchase.builder().user(user).goods(goods).build());
+        PurchaseLayoutMigrator.VerifyResult drifted = purchaseLayoutMigrator.verify();
+
+        //then
+        assertTrue(consistent.isConsistent());
+        assertEquals(consistent.getLegacyRows(), consistent.getCompactRows());
+        assertEquals(1, drifted.getMismatchedRanges().size());
+    }
+
+    // 크기 통계(ANALYZE)를 위해 커밋하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+    @Test
+    @Tag("benchmark")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("회원 2만명, 상품 2천개, 구매 50만건 - 대리키 테이블과 복합키 테이블의 행 크기와 조회 지연시간 비교")
+    void layoutBenchmark() {
+        //given
+        int users = 20_000;
+        int goods = 2_000;
+        int purchases = 500_000;
+        String prefix = "layout-bench-" + System.nanoTime();
+        long[] userIds = insertNamed("tbl_mtm_user", "user_id", "user_name", prefix, users);
+        long[] goodsIds = insertNamed("tbl_mtm_goods", "goods_id", "goods_name", prefix, goods);
+        long minUser = userIds[0];
+        long maxUser = userIds[userIds.length - 1];
+
+        try {
+            SplittableRandom random = new SplittableRandom(7);
+            List<Object[]> rows = new ArrayList<>(purchases);
+            for (int i = 0; i < purchases; i++) {
+                rows.add(new Object[]{userIds[random.nextInt(users)], goodsIds[random.nextInt(goods)]});
+            }
+            template.batchUpdate("INSERT INTO tbl_mtm_purchase (user_id, goods_id) VALUES (?, ?)", rows);
+            PurchaseLayoutMigrator.BackfillResult backfill = purchaseLayoutMigrator.backfill(minUser, maxUser + 1);
+            template.execute("ANALYZE TABLE tbl_mtm_purchase, tbl_mtm_purchase_compact");
+
+            //when
+            long[] sampleUsers = sample(userIds, 2_000, random);
+            long[] sampleGoods = sample(goodsIds, 2_000, random);
+            long legacyByUser = averageMicros("SELECT goods_id FROM tbl_mtm_purchase WHERE user_id = ?", sampleUsers);
+            long compactByUser = averageMicros("SELECT goods_id FROM tbl_mtm_purchase_compact WHERE user_id = ?", sampleUsers);
+            long legacyByGoods = averageMicros("SELECT user_id FROM tbl_mtm_purchase WHERE goods_id = ?", sampleGoods);
+            long compactByGoods = averageMicros("SELECT user_id FROM tbl_mtm_purchase_compact WHERE goods_id = ?", sampleGoods);
+
+            //then
+            System.out.println("backfill: " + backfill);
+            template.query("SELECT TABLE_NAME, TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH " +
+                            "FROM information_schema.TABLES " +
+                            "WHERE TABLE_SCHEMA = DATABASE() " +
+                            "AND TABLE_NAME IN ('tbl_mtm_purchase', 'tbl_mtm_purchase_compact')",
+                    rs -> {
+                        long tableRows = Math.max(1, rs.getLong(2));
+                        System.out.printf("%-26s rows~%,d data %,d KB index %,d KB (%.1f bytes/row)%n",
+                                rs.getString(1), rs.getLong(2), rs.getLong(3) / 1024, rs.getLong(4) / 1024,
+                                (double) (rs.getLong(3) + rs.getLong(4)) / tableRows);
+                    });
+            System.out.printf("by user  : legacy %d us, compact %d us%n", legacyByUser, compactByUser);
+            System.out.printf("by goods : legacy %d us, compact %d us%n", legacyByGoods, compactByGoods);
+            assertEquals(purchases, backfill.getRows());
+        } finally {
+            template.update("DELETE FROM tbl_mtm_purchase_compact WHERE user_id BETWEEN ? AND ?", minUser, maxUser);
+            template.update("DELETE FROM tbl_mtm_purchase WHERE user_id BETWEEN ? AND ?", minUser, maxUser);
+            template.update("DELETE FROM tbl_mtm_user WHERE user_name LIKE ?", prefix + "%");
+            template.update("DELETE FROM tbl_mtm_goods WHERE goods_name LIKE ?", prefix + "%");
+        }
+    }
+
+    // 이름 앞부분으로 구분되는 행을 count개 만들고 id를 오름차순으로 반환
+    private long[] insertNamed(String table, String idColumn, String nameColumn, String prefix, int count) {
+        List<Object[]> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(new Object[]{prefix + "-" + i});
+        }
+        template.batchUpdate("INSERT INTO " + table + " (" + nameColumn + ") VALUES (?)", names);
+        return template.queryForList("SELECT " + idColumn + " FROM " + table +
+                        " WHERE " + nameColumn + " LIKE ? ORDER BY " + idColumn, Long.class, prefix + "%")
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long[] sample(long[] ids, int count, SplittableRandom random) {
+        long[] sampled = new long[count];
+        for (int i = 0; i < count; i++) {
+            sampled[i] = ids[random.nextInt(ids.length)];
+        }
+        return sampled;
+    }
+
+    private long averageMicros(String sql, long[] keys) {
+        for (long key : keys) {
+            template.queryForList(sql, Long.class, key); // 워밍업
+        }
+        long start = System.nanoTime();
+        for (long key : keys) {
+            template.queryForList(sql, Long.class, key);
+        }
+        return (System.nanoTime() - start) / 1_000 / keys.length;
+    }
+}
@@ -0,0 +1,140 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.PurchaseRollupDto;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 구매 시각을 직접 지정하기 위해 JDBC로 저장
+@SpringBootTest(properties = {
+        "jpastudy.purchase-rollup.chunk-size=2",
+        "jpastudy.purchase-rollup.grace=PT0S"
+})
+@Transactional
+class PurchaseRollupServiceTest {
+
+    private static final LocalDateTime MAY_1 = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    @Autowired
+    PurchaseRollupService purchaseRollupService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private User user;
+    private Goods goods;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().name("집계회원").build());
+        goods = goodsRepository.save(Goods.builder().name("집계상품").build());
+
+        purchase(MAY_1.withHour(10).withMinute(15));
+        purchase(MAY_1.withHour(10).withMinute(45));
+        purchase(MAY_1.withHour(11).withMinute(5));
+        purchase(MAY_1.plusDays(1).withHour(9));
+    }
+
+
+    @Test
+    @DisplayName("구매 기록이 시간 버킷으로 집계되고 일 단위로도 조회된다")
+    void rollupTest() {
+        //when
+        purchaseRollupService.rollup();
+
+        //then
+        assertEquals(List.of(
+                new PurchaseRollupDto(MAY_1.withHour(10), 2),
+                new PurchaseRollupDto(MAY_1.withHour(11), 1),
+                new PurchaseRollupDto(MAY_1.plusDays(1).withHour(9), 1)
+        ), hourly());
+
+        List<PurchaseRollupDto> daily = purchaseRollupService.getGoodsSeries(
+                goods.getId(), PurchaseRollupService.Unit.DAY, MAY_1.withHour(12), MAY_1.plusDays(3));
+        assertEquals(List.of(
+                new PurchaseRollupDto(MAY_1, 3),
+                new PurchaseRollupDto(MAY_1.plusDays(1), 1)
+        ), daily);
+    }
+
+    @Test
+    @DisplayName("다시 실행해도 두 번 더해지지 않고 워터마크 이후의 구매 기록만 더해진다")
+    void incrementalTest() {
+        //given
+        purchaseRollupService.rollup();
+
+        //when
+        long again = purchaseRollupService.rollup();
+        purchase(MAY_1.withHour(10).withMinute(30));
+        long next = purchaseRollupService.rollup();
+
+        //then
+        assertEquals(0, again);
+        assertEquals(1, next);
+        assertEquals(new PurchaseRollupDto(MAY_1.withHour(10), 3), hourly().get(0));
+    }
+
+    @Test
+    @DisplayName("grace가 지나지 않은 구매 기록에서 멈추고 워터마크도 그 앞에 남는다")
+    void cutoffTest() {
+        //given
+        long future = purchase(LocalDateTime.now().plusHours(1));
+        purchase(MAY_1.withHour(12));
+
+        //when
+        purchaseRollupService.rollup();
+
+        //then - 미래 구매 뒤의 12시 구매도 아직 반영되지 않음
+        assertTrue(purchaseRollupService.getWatermark() < future);
+        assertEquals(3, hourly().size());
+    }
+
+    @Test
+    @DisplayName("워터마크가 없으면 기존 구매 기록을 건너뛰고 이후 기록부터 집계한다")
+    void watermarkStartTest() {
+        //given - 워터마크가 없는 상태에서 시작
+        template.update("DELETE FROM tbl_rollup_watermark WHERE job_name = ?", PurchaseRollupService.JOB_NAME);
+
+        //when
+        purchaseRollupService.initWatermark();
+        long skipped = purchaseRollupService.rollup();
+        purchase(MAY_1.withHour(10).withMinute(30));
+        long next = purchaseRollupService.rollup();
+
+        //then
+        assertEquals(0, skipped);
+        assertEquals(1, next);
+        assertEquals(List.of(new PurchaseRollupDto(MAY_1.withHour(10), 1)), hourly());
+    }
+
+    private List<PurchaseRollupDto> hourly() {
+        return purchaseRollupService.getGoodsSeries(
+                goods.getId(), PurchaseRollupService.Unit.HOUR, MAY_1, MAY_1.plusDays(3));
+    }
+
+    private long purchase(LocalDateTime purchasedAt) {
+        template.update("INSERT INTO tbl_mtm_purchase (user_id, goods_id, purchased_at) VALUES (?, ?, ?)",
+                user.getId(), goods.getId(), Timestamp.valueOf(purchasedAt));
+        return template.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+    }
+}
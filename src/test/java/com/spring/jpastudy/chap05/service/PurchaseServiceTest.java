@@ -0,0 +1,108 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.CursorPage;
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.Purchase;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import com.spring.jpastudy.config.querycount.MaxQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class PurchaseServiceTest {
+
+    @Autowired
+    PurchaseService purchaseService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    PurchaseRepository purchaseRepository;
+
+    @Autowired
+    EntityManager em;
+
+    private User user1;
+    private User user2;
+    private Goods goods1;
+    private final List<Goods> goodsList = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user1 = userRepository.save(User.builder().name("망곰이").build());
+        user2 = userRepository.save(User.builder().name("하츄핑").build());
+
+        for (int i = 1; i <= 5; i++) {
+            Goods goods = goodsRepository.save(Goods.builder().name("상품" + i).build());
+            goodsList.add(goods);
+            purchaseRepository.save(Purchase.builder().user(user1).goods(goods).build());
+        }
+        goods1 = goodsList.get(0);
+        purchaseRepository.save(Purchase.builder().user(user2).goods(goods1).build());
+
+        em.flush();
+        em.clear();
+    }
+
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("회원의 구매 내역을 최신순으로 커서를 넘기며 끝까지 조회한다 - 페이지당 쿼리 1개")
+    void getPurchaseHistoryTest() {
+        //when
+        CursorPage<PurchaseHistoryDto> first = purchaseService.getPurchaseHistory(user1.getId(), null, 2);
+        CursorPage<PurchaseHistoryDto> second = purchaseService.getPurchaseHistory(user1.getId(), first.getNextCursor(), 2);
+        CursorPage<PurchaseHistoryDto> last = purchaseService.getPurchaseHistory(user1.getId(), second.getNextCursor(), 2);
+
+        //then
+        assertEquals(List.of("상품5", "상품4"), goodsNames(first));
+        assertEquals(List.of("상품3", "상품2"), goodsNames(second));
+        assertEquals(List.of("상품1"), goodsNames(last));
+
+        assertTrue(first.isHasNext());
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("상품을 구매한 회원 목록을 최신순으로 조회한다")
+    void getBuyersTest() {
+        //when
+        CursorPage<GoodsBuyerDto> buyers = purchaseService.getBuyers(goods1.getId(), null, 10);
+
+        //then
+        assertEquals(2, buyers.getContent().size());
+        assertEquals("하츄핑", buyers.getContent().get(0).getUserName());
+        assertEquals("망곰이", buyers.getContent().get(1).getUserName());
+        assertFalse(buyers.isHasNext());
+    }
+
+    private List<String> goodsNames(CursorPage<PurchaseHistoryDto> page) {
+        List<String> names = new ArrayList<>();
+        for (PurchaseHistoryDto dto : page.getContent()) {
+            names.add(dto.getGoodsName());
+        }
+        return names;
+    }
+}
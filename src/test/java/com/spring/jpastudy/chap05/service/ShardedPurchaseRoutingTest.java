@@ -0,0 +1,200 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.bulk.BulkDeleteService;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import com.spring.jpastudy.chap05.dto.UserPurchaseSummaryDto;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.PurchaseBatchWriter;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.config.shard.ShardingConfig;
+import com.spring.jpastudy.config.shard.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 샤딩을 켜면 PurchaseService / UserPurchaseSummaryService가 샤드로 가는지 확인 (샤드는 H2 인메모리 DB)
+// 회원, 상품은 주 DB에 커밋해야 샤드 서비스가 확인할 수 있으므로 테스트 트랜잭션 없이 직접 정리한다.
+// 주 DB의 구매 테이블만 쓰는 기능(공동구매, 시간대별 집계)은 꺼야 샤딩을 켤 수 있음
+@SpringBootTest(properties = {
+        "jpastudy.sharding.enabled=true",
+        "jpastudy.co-purchase.enabled=false",
+        "jpastudy.purchase-rollup.enabled=false",
+        "jpastudy.sharding.shards[0].name=route-shard-0",
+        "jpastudy.sharding.shards[0].url=jdbc:h2:mem:route-shard0;MODE=MariaDB;DB_CLOSE_DELAY=-1",
+        "jpastudy.sharding.shards[0].username=sa",
+        "jpastudy.sharding.shards[0].password=",
+        "jpastudy.sharding.shards[0].driver-class-name=org.h2.Driver",
+        "jpastudy.sharding.shards[1].name=route-shard-1",
+        "jpastudy.sharding.shards[1].url=jdbc:h2:mem:route-shard1;MODE=MariaDB;DB_CLOSE_DELAY=-1",
+        "jpastudy.sharding.shards[1].username=sa",
+        "jpastudy.sharding.shards[1].password=",
+        "jpastudy.sharding.shards[1].driver-class-name=org.h2.Driver"
+})
+class ShardedPurchaseRoutingTest {
+
+    @Autowired
+    PurchaseService purchaseService;
+
+    @Autowired
+    UserPurchaseSummaryService userPurchaseSummaryService;
+
+    @Autowired
+    PurchaseBatchWriter purchaseBatchWriter;
+
+    @Autowired
+    GoodsPurchaseCountService goodsPurchaseCountService;
+
+    @Autowired
+    BuyerBitmapIndex buyerBitmapIndex;
+
+    @Autowired
+    BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    ShardCluster cluster;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private User user;
+    private Goods goods;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().name("샤드라우팅회원").build());
+        goods = goodsRepository.save(Goods.builder().name("샤드라우팅상품").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (ShardCluster.Shard shard : cluster.getShards()) {
+            shard.getTemplate().update("DELETE FROM tbl_mtm_purchase WHERE user_id = ?", user.getId());
+            shard.getTemplate().update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", user.getId());
+        }
+        // 회원 삭제 테스트에서 이미 지워졌을 수 있음
+        template.update("DELETE FROM tbl_mtm_user WHERE user_id = ?", user.getId());
+        goodsRepository.deleteById(goods.getId());
+    }
+
+
+    @Test
+    @DisplayName("샤딩을 켜면 구매, 구매 내역, 구매 요약, 취소가 주 DB가 아닌 회원 샤드에서 처리된다")
+    void routingTest() {
+        //when
+        Long purchaseId = purchaseService.purchase(user.getId(), goods.getId());
+
+        //then - 회원 샤드에만 저장됨
+        int home = cluster.getRouter().shardOf(user.getId());
+        assertEquals(home, cluster.getRouter().shardOfId(purchaseId));
+        assertEquals(1L, count(cluster.shard(home).getTemplate()));
+        assertEquals(0L, count(template));
+
+        List<PurchaseHistoryDto> history = purchaseService.getPurchaseHistory(user.getId(), null, 10).getContent();
+        assertEquals(List.of(new PurchaseHistoryDto(purchaseId, goods.getId(), "샤드라우팅상품")), history);
+        assertEquals(purchaseId, purchaseService.getBuyers(goods.getId(), null, 10).getContent().get(0).getPurchaseId());
+        assertEquals(new UserPurchaseSummaryDto(user.getId(), 1, 1, goods.getId(), "샤드라우팅상품"),
+                userPurchaseSummaryService.getSummary(user.getId()));
+
+        //when
+        purchaseService.cancel(purchaseId);
+
+        //then
+        assertEquals(0L, count(cluster.shard(home).getTemplate()));
+        assertTrue(purchaseService.getPurchaseHistory(user.getId(), null, 10).getContent().isEmpty());
+    }
+
+    @Test
+    @DisplayName("샤딩을 켜면 대량 저장, 회원 삭제도 회원 샤드에서 처리되고 구매/취소 이벤트가 구매 수와 구매자 인덱스에 반영된다")
+    void batchAndEventTest() {
+        //given
+        int home = cluster.getRouter().shardOf(user.getId());
+        JdbcTemplate shard = cluster.shard(home).getTemplate();
+
+        //when - 대량 저장 2건 + 구매 1건
+        int written = purchaseBatchWriter.write(List.of(
+                new PurchaseCommand(user.getId(), goods.getId()),
+                new PurchaseCommand(user.getId(), goods.getId())));
+        Long purchaseId = purchaseService.purchase(user.getId(), goods.getId());
+
+        //then
+        assertEquals(2, written);
+        assertEquals(3L, count(shard));
+        assertEquals(0L, count(template));
+        assertEquals(new UserPurchaseSummaryDto(user.getId(), 3, 1, goods.getId(), "샤드라우팅상품"),
+                userPurchaseSummaryService.getSummary(user.getId()));
+        assertEquals(3L, purchaseCount());
+        assertEquals(1L, buyerBitmapIndex.countBuyers(goods.getId()));
+
+        //when - 한 건 취소해도 같은 상품의 구매가 남아 있으면 구매자로 남음
+        purchaseService.cancel(purchaseId);
+
+        //then
+        assertEquals(2L, purchaseCount());
+        assertEquals(1L, buyerBitmapIndex.countBuyers(goods.getId()));
+
+        //when
+        BulkDeleteService.Result result = bulkDeleteService.deleteUser(user.getId());
+
+        //then
+        assertEquals(2L, result.getDeletedRows().get("tbl_mtm_purchase"));
+        assertEquals(0L, count(shard));
+        assertEquals(0L, shard.queryForObject(
+                "SELECT COUNT(*) FROM tbl_user_purchase_summary WHERE user_id = ?", Long.class, user.getId()));
+        assertFalse(userRepository.existsById(user.getId()));
+        assertEquals(0L, purchaseCount());
+        assertEquals(0L, buyerBitmapIndex.countBuyers(goods.getId()));
+    }
+
+    @Test
+    @DisplayName("주 DB의 구매 테이블만 쓰는 기능이 켜져 있으면 샤딩을 켠 서버가 뜨지 않는다")
+    void primaryOnlyFeatureTest() {
+        ShardingConfig config = new ShardingConfig();
+
+        // 기본값은 공동구매, 시간대별 집계가 켜져 있음
+        assertThrows(IllegalStateException.class,
+                () -> config.shardCluster(new ShardingProperties(), null, new MockEnvironment()));
+        assertThrows(IllegalStateException.class,
+                () -> config.shardCluster(new ShardingProperties(), null, new MockEnvironment()
+                        .withProperty("jpastudy.co-purchase.enabled", "false")
+                        .withProperty("jpastudy.purchase-rollup.enabled", "false")
+                        .withProperty("jpastudy.purchase-summary.rebuild-on-startup", "true")));
+
+        MockEnvironment datagen = new MockEnvironment()
+                .withProperty("jpastudy.co-purchase.enabled", "false")
+                .withProperty("jpastudy.purchase-rollup.enabled", "false");
+        datagen.setActiveProfiles("datagen");
+        assertThrows(IllegalStateException.class,
+                () -> config.shardCluster(new ShardingProperties(), null, datagen));
+    }
+
+    private long purchaseCount() {
+        // 예약된 반영과 겹치지 않게 먼저 반영하고 DB 값을 읽음
+        goodsPurchaseCountService.flush();
+        return goodsPurchaseCountService.getPurchaseCount(goods.getId()).getPurchaseCount();
+    }
+
+    private long count(JdbcTemplate target) {
+        Long count = target.queryForObject(
+                "SELECT COUNT(*) FROM tbl_mtm_purchase WHERE user_id = ?", Long.class, user.getId());
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,197 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.CursorPage;
+import com.spring.jpastudy.chap05.dto.GoodsBuyerDto;
+import com.spring.jpastudy.chap05.dto.PurchaseCommand;
+import com.spring.jpastudy.chap05.dto.PurchaseHistoryDto;
+import com.spring.jpastudy.chap05.dto.UserPurchaseSummaryDto;
+import com.spring.jpastudy.chap05.event.PurchasesCanceledEvent;
+import com.spring.jpastudy.chap05.event.PurchasesRecordedEvent;
+import com.spring.jpastudy.chap05.repository.ShardedPurchaseRepository;
+import com.spring.jpastudy.config.shard.ShardCluster;
+import com.spring.jpastudy.config.shard.ShardingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 주 DB 1개(회원, 상품), 샤드 3개를 H2(MariaDB 모드) 인메모리 DB로 띄워서 확인
+class ShardedPurchaseServiceTest {
+
+    private static final int SHARDS = 3;
+    private static final int USERS = 12;
+
+    private ShardCluster cluster;
+    private JdbcTemplate primary;
+    private ShardedPurchaseService service;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(database("primary"));
+        primary.execute("DROP TABLE IF EXISTS tbl_mtm_user");
+        primary.execute("DROP TABLE IF EXISTS tbl_mtm_goods");
+        primary.execute("CREATE TABLE tbl_mtm_user (user_id BIGINT PRIMARY KEY, user_name VARCHAR(255))");
+        primary.execute("CREATE TABLE tbl_mtm_goods (goods_id BIGINT PRIMARY KEY, goods_name VARCHAR(255))");
+        for (long userId = 1; userId <= USERS; userId++) {
+            primary.update("INSERT INTO tbl_mtm_user VALUES (?, ?)", userId, "샤드회원" + userId);
+        }
+        for (long goodsId = 1; goodsId <= 3; goodsId++) {
+            primary.update("INSERT INTO tbl_mtm_goods VALUES (?, ?)", goodsId, "샤드상품" + goodsId);
+        }
+
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (int i = 0; i < SHARDS; i++) {
+            DataSource shard = database("shard" + i);
+            JdbcTemplate template = new JdbcTemplate(shard);
+            template.execute("DROP TABLE IF EXISTS tbl_mtm_purchase");
+            template.execute("DROP TABLE IF EXISTS tbl_user_purchase_summary");
+            shards.put("shard-" + i, shard);
+        }
+        cluster = new ShardCluster(shards);
+        cluster.initializeSchema(new ClassPathResource(ShardingConfig.SCHEMA_SCRIPT));
+        service = new ShardedPurchaseService(cluster, new ShardedPurchaseRepository(), primary, events::add);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cluster.destroy();
+    }
+
+
+    @Test
+    @DisplayName("회원의 구매 기록과 구매 요약은 그 회원의 샤드 하나에만 저장된다")
+    void shardLocalTest() {
+        //given
+        long userId = 7L;
+        int home = cluster.getRouter().shardOf(userId);
+
+        //when
+        Long first = service.purchase(userId, 1L);
+        Long second = service.purchase(userId, 2L);
+        Long third = service.purchase(userId, 1L);
+
+        //then
+        for (ShardCluster.Shard shard : cluster.getShards()) {
+            Long count = shard.getTemplate().queryForObject(
+                    "SELECT COUNT(*) FROM tbl_mtm_purchase WHERE user_id = ?", Long.class, userId);
+            assertEquals(shard.getIndex() == home ? 3L : 0L, count);
+        }
+        assertEquals(home, cluster.getRouter().shardOfId(first));
+
+        CursorPage<PurchaseHistoryDto> page = service.getPurchaseHistory(userId, null, 2);
+        assertEquals(List.of(third, second), ids(page.getContent(), PurchaseHistoryDto::getPurchaseId));
+        assertEquals("샤드상품1", page.getContent().get(0).getGoodsName());
+        assertTrue(page.isHasNext());
+
+        CursorPage<PurchaseHistoryDto> next = service.getPurchaseHistory(userId, page.getNextCursor(), 2);
+        assertEquals(List.of(first), ids(next.getContent(), PurchaseHistoryDto::getPurchaseId));
+        assertFalse(next.isHasNext());
+
+        assertEquals(new UserPurchaseSummaryDto(userId, 3, 2, 1L, "샤드상품1"), service.getSummary(userId));
+        assertEquals(new UserPurchaseSummaryDto(1L, 0, 0, null, null), service.getSummary(1L));
+        assertThrows(NoSuchElementException.class, () -> service.purchase(99L, 1L));
+    }
+
+    @Test
+    @DisplayName("샤드에서 구매, 취소해도 주 DB 경로와 같은 구매/취소 이벤트를 발행한다")
+    void eventTest() {
+        //given
+        Long purchaseId = service.purchase(5L, 2L);
+
+        //when
+        service.cancel(purchaseId);
+
+        //then
+        assertEquals(2, events.size());
+        assertEquals(List.of(new PurchaseCommand(5L, 2L)), ((PurchasesRecordedEvent) events.get(0)).getPurchases());
+        assertEquals(List.of(new PurchaseCommand(5L, 2L)), ((PurchasesCanceledEvent) events.get(1)).getPurchases());
+
+        // 없는 구매 기록 취소는 롤백되고 이벤트도 없음
+        assertThrows(NoSuchElementException.class, () -> service.cancel(purchaseId));
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    @DisplayName("상품 구매자는 모든 샤드에서 모아 전체 구매 번호 내림차순으로 병합하고 커서로 이어 읽는다")
+    void scatterGatherTest() {
+        //given - 회원 12명이 상품 1을 2번씩 번갈아 구매 (여러 샤드에 흩어짐)
+        Set<Integer> usedShards = new TreeSet<>();
+        List<Long> purchaseIds = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            for (long userId = 1; userId <= USERS; userId++) {
+                purchaseIds.add(service.purchase(userId, 1L));
+                usedShards.add(cluster.getRouter().shardOf(userId));
+            }
+        }
+        service.purchase(1L, 2L);
+        assertEquals(SHARDS, usedShards.size());
+
+        //when - 5개씩 끝까지 읽기
+        List<Long> read = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<GoodsBuyerDto> page = service.getBuyers(1L, cursor, 5);
+            for (GoodsBuyerDto buyer : page.getContent()) {
+                assertEquals("샤드회원" + buyer.getUserId(), buyer.getUserName());
+                read.add(buyer.getPurchaseId());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        //then - 빠짐, 중복 없이 전체 id 내림차순
+        List<Long> expected = new ArrayList<>(purchaseIds);
+        expected.sort((a, b) -> Long.compare(b, a));
+        assertEquals(expected, read);
+        assertEquals(5, pages);
+    }
+
+    @Test
+    @DisplayName("구매 취소는 전체 구매 번호로 샤드를 찾아 지우고 구매 요약을 되돌린다")
+    void cancelTest() {
+        //given
+        long userId = 5L;
+        Long first = service.purchase(userId, 1L);
+        Long second = service.purchase(userId, 2L);
+
+        //when
+        service.cancel(second);
+
+        //then
+        assertEquals(new UserPurchaseSummaryDto(userId, 1, 1, 1L, "샤드상품1"), service.getSummary(userId));
+        assertEquals(List.of(first), ids(service.getPurchaseHistory(userId, null, 10).getContent(),
+                PurchaseHistoryDto::getPurchaseId));
+        assertThrows(NoSuchElementException.class, () -> service.cancel(second));
+        assertThrows(NoSuchElementException.class, () -> service.cancel(first | 1023));
+    }
+
+    private <T> List<Long> ids(List<T> content, Function<T, Long> id) {
+        List<Long> ids = new ArrayList<>();
+        for (T t : content) {
+            ids.add(id.apply(t));
+        }
+        return ids;
+    }
+
+    private DataSource database(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,101 @@
+package com.spring.jpastudy.chap05.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingCounterTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * MINUTE);
+
+    @Test
+    @DisplayName("근사 상위 상품은 정확한 집계의 상위 상품과 거의 같고, 추정값은 실제보다 작지 않다")
+    void accuracyTest() {
+        //given - 상품 5000개, 앞쪽 상품일수록 많이 팔림, 30분 동안 20만 건
+        TrendingCounter counter = new TrendingCounter(60, 4096, 4, 200, now::get);
+        Map<Long, Long> exact = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        int total = 200_000;
+
+        //when
+        for (int i = 0; i < total; i++) {
+            if (i % (total / 30) == 0) {
+                now.addAndGet(MINUTE);
+            }
+            long goodsId = 1 + (long) (5_000 * Math.pow(random.nextDouble(), 3));
+            counter.add(goodsId, 1);
+            exact.merge(goodsId, 1L, Long::sum);
+        }
+        List<TrendingCounter.Entry> top = counter.top(60, 20);
+
+        //then
+        List<Long> exactTop = exactTop(exact, 20);
+        Set<Long> approxIds = new HashSet<>();
+        for (TrendingCounter.Entry entry : top) {
+            approxIds.add(entry.getGoodsId());
+            long real = exact.get(entry.getGoodsId());
+            assertTrue(entry.getCount() >= real);
+            // 오차 한계: 전체 건수 * e / width
+            assertTrue(entry.getCount() - real <= total * Math.E / 4096,
+                    "goodsId=" + entry.getGoodsId() + " 추정=" + entry.getCount() + " 실제=" + real);
+        }
+
+        assertEquals(20, top.size());
+        assertTrue(approxIds.containsAll(exactTop.subList(0, 10)));
+        long hits = exactTop.stream().filter(approxIds::contains).count();
+        assertTrue(hits >= 18, "상위 20개 중 일치: " + hits);
+    }
+
+    @Test
+    @DisplayName("구간을 벗어난 구매는 집계되지 않는다")
+    void windowTest() {
+        //given
+        TrendingCounter counter = new TrendingCounter(60, 1024, 4, 50, now::get);
+        counter.add(1, 100);        // 10분 전
+        now.addAndGet(10 * MINUTE);
+        counter.add(2, 5);          // 지금
+
+        //when
+        List<TrendingCounter.Entry> last5Minutes = counter.top(5, 10);
+        List<TrendingCounter.Entry> lastHour = counter.top(60, 10);
+
+        //then
+        assertEquals(1, last5Minutes.size());
+        assertEquals(2, last5Minutes.get(0).getGoodsId());
+        assertEquals(1, lastHour.get(0).getGoodsId());
+        assertEquals(100, lastHour.get(0).getCount());
+
+        //when - 한 시간이 지나면 버킷이 비워짐
+        now.addAndGet(61 * MINUTE);
+        counter.add(3, 1);
+
+        //then
+        List<TrendingCounter.Entry> afterHour = counter.top(60, 10);
+        assertEquals(1, afterHour.size());
+        assertEquals(3, afterHour.get(0).getGoodsId());
+    }
+
+    private List<Long> exactTop(Map<Long, Long> exact, int k) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(exact.entrySet());
+        entries.sort((a, b) -> b.getValue().equals(a.getValue())
+                ? Long.compare(a.getKey(), b.getKey())
+                : Long.compare(b.getValue(), a.getValue()));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < k && i < entries.size(); i++) {
+            ids.add(entries.get(i).getKey());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,180 @@
+package com.spring.jpastudy.chap05.service;
+
+import com.spring.jpastudy.chap05.dto.UserPurchaseSummaryDto;
+import com.spring.jpastudy.chap05.entity.Goods;
+import com.spring.jpastudy.chap05.entity.User;
+import com.spring.jpastudy.chap05.repository.GoodsRepository;
+import com.spring.jpastudy.chap05.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class UserPurchaseSummaryServiceTest {
+
+    @Autowired
+    UserPurchaseSummaryService userPurchaseSummaryService;
+
+    @Autowired
+    PurchaseService purchaseService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    GoodsRepository goodsRepository;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private User user;
+    private Goods goods1;
+    private Goods goods2;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().name("요약회원").build());
+        goods1 = goodsRepository.save(Goods.builder().name("요약상품1").build());
+        goods2 = goodsRepository.save(Goods.builder().name("요약상품2").build());
+    }
+
+
+    @Test
+    @DisplayName("구매하면 총 구매 수, 상품 종류 수, 최근 구매 상품이 요약에 반영된다")
+    void purchaseTest() {
+        //when
+        purchaseService.purchase(user.getId(), goods1.getId());
+        purchaseService.purchase(user.getId(), goods1.getId());
+        purchaseService.purchase(user.getId(), goods2.getId());
+
+        //then
+        assertEquals(new UserPurchaseSummaryDto(user.getId(), 3, 2, goods2.getId(), "요약상품2"),
+                userPurchaseSummaryService.getSummary(user.getId()));
+    }
+
+    @Test
+    @DisplayName("최근 구매를 취소하면 이전 구매가 최근 구매가 되고, 마지막 한 건이 취소되면 상품 종류 수가 줄어든다")
+    void cancelTest() {
+        //given
+        purchaseService.purchase(user.getId(), goods1.getId());
+        Long second = purchaseService.purchase(user.getId(), goods1.getId());
+        Long last = purchaseService.purchase(user.getId(), goods2.getId());
+
+        //when
+        purchaseService.cancel(last);
+
+        //then
+        assertEquals(new UserPurchaseSummaryDto(user.getId(), 2, 1, goods1.getId(), "요약상품1"),
+                userPurchaseSummaryService.getSummary(user.getId()));
+
+        //when
+        purchaseService.cancel(second);
+
+        //then - 같은 상품을 한 번 더 샀으므로 종류 수는 그대로
+        assertEquals(new UserPurchaseSummaryDto(user.getId(), 1, 1, goods1.getId(), "요약상품1"),
+                userPurchaseSummaryService.getSummary(user.getId()));
+    }
+
+    @Test
+    @DisplayName("요약 행이 없던 회원이 구매하면 그 전의 구매 기록까지 요약에 채워진다")
+    void missingSummaryTest() {
+        //given - 요약 갱신 경로를 거치지 않은 구매
+        template.update("INSERT INTO tbl_mtm_purchase (user_id, goods_id) VALUES (?, ?), (?, ?)",
+                user.getId(), goods1.getId(), user.getId(), goods1.getId());
+
+        //when
+        purchaseService.purchase(user.getId(), goods2.getId());
+
+        //then
+        assertEquals(new UserPurchaseSummaryDto(user.getId(), 3, 2, goods2.getId(), "요약상품2"),
+                userPurchaseSummaryService.getSummary(user.getId()));
+    }
+
+    // 여러 스레드가 각자 커밋하므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("요약 행이 없는 회원의 첫 구매가 동시에 들어와도 데드락 없이 모두 반영된다")
+    void concurrentFirstPurchaseTest() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            //given
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> purchases = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Long goodsId = (i % 2 == 0 ? goods1 : goods2).getId();
+                purchases.add(executor.submit(() -> {
+                    start.await();
+                    return purchaseService.purchase(user.getId(), goodsId);
+                }));
+            }
+
+            //when
+            start.countDown();
+            for (Future<Long> purchase : purchases) {
+                purchase.get();
+            }
+
+            //then
+            UserPurchaseSummaryDto summary = userPurchaseSummaryService.getSummary(user.getId());
+            assertEquals(threads, summary.getPurchaseCount());
+            assertEquals(2, summary.getDistinctGoodsCount());
+        } finally {
+            executor.shutdownNow();
+            template.update("DELETE FROM tbl_mtm_purchase WHERE user_id = ?", user.getId());
+            template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", user.getId());
+            userRepository.deleteById(user.getId());
+            goodsRepository.deleteById(goods1.getId());
+            goodsRepository.deleteById(goods2.getId());
+        }
+    }
+
+    // 재구축은 별도 스레드의 트랜잭션에서 실행되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("요약을 거치지 않고 저장된 구매 기록도 재구축하면 반영된다")
+    void rebuildTest() {
+        try {
+            //given - 요약 갱신 경로를 거치지 않은 구매
+            template.update("INSERT INTO tbl_mtm_purchase (user_id, goods_id) VALUES (?, ?), (?, ?)",
+                    user.getId(), goods2.getId(), user.getId(), goods1.getId());
+            assertEquals(0, userPurchaseSummaryService.getSummary(user.getId()).getPurchaseCount());
+
+            //when
+            UserPurchaseSummaryService.RebuildResult result = userPurchaseSummaryService.rebuild();
+
+            //then
+            assertTrue(result.getChunks() > 0);
+            assertEquals(new UserPurchaseSummaryDto(user.getId(), 2, 2, goods1.getId(), "요약상품1"),
+                    userPurchaseSummaryService.getSummary(user.getId()));
+        } finally {
+            template.update("DELETE FROM tbl_mtm_purchase WHERE user_id = ?", user.getId());
+            template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id = ?", user.getId());
+            userRepository.deleteById(user.getId());
+            goodsRepository.deleteById(goods1.getId());
+            goodsRepository.deleteById(goods2.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("없는 회원의 요약은 조회할 수 없다")
+    void missingUserTest() {
+        assertThrows(NoSuchElementException.class, () -> userPurchaseSummaryService.getSummary(-1L));
+    }
+}
@@ -0,0 +1,97 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.spring.jpastudy.chap06_querydsl.dto.GroupGraph;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.config.querycount.QueryCountHolder;
+import com.spring.jpastudy.config.querycount.QueryCountScope;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class GroupGraphLoaderTest {
+
+    @Autowired
+    GroupGraphLoader loader;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    EntityManager em;
+
+
+    @ParameterizedTest(name = "그룹 {0}개")
+    @ValueSource(ints = {1, 100, 10_000})
+    @DisplayName("그룹 수와 관계없이 아이돌, 앨범을 쿼리 2번으로 채운다")
+    void constantQueryCountTest(int groupCount) {
+        //given
+        String prefix = "그래프테스트" + groupCount + "-";
+        seed(prefix, groupCount);
+        List<Group> groups = em.createQuery(
+                        "SELECT g FROM Group g WHERE g.groupName LIKE :prefix ORDER BY g.id", Group.class)
+                .setParameter("prefix", prefix + "%")
+                .getResultList();
+        assertEquals(groupCount, groups.size());
+
+        //when
+        QueryCountScope scope = QueryCountHolder.open("groupGraph");
+        List<GroupGraph> graphs;
+        int idolCount = 0;
+        int albumCount = 0;
+        try {
+            graphs = loader.load(groups);
+            for (GroupGraph graph : graphs) {
+                idolCount += graph.getIdols().size();
+                albumCount += graph.getAlbums().size();
+                graph.getIdols().forEach(i -> i.getGroup().getGroupName());
+            }
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then
+        assertEquals(2, scope.getTotal());
+        assertEquals(groupCount, graphs.size());
+        assertEquals(groupCount * 2, idolCount);
+        assertEquals(groupCount, albumCount);
+        // 지연로딩 컬렉션은 초기화되지 않음
+        assertFalse(Hibernate.isInitialized(graphs.get(0).getGroup().getIdols()));
+        assertFalse(Hibernate.isInitialized(graphs.get(0).getGroup().getAlbums()));
+    }
+
+    private void seed(String prefix, int groupCount) {
+        List<Object[]> groupRows = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            groupRows.add(new Object[]{prefix + g});
+        }
+        template.batchUpdate("INSERT INTO tbl_group (group_name) VALUES (?)", groupRows);
+
+        List<Long> groupIds = template.queryForList(
+                "SELECT group_id FROM tbl_group WHERE group_name LIKE ?", Long.class, prefix + "%");
+
+        List<Object[]> idolRows = new ArrayList<>();
+        List<Object[]> albumRows = new ArrayList<>();
+        for (Long groupId : groupIds) {
+            idolRows.add(new Object[]{"멤버A", 20, "여", groupId});
+            idolRows.add(new Object[]{"멤버B", 21, "여", groupId});
+            albumRows.add(new Object[]{"앨범", 2024, groupId});
+        }
+        template.batchUpdate(
+                "INSERT INTO tbl_idol (idol_name, age, gender, group_id) VALUES (?, ?, ?, ?)", idolRows);
+        template.batchUpdate(
+                "INSERT INTO tbl_album (album_name, release_year, group_id) VALUES (?, ?, ?)", albumRows);
+    }
+}
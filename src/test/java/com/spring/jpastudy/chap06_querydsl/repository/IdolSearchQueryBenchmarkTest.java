@@ -0,0 +1,145 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.spring.jpastudy.chap06_querydsl.entity.QGroup.group;
+import static com.spring.jpastudy.chap06_querydsl.entity.QIdol.idol;
+import static org.junit.jupiter.api.Assertions.*;
+
+// ./gradlew benchmark 로 실행
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class IdolSearchQueryBenchmarkTest {
+
+    private static final int WARM_UP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Autowired
+    IdolRepository idolRepository;
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    JPAQueryFactory factory;
+
+    @Autowired
+    EntityManager em;
+
+    private final IdolSearchCondition condition = IdolSearchCondition.builder()
+            .gender("여")
+            .minAge(20)
+            .maxAge(25)
+            .groupName("아이브")
+            .sort("age,desc")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        Group ive = new Group("아이브");
+        groupRepository.save(ive);
+
+        idolRepository.save(new Idol("가을", 22, "여", ive));
+        idolRepository.save(new Idol("리즈", 20, "여", ive));
+        idolRepository.save(new Idol("장원영", 20, "여", ive));
+        idolRepository.save(new Idol("안유진", 21, "여", ive));
+    }
+
+
+    @Test
+    @DisplayName("모양별 JPQL 캐시와 QueryDSL 매번 렌더링의 결과는 같다")
+    void sameResultTest() {
+        Page<IdolSummaryDto> cached = idolRepository.searchIdols(condition, PageRequest.of(0, 10));
+        List<IdolSummaryDto> rendered = queryDsl(condition).fetch();
+
+        assertEquals(rendered, cached.getContent());
+    }
+
+
+    @Test
+    @DisplayName("쿼리 생성 비용 비교: QueryDSL 렌더링 vs 모양별 캐시")
+    void createQueryBenchmark() {
+        Map<Integer, IdolSearchQuery> cache = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < WARM_UP; i++) {
+            queryDsl(condition).createQuery();
+            cachedQuery(cache, condition);
+            renderedQuery(condition);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            queryDsl(condition).createQuery();
+        }
+        long queryDslNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            renderedQuery(condition);
+        }
+        long renderNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            cachedQuery(cache, condition);
+        }
+        long cachedNanos = System.nanoTime() - start;
+
+        System.out.printf("%n%n[createQuery] QueryDSL 매번 렌더링: %,d ns/op%n", queryDslNanos / ITERATIONS);
+        System.out.printf("[createQuery] JPQL 매번 조립     : %,d ns/op%n", renderNanos / ITERATIONS);
+        System.out.printf("[createQuery] 모양별 JPQL 캐시  : %,d ns/op%n%n", cachedNanos / ITERATIONS);
+
+        assertEquals(1, cache.size());
+    }
+
+    private JPAQuery<IdolSummaryDto> queryDsl(IdolSearchCondition condition) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (condition.getName() != null) builder.and(idol.idolName.eq(condition.getName()));
+        if (condition.getGender() != null) builder.and(idol.gender.eq(condition.getGender()));
+        if (condition.getMinAge() != null) builder.and(idol.age.goe(condition.getMinAge()));
+        if (condition.getMaxAge() != null) builder.and(idol.age.loe(condition.getMaxAge()));
+        if (condition.getGroupName() != null) builder.and(group.groupName.eq(condition.getGroupName()));
+
+        return factory
+                .select(Projections.constructor(IdolSummaryDto.class,
+                        idol.id, idol.idolName, idol.age, idol.gender, group.groupName))
+                .from(idol)
+                .leftJoin(idol.group, group)
+                .where(builder)
+                .orderBy(idol.age.desc(), idol.id.asc())
+                .offset(0)
+                .limit(10);
+    }
+
+    private void renderedQuery(IdolSearchCondition condition) {
+        IdolSearchQuery query = IdolSearchQuery.render(IdolSearchQuery.shapeOf(condition));
+        query.bind(em.createQuery(query.getContentJpql(), IdolSummaryDto.class), condition);
+    }
+
+    private void cachedQuery(Map<Integer, IdolSearchQuery> cache, IdolSearchCondition condition) {
+        IdolSearchQuery query = cache.computeIfAbsent(IdolSearchQuery.shapeOf(condition), IdolSearchQuery::render);
+        query.bind(em.createQuery(query.getContentJpql(), IdolSummaryDto.class), condition);
+    }
+}
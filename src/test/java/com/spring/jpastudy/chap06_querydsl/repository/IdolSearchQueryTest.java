@@ -0,0 +1,250 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSearchCondition.SortField;
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import com.spring.jpastudy.config.querycount.QueryCountHolder;
+import com.spring.jpastudy.config.querycount.QueryCountScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.spring.jpastudy.chap06_querydsl.entity.QGroup.group;
+import static com.spring.jpastudy.chap06_querydsl.entity.QIdol.idol;
+import static org.junit.jupiter.api.Assertions.*;
+
+// 모양별로 캐시한 JPQL 검색이 QueryDSL로 매번 만든 쿼리와 같은 결과를 내는지 확인
+@SpringBootTest
+@Transactional
+class IdolSearchQueryTest {
+
+    private static final String GROUP_A = "검색테스트그룹A";
+
+    @Autowired
+    IdolRepository idolRepository;
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    JPAQueryFactory factory;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Group a = groupRepository.save(new Group(GROUP_A));
+        Group b = groupRepository.save(new Group("검색테스트그룹B"));
+
+        // 이름이 같은 아이돌이 다른 그룹에도 있고, 그룹이 없는 아이돌도 있음
+        idolRepository.save(new Idol("검색하니", 22, "여", a));
+        idolRepository.save(new Idol("검색민지", 20, "여", a));
+        idolRepository.save(new Idol("검색해린", 17, "여", a));
+        idolRepository.save(new Idol("검색다니엘", 20, "여", a));
+        idolRepository.save(new Idol("검색준", 24, "남", a));
+        idolRepository.save(new Idol("검색하니", 23, "여", b));
+        idolRepository.save(new Idol("검색원", 26, "남", b));
+        idolRepository.save(new Idol("검색하니", 21, "여", null));
+        em.flush();
+        em.clear();
+    }
+
+    static IntStream filterMasks() {
+        return IntStream.range(0, 1 << 5);
+    }
+
+
+    @ParameterizedTest(name = "필터 조합 {0}")
+    @MethodSource("filterMasks")
+    @DisplayName("필터 조합과 정렬마다 QueryDSL과 같은 목록, 같은 총 건수를 돌려준다")
+    void sameAsQueryDslTest(int mask) {
+        for (SortField sortField : SortField.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                //given
+                IdolSearchCondition condition = conditionOf(mask, sortField, ascending);
+                Pageable pageable = PageRequest.of(0, 20);
+
+                //when
+                Page<IdolSummaryDto> page = idolRepository.searchIdols(condition, pageable);
+
+                //then
+                String message = condition.toString();
+                assertEquals(queryDsl(condition, pageable), page.getContent(), message);
+                assertEquals(queryDslCount(condition), page.getTotalElements(), message);
+                assertEquals(sortField.ordinal() << 1 | (ascending ? 1 : 0),
+                        IdolSearchQuery.shapeOf(condition) >>> 5, message);
+                assertEquals(mask, IdolSearchQuery.shapeOf(condition) & 31, message);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("null인 조건만 검색에서 빠지고 값이 있는 조건은 모두 적용된다")
+    void nullConditionTest() {
+        //given
+        IdolSearchCondition onlyGroup = IdolSearchCondition.builder().groupName(GROUP_A).build();
+        IdolSearchCondition groupAndGender = IdolSearchCondition.builder()
+                .groupName(GROUP_A).gender("여").build();
+        IdolSearchCondition nameOnly = IdolSearchCondition.builder().name("검색하니").build();
+        IdolSearchCondition all = IdolSearchCondition.builder()
+                .name("검색하니").gender("여").minAge(22).maxAge(22).groupName(GROUP_A).build();
+
+        //when
+        Page<IdolSummaryDto> groupPage = idolRepository.searchIdols(onlyGroup, PageRequest.of(0, 10));
+        Page<IdolSummaryDto> genderPage = idolRepository.searchIdols(groupAndGender, PageRequest.of(0, 10));
+        Page<IdolSummaryDto> namePage = idolRepository.searchIdols(nameOnly, PageRequest.of(0, 10));
+        Page<IdolSummaryDto> allPage = idolRepository.searchIdols(all, PageRequest.of(0, 10));
+
+        //then
+        assertEquals(5, groupPage.getTotalElements());
+        assertEquals(4, genderPage.getTotalElements());
+        // 그룹명 조건이 없으면 그룹 없는 아이돌도 포함
+        assertEquals(3, namePage.getTotalElements());
+        assertTrue(namePage.getContent().stream().anyMatch(dto -> dto.getGroupName() == null));
+        assertEquals(1, allPage.getTotalElements());
+        assertEquals(22, allPage.getContent().get(0).getAge());
+    }
+
+    @Test
+    @DisplayName("정렬 파라미터는 필드명과 방향으로 해석되고 모르는 값은 아이디 오름차로 처리된다")
+    void sortParseTest() {
+        assertSort(null, SortField.ID, true);
+        assertSort("", SortField.ID, true);
+        assertSort("age", SortField.AGE, true);
+        assertSort("age,desc", SortField.AGE, false);
+        assertSort("idolName, DESC", SortField.IDOL_NAME, false);
+        assertSort("groupName,asc", SortField.GROUP_NAME, true);
+        assertSort("unknown", SortField.ID, true);
+        assertSort("unknown,desc", SortField.ID, false);
+
+        // 정렬 필드와 방향 조합마다 모양이 다름
+        Set<Integer> shapes = new HashSet<>();
+        for (SortField sortField : SortField.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                shapes.add(IdolSearchQuery.shapeOf(conditionOf(0, sortField, ascending)));
+            }
+        }
+        assertEquals(SortField.values().length * 2, shapes.size());
+    }
+
+    @Test
+    @DisplayName("페이지 경계에서 목록은 이어지고 총 건수는 같으며, 마지막 페이지는 카운트 쿼리를 생략한다")
+    void pageBoundaryTest() {
+        //given - 그룹A 5명을 2명씩
+        IdolSearchCondition condition = IdolSearchCondition.builder()
+                .groupName(GROUP_A).sort("age,desc").build();
+        List<IdolSummaryDto> expected = queryDsl(condition, PageRequest.of(0, 10));
+
+        //when
+        Page<IdolSummaryDto> first = idolRepository.searchIdols(condition, PageRequest.of(0, 2));
+        Page<IdolSummaryDto> second = idolRepository.searchIdols(condition, PageRequest.of(1, 2));
+        QueryCountScope scope = QueryCountHolder.open("lastPage");
+        Page<IdolSummaryDto> last;
+        try {
+            last = idolRepository.searchIdols(condition, PageRequest.of(2, 2));
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+        Page<IdolSummaryDto> beyond = idolRepository.searchIdols(condition, PageRequest.of(3, 2));
+
+        //then
+        assertEquals(expected.subList(0, 2), first.getContent());
+        assertEquals(expected.subList(2, 4), second.getContent());
+        assertEquals(expected.subList(4, 5), last.getContent());
+        assertTrue(beyond.getContent().isEmpty());
+        for (Page<IdolSummaryDto> page : List.of(first, second, last, beyond)) {
+            assertEquals(5, page.getTotalElements());
+            assertEquals(3, page.getTotalPages());
+        }
+        // 나이가 같은 아이돌(20살 2명)은 아이디 순으로 이어짐
+        assertEquals(List.of(24, 22, 20, 20, 17),
+                expected.stream().map(IdolSummaryDto::getAge).collect(Collectors.toList()));
+        assertEquals(1, scope.getTotal());
+    }
+
+    private void assertSort(String sort, SortField sortField, boolean ascending) {
+        IdolSearchCondition condition = IdolSearchCondition.builder().sort(sort).build();
+        assertEquals(sortField, condition.getSortField(), sort);
+        assertEquals(ascending, condition.isAscending(), sort);
+    }
+
+    // 비트마다 필터 하나 - IdolSearchQuery의 비트 순서와 같음
+    private IdolSearchCondition conditionOf(int mask, SortField sortField, boolean ascending) {
+        return IdolSearchCondition.builder()
+                .name((mask & 1) != 0 ? "검색하니" : null)
+                .gender((mask & 2) != 0 ? "여" : null)
+                .minAge((mask & 4) != 0 ? 20 : null)
+                .maxAge((mask & 8) != 0 ? 23 : null)
+                .groupName((mask & 16) != 0 ? GROUP_A : null)
+                .sort(sortField.getParamName() + (ascending ? ",asc" : ",desc"))
+                .build();
+    }
+
+    // 캐시 도입 전 방식: 호출마다 BooleanBuilder로 조건을 조립
+    private BooleanBuilder whereOf(IdolSearchCondition condition) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (condition.getName() != null) builder.and(idol.idolName.eq(condition.getName()));
+        if (condition.getGender() != null) builder.and(idol.gender.eq(condition.getGender()));
+        if (condition.getMinAge() != null) builder.and(idol.age.goe(condition.getMinAge()));
+        if (condition.getMaxAge() != null) builder.and(idol.age.loe(condition.getMaxAge()));
+        if (condition.getGroupName() != null) builder.and(group.groupName.eq(condition.getGroupName()));
+        return builder;
+    }
+
+    private List<IdolSummaryDto> queryDsl(IdolSearchCondition condition, Pageable pageable) {
+        ComparableExpressionBase<?> path;
+        switch (condition.getSortField()) {
+            case AGE: path = idol.age; break;
+            case IDOL_NAME: path = idol.idolName; break;
+            case GROUP_NAME: path = group.groupName; break;
+            default: path = idol.id;
+        }
+        OrderSpecifier<?> order = condition.isAscending() ? path.asc() : path.desc();
+        OrderSpecifier<?>[] orders = condition.getSortField() == SortField.ID
+                ? new OrderSpecifier<?>[]{order}
+                : new OrderSpecifier<?>[]{order, idol.id.asc()};
+
+        return factory
+                .select(Projections.constructor(IdolSummaryDto.class,
+                        idol.id, idol.idolName, idol.age, idol.gender, group.groupName))
+                .from(idol)
+                .leftJoin(idol.group, group)
+                .where(whereOf(condition))
+                .orderBy(orders)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    private long queryDslCount(IdolSearchCondition condition) {
+        return factory
+                .select(idol.count())
+                .from(idol)
+                .leftJoin(idol.group, group)
+                .where(whereOf(condition))
+                .fetchOne();
+    }
+}
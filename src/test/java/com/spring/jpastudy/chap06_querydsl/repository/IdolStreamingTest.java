@@ -0,0 +1,84 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.spring.jpastudy.chap06_querydsl.dto.IdolRow;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class IdolStreamingTest {
+
+    @Autowired
+    IdolRepository idolRepository;
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Group ive = new Group("아이브");
+        groupRepository.save(ive);
+
+        idolRepository.save(new Idol("장원영", 20, "여", ive));
+        idolRepository.save(new Idol("가을", 22, "여", ive));
+        idolRepository.save(new Idol("아이유", 31, "여", null));
+
+        // JdbcTemplate이 볼 수 있도록 DB에 반영
+        em.flush();
+    }
+
+
+    @Test
+    @DisplayName("이름 오름차 전체조회를 한 행씩 스트리밍으로 받는다")
+    void streamAllNameTest() {
+        //given
+        List<IdolRow> rows = new ArrayList<>();
+
+        //when
+        idolRepository.streamAllName(rows::add);
+
+        //then
+        List<Idol> expected = idolRepository.foundAllName2();
+        assertEquals(expected.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(expected.get(i).getIdolName(), rows.get(i).getIdolName());
+            assertEquals(expected.get(i).getAge(), rows.get(i).getAge());
+        }
+    }
+
+
+    @Test
+    @DisplayName("Stream으로 받은 결과도 같은 순서로 조회된다")
+    void streamAllNameAsStreamTest() {
+        //given
+        List<String> names = new ArrayList<>();
+        idolRepository.streamAllName(row -> names.add(row.getIdolName()));
+
+        //when
+        List<String> streamed;
+        try (Stream<IdolRow> stream = idolRepository.streamAllNameAsStream()) {
+            streamed = stream.map(IdolRow::getIdolName).collect(Collectors.toList());
+        }
+
+        //then
+        assertEquals(names, streamed);
+        assertTrue(streamed.contains("아이유"));
+    }
+}
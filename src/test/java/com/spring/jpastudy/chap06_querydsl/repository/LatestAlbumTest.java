@@ -0,0 +1,309 @@
+package com.spring.jpastudy.chap06_querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.jpastudy.chap06_querydsl.dto.LatestAlbumView;
+import com.spring.jpastudy.chap06_querydsl.entity.Album;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.QAlbum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static com.spring.jpastudy.chap06_querydsl.entity.QGroup.group;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class LatestAlbumTest {
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    AlbumRepository albumRepository;
+
+    @Autowired
+    JPAQueryFactory factory;
+
+    @Autowired
+    JdbcTemplate template;
+
+    @Autowired
+    EntityManager em;
+
+    private Group ive;
+    private Group bts;
+
+    @BeforeEach
+    void setUp() {
+        ive = groupRepository.save(new Group("아이브"));
+        bts = groupRepository.save(new Group("방탄소년단"));
+
+        albumRepository.save(new Album("ELEVEN", 2021, ive));
+        albumRepository.save(new Album("LOVE DIVE", 2022, ive));
+        albumRepository.save(new Album("AFTER LIKE", 2022, ive));
+        albumRepository.save(new Album("MAP OF THE SOUL 7", 2020, bts));
+        albumRepository.save(new Album("UNFORGIVEN", 2023, bts));
+    }
+
+
+    @Test
+    @DisplayName("윈도우 함수 조회 결과는 상관 서브쿼리의 최신 발매년도와 같다")
+    void windowQueryTest() {
+        //when
+        Map<Long, Integer> correlated = latestYearByCorrelatedSubquery();
+        Map<Long, Integer> window = new TreeMap<>();
+        for (LatestAlbumView view : albumRepository.findLatestAlbumPerGroup()) {
+            window.put(view.getGroupId(), view.getReleaseYear());
+        }
+
+        //then
+        assertEquals(correlated, window);
+        assertEquals(2022, window.get(ive.getId()));
+        assertEquals(2023, window.get(bts.getId()));
+    }
+
+
+    @Test
+    @DisplayName("발매년도가 같은 앨범은 ties 조회에서 모두 조회된다")
+    void tiesQueryTest() {
+        long iveLatest = albumRepository.findLatestAlbumsWithTies().stream()
+                .filter(v -> v.getGroupId().equals(ive.getId()))
+                .count();
+
+        assertEquals(2, iveLatest);
+    }
+
+
+    @Test
+    @DisplayName("앨범을 저장하고 삭제하면 그룹의 최신 앨범 포인터가 갱신된다")
+    void pointerTest() {
+        //given
+        em.flush();
+        em.clear();
+
+        Group foundIve = groupRepository.findById(ive.getId()).orElseThrow();
+        assertEquals("AFTER LIKE", foundIve.getLatestAlbum().getAlbumName());
+
+        //when - 더 최근 앨범 발매
+        Album iAm = albumRepository.save(new Album("I AM", 2023, foundIve));
+        foundIve.getAlbums().add(iAm);
+        em.flush();
+
+        //then
+        assertEquals("I AM", foundIve.getLatestAlbum().getAlbumName());
+
+        //when - 최신 앨범 삭제
+        foundIve.getAlbums().remove(iAm);
+        albumRepository.delete(iAm);
+        em.flush();
+        em.clear();
+
+        //then
+        List<LatestAlbumView> byPointer = groupRepository.findLatestAlbumsByPointer();
+        LatestAlbumView iveLatest = byPointer.stream()
+                .filter(v -> v.getGroupId().equals(ive.getId()))
+                .findFirst().orElseThrow();
+        assertEquals("AFTER LIKE", iveLatest.getAlbumName());
+    }
+
+
+    @Test
+    @DisplayName("최신 앨범의 발매년도를 낮추거나 다른 그룹으로 옮기면 두 그룹의 포인터를 다시 계산한다")
+    void pointerRecomputeTest() {
+        //given
+        em.flush();
+        em.clear();
+        Album afterLike = albumRepository.findAll().stream()
+                .filter(a -> a.getAlbumName().equals("AFTER LIKE"))
+                .findFirst().orElseThrow();
+
+        //when - 최신 앨범 발매년도를 낮춤
+        afterLike.setReleaseYear(2020);
+        em.flush();
+        em.clear();
+
+        //then
+        assertEquals("LOVE DIVE", latestAlbumNameOf(ive));
+
+        //when - 최신 앨범을 다른 그룹으로 옮김 (albums 컬렉션은 건드리지 않음)
+        Album loveDive = albumRepository.findAll().stream()
+                .filter(a -> a.getAlbumName().equals("LOVE DIVE"))
+                .findFirst().orElseThrow();
+        Group foundIve = groupRepository.findById(ive.getId()).orElseThrow();
+        loveDive.setGroup(groupRepository.findById(bts.getId()).orElseThrow());
+        em.flush();
+
+        //then - 영속성 컨텍스트의 그룹도 바뀜
+        assertEquals("ELEVEN", foundIve.getLatestAlbum().getAlbumName());
+        em.clear();
+        assertEquals("ELEVEN", latestAlbumNameOf(ive));
+        assertEquals("UNFORGIVEN", latestAlbumNameOf(bts));
+    }
+
+
+    @Test
+    @DisplayName("최신이 아닌 앨범의 발매년도를 최신 앨범보다 높이면 포인터가 그 앨범으로 바뀐다")
+    void pointerRaiseYearTest() {
+        //given - 그룹을 먼저 로딩해서 영속성 컨텍스트에 올려 둠
+        em.flush();
+        em.clear();
+        Group foundIve = groupRepository.findById(ive.getId()).orElseThrow();
+        assertEquals("AFTER LIKE", foundIve.getLatestAlbum().getAlbumName());
+        Album eleven = findAlbum("ELEVEN");
+
+        //when
+        eleven.setReleaseYear(2024);
+        em.flush();
+
+        //then - 같은 flush에서 DB에 반영되고 영속성 컨텍스트의 그룹도 바뀜
+        assertEquals(eleven.getId(), template.queryForObject(
+                "SELECT latest_album_id FROM tbl_group WHERE group_id = ?", Long.class, ive.getId()));
+        assertEquals("ELEVEN", foundIve.getLatestAlbum().getAlbumName());
+        em.clear();
+        assertEquals("ELEVEN", latestAlbumNameOf(ive));
+
+        //when - 그룹을 수정해도 포인터를 예전 값으로 덮어쓰지 않음
+        foundIve = groupRepository.findById(ive.getId()).orElseThrow();
+        findAlbum("LOVE DIVE").setReleaseYear(2025);
+        foundIve.setGroupName("아이브2");
+        em.flush();
+        em.clear();
+
+        //then
+        assertEquals("LOVE DIVE", latestAlbumNameOf(ive));
+    }
+
+
+    @Test
+    @DisplayName("최신 앨범을 그룹의 앨범 목록에서 빼서 고아 객체로 삭제해도 포인터를 다시 계산한다")
+    void pointerOrphanRemovalTest() {
+        //given
+        em.flush();
+        em.clear();
+        Group foundIve = groupRepository.findById(ive.getId()).orElseThrow();
+
+        //when
+        foundIve.getAlbums().removeIf(a -> a.getAlbumName().equals("AFTER LIKE"));
+        em.flush();
+
+        //then
+        assertEquals("LOVE DIVE", foundIve.getLatestAlbum().getAlbumName());
+        em.clear();
+        assertEquals("LOVE DIVE", latestAlbumNameOf(ive));
+        assertEquals(0L, template.queryForObject(
+                "SELECT COUNT(*) FROM tbl_album WHERE album_name = 'AFTER LIKE' AND group_id = ?",
+                Long.class, ive.getId()));
+    }
+
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("그룹별 최신 앨범 조회 전략 비교")
+    void latestAlbumBenchmark() {
+        //given - 그룹 500개, 그룹당 앨범 40개
+        seed(500, 40);
+        groupRepository.fillLatestAlbumPointers();
+        em.flush();
+        em.clear();
+
+        //when
+        long correlated = measure(this::latestYearByCorrelatedSubquery);
+        long window = measure(albumRepository::findLatestAlbumPerGroup);
+        long ties = measure(albumRepository::findLatestAlbumsWithTies);
+        long pointer = measure(groupRepository::findLatestAlbumsByPointer);
+
+        //then
+        System.out.printf("%n%n[최신 앨범] 상관 서브쿼리 : %,d us%n", correlated);
+        System.out.printf("[최신 앨범] 윈도우 함수  : %,d us%n", window);
+        System.out.printf("[최신 앨범] 파생 MAX 조인 : %,d us%n", ties);
+        System.out.printf("[최신 앨범] 비정규화 포인터: %,d us%n%n", pointer);
+    }
+
+    private Album findAlbum(String albumName) {
+        return albumRepository.findAll().stream()
+                .filter(a -> a.getAlbumName().equals(albumName))
+                .filter(a -> a.getGroup().getId().equals(ive.getId()))
+                .findFirst().orElseThrow();
+    }
+
+    private String latestAlbumNameOf(Group target) {
+        return groupRepository.findLatestAlbumsByPointer().stream()
+                .filter(v -> v.getGroupId().equals(target.getId()))
+                .map(LatestAlbumView::getAlbumName)
+                .findFirst().orElseThrow();
+    }
+
+    // subqueryTest2와 같은 상관 서브쿼리
+    private Map<Long, Integer> latestYearByCorrelatedSubquery() {
+        QAlbum albumA = new QAlbum("albumA");
+        QAlbum albumS = new QAlbum("albumS");
+
+        List<Tuple> result = factory
+                .select(group.id, albumA.releaseYear)
+                .from(group)
+                .innerJoin(group.albums, albumA)
+                .where(albumA.releaseYear.eq(
+                        JPAExpressions
+                                .select(albumS.releaseYear.max())
+                                .from(albumS)
+                                .where(albumS.group.id.eq(albumA.group.id))
+                ))
+                .distinct()
+                .fetch();
+
+        Map<Long, Integer> latest = new TreeMap<>();
+        for (Tuple tuple : result) {
+            latest.put(tuple.get(group.id), tuple.get(albumA.releaseYear));
+        }
+        return latest;
+    }
+
+    private void seed(int groups, int albumsPerGroup) {
+        List<Object[]> groupRows = new ArrayList<>();
+        for (int g = 0; g < groups; g++) {
+            groupRows.add(new Object[]{"벤치그룹" + g});
+        }
+        template.batchUpdate("INSERT INTO tbl_group (group_name) VALUES (?)", groupRows);
+
+        List<Long> groupIds = template.queryForList(
+                "SELECT group_id FROM tbl_group WHERE group_name LIKE '벤치그룹%'", Long.class);
+
+        List<Object[]> albumRows = new ArrayList<>();
+        for (Long groupId : groupIds) {
+            for (int a = 0; a < albumsPerGroup; a++) {
+                albumRows.add(new Object[]{"벤치앨범" + a, 1990 + (a * 7 % 35), groupId});
+            }
+        }
+        template.batchUpdate(
+                "INSERT INTO tbl_album (album_name, release_year, group_id) VALUES (?, ?, ?)", albumRows);
+    }
+
+    // 20회 실행 평균 (마이크로초)
+    private long measure(Supplier<?> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+            em.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            query.get();
+            em.clear();
+        }
+        return (System.nanoTime() - start) / 20 / 1_000;
+    }
+}
@@ -0,0 +1,97 @@
+package com.spring.jpastudy.chap06_querydsl.service;
+
+import com.spring.jpastudy.chap06_querydsl.dto.IdolSummaryDto;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import com.spring.jpastudy.chap06_querydsl.repository.GroupRepository;
+import com.spring.jpastudy.chap06_querydsl.repository.IdolRepository;
+import com.spring.jpastudy.config.querycount.MaxQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class IdolServiceTest {
+
+    @Autowired
+    IdolService idolService;
+
+    @Autowired
+    IdolRepository idolRepository;
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Group ive = groupRepository.save(new Group("아이브"));
+        Group newjeans = groupRepository.save(new Group("뉴진스"));
+
+        idolRepository.save(new Idol("장원영", 20, "여", ive));
+        idolRepository.save(new Idol("해린", 18, "여", newjeans));
+        idolRepository.save(new Idol("김종국", 48, "남", null));
+        idolRepository.save(new Idol("아이유", 31, "여", null));
+
+        em.flush();
+        em.clear();
+    }
+
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("아이돌 목록은 그룹명 순으로, 솔로가수는 맨 뒤에 조회된다")
+    void getIdolSummariesTest() {
+        //given
+        long total = idolRepository.count();
+
+        //when - 전체가 한 페이지에 들어오면 카운트 쿼리는 생략된다
+        Page<IdolSummaryDto> page = idolService.getIdolSummaries(1, (int) total + 1);
+        List<IdolSummaryDto> all = page.getContent();
+
+        //then
+        assertEquals(total, all.size());
+
+        boolean soloStarted = false;
+        for (IdolSummaryDto dto : all) {
+            if (dto.getGroupName() == null) {
+                soloStarted = true;
+            } else {
+                assertFalse(soloStarted, "그룹 소속 아이돌이 솔로가수 뒤에 조회됨");
+            }
+        }
+        assertNull(all.get(all.size() - 1).getGroupName());
+    }
+
+
+    @Test
+    @DisplayName("페이지를 나눠 조회해도 순서가 겹치거나 빠지지 않는다")
+    void pagingIsDeterministicTest() {
+        //given
+        long total = idolRepository.count();
+        List<IdolSummaryDto> expected = idolService.getIdolSummaries(1, (int) total).getContent();
+
+        //when
+        List<IdolSummaryDto> paged = new ArrayList<>();
+        int size = 3;
+        for (int page = 1; (page - 1) * size < total; page++) {
+            paged.addAll(idolService.getIdolSummaries(page, size).getContent());
+        }
+
+        //then
+        assertEquals(expected, paged);
+    }
+}
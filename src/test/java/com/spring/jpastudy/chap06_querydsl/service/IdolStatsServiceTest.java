@@ -0,0 +1,183 @@
+package com.spring.jpastudy.chap06_querydsl.service;
+
+import com.spring.jpastudy.chap06_querydsl.dto.GroupAverageAgeDto;
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import com.spring.jpastudy.chap06_querydsl.repository.GroupRepository;
+import com.spring.jpastudy.chap06_querydsl.repository.IdolRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 커밋 후에 통계가 반영되므로 테스트 트랜잭션(롤백)을 쓰지 않고 직접 정리한다.
+@SpringBootTest
+class IdolStatsServiceTest {
+
+    @Autowired
+    IdolStatsService idolStatsService;
+
+    @Autowired
+    IdolRepository idolRepository;
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    private final List<Long> groupIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        idolStatsService.reconcile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> groupIds.forEach(groupRepository::deleteById));
+        idolStatsService.reconcile();
+    }
+
+
+    @Test
+    @DisplayName("아이돌이 추가, 수정, 이동, 삭제되면 그룹별 평균 나이가 즉시 반영된다")
+    void incrementalUpdateTest() {
+        //given
+        Long groupA = tx.execute(status -> {
+            Group group = groupRepository.save(new Group("통계테스트A"));
+            idolRepository.save(new Idol("에이1", 20, "여", group));
+            idolRepository.save(new Idol("에이2", 30, "여", group));
+            return group.getId();
+        });
+        Long groupB = tx.execute(status -> groupRepository.save(new Group("통계테스트B")).getId());
+        groupIds.add(groupA);
+        groupIds.add(groupB);
+
+        assertEquals(25.0, averageOf("통계테스트A").orElseThrow());
+
+        //when - 나이 수정
+        tx.executeWithoutResult(status -> {
+            Idol idol = findIdol("에이1", groupA);
+            idol.setAge(24);
+        });
+
+        //then
+        assertEquals(27.0, averageOf("통계테스트A").orElseThrow());
+
+        //when - 그룹 이동
+        tx.executeWithoutResult(status -> {
+            Idol idol = findIdol("에이2", groupA);
+            idol.changeGroup(groupRepository.findById(groupB).orElseThrow());
+        });
+
+        //then
+        assertEquals(24.0, averageOf("통계테스트A").orElseThrow());
+        assertEquals(30.0, averageOf("통계테스트B").orElseThrow());
+
+        //when - 삭제
+        tx.executeWithoutResult(status -> idolRepository.delete(findIdol("에이1", groupA)));
+
+        //then
+        assertTrue(averageOf("통계테스트A").isEmpty());
+    }
+
+
+    @Test
+    @DisplayName("그룹 이름을 바꾸면 통계의 그룹명도 바뀐다")
+    void renameTest() {
+        //given
+        Long groupId = tx.execute(status -> {
+            Group group = groupRepository.save(new Group("통계테스트E"));
+            idolRepository.save(new Idol("이1", 20, "여", group));
+            return group.getId();
+        });
+        groupIds.add(groupId);
+
+        //when
+        tx.executeWithoutResult(status -> groupRepository.findById(groupId).orElseThrow().setGroupName("통계테스트E2"));
+
+        //then
+        assertTrue(averageOf("통계테스트E").isEmpty());
+        assertEquals(20.0, averageOf("통계테스트E2").orElseThrow());
+
+        //when - 재동기화해도 같음
+        idolStatsService.reconcile();
+
+        //then
+        assertEquals(20.0, averageOf("통계테스트E2").orElseThrow());
+    }
+
+
+    @Test
+    @DisplayName("롤백된 변경은 통계에 반영되지 않는다")
+    void rollbackTest() {
+        //given
+        Long groupId = tx.execute(status -> {
+            Group group = groupRepository.save(new Group("통계테스트C"));
+            idolRepository.save(new Idol("씨1", 20, "여", group));
+            return group.getId();
+        });
+        groupIds.add(groupId);
+
+        //when
+        tx.executeWithoutResult(status -> {
+            findIdol("씨1", groupId).setAge(40);
+            idolRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertEquals(20.0, averageOf("통계테스트C").orElseThrow());
+    }
+
+
+    @Test
+    @DisplayName("재동기화한 결과는 증분으로 유지한 결과와 같다")
+    void reconcileTest() {
+        //given
+        Long groupId = tx.execute(status -> {
+            Group group = groupRepository.save(new Group("통계테스트D"));
+            idolRepository.save(new Idol("디1", 17, "남", group));
+            idolRepository.save(new Idol("디2", 22, "남", group));
+            return group.getId();
+        });
+        groupIds.add(groupId);
+
+        List<GroupAverageAgeDto> incremental = idolStatsService.getGroupAverageAges(null, null);
+        long teens = idolStatsService.getAgeGroupCounts().stream()
+                .filter(dto -> dto.getAgeGroup() == 10).findFirst().orElseThrow().getCount();
+
+        //when
+        idolStatsService.reconcile();
+
+        //then
+        assertEquals(incremental, idolStatsService.getGroupAverageAges(null, null));
+        assertEquals(teens, idolStatsService.getAgeGroupCounts().stream()
+                .filter(dto -> dto.getAgeGroup() == 10).findFirst().orElseThrow().getCount());
+    }
+
+    private Idol findIdol(String name, Long groupId) {
+        return idolRepository.findAll().stream()
+                .filter(i -> i.getIdolName().equals(name)
+                        && i.getGroup() != null && i.getGroup().getId().equals(groupId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Optional<Double> averageOf(String groupName) {
+        return idolStatsService.getGroupAverageAges(null, null).stream()
+                .filter(dto -> groupName.equals(dto.getGroupName()))
+                .map(GroupAverageAgeDto::getAverageAge)
+                .findFirst();
+    }
+}
@@ -0,0 +1,189 @@
+package com.spring.jpastudy.config.cache;
+
+import com.spring.jpastudy.chap06_querydsl.entity.Group;
+import com.spring.jpastudy.chap06_querydsl.entity.Idol;
+import com.spring.jpastudy.chap06_querydsl.repository.GroupRepository;
+import com.spring.jpastudy.chap06_querydsl.repository.IdolRepository;
+import com.spring.jpastudy.config.querycount.QueryCountHolder;
+import com.spring.jpastudy.config.querycount.QueryCountScope;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 2차 캐시에는 커밋된 데이터만 들어가므로 테스트 트랜잭션(롤백)을 쓰지 않고 직접 정리한다.
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    GroupRepository groupRepository;
+
+    @Autowired
+    IdolRepository idolRepository;
+
+    @Autowired
+    SecondLevelCacheReporter reporter;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    EntityManager em;
+
+    private final List<Long> groupIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> groupIds.forEach(groupRepository::deleteById));
+    }
+
+
+    @Test
+    @DisplayName("그룹은 한번 조회되면 다음 트랜잭션부터 쿼리 없이 캐시에서 가져온다")
+    void entityCacheHitTest() {
+        //given
+        Long groupId = saveGroup("캐시테스트", 3);
+        tx.executeWithoutResult(status -> groupRepository.findById(groupId).orElseThrow());
+
+        //when
+        QueryCountScope scope = QueryCountHolder.open("entityCacheHitTest");
+        try {
+            tx.executeWithoutResult(status -> {
+                Group group = groupRepository.findById(groupId).orElseThrow();
+                assertEquals("캐시테스트", group.getGroupName());
+            });
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then
+        assertEquals(0, scope.getTotal());
+        SecondLevelCacheReporter.RegionStats stats = regionStats(CacheRegions.GROUP);
+        assertTrue(stats.getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("컬렉션을 거치지 않고 아이돌의 그룹만 바꿔도 예전 그룹의 아이돌 목록 캐시가 갱신된다")
+    void collectionEvictionTest() {
+        //given
+        Long groupA = saveGroup("캐시테스트A", 3);
+        Long groupB = saveGroup("캐시테스트B", 0);
+        assertEquals(3, idolCountOf(groupA)); // group.idols 캐시에 적재
+
+        //when - idol.setGroup만 호출 (group.getIdols()는 건드리지 않음)
+        tx.executeWithoutResult(status -> {
+            Group target = groupRepository.findById(groupB).orElseThrow();
+            Idol idol = idolRepository.findAll().stream()
+                    .filter(i -> i.getGroup() != null && groupA.equals(i.getGroup().getId()))
+                    .findFirst().orElseThrow();
+            idol.setGroup(target);
+        });
+
+        //then
+        assertEquals(2, idolCountOf(groupA));
+        assertEquals(1, idolCountOf(groupB));
+    }
+
+    @Test
+    @DisplayName("addIdol, removeIdol로 컬렉션을 고치면 컬렉션 캐시가 갱신된다")
+    void cascadeEvictionTest() {
+        //given
+        Long groupId = saveGroup("캐시테스트C", 2);
+        assertEquals(2, idolCountOf(groupId));
+
+        //when
+        tx.executeWithoutResult(status -> {
+            Group group = groupRepository.findById(groupId).orElseThrow();
+            group.addIdol(new Idol("추가멤버", 20, "여", null));
+        });
+
+        //then
+        assertEquals(3, idolCountOf(groupId));
+
+        //when
+        tx.executeWithoutResult(status -> {
+            Group group = groupRepository.findById(groupId).orElseThrow();
+            group.removeIdol(group.getIdols().get(0));
+        });
+
+        //then
+        assertEquals(2, idolCountOf(groupId));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("그룹명 정렬 아이돌 조회 - 2차 캐시 사용 여부에 따른 쿼리 수와 소요시간 비교")
+    void foundByGroupNameBenchmark() {
+        //given
+        for (int i = 0; i < 50; i++) {
+            saveGroup("캐시벤치" + i, 20);
+        }
+        int rounds = 20;
+        runWorkload(CacheMode.NORMAL, 2); // 캐시 적재 + 워밍업
+
+        //when
+        long[] ignore = runWorkload(CacheMode.IGNORE, rounds);
+        long[] normal = runWorkload(CacheMode.NORMAL, rounds);
+
+        //then
+        System.out.printf("cache off : %d queries, %d ms%n", ignore[0], ignore[1]);
+        System.out.printf("cache on  : %d queries, %d ms%n", normal[0], normal[1]);
+        reporter.report().forEach(stats -> System.out.printf("%-13s hit ratio %.2f (hit %d / miss %d)%n",
+                stats.getRegion(), stats.getHitRatio(), stats.getHitCount(), stats.getMissCount()));
+        assertTrue(normal[0] < ignore[0]);
+    }
+
+    // {쿼리 수, 소요시간(ms)}
+    private long[] runWorkload(CacheMode mode, int rounds) {
+        QueryCountScope scope = QueryCountHolder.open("foundByGroupName-" + mode);
+        long start = System.nanoTime();
+        try {
+            for (int r = 0; r < rounds; r++) {
+                tx.executeWithoutResult(status -> {
+                    em.unwrap(Session.class).setCacheMode(mode);
+                    for (Idol idol : idolRepository.foundByGroupName()) {
+                        if (idol.getGroup() != null) {
+                            idol.getGroup().getGroupName(); // 그룹 프록시 초기화
+                        }
+                    }
+                });
+            }
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+        return new long[]{scope.getTotal(), (System.nanoTime() - start) / 1_000_000};
+    }
+
+    private Long saveGroup(String groupName, int idolCount) {
+        Long groupId = tx.execute(status -> {
+            Group group = groupRepository.save(new Group(groupName));
+            for (int i = 0; i < idolCount; i++) {
+                idolRepository.save(new Idol(groupName + "-" + i, 20 + i, "여", group));
+            }
+            return group.getId();
+        });
+        groupIds.add(groupId);
+        return groupId;
+    }
+
+    private int idolCountOf(Long groupId) {
+        return tx.execute(status -> groupRepository.findById(groupId).orElseThrow().getIdols().size());
+    }
+
+    private SecondLevelCacheReporter.RegionStats regionStats(String region) {
+        return reporter.report().stream()
+                .filter(stats -> stats.getRegion().equals(region))
+                .findFirst().orElseThrow();
+    }
+}
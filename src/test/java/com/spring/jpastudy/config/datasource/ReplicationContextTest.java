@@ -0,0 +1,100 @@
+package com.spring.jpastudy.config.datasource;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    실제 설정(ReplicationDataSourceConfig)과 JpaTransactionManager로
+    @Transactional(readOnly = true) 서비스 메서드가 복제본으로 가는지 확인
+
+    - 복제본은 주 DB와 같은 MariaDB에 접속 속성(role:replica)만 붙인 URL로 구분한다.
+      (시작할 때 읽기 전용으로 스냅샷을 만드는 빈들이 있어서 테이블이 있는 DB여야 함)
+    - 복제 지연 확인(SHOW SLAVE STATUS)은 복제본이 아니라서 실패하고 복제본을 빼버리므로 목으로 대체
+ */
+@SpringBootTest(properties = {
+        "jpastudy.replication.enabled=true",
+        "jpastudy.replication.replicas[0].name=ctx-replica",
+        "jpastudy.replication.replicas[0].url=${spring.datasource.url}?" + ReplicationContextTest.REPLICA_MARK
+})
+class ReplicationContextTest {
+
+    static final String REPLICA_MARK = "connectionAttributes=role:replica";
+
+    @MockBean
+    ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    RoutingProbe probe;
+
+
+    @Test
+    @DisplayName("읽기 전용 서비스 메서드는 복제본, 쓰기 서비스 메서드는 주 DB에서 실행된다")
+    void serviceRoutingTest() {
+        //when
+        String read = probe.readOnlyUrl();
+        String write = probe.writeUrl();
+
+        //then
+        assertTrue(read.contains(REPLICA_MARK), read);
+        assertFalse(write.contains(REPLICA_MARK), write);
+    }
+
+    @Test
+    @DisplayName("쓰기 트랜잭션 안에서 호출한 읽기 전용 메서드는 바깥 트랜잭션의 주 DB 커넥션을 그대로 쓴다")
+    void nestedReadOnlyTest() {
+        assertFalse(probe.readOnlyInsideWrite().contains(REPLICA_MARK));
+    }
+
+    @TestConfiguration
+    static class ProbeConfig {
+        @Bean
+        RoutingProbe routingProbe() {
+            return new RoutingProbe();
+        }
+    }
+
+    // 트랜잭션 안에서 하이버네이트 세션이 실제로 쓰는 커넥션의 URL
+    static class RoutingProbe {
+
+        @PersistenceContext
+        EntityManager em;
+
+        // 자기 자신의 프록시 (순환 참조 금지라 지연 주입)
+        @Autowired
+        @Lazy
+        RoutingProbe self;
+
+        @Transactional(readOnly = true)
+        public String readOnlyUrl() {
+            return url();
+        }
+
+        @Transactional
+        public String writeUrl() {
+            return url();
+        }
+
+        @Transactional
+        public String readOnlyInsideWrite() {
+            url(); // 바깥 트랜잭션에서 커넥션 획득
+            return self.readOnlyUrl();
+        }
+
+        private String url() {
+            return em.unwrap(Session.class).doReturningWork(con -> con.getMetaData().getURL());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.spring.jpastudy.config.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 주 DB 1개, 복제본 2개를 H2(MariaDB 모드) 인메모리 DB로 띄우고 어느 DB에서 쿼리가 실행됐는지 확인
+class ReplicationRoutingDataSourceTest {
+
+    private ReplicaSelector selector;
+    private ReplicationRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = node("primary");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", node("replica-1"));
+        replicas.put("replica-2", node("replica-2"));
+
+        selector = new ReplicaSelector(new ArrayList<>(replicas.keySet()), 5);
+        routing = new ReplicationRoutingDataSource(primary, replicas, selector);
+        routing.afterPropertiesSet();
+    }
+
+
+    @Test
+    @DisplayName("쓰기 트랜잭션은 주 DB, 읽기 전용 트랜잭션은 복제본을 번갈아 사용한다")
+    void routingTest() {
+        //given
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        //when
+        String write = whereAmI(dataSource, false);
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(whereAmI(dataSource, true));
+        }
+
+        //then
+        assertEquals("primary", write);
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"), reads);
+    }
+
+    @Test
+    @DisplayName("지연이 큰 복제본은 건너뛰고, 쓸 수 있는 복제본이 없으면 주 DB에서 읽는다")
+    void lagAwareTest() {
+        //given
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        selector.updateLag("replica-1", 30L);
+        selector.updateLag("replica-2", 1L);
+
+        //when
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            reads.add(whereAmI(dataSource, true));
+        }
+
+        //then
+        assertEquals(List.of("replica-2", "replica-2", "replica-2"), reads);
+
+        //when - 복제 중단
+        selector.updateLag("replica-2", null);
+
+        //then
+        assertEquals("primary", whereAmI(dataSource, true));
+    }
+
+    @Test
+    @DisplayName("LazyConnectionDataSourceProxy 없이는 readOnly가 정해지기 전에 커넥션을 얻어서 주 DB로 간다")
+    void lazyProxyRequiredTest() {
+        //when
+        String withoutProxy = whereAmI(routing, true);
+        String withProxy = whereAmI(new LazyConnectionDataSourceProxy(routing), true);
+
+        //then
+        assertEquals("primary", withoutProxy);
+        assertNotEquals("primary", withProxy);
+    }
+
+    // 트랜잭션 안에서 실제로 쿼리가 실행된 DB 이름
+    private String whereAmI(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        return tx.execute(status -> template.queryForObject("SELECT name FROM node_info", String.class));
+    }
+
+    private DataSource node(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MariaDB;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("DROP TABLE IF EXISTS node_info");
+        template.execute("CREATE TABLE node_info (name VARCHAR(20))");
+        template.update("INSERT INTO node_info VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,24 @@
+package com.spring.jpastudy.config.querycount;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    테스트 메서드 본문에서 실행될 수 있는 최대 쿼리 수
+
+    - @BeforeEach에서 실행된 쿼리는 포함하지 않는다.
+    - @Transactional 테스트에서는 flush 해야 INSERT/UPDATE가 집계된다.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface MaxQueries {
+
+    int value();
+}
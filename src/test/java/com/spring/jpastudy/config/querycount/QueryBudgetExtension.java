@@ -0,0 +1,55 @@
+package com.spring.jpastudy.config.querycount;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// @MaxQueries 예산을 넘긴 테스트를 실패시키는 확장
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE
+            = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCountScope scope = QueryCountHolder.open("test:" + context.getDisplayName());
+        context.getStore(NAMESPACE).put(context.getUniqueId(), scope);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCountScope scope = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), QueryCountScope.class);
+        if (scope == null) {
+            return;
+        }
+        QueryCountHolder.close(scope);
+
+        int budget = findBudget(context);
+        if (scope.getTotal() > budget) {
+            StringBuilder message = new StringBuilder()
+                    .append("쿼리 예산 초과: ").append(scope.getTotal())
+                    .append("개 실행 (허용: ").append(budget).append("개)");
+            for (QueryCountScope.ShapeCount shape : scope.getRepeatedShapes()) {
+                message.append("\n - ").append(shape.getCount()).append("회 @ ")
+                        .append(shape.getCallSite()).append(" : ").append(shape.getShape());
+            }
+            fail(message.toString());
+        }
+    }
+
+    private int findBudget(ExtensionContext context) {
+        Optional<MaxQueries> annotation = context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, MaxQueries.class));
+        if (annotation.isEmpty()) {
+            annotation = context.getTestClass()
+                    .flatMap(type -> AnnotationSupport.findAnnotation(type, MaxQueries.class));
+        }
+        return annotation.map(MaxQueries::value).orElse(Integer.MAX_VALUE);
+    }
+}
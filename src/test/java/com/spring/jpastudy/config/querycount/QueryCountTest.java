@@ -0,0 +1,105 @@
+package com.spring.jpastudy.config.querycount;
+
+import com.spring.jpastudy.chap04_relation.entity.Department;
+import com.spring.jpastudy.chap04_relation.entity.Employee;
+import com.spring.jpastudy.chap04_relation.repository.DepartmentRepository;
+import com.spring.jpastudy.chap04_relation.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryCountTest {
+
+    @Autowired
+    DepartmentRepository departmentRepository;
+
+    @Autowired
+    EmployeeRepository employeeRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        for (int j = 1; j <= 5; j++) {
+            Department dept = Department.builder()
+                    .name("테스트부서" + j)
+                    .build();
+            departmentRepository.save(dept);
+
+            for (int i = 1; i <= 3; i++) {
+                employeeRepository.save(Employee.builder()
+                        .name("테스트사원" + i)
+                        .department(dept)
+                        .build());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+
+    @Test
+    @DisplayName("파라미터만 다른 SQL은 같은 모양으로 정규화된다")
+    void normalizeTest() {
+        String a = SqlShape.normalize("select * from tbl_emp where dept_id in (?, ?)  and emp_name = 'a'");
+        String b = SqlShape.normalize("select * from tbl_emp where dept_id in (?,?,?) and emp_name = 'b'");
+
+        assertEquals(a, b);
+    }
+
+    @Test
+    @DisplayName("IN 목록이나 문자열이 아주 길어도 정규화된다")
+    void normalizeLongTest() {
+        String in = "select * from tbl_emp where dept_id in (?" + ", ?".repeat(50_000) + ")";
+        String literal = "select * from tbl_emp where emp_name = '" + "a".repeat(50_000) + "'";
+
+        assertEquals("select * from tbl_emp where dept_id in (?)", SqlShape.normalize(in));
+        assertEquals("select * from tbl_emp where emp_name = ?", SqlShape.normalize(literal));
+    }
+
+
+    @Test
+    @DisplayName("부서별 사원목록을 지연로딩하면 N+1 의심 쿼리로 탐지된다")
+    void detectNPlusOneTest() {
+        //given
+        QueryCountScope scope = QueryCountHolder.open("nPlusOne");
+
+        //when
+        try {
+            List<Department> departments = departmentRepository.findAll();
+            for (Department dept : departments) {
+                dept.getEmployees().size();
+            }
+        } finally {
+            QueryCountHolder.close(scope);
+        }
+
+        //then
+        List<QueryCountScope.ShapeCount> repeated = scope.getRepeatedShapes();
+        assertFalse(repeated.isEmpty());
+        assertTrue(repeated.get(0).getCallSite().contains("QueryCountTest"));
+    }
+
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("fetch join을 쓰면 쿼리 1개로 조회된다")
+    void fetchJoinBudgetTest() {
+        List<Department> departments = departmentRepository.getFetchEmployees();
+
+        for (Department dept : departments) {
+            assertFalse(dept.getEmployees().isEmpty());
+        }
+    }
+}
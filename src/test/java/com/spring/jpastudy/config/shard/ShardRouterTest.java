@@ -0,0 +1,74 @@
+package com.spring.jpastudy.config.shard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    private static final int USERS = 100_000;
+
+    @Test
+    @DisplayName("같은 회원은 항상 같은 샤드로 가고 샤드마다 고르게 나뉜다")
+    void distributionTest() {
+        //given
+        ShardRouter router = new ShardRouter(4);
+        int[] counts = new int[4];
+
+        //when
+        for (long userId = 1; userId <= USERS; userId++) {
+            int shard = router.shardOf(userId);
+            assertEquals(shard, new ShardRouter(4).shardOf(userId));
+            counts[shard]++;
+        }
+
+        //then - 샤드마다 25% ± 2%
+        for (int count : counts) {
+            assertEquals(USERS / 4.0, count, USERS * 0.02);
+        }
+    }
+
+    @Test
+    @DisplayName("샤드를 N개에서 N+1개로 늘리면 약 1/(N+1)의 회원만 새 샤드로 옮겨진다")
+    void growthTest() {
+        //given
+        ShardRouter before = new ShardRouter(4);
+        ShardRouter after = new ShardRouter(5);
+
+        //when
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            int from = before.shardOf(userId);
+            int to = after.shardOf(userId);
+            if (from != to) {
+                assertEquals(4, to); // 기존 샤드끼리는 옮겨지지 않음
+                moved++;
+            }
+        }
+
+        //then
+        assertEquals(USERS / 5.0, moved, USERS * 0.02);
+    }
+
+    @Test
+    @DisplayName("전체 id에서 샤드 번호와 샤드 안의 id를 되찾을 수 있고, 커서는 샤드 안의 상한으로 바뀐다")
+    void globalIdTest() {
+        //given
+        ShardRouter router = new ShardRouter(3);
+
+        //when
+        long id = router.globalId(2, 12345L);
+
+        //then
+        assertEquals(2, router.shardOfId(id));
+        assertEquals(12345L, router.localId(id));
+
+        // 커서보다 작은 전체 id ⇔ 샤드 안의 id가 상한 이하
+        assertEquals(12344L, router.localCursor(2, id));
+        assertEquals(12345L, router.localCursor(1, id));
+        assertEquals(12345L, router.localCursor(2, id + 1));
+        assertEquals(Long.MAX_VALUE, router.localCursor(0, null));
+        assertThrows(IllegalArgumentException.class, () -> new ShardRouter(0));
+    }
+}
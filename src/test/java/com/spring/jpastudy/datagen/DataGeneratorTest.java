@@ -0,0 +1,215 @@
+package com.spring.jpastudy.datagen;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 작업 단위마다 커밋하므로 테스트 트랜잭션(롤백)을 쓰지 않고 생성한 범위를 직접 지운다.
+@SpringBootTest(properties = "decorator.datasource.p6spy.enable-logging=false")
+class DataGeneratorTest {
+
+    @Autowired
+    DataGenerator dataGenerator;
+
+    @Autowired
+    JdbcTemplate template;
+
+    private final List<DataGenerator.Result> generated = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        generated.forEach(this::delete);
+    }
+
+
+    @Test
+    @DisplayName("같은 seed면 스레드 수, 청크 크기와 관계없이 같은 데이터가 만들어진다")
+    void deterministicTest() {
+        //given
+        DataGenProperties small = smallSpec();
+        small.setThreads(3);
+        small.setRowsPerStatement(7);
+        small.setChunkRows(64);
+
+        DataGenProperties single = smallSpec();
+        single.setThreads(1);
+        single.setRowsPerStatement(1000);
+        single.setChunkRows(10_000);
+
+        //when
+        DataGenerator.Result first = generate(small);
+        List<String> firstPrint = fingerprint(first);
+        delete(first);
+        generated.clear();
+        DataGenerator.Result second = generate(single);
+
+        //then
+        assertEquals(first.getRows(), second.getRows());
+        assertEquals(2_000L, second.getRows().get("tbl_mtm_purchase").longValue());
+        assertEquals(firstPrint, fingerprint(second));
+
+        //when - 다른 seed
+        delete(second);
+        generated.clear();
+        DataGenProperties other = smallSpec();
+        other.setSeed(7);
+        DataGenerator.Result third = generate(other);
+
+        //then
+        assertNotEquals(firstPrint, fingerprint(third));
+    }
+
+    @Test
+    @DisplayName("인기 상품과 큰 그룹에 행이 쏠리고 비정규화 데이터가 함께 계산된다")
+    void skewAndDerivedTest() {
+        //given
+        DataGenProperties spec = smallSpec();
+
+        //when
+        DataGenerator.Result result = generate(spec);
+        long goodsFirst = result.getFirstIds().get("tbl_mtm_goods");
+        long groupFirst = result.getFirstIds().get("tbl_group");
+        long purchaseFirst = result.getFirstIds().get("tbl_mtm_purchase");
+        long userFirst = result.getFirstIds().get("tbl_mtm_user");
+
+        //then - Zipf: 1위 상품은 20위 상품의 약 20배, 1위 그룹은 10위 그룹의 약 12배
+        long top = count("SELECT COUNT(*) FROM tbl_mtm_purchase WHERE goods_id = ?", goodsFirst);
+        long tail = count("SELECT COUNT(*) FROM tbl_mtm_purchase WHERE goods_id = ?", goodsFirst + 19);
+        assertTrue(top > tail * 5, "top=" + top + ", tail=" + tail);
+
+        long biggest = count("SELECT COUNT(*) FROM tbl_idol WHERE group_id = ?", groupFirst);
+        long smallest = count("SELECT COUNT(*) FROM tbl_idol WHERE group_id = ?", groupFirst + 9);
+        assertTrue(biggest > smallest * 3, "biggest=" + biggest + ", smallest=" + smallest);
+
+        // 구매 시각은 id 순서대로 기준일 이전 days일 안에 있음
+        List<Timestamp> times = template.queryForList(
+                "SELECT purchased_at FROM tbl_mtm_purchase WHERE purchase_id >= ? ORDER BY purchase_id",
+                Timestamp.class, purchaseFirst);
+        for (int i = 1; i < times.size(); i++) {
+            assertFalse(times.get(i).before(times.get(i - 1)));
+        }
+        assertFalse(times.get(0).toLocalDateTime().isBefore(spec.getReferenceDate().minusDays(spec.getDays()).atStartOfDay()));
+        assertTrue(times.get(times.size() - 1).toLocalDateTime().isBefore(spec.getReferenceDate().atStartOfDay()));
+
+        // 상품 구매 수, 회원 구매 요약, 그룹 최신 앨범
+        assertEquals(2_000L, count("SELECT COALESCE(SUM(purchase_count), 0) FROM tbl_mtm_goods WHERE goods_id >= ?", goodsFirst));
+        assertEquals(2_000L, count("SELECT COALESCE(SUM(purchase_count), 0) FROM tbl_user_purchase_summary WHERE user_id >= ?", userFirst));
+        assertEquals(0L, count("SELECT COUNT(*) FROM tbl_group g WHERE g.group_id >= ? AND g.latest_album_id IS NULL " +
+                "AND EXISTS (SELECT 1 FROM tbl_album a WHERE a.group_id = g.group_id)", groupFirst));
+
+        // 학생 id는 seed 접두사 + 번호
+        assertEquals(20L, count("SELECT COUNT(*) FROM tbl_student WHERE stu_id LIKE ?", result.getStudentIdPrefix() + "%"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("100만 행 생성 속도")
+    void throughputBenchmark() {
+        //given
+        DataGenProperties spec = smallSpec();
+        spec.setThreads(Runtime.getRuntime().availableProcessors());
+        spec.setUsers(100_000);
+        spec.setGoods(10_000);
+        spec.setPurchases(800_000);
+        spec.setEmployees(100_000);
+
+        //when
+        DataGenerator.Result result = generate(spec);
+
+        //then
+        System.out.printf("rows=%,d elapsed=%,dms rows/sec=%,d threads=%d%n",
+                result.getTotalRows(), result.getElapsedMillis(), result.getRowsPerSecond(), spec.getThreads());
+        assertEquals(800_000L, result.getRows().get("tbl_mtm_purchase").longValue());
+    }
+
+    private DataGenProperties smallSpec() {
+        DataGenProperties spec = new DataGenProperties();
+        spec.setThreads(2);
+        spec.setRowsPerStatement(50);
+        spec.setChunkRows(500);
+        spec.setReferenceDate(LocalDate.of(2025, 1, 1));
+        spec.setStudents(20);
+        spec.setProducts(20);
+        spec.setDepartments(5);
+        spec.setEmployees(200);
+        spec.setUsers(50);
+        spec.setGoods(20);
+        spec.setPurchases(2_000);
+        spec.setGroups(10);
+        spec.setIdols(2_000);
+        spec.setAlbums(30);
+        spec.setEvents(20);
+        return spec;
+    }
+
+    private DataGenerator.Result generate(DataGenProperties spec) {
+        DataGenerator.Result result = dataGenerator.generate(spec);
+        generated.add(result);
+        return result;
+    }
+
+    // 생성된 값 (id는 시작 위치 기준 상대값)
+    private List<String> fingerprint(DataGenerator.Result result) {
+        long user = result.getFirstIds().get("tbl_mtm_user");
+        long goods = result.getFirstIds().get("tbl_mtm_goods");
+        long group = result.getFirstIds().get("tbl_group");
+        long dept = result.getFirstIds().get("tbl_dept");
+        List<String> rows = new ArrayList<>();
+        rows.addAll(template.query(
+                "SELECT user_id, goods_id, purchased_at FROM tbl_mtm_purchase WHERE purchase_id >= ? ORDER BY purchase_id",
+                (rs, i) -> (rs.getLong(1) - user) + "/" + (rs.getLong(2) - goods) + "/" + rs.getTimestamp(3),
+                result.getFirstIds().get("tbl_mtm_purchase")));
+        rows.addAll(template.query(
+                "SELECT idol_name, age, gender, group_id FROM tbl_idol WHERE idol_id >= ? ORDER BY idol_id",
+                (rs, i) -> rs.getString(1) + "/" + rs.getInt(2) + "/" + rs.getString(3) + "/" + (rs.getLong(4) - group),
+                result.getFirstIds().get("tbl_idol")));
+        rows.addAll(template.query(
+                "SELECT dept_id FROM tbl_emp WHERE emp_id >= ? ORDER BY emp_id",
+                (rs, i) -> String.valueOf(rs.getLong(1) - dept),
+                result.getFirstIds().get("tbl_emp")));
+        rows.addAll(template.query(
+                "SELECT prod_nm, price, category, created_at FROM tbl_product WHERE prod_id >= ? ORDER BY prod_id",
+                (rs, i) -> rs.getString(1) + "/" + rs.getInt(2) + "/" + rs.getString(3) + "/" + rs.getTimestamp(4),
+                result.getFirstIds().get("tbl_product")));
+        rows.addAll(template.query(
+                "SELECT stu_name, city, major FROM tbl_student WHERE stu_id LIKE ? ORDER BY stu_id",
+                (rs, i) -> rs.getString(1) + "/" + rs.getString(2) + "/" + rs.getString(3),
+                result.getStudentIdPrefix() + "%"));
+        return rows;
+    }
+
+    // 자식 테이블부터 생성 범위 삭제
+    private void delete(DataGenerator.Result result) {
+        long group = result.getFirstIds().get("tbl_group");
+        template.update("UPDATE tbl_group SET latest_album_id = NULL WHERE group_id >= ?", group);
+        template.update("DELETE FROM tbl_album WHERE album_id >= ?", result.getFirstIds().get("tbl_album"));
+        template.update("DELETE FROM tbl_idol WHERE idol_id >= ?", result.getFirstIds().get("tbl_idol"));
+        template.update("DELETE FROM tbl_mtm_purchase WHERE purchase_id >= ?", result.getFirstIds().get("tbl_mtm_purchase"));
+        template.update("DELETE FROM tbl_user_purchase_summary WHERE user_id >= ?", result.getFirstIds().get("tbl_mtm_user"));
+        template.update("DELETE FROM tbl_emp WHERE emp_id >= ?", result.getFirstIds().get("tbl_emp"));
+        template.update("DELETE FROM tbl_group WHERE group_id >= ?", group);
+        template.update("DELETE FROM tbl_mtm_goods WHERE goods_id >= ?", result.getFirstIds().get("tbl_mtm_goods"));
+        template.update("DELETE FROM tbl_mtm_user WHERE user_id >= ?", result.getFirstIds().get("tbl_mtm_user"));
+        template.update("DELETE FROM tbl_dept WHERE dept_id >= ?", result.getFirstIds().get("tbl_dept"));
+        template.update("DELETE FROM tbl_product WHERE prod_id >= ?", result.getFirstIds().get("tbl_product"));
+        template.update("DELETE FROM tbl_event WHERE ev_id >= ?", result.getFirstIds().get("tbl_event"));
+        template.update("DELETE FROM tbl_student WHERE stu_id LIKE ?", result.getStudentIdPrefix() + "%");
+        template.update("DELETE FROM tbl_student_gram WHERE stu_id LIKE ?", result.getStudentIdPrefix() + "%");
+    }
+
+    private long count(String sql, Object... args) {
+        Long count = template.queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,129 @@
+package com.spring.jpastudy.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    @Test
+    @DisplayName("희소/밀집 구간이 섞인 집합의 AND, OR, ANDNOT 결과가 TreeSet 연산 결과와 같다")
+    void setOperationTest() {
+        //given
+        SplittableRandom random = new SplittableRandom(1);
+        TreeSet<Long> expectedA = new TreeSet<>();
+        TreeSet<Long> expectedB = new TreeSet<>();
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+
+        // 0~65535 구간은 밀집(비트맵 컨테이너), 나머지는 희소(배열 컨테이너), 부호 없는 큰 값 포함
+        for (int i = 0; i < 30_000; i++) {
+            long dense = random.nextInt(65_536);
+            long sparse = random.nextLong(0xFFFFFFFFL);
+            add(a, expectedA, random.nextBoolean() ? dense : sparse);
+            add(b, expectedB, random.nextBoolean() ? random.nextInt(65_536) : random.nextLong(0xFFFFFFFFL));
+        }
+        // 삭제로 비트맵 → 배열 전환
+        for (int i = 0; i < 20_000; i++) {
+            long value = random.nextInt(65_536);
+            a.remove((int) value);
+            expectedA.remove(value);
+        }
+
+        //when
+        RoaringBitmap and = RoaringBitmap.and(a, b);
+        RoaringBitmap or = RoaringBitmap.or(a, b);
+        RoaringBitmap andNot = RoaringBitmap.andNot(a, b);
+
+        //then
+        TreeSet<Long> expectedAnd = new TreeSet<>(expectedA);
+        expectedAnd.retainAll(expectedB);
+        TreeSet<Long> expectedOr = new TreeSet<>(expectedA);
+        expectedOr.addAll(expectedB);
+        TreeSet<Long> expectedAndNot = new TreeSet<>(expectedA);
+        expectedAndNot.removeAll(expectedB);
+
+        assertEquals(new ArrayList<>(expectedA), values(a));
+        assertEquals(new ArrayList<>(expectedAnd), values(and));
+        assertEquals(new ArrayList<>(expectedOr), values(or));
+        assertEquals(new ArrayList<>(expectedAndNot), values(andNot));
+        assertEquals(expectedOr.size(), or.cardinality());
+        assertTrue(a.contains((int) (long) expectedA.last()));
+    }
+
+    @Test
+    @DisplayName("마지막 원소를 지우면 빈 집합이 된다")
+    void removeAllTest() {
+        //given
+        RoaringBitmap bitmap = RoaringBitmap.of(1, 70_000, -1);
+
+        //when
+        bitmap.remove(1);
+        bitmap.remove(70_000);
+        bitmap.remove(-1);
+
+        //then
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.cardinality());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("회원 100만명, 상품 5만개, 구매 1000만건 규모의 메모리 사용량과 연산 시간")
+    void footprintBenchmark() {
+        //given - 회원번호는 연속, 인기 상품일수록 구매자가 많음
+        int users = 1_000_000;
+        int catalog = 50_000;
+        int purchases = 10_000_000;
+        SplittableRandom random = new SplittableRandom(3);
+        LongObjectHashMap<RoaringBitmap> index = new LongObjectHashMap<>(catalog);
+
+        //when
+        long start = System.nanoTime();
+        for (int i = 0; i < purchases; i++) {
+            long goodsId = 1 + (long) (catalog * Math.pow(random.nextDouble(), 3));
+            index.computeIfAbsent(goodsId, id -> new RoaringBitmap()).add(1 + random.nextInt(users));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long[] totals = {index.estimatedBytes(), 0};
+        index.forEach((goodsId, bitmap) -> {
+            totals[0] += bitmap.estimatedBytes();
+            totals[1] += bitmap.cardinality();
+        });
+
+        RoaringBitmap top1 = index.get(1);
+        RoaringBitmap top2 = index.get(2);
+        int rounds = 1_000;
+        start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += RoaringBitmap.and(top1, top2).cardinality();
+        }
+        long andMicros = (System.nanoTime() - start) / 1_000 / rounds;
+
+        //then
+        System.out.printf("goods=%,d entries=%,d build=%,dms estimated=%,dMB (%.2f bytes/entry, long pair=16) AND(top1, top2)=%dus%n",
+                index.size(), totals[1], buildMillis, totals[0] / (1024 * 1024),
+                (double) totals[0] / totals[1], andMicros);
+        assertTrue(sink > 0);
+    }
+
+    private void add(RoaringBitmap bitmap, TreeSet<Long> expected, long value) {
+        bitmap.add((int) value);
+        expected.add(value);
+    }
+
+    private List<Long> values(RoaringBitmap bitmap) {
+        List<Long> values = new ArrayList<>();
+        bitmap.forEach(value -> values.add(Integer.toUnsignedLong(value)));
+        return values;
+    }
+}